@@ -0,0 +1,205 @@
+package projetoesdarvores;
+
+import aesd.ds.interfaces.List;
+import br.com.davidbuzatto.jsge.core.engine.EngineFrame;
+import java.util.Random;
+import projetoesdarvores.esd.ArvoreB;
+import projetoesdarvores.esd.BufferEventosEstruturais;
+import projetoesdarvores.utils.ReprodutorEventos;
+
+/**
+ * Simulador de árvores B:
+ *     Simula as operações de inserir e remover chaves.
+ *
+ * Cada passo estrutural de put e delete, como divisões, fusões e empréstimos
+ * entre irmãos, é gravado por um ouvinte da árvore e reproduzido passo a
+ * passo, ao lado do estado resultante. Os nós que contêm a chave do passo
+ * atual ficam destacados.
+ *
+ * Controles:
+ *     I: insere uma chave aleatória;
+ *     R: remove uma chave aleatória;
+ *     C: esvazia a árvore;
+ *     Espaço: conclui a reprodução dos passos pendentes.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class SimuladorAB extends EngineFrame {
+
+    private static final long serialVersionUID = 1L;
+    
+    private static final int LIMITE_CHAVES = 100;
+    private static final int CAPACIDADE_PASSOS = 1024;
+    
+    // quantidade de chaves cujas folhas ainda cabem lado a lado na janela
+    private static final int MAXIMO_CHAVES = 30;
+    
+    // ordem pequena, para que divisões e fusões aconteçam com poucas chaves
+    private static final int ORDEM = 4;
+    
+    // tempo, em segundos, entre dois passos reproduzidos
+    private static final double INTERVALO_PASSO = 0.5;
+    
+    private static final double LARGURA_CHAVE = 20;
+    private static final double ALTURA_NO = 22;
+    private static final double ESPACO_NOS = 6;
+    private static final double ESPACO_NIVEIS = 60;
+    
+    private ArvoreB<Integer, String> arvore;
+    private ReprodutorEventos reprodutor;
+    private Random aleatorio;
+    
+    public SimuladorAB() {
+        super( 1000, 600, "Simulador de Árvores B", 60, true );
+    }
+    
+    @Override
+    public void create() {
+        BufferEventosEstruturais buffer = new BufferEventosEstruturais( CAPACIDADE_PASSOS );
+        arvore = new ArvoreB<>( ORDEM );
+        arvore.setOuvinte( buffer );
+        reprodutor = new ReprodutorEventos( buffer, INTERVALO_PASSO );
+        aleatorio = new Random();
+        arvore.put( 5, "cinco" );
+        arvore.put( 2, "dois" );
+        arvore.put( 10, "dez" );
+        arvore.put( 15, "quinze" );
+        arvore.put( 12, "doze" );
+        arvore.put( 1, "um" );
+        arvore.put( 3, "três" );
+    }
+    
+    @Override
+    public void update( double delta ) {
+        
+        if ( isKeyPressed( KEY_I ) && arvore.getSize() < MAXIMO_CHAVES ) {
+            int chave;
+            do {
+                chave = aleatorio.nextInt( LIMITE_CHAVES );
+            } while ( arvore.contains( chave ) );
+            arvore.put( chave, String.valueOf( chave ) );
+        }
+        
+        if ( isKeyPressed( KEY_R ) && !arvore.isEmpty() ) {
+            int i = aleatorio.nextInt( arvore.getSize() );
+            for ( Integer chave : arvore ) {
+                if ( i-- == 0 ) {
+                    arvore.delete( chave );
+                    break;
+                }
+            }
+        }
+        
+        if ( isKeyPressed( KEY_C ) ) {
+            arvore.clear();
+        }
+        
+        if ( isKeyPressed( KEY_SPACE ) ) {
+            reprodutor.concluir();
+        }
+        
+        reprodutor.atualizar( delta );
+        
+    }
+    
+    @Override
+    public void draw() {
+        
+        reprodutor.desenhar( this, 10, 20 );
+        
+        drawText( reprodutor.isReproduzindo() ? "árvore após a operação:" : "árvore:", 280, 20, 14, BLACK );
+        
+        List<List<ArvoreB.Node<Integer, String>>> niveis = arvore.coletarParaDesenho();
+        
+        if ( niveis.isEmpty() ) {
+            drawText( "vazia", 280, 40, 14, DARKGRAY );
+            return;
+        }
+        
+        double[][] xs = calcularPosicoes( niveis );
+        Object atual = reprodutor.getChaveAtual();
+        
+        for ( int nivel = 0; nivel < niveis.getSize(); nivel++ ) {
+            
+            List<ArvoreB.Node<Integer, String>> nos = niveis.get( nivel );
+            double y = 40 + nivel * ESPACO_NIVEIS;
+            int filho = 0;
+            
+            for ( int i = 0; i < nos.getSize(); i++ ) {
+                
+                ArvoreB.Node<Integer, String> no = nos.get( i );
+                double x = xs[nivel][i];
+                
+                // uma aresta sai da divisa de cada par de chaves do nó
+                if ( !no.isLeaf() ) {
+                    for ( int j = 0; j <= no.getKeyCount(); j++ ) {
+                        drawLine( x + j * LARGURA_CHAVE, y + ALTURA_NO,
+                                xs[nivel+1][filho] + largura( niveis.get( nivel + 1 ).get( filho ) ) / 2,
+                                y + ESPACO_NIVEIS, DARKGRAY );
+                        filho++;
+                    }
+                }
+                
+                boolean destacado = false;
+                for ( int j = 0; j < no.getKeyCount(); j++ ) {
+                    destacado |= no.getKey( j ).equals( atual );
+                }
+                
+                fillRectangle( x, y, largura( no ), ALTURA_NO, WHITE );
+                for ( int j = 0; j < no.getKeyCount(); j++ ) {
+                    drawRectangle( x + j * LARGURA_CHAVE, y, LARGURA_CHAVE, ALTURA_NO, destacado ? RED : BLACK );
+                    drawText( String.valueOf( no.getKey( j ) ), x + j * LARGURA_CHAVE + 3, y + 6, 12, BLACK );
+                }
+                
+            }
+            
+        }
+        
+    }
+    
+    /*
+     * Calcula a coordenada x do canto esquerdo de cada nó. As folhas ficam
+     * lado a lado e cada nó interno fica centralizado sobre os seus filhos,
+     * que são consecutivos no nível de baixo.
+     */
+    private double[][] calcularPosicoes( List<List<ArvoreB.Node<Integer, String>>> niveis ) {
+        
+        int altura = niveis.getSize();
+        double[][] xs = new double[altura][];
+        
+        List<ArvoreB.Node<Integer, String>> folhas = niveis.get( altura - 1 );
+        xs[altura-1] = new double[folhas.getSize()];
+        double x = 280;
+        for ( int i = 0; i < folhas.getSize(); i++ ) {
+            xs[altura-1][i] = x;
+            x += largura( folhas.get( i ) ) + ESPACO_NOS;
+        }
+        
+        for ( int nivel = altura - 2; nivel >= 0; nivel-- ) {
+            List<ArvoreB.Node<Integer, String>> nos = niveis.get( nivel );
+            List<ArvoreB.Node<Integer, String>> abaixo = niveis.get( nivel + 1 );
+            xs[nivel] = new double[nos.getSize()];
+            int filho = 0;
+            for ( int i = 0; i < nos.getSize(); i++ ) {
+                ArvoreB.Node<Integer, String> no = nos.get( i );
+                int ultimo = filho + no.getKeyCount();
+                double inicio = xs[nivel+1][filho];
+                double fim = xs[nivel+1][ultimo] + largura( abaixo.get( ultimo ) );
+                xs[nivel][i] = ( inicio + fim - largura( no ) ) / 2;
+                filho = ultimo + 1;
+            }
+        }
+        
+        return xs;
+        
+    }
+    
+    private static double largura( ArvoreB.Node<Integer, String> no ) {
+        return Math.max( 1, no.getKeyCount() ) * LARGURA_CHAVE;
+    }
+    
+    public static void main( String[] args ) {
+        new SimuladorAB();
+    }
+
+}
@@ -1,33 +1,75 @@
 package projetoesdarvores;
 
-import aesd.ds.interfaces.List;
-import br.com.davidbuzatto.jsge.collision.CollisionUtils;
+import br.com.davidbuzatto.jsge.core.Camera2D;
 import br.com.davidbuzatto.jsge.core.engine.EngineFrame;
-import br.com.davidbuzatto.jsge.math.Vector2;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 import projetoesdarvores.esd.ArvoreBinariaBusca;
+import projetoesdarvores.utils.GeometriaDesenho;
+import projetoesdarvores.utils.InstantaneoDesenho;
 
 /**
  * Simulador de árvores binárias de busca:
  *     Simula as operações de inserir e remover chaves;
  *     Simula os percursos (pré-ordem, em ordem, pós-ordem e em nível).
- * 
+ *
+ * A árvore só é alterada por uma thread de mutações, que ao fim de cada
+ * alteração publica um instantâneo imutável para desenho. O laço do motor
+ * lê o instantâneo mais recente uma única vez por quadro e nunca toca nos
+ * nós da árvore, então alterações longas não travam nem corrompem o
+ * desenho.
+ *
+ * O desenho usa uma câmera com zoom e deslocamento e considera apenas os
+ * nós e arestas visíveis. Com zoom muito afastado, os níveis são desenhados
+ * como barras de densidade em vez de círculos.
+ *
+ * Controles:
+ *     I: insere um lote de chaves aleatórias;
+ *     Roda do mouse: zoom centrado no cursor;
+ *     Botão direito arrastado ou setas: desloca a câmera;
+ *     Home: volta a câmera à posição inicial.
+ *
  * @author Prof. Dr. David Buzatto
  */
 public class SimuladorABB extends EngineFrame {
+
+    // quantidade de chaves inseridas pela tecla I
+    private static final int TAMANHO_LOTE = 100_000;
+    private static final int LIMITE_CHAVES = 1_000_000;
+    
+    private static final double ZOOM_MINIMO = 0.0001;
+    private static final double ZOOM_MAXIMO = 8;
+    
+    // largura, em pixels, das barras de densidade
+    private static final int LARGURA_FAIXA = 4;
     
+    // acessada apenas pela thread de mutações depois de create()
     private ArvoreBinariaBusca<Integer, String> arvore;
-    private List<ArvoreBinariaBusca.Node<Integer, String>> nos;
-    private int margemCima;
-    private int margemEsquerda;
-    private int raio;
-    private int espacamento;
+    private long versao;
+    
+    private ExecutorService mutacoes;
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private volatile InstantaneoDesenho<Integer> instantaneo;
+    
+    private GeometriaDesenho geometria;
+    
+    private Camera2D camera;
+    private int mouseXAnterior;
+    private int mouseYAnterior;
+    
+    // posição do nó sob o cursor ou -1 e o instantâneo em que ela foi
+    // calculada, atualizados a cada quadro
+    private int noSobCursor = -1;
+    private InstantaneoDesenho<Integer> instantaneoCursor;
     
     public SimuladorABB() {
         super( 800, 600, "Simulador de Árvores Binárias de Busca", 60, true );
     }
-
+    
     @Override
     public void create() {
         arvore = new ArvoreBinariaBusca<>();
@@ -38,61 +80,254 @@ public class SimuladorABB extends EngineFrame {
         arvore.put( 12, "doze" );
         arvore.put( 1, "um" );
         arvore.put( 3, "três" );
-        nos = arvore.coletarParaDesenho();
-        margemCima = 100;
-        margemEsquerda = 50;
-        raio = 20;
-        espacamento = 50;
+        publicar();
+        mutacoes = Executors.newSingleThreadExecutor( r -> {
+            Thread t = new Thread( r, "mutacoes-abb" );
+            t.setDaemon( true );
+            return t;
+        });
+        geometria = new GeometriaDesenho( 50, 100, 50, 20 );
+        camera = new Camera2D();
     }
-
+    
     @Override
     public void update( double delta ) {
+        
+        InstantaneoDesenho<Integer> inst = instantaneo;
+        
+        int mouseX = getMouseX();
+        int mouseY = getMouseY();
+        
+        // zoom centrado no cursor: o ponto do mundo sob o cursor continua
+        // sob o cursor depois da mudança de escala
+        double roda = getMouseWheelMove();
+        if ( roda != 0 ) {
+            double zoom = Math.max( ZOOM_MINIMO, Math.min( ZOOM_MAXIMO, camera.zoom * Math.pow( 1.15, roda ) ) );
+            GeometriaDesenho.aplicarZoom( camera, mouseX, mouseY, zoom );
+        }
+        
+        // deslocamento arrastando com o botão direito ou com as setas
+        if ( isMouseButtonDown( MOUSE_BUTTON_RIGHT ) ) {
+            camera.target.x -= ( mouseX - mouseXAnterior ) / camera.zoom;
+            camera.target.y -= ( mouseY - mouseYAnterior ) / camera.zoom;
+        }
+        double passo = 600 * delta / camera.zoom;
+        if ( isKeyDown( KEY_LEFT ) ) {
+            camera.target.x -= passo;
+        }
+        if ( isKeyDown( KEY_RIGHT ) ) {
+            camera.target.x += passo;
+        }
+        if ( isKeyDown( KEY_UP ) ) {
+            camera.target.y -= passo;
+        }
+        if ( isKeyDown( KEY_DOWN ) ) {
+            camera.target.y += passo;
+        }
+        if ( isKeyPressed( KEY_HOME ) ) {
+            reiniciarCamera();
+        }
+        
+        mouseXAnterior = mouseX;
+        mouseYAnterior = mouseY;
+        
+        noSobCursor = geometria.isDetalheReduzido( camera.zoom ) ? -1 : geometria.localizarNo( inst, mundoX( mouseX ), mundoY( mouseY ) );
+        instantaneoCursor = inst;
+        
+        if ( isMouseButtonPressed( MOUSE_BUTTON_LEFT ) && noSobCursor != -1 ) {
+            Integer chave = inst.getChave( noSobCursor );
+            SwingUtilities.invokeLater( () -> {
+                int opcao = JOptionPane.showConfirmDialog(
+                        this,
+                        "Remover o nó " + chave + "?",
+                        "Confirmação",
+                        JOptionPane.YES_NO_OPTION );
+                if ( opcao == JOptionPane.YES_OPTION ) {
+                    alterar( () -> arvore.delete( chave ) );
+                }
+            });
+        }
+        
+        if ( isKeyPressed( KEY_I ) ) {
+            alterar( () -> inserirLote( TAMANHO_LOTE ) );
+        }
+        
+    }
     
-        Vector2 mousePos = getMousePositionPoint();
+    @Override
+    public void draw() {
+        
+        InstantaneoDesenho<Integer> inst = instantaneo;
+        
+        // retângulo do mundo visível na tela
+        double esquerda = mundoX( 0 );
+        double direita = mundoX( getScreenWidth() );
+        double cima = mundoY( 0 );
+        double baixo = mundoY( getScreenHeight() );
+        
+        // o ranque é a posição em ordem, então os nós visíveis na horizontal
+        // formam um intervalo contíguo do instantâneo
+        int primeiro = geometria.primeiroVisivel( esquerda );
+        int ultimo = geometria.ultimoVisivel( inst, direita );
+        int nivelMinimo = geometria.nivelMinimoVisivel( cima );
+        int nivelMaximo = geometria.nivelMaximoVisivel( inst, baixo );
+        
+        beginMode2D( camera );
         
-        if ( isMouseButtonPressed( MOUSE_BUTTON_LEFT ) ) {
+        if ( geometria.isDetalheReduzido( camera.zoom ) ) {
+            desenharDensidade( inst, esquerda, nivelMinimo, nivelMaximo );
+        } else if ( primeiro <= ultimo ) {
             
-            for ( ArvoreBinariaBusca.Node<Integer, String> no : nos ) {
-
-                Vector2 centro = new Vector2( 
-                    espacamento * no.ranque + margemEsquerda, 
-                    espacamento * no.nivel + margemCima
-                );
-
-                if ( CollisionUtils.checkCollisionPointCircle( mousePos, centro, raio ) ) {
-                    SwingUtilities.invokeLater( () -> {
-                        int opcao = JOptionPane.showConfirmDialog( 
-                                this, 
-                                "Remover o nó " + no.key + "?",
-                                "Confirmação", 
-                                JOptionPane.YES_NO_OPTION );
-                        if ( opcao == JOptionPane.YES_OPTION ) {
-                            arvore.delete( no.key );
-                            nos = arvore.coletarParaDesenho();
-                        }
-                    });
+            for ( int i = primeiro; i <= ultimo; i++ ) {
+                desenharAresta( inst, i );
+            }
+            
+            // arestas que cruzam a tela com o filho fora dela pertencem aos
+            // ancestrais dos vizinhos imediatos do intervalo visível
+            desenharArestasExternas( inst, primeiro - 1, primeiro, ultimo );
+            desenharArestasExternas( inst, ultimo + 1, primeiro, ultimo );
+            
+            for ( int i = primeiro; i <= ultimo; i++ ) {
+                int nivel = inst.getNivel( i );
+                if ( nivel >= nivelMinimo && nivel <= nivelMaximo ) {
+                    desenharNo( inst, i );
                 }
-
             }
             
         }
         
+        endMode2D();
+        
+        String estado = "versão " + inst.getVersao() + ", " + inst.getTamanho() + " nós, zoom "
+                + String.format( "%.4f", camera.zoom );
+        if ( pendentes.get() > 0 ) {
+            estado += " (processando...)";
+        }
+        drawText( estado, 10, getScreenHeight() - 20, 14, BLACK );
+        
     }
-
-    @Override
-    public void draw() {
-        for ( ArvoreBinariaBusca.Node<Integer, String> no : nos ) {
-            desenharNo( no, espacamento, espacamento );
+    
+    private void desenharNo( InstantaneoDesenho<Integer> inst, int i ) {
+        double x = geometria.x( inst.getRanque( i ) );
+        double y = geometria.y( inst.getNivel( i ) );
+        fillCircle( x, y, geometria.getRaio(), inst.getCor( i ) );
+        drawCircle( x, y, geometria.getRaio(), inst == instantaneoCursor && i == noSobCursor ? RED : BLACK );
+    }
+    
+    private void desenharAresta( InstantaneoDesenho<Integer> inst, int i ) {
+        int pai = inst.getPai( i );
+        if ( pai >= 0 ) {
+            drawLine(
+                geometria.x( inst.getRanque( i ) ),
+                geometria.y( inst.getNivel( i ) ),
+                geometria.x( inst.getRanque( pai ) ),
+                geometria.y( inst.getNivel( pai ) ),
+                BLACK );
         }
     }
     
-    private void desenharNo( ArvoreBinariaBusca.Node<Integer, String> no, int espHorizontal, int espVertical ) {
-        fillCircle( espHorizontal * no.ranque + margemEsquerda, espVertical * no.nivel + margemCima, raio, no.cor );
-        drawCircle( espHorizontal * no.ranque + margemEsquerda, espVertical * no.nivel + margemCima, raio, BLACK );
+    /*
+     * Sobe a partir do nó da posição i desenhando as arestas cujo filho está
+     * fora do intervalo visível [primeiro, ultimo].
+     */
+    private void desenharArestasExternas( InstantaneoDesenho<Integer> inst, int i, int primeiro, int ultimo ) {
+        if ( i < 0 || i >= inst.getTamanho() ) {
+            return;
+        }
+        for ( ; i >= 0; i = inst.getPai( i ) ) {
+            if ( i < primeiro || i > ultimo ) {
+                desenharAresta( inst, i );
+            }
+        }
+    }
+    
+    /*
+     * Nível de detalhe reduzido: cada nível visível vira uma sequência de
+     * barras com altura proporcional à fração de posições ocupadas por nós
+     * naquela faixa da tela. As quantidades vêm de buscas binárias no
+     * instantâneo, então o custo depende apenas da quantidade de faixas.
+     */
+    private void desenharDensidade( InstantaneoDesenho<Integer> inst, double esquerda, int nivelMinimo, int nivelMaximo ) {
+        
+        double larguraFaixa = LARGURA_FAIXA / camera.zoom;
+        int faixas = getScreenWidth() / LARGURA_FAIXA + 1;
+        double alturaMinima = 1 / camera.zoom;
+        double raio = geometria.getRaio();
+        
+        for ( int nivel = nivelMinimo; nivel <= nivelMaximo; nivel++ ) {
+            
+            double y = geometria.y( nivel );
+            
+            for ( int f = 0; f < faixas; f++ ) {
+                
+                double x = esquerda + f * larguraFaixa;
+                int quantidade = geometria.contarNaFaixa( inst, nivel, x, larguraFaixa );
+                
+                if ( quantidade > 0 ) {
+                    int ranques = geometria.ranquesNaFaixa( inst, x, larguraFaixa );
+                    double altura = Math.max( alturaMinima, 2.0 * raio * quantidade / ranques );
+                    fillRectangle( x, y + raio - altura, larguraFaixa, altura, GREEN );
+                }
+                
+            }
+            
+        }
+        
+    }
+    
+    private double mundoX( double telaX ) {
+        return GeometriaDesenho.mundoX( camera, telaX );
+    }
+    
+    private double mundoY( double telaY ) {
+        return GeometriaDesenho.mundoY( camera, telaY );
+    }
+    
+    private void reiniciarCamera() {
+        camera.target.x = 0;
+        camera.target.y = 0;
+        camera.offset.x = 0;
+        camera.offset.y = 0;
+        camera.zoom = 1;
+    }
+    
+    /*
+     * Agenda uma alteração da árvore na thread de mutações, publicando um
+     * novo instantâneo quando ela termina, caso a árvore tenha mudado.
+     */
+    private void alterar( Runnable alteracao ) {
+        pendentes.incrementAndGet();
+        mutacoes.execute( () -> {
+            try {
+                alteracao.run();
+                if ( arvore.isDesenhoAlterado() ) {
+                    publicar();
+                }
+            } finally {
+                pendentes.decrementAndGet();
+            }
+        });
+    }
+    
+    /*
+     * Coleta os dados de desenho da árvore, mantidos incrementalmente por
+     * ela, e os publica em um novo instantâneo. Só pode ser chamado pela
+     * thread que altera a árvore.
+     */
+    private void publicar() {
+        instantaneo = InstantaneoDesenho.criar( ++versao, arvore.coletarParaDesenho() );
+    }
+    
+    private void inserirLote( int quantidade ) {
+        Random random = new Random();
+        for ( int i = 0; i < quantidade; i++ ) {
+            int chave = random.nextInt( LIMITE_CHAVES );
+            arvore.put( chave, String.valueOf( chave ) );
+        }
     }
     
     public static void main( String[] args ) {
         new SimuladorABB();
     }
-    
+
 }
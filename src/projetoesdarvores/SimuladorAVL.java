@@ -1,37 +1,77 @@
 package projetoesdarvores;
 
-import br.com.davidbuzatto.jsge.core.engine.EngineFrame;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.OuvinteEstrutural;
 
 /**
  * Simulador de árvores AVL:
- *     Simula as operações de inserir e remover chaves;
- *     Simula os percursos (pré-ordem, em ordem, pós-ordem e em nível).
+ *     Simula as operações de inserir e remover chaves.
+ * 
+ * Cada passo estrutural de put e delete, como rotações e mudanças de altura,
+ * é gravado por um ouvinte da árvore e animado passo a passo, com a altura
+ * de cada nó ao seu lado (ver SimuladorArvoreBalanceada).
+ * 
+ * Controles:
+ *     I: insere uma chave aleatória;
+ *     R: remove uma chave aleatória;
+ *     C: esvazia a árvore;
+ *     Espaço: conclui a reprodução dos passos pendentes.
  * 
  * @author Prof. Dr. David Buzatto
  */
-public class SimuladorAVL extends EngineFrame {
+public class SimuladorAVL extends SimuladorArvoreBalanceada {
 
+    private static final long serialVersionUID = 1L;
+    
+    private ArvoreAVL<Integer, String> arvore;
+    
     public SimuladorAVL() {
-        super( 800, 600, "Simulador de Árvores AVL", 60, true );
+        super( "Simulador de Árvores AVL" );
     }
-
+    
     @Override
-    public void create() {
-        
+    protected boolean isVermelhoPreto() {
+        return false;
     }
-
+    
     @Override
-    public void update( double delta ) {
-                            
+    protected void criarArvore( OuvinteEstrutural ouvinte ) {
+        arvore = new ArvoreAVL<>();
+        arvore.setOuvinte( ouvinte );
     }
-
+    
     @Override
-    public void draw() {
-        
+    protected void inserir( int chave ) {
+        arvore.put( chave, String.valueOf( chave ) );
+    }
+    
+    @Override
+    protected void remover( int chave ) {
+        arvore.delete( chave );
+    }
+    
+    @Override
+    protected void esvaziar() {
+        arvore.clear();
+    }
+    
+    @Override
+    protected boolean contem( int chave ) {
+        return arvore.contains( chave );
+    }
+    
+    @Override
+    protected int getTamanho() {
+        return arvore.getSize();
+    }
+    
+    @Override
+    protected Iterable<Integer> getChaves() {
+        return arvore;
     }
     
     public static void main( String[] args ) {
         new SimuladorAVL();
     }
-    
+
 }
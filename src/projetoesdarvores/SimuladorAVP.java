@@ -1,37 +1,78 @@
 package projetoesdarvores;
 
-import br.com.davidbuzatto.jsge.core.engine.EngineFrame;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+import projetoesdarvores.esd.OuvinteEstrutural;
 
 /**
  * Simulador de árvores vermelho e preto:
- *     Simula as operações de inserir e remover chaves;
- *     Simula os percursos (pré-ordem, em ordem, pós-ordem e em nível).
+ *     Simula as operações de inserir e remover chaves.
+ * 
+ * Cada passo estrutural de put e delete, como rotações, inversões de cores e
+ * movimentos de links vermelhos, é gravado por um ouvinte da árvore e
+ * animado passo a passo, com os nós nas suas cores (ver
+ * SimuladorArvoreBalanceada).
+ * 
+ * Controles:
+ *     I: insere uma chave aleatória;
+ *     R: remove uma chave aleatória;
+ *     C: esvazia a árvore;
+ *     Espaço: conclui a reprodução dos passos pendentes.
  * 
  * @author Prof. Dr. David Buzatto
  */
-public class SimuladorAVP extends EngineFrame {
+public class SimuladorAVP extends SimuladorArvoreBalanceada {
 
+    private static final long serialVersionUID = 1L;
+    
+    private ArvoreVermelhoPreto<Integer, String> arvore;
+    
     public SimuladorAVP() {
-        super( 800, 600, "Simulador de Árvores Vermelho e Preto", 60, true );
+        super( "Simulador de Árvores Vermelho e Preto" );
     }
-
+    
     @Override
-    public void create() {
-        
+    protected boolean isVermelhoPreto() {
+        return true;
     }
-
+    
     @Override
-    public void update( double delta ) {
-                            
+    protected void criarArvore( OuvinteEstrutural ouvinte ) {
+        arvore = new ArvoreVermelhoPreto<>();
+        arvore.setOuvinte( ouvinte );
     }
-
+    
     @Override
-    public void draw() {
-        
+    protected void inserir( int chave ) {
+        arvore.put( chave, String.valueOf( chave ) );
+    }
+    
+    @Override
+    protected void remover( int chave ) {
+        arvore.delete( chave );
+    }
+    
+    @Override
+    protected void esvaziar() {
+        arvore.clear();
+    }
+    
+    @Override
+    protected boolean contem( int chave ) {
+        return arvore.contains( chave );
+    }
+    
+    @Override
+    protected int getTamanho() {
+        return arvore.getSize();
+    }
+    
+    @Override
+    protected Iterable<Integer> getChaves() {
+        return arvore;
     }
     
     public static void main( String[] args ) {
         new SimuladorAVP();
     }
-    
+
 }
@@ -0,0 +1,137 @@
+package projetoesdarvores;
+
+import br.com.davidbuzatto.jsge.core.engine.EngineFrame;
+import java.util.Random;
+import projetoesdarvores.esd.BufferEventosEstruturais;
+import projetoesdarvores.esd.OuvinteEstrutural;
+import projetoesdarvores.utils.ArvoreAnimada;
+import projetoesdarvores.utils.ReprodutorEventos;
+
+/**
+ * Base dos simuladores das árvores binárias balanceadas (SimuladorAVL e
+ * SimuladorAVP): simula as operações de inserir e remover chaves, animando
+ * cada passo estrutural de put e delete.
+ *
+ * Os passos são gravados por um BufferEventosEstruturais registrado como
+ * ouvinte da árvore e reproduzidos em ritmo fixo por um ReprodutorEventos,
+ * que os aplica a uma ArvoreAnimada. O desenho mostra essa réplica, com os
+ * nós se deslocando a cada rotação, ao lado da lista dos últimos passos.
+ * Antes de cada nova operação os passos pendentes são concluídos, para que
+ * a réplica nunca perca passos sobrescritos no buffer.
+ *
+ * Controles:
+ *     I: insere uma chave aleatória;
+ *     R: remove uma chave aleatória;
+ *     C: esvazia a árvore;
+ *     Espaço: conclui a reprodução dos passos pendentes.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public abstract class SimuladorArvoreBalanceada extends EngineFrame {
+
+    private static final long serialVersionUID = 1L;
+    
+    private static final int LIMITE_CHAVES = 100;
+    private static final int CAPACIDADE_PASSOS = 1024;
+    
+    // quantidade de chaves que ainda cabem lado a lado na janela
+    private static final int MAXIMO_CHAVES = 20;
+    
+    // tempo, em segundos, entre dois passos reproduzidos
+    private static final double INTERVALO_PASSO = 0.5;
+    
+    private static final double MARGEM_ESQUERDA = 340;
+    private static final double MARGEM_CIMA = 60;
+    private static final double ESPACAMENTO = 32;
+    private static final double RAIO = 13;
+    
+    private ReprodutorEventos reprodutor;
+    private ArvoreAnimada animada;
+    private Random aleatorio;
+    
+    // o construtor de EngineFrame já chama create(), antes da inicialização
+    // dos campos das subclasses: o tipo da árvore vem de um método e o campo
+    // atribuído por criarArvore não pode ter inicializador
+    protected SimuladorArvoreBalanceada( String titulo ) {
+        super( 1000, 600, titulo, 60, true );
+    }
+    
+    /**
+     * Indica se a árvore é vermelho-preto, cujas cores são desenhadas, ou
+     * AVL, cujas alturas são desenhadas.
+     */
+    protected abstract boolean isVermelhoPreto();
+    
+    /**
+     * Cria a árvore simulada com o ouvinte informado já registrado.
+     */
+    protected abstract void criarArvore( OuvinteEstrutural ouvinte );
+    
+    protected abstract void inserir( int chave );
+    
+    protected abstract void remover( int chave );
+    
+    protected abstract void esvaziar();
+    
+    protected abstract boolean contem( int chave );
+    
+    protected abstract int getTamanho();
+    
+    protected abstract Iterable<Integer> getChaves();
+    
+    @Override
+    public void create() {
+        BufferEventosEstruturais buffer = new BufferEventosEstruturais( CAPACIDADE_PASSOS );
+        animada = new ArvoreAnimada( isVermelhoPreto(), MARGEM_ESQUERDA, MARGEM_CIMA, ESPACAMENTO, RAIO );
+        reprodutor = new ReprodutorEventos( buffer, INTERVALO_PASSO, animada );
+        aleatorio = new Random();
+        criarArvore( buffer );
+        for ( int chave : new int[]{ 5, 2, 10, 15, 12, 1, 3 } ) {
+            inserir( chave );
+        }
+    }
+    
+    @Override
+    public void update( double delta ) {
+        
+        if ( isKeyPressed( KEY_I ) && getTamanho() < MAXIMO_CHAVES ) {
+            reprodutor.concluir();
+            int chave;
+            do {
+                chave = aleatorio.nextInt( LIMITE_CHAVES );
+            } while ( contem( chave ) );
+            inserir( chave );
+        }
+        
+        if ( isKeyPressed( KEY_R ) && getTamanho() > 0 ) {
+            reprodutor.concluir();
+            int i = aleatorio.nextInt( getTamanho() );
+            for ( Integer chave : getChaves() ) {
+                if ( i-- == 0 ) {
+                    remover( chave );
+                    break;
+                }
+            }
+        }
+        
+        if ( isKeyPressed( KEY_C ) ) {
+            reprodutor.concluir();
+            esvaziar();
+        }
+        
+        if ( isKeyPressed( KEY_SPACE ) ) {
+            reprodutor.concluir();
+        }
+        
+        reprodutor.atualizar( delta );
+        animada.atualizar( delta );
+        
+    }
+    
+    @Override
+    public void draw() {
+        reprodutor.desenhar( this, 10, 20 );
+        animada.desenhar( this );
+    }
+
+}
@@ -0,0 +1,183 @@
+package projetoesdarvores.benchmarks;
+
+import java.util.Locale;
+import java.util.Random;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Compara, na ArvoreAVL e na ArvoreVermelhoPreto, um padrão de acesso com
+ * localidade feito com get e com um cursor: cada salto vai para uma chave a
+ * até --distancia posições da anterior e visita as --vizinhos chaves
+ * seguintes, atualizando o valor de cada uma.
+ *
+ * Com get, cada chave visitada custa uma descida desde a raiz. Com o
+ * cursor, o salto é um seek, que reaproveita os ancestrais da posição
+ * atual, e cada vizinha custa um next e um setValue. O tempo é reportado
+ * por chave visitada.
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     ant benchmark -Dbenchmark.class=projetoesdarvores.benchmarks.AcessoComCursor
+ *         -Dbenchmark.args="--n=1000000 --vizinhos=1,10,100,500 --distancia=10000 --saltos=20000 --iteracoes=5"
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class AcessoComCursor {
+
+    private static final long SEMENTE = 20111101L;
+
+    // acumula resultados para que o JIT não elimine as operações medidas
+    private static long sumidouro;
+
+    /*
+     * Percursos comparados, sobre a mesma sequência de saltos.
+     */
+    private static interface Arvore {
+        void comGet( int[] saltos, int vizinhos );
+        void comCursor( int[] saltos, int vizinhos );
+    }
+
+    public static void main( String[] args ) {
+
+        int n = 1_000_000;
+        String vizinhos = "1,10,100,500";
+        int distancia = 10_000;
+        int quantidadeSaltos = 20_000;
+        int iteracoes = 5;
+
+        for ( String a : args ) {
+            if ( a.startsWith( "--n=" ) ) {
+                n = Integer.parseInt( a.substring( "--n=".length() ) );
+            } else if ( a.startsWith( "--vizinhos=" ) ) {
+                vizinhos = a.substring( "--vizinhos=".length() );
+            } else if ( a.startsWith( "--distancia=" ) ) {
+                distancia = Integer.parseInt( a.substring( "--distancia=".length() ) );
+            } else if ( a.startsWith( "--saltos=" ) ) {
+                quantidadeSaltos = Integer.parseInt( a.substring( "--saltos=".length() ) );
+            } else if ( a.startsWith( "--iteracoes=" ) ) {
+                iteracoes = Integer.parseInt( a.substring( "--iteracoes=".length() ) );
+            } else {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+        }
+
+        Integer[] chaves = new Integer[n];
+        for ( int i = 0; i < n; i++ ) {
+            chaves[i] = i;
+        }
+
+        // passeio aleatório pelas chaves, cada salto a até distancia
+        // posições do anterior
+        Random r = new Random( SEMENTE );
+        int[] saltos = new int[quantidadeSaltos];
+        int posicao = n / 2;
+        for ( int i = 0; i < saltos.length; i++ ) {
+            posicao = Math.floorMod( posicao + r.nextInt( 2 * distancia + 1 ) - distancia, n );
+            saltos[i] = posicao;
+        }
+
+        Arvore[] arvores = { avl( chaves ), avp( chaves ) };
+        String[] nomes = { "AVL", "AVP" };
+
+        System.out.printf( "n = %d, distancia = %d, %d saltos%n", n, distancia, quantidadeSaltos );
+        System.out.printf( "%-6s %9s %10s %10s%n", "arvore", "vizinhos", "get ns", "cursor ns" );
+
+        for ( String v : vizinhos.split( "," ) ) {
+            int k = Integer.parseInt( v.trim() );
+            for ( int i = 0; i < arvores.length; i++ ) {
+                medir( nomes[i], arvores[i], saltos, k, iteracoes );
+            }
+        }
+
+        System.out.println( "(" + sumidouro + ")" );
+
+    }
+
+    private static Arvore avl( Integer[] chaves ) {
+        ArvoreAVL<Integer, Integer> a = ArvoreAVL.fromSorted( chaves, chaves );
+        return new Arvore() {
+            @Override public void comGet( int[] saltos, int vizinhos ) {
+                long acc = 0;
+                for ( int s : saltos ) {
+                    for ( int k = s; k < s + vizinhos; k++ ) {
+                        Integer v = a.get( k );
+                        if ( v != null ) {
+                            a.put( k, v + 1 );
+                            acc += v;
+                        }
+                    }
+                }
+                sumidouro += acc;
+            }
+            @Override public void comCursor( int[] saltos, int vizinhos ) {
+                ArvoreAVL<Integer, Integer>.Cursor c = a.cursor();
+                long acc = 0;
+                for ( int s : saltos ) {
+                    c.seek( s );
+                    for ( int j = 0; j < vizinhos && c.isValid(); j++ ) {
+                        Integer v = c.getValue();
+                        c.setValue( v + 1 );
+                        acc += v;
+                        c.next();
+                    }
+                }
+                sumidouro += acc;
+            }
+        };
+    }
+
+    private static Arvore avp( Integer[] chaves ) {
+        ArvoreVermelhoPreto<Integer, Integer> a = ArvoreVermelhoPreto.fromSorted( chaves, chaves );
+        return new Arvore() {
+            @Override public void comGet( int[] saltos, int vizinhos ) {
+                long acc = 0;
+                for ( int s : saltos ) {
+                    for ( int k = s; k < s + vizinhos; k++ ) {
+                        Integer v = a.get( k );
+                        if ( v != null ) {
+                            a.put( k, v + 1 );
+                            acc += v;
+                        }
+                    }
+                }
+                sumidouro += acc;
+            }
+            @Override public void comCursor( int[] saltos, int vizinhos ) {
+                ArvoreVermelhoPreto<Integer, Integer>.Cursor c = a.cursor();
+                long acc = 0;
+                for ( int s : saltos ) {
+                    c.seek( s );
+                    for ( int j = 0; j < vizinhos && c.isValid(); j++ ) {
+                        Integer v = c.getValue();
+                        c.setValue( v + 1 );
+                        acc += v;
+                        c.next();
+                    }
+                }
+                sumidouro += acc;
+            }
+        };
+    }
+
+    private static void medir( String nome, Arvore arvore, int[] saltos, int vizinhos, int iteracoes ) {
+
+        // a primeira metade das iterações é aquecimento
+        double[] media = new double[2];
+        double visitadas = (double) saltos.length * vizinhos;
+        for ( int i = 0; i < 2 * iteracoes; i++ ) {
+            long t0 = System.nanoTime();
+            arvore.comGet( saltos, vizinhos );
+            long t1 = System.nanoTime();
+            arvore.comCursor( saltos, vizinhos );
+            long t2 = System.nanoTime();
+            if ( i >= iteracoes ) {
+                media[0] += ( t1 - t0 ) / visitadas / iteracoes;
+                media[1] += ( t2 - t1 ) / visitadas / iteracoes;
+            }
+        }
+
+        System.out.printf( Locale.ROOT, "%-6s %9d %10.1f %10.1f%n", nome, vizinhos, media[0], media[1] );
+
+    }
+
+}
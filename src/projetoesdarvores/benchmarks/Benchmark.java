@@ -0,0 +1,400 @@
+package projetoesdarvores.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import projetoesdarvores.benchmarks.GeradorChaves.Distribuicao;
+
+/**
+ * Benchmarks das operações das árvores do pacote esd.
+ *
+ * Mede put, get, contains, delete, iteração e carga em lote (construção da
+ * árvore a partir de todas as chaves) para cada combinação de árvore,
+ * distribuição de chaves e tamanho, reportando o tempo médio por operação e
+ * a alocação por operação (o mesmo contador de bytes alocados por thread usado
+ * pelo profiler "gc" do JMH). Os resultados podem ser gravados como baseline
+ * e comparados com execuções futuras para detectar regressões.
+ *
+ * O baseline em benchmarks/baseline.csv cobre os valores padrão abaixo
+ * (tamanhos até 100000; a ABB só até LIMITE_ABB). Tamanhos maiores, como
+ * 1000000 e 10000000, podem ser passados em --tamanhos, mas não têm linhas
+ * de referência e precisam de mais memória (-Xmx).
+ *
+ * A ArvoreVermelhoPretoCompacta (AVP_COMPACTA) fica fora do conjunto
+ * padrão: ela reduz a memória por nó, não o tempo das operações, e é
+ * medida apenas quando pedida em --arvores.
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     java -Xmx4g -cp ... projetoesdarvores.benchmarks.Benchmark
+ *         --arvores=ABB,AVL,AVP,AVP_COMPACTA,AVP_ITERATIVA,AB,AVP_PERSISTENTE
+ *         --distribuicoes=SEQUENCIAL,REVERSA,UNIFORME,ZIPF
+ *         --tamanhos=1000,10000,100000
+ *         --operacoes=PUT,GET,CONTAINS,DELETE,ITERACAO,CARGA
+ *         --aquecimento=3 --iteracoes=5
+ *         --baseline=benchmarks/baseline.csv --tolerancia=0.10 --falhar-regressao=false
+ *         --salvar=benchmarks/resultados.csv
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class Benchmark {
+
+    /*
+     * Operações medidas.
+     */
+    public static enum Operacao {
+        PUT,
+        GET,
+        CONTAINS,
+        DELETE,
+        ITERACAO,
+        CARGA
+    }
+
+    /*
+     * Resultado de uma medição.
+     */
+    public static class Resultado {
+
+        public String arvore;
+        public String distribuicao;
+        public int tamanho;
+        public String operacao;
+        public double nsOp;
+        public double bytesOp;
+        public double mbSegundo;
+
+        public String chave() {
+            return arvore + "," + distribuicao + "," + tamanho + "," + operacao;
+        }
+
+        public String toCsv() {
+            return String.format( Locale.ROOT, "%s,%.2f,%.2f,%.2f", chave(), nsOp, bytesOp, mbSegundo );
+        }
+
+    }
+
+    // acima deste tamanho a ABB não é medida com chaves ordenadas, pois
+    // degenera em uma lista e cada operação passa a custar O(n)
+    public static final int LIMITE_ABB_DEGENERADA = 1_000;
+
+    // acima deste tamanho a ABB não é medida com nenhuma distribuição: a
+    // remoção reaponta a subárvore esquerda no sucessor, a árvore fica mais
+    // profunda a cada delete e a medição de DELETE levaria horas
+    public static final int LIMITE_ABB = 10_000;
+
+    // quantidade mínima de operações por rodada, para que tamanhos pequenos
+    // não sejam dominados pela resolução do relógio
+    private static final int OPERACOES_MINIMAS_RODADA = 1_000_000;
+
+    private static final long SEMENTE = 20111101L;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // acumula resultados para que o JIT não elimine as operações medidas
+    private static long sumidouro;
+
+    public static void main( String[] args ) throws IOException {
+
+        Map<String, String> opcoes = lerOpcoes( args );
+
+        EnumSet<TipoArvore> arvores = lerEnum( opcoes.getOrDefault( "arvores", "ABB,AVL,AVP,AB" ), TipoArvore.class );
+        EnumSet<Distribuicao> distribuicoes = lerEnum( opcoes.getOrDefault( "distribuicoes", "SEQUENCIAL,REVERSA,UNIFORME,ZIPF" ), Distribuicao.class );
+        EnumSet<Operacao> operacoes = lerEnum( opcoes.getOrDefault( "operacoes", "PUT,GET,CONTAINS,DELETE,ITERACAO,CARGA" ), Operacao.class );
+        int aquecimento = Integer.parseInt( opcoes.getOrDefault( "aquecimento", "3" ) );
+        int iteracoes = Integer.parseInt( opcoes.getOrDefault( "iteracoes", "5" ) );
+        double tolerancia = Double.parseDouble( opcoes.getOrDefault( "tolerancia", "0.10" ) );
+
+        java.util.List<Integer> tamanhos = new ArrayList<>();
+        for ( String t : opcoes.getOrDefault( "tamanhos", "1000,10000,100000" ).split( "," ) ) {
+            tamanhos.add( Integer.parseInt( t.trim() ) );
+        }
+
+        Map<String, Resultado> baseline = new HashMap<>();
+        if ( opcoes.containsKey( "baseline" ) ) {
+            Path arquivoBaseline = Paths.get( opcoes.get( "baseline" ) );
+            if ( Files.exists( arquivoBaseline ) ) {
+                baseline = lerResultados( arquivoBaseline );
+            } else {
+                System.out.println( "baseline não encontrado: " + arquivoBaseline );
+            }
+        }
+
+        java.util.List<Resultado> resultados = new ArrayList<>();
+        int regressoes = 0;
+
+        System.out.printf( "%-15s %-10s %9s %-9s %12s %12s %10s  %s%n",
+                "arv", "dist", "n", "op", "ns/op", "B/op", "MB/s", "baseline" );
+
+        for ( TipoArvore arvore : arvores ) {
+            for ( Distribuicao distribuicao : distribuicoes ) {
+                for ( int tamanho : tamanhos ) {
+
+                    if ( arvore == TipoArvore.ABB && tamanho > LIMITE_ABB ) {
+                        continue;
+                    }
+
+                    if ( arvore == TipoArvore.ABB && tamanho > LIMITE_ABB_DEGENERADA
+                            && ( distribuicao == Distribuicao.SEQUENCIAL || distribuicao == Distribuicao.REVERSA ) ) {
+                        continue;
+                    }
+
+                    Integer[] insercao = encaixotar( GeradorChaves.gerar( distribuicao, tamanho, SEMENTE ) );
+                    Integer[] consulta = encaixotar( GeradorChaves.gerar( distribuicao, tamanho, SEMENTE + 1 ) );
+
+                    for ( Operacao operacao : operacoes ) {
+
+                        Resultado r = medir( arvore, operacao, insercao, consulta, aquecimento, iteracoes );
+                        r.arvore = arvore.name();
+                        r.distribuicao = distribuicao.name();
+                        r.tamanho = tamanho;
+                        r.operacao = operacao.name();
+                        resultados.add( r );
+
+                        String comparacao = "";
+                        Resultado b = baseline.get( r.chave() );
+                        if ( b != null ) {
+                            double variacao = ( r.nsOp - b.nsOp ) / b.nsOp;
+                            comparacao = String.format( Locale.ROOT, "%+.1f%%", variacao * 100 );
+                            if ( variacao > tolerancia ) {
+                                comparacao += " REGRESSAO";
+                                regressoes++;
+                            }
+                        }
+
+                        System.out.printf( Locale.ROOT, "%-15s %-10s %9d %-9s %12.2f %12.2f %10.1f  %s%n",
+                                r.arvore, r.distribuicao, r.tamanho, r.operacao,
+                                r.nsOp, r.bytesOp, r.mbSegundo, comparacao );
+
+                    }
+
+                }
+            }
+        }
+
+        if ( opcoes.containsKey( "salvar" ) ) {
+            gravarResultados( Paths.get( opcoes.get( "salvar" ) ), resultados );
+        }
+
+        System.out.println( "(" + sumidouro + ")" );
+
+        if ( regressoes > 0 ) {
+            System.out.println( regressoes + " regressão(ões) acima de " + ( tolerancia * 100 ) + "%" );
+            if ( Boolean.parseBoolean( opcoes.getOrDefault( "falhar-regressao", "false" ) ) ) {
+                System.exit( 1 );
+            }
+        }
+
+    }
+
+    /*
+     * Executa as rodadas de aquecimento e de medição de uma operação.
+     */
+    private static Resultado medir( TipoArvore tipo, Operacao operacao, Integer[] insercao, Integer[] consulta,
+            int aquecimento, int iteracoes ) {
+
+        int repeticoes = Math.max( 1, OPERACOES_MINIMAS_RODADA / insercao.length );
+
+        // árvore compartilhada pelas operações que não modificam a estrutura
+        TipoArvore.Adaptador pronta = null;
+        if ( operacao == Operacao.GET || operacao == Operacao.CONTAINS || operacao == Operacao.ITERACAO ) {
+            pronta = construir( tipo, insercao );
+        }
+
+        long tempoTotal = 0;
+        long bytesTotal = 0;
+        long operacoesTotal = 0;
+
+        for ( int rodada = 0; rodada < aquecimento + iteracoes; rodada++ ) {
+
+            long tempo = 0;
+            long bytes = 0;
+            long ops = 0;
+
+            for ( int rep = 0; rep < repeticoes; rep++ ) {
+
+                TipoArvore.Adaptador a = pronta;
+                if ( operacao == Operacao.PUT ) {
+                    a = tipo.criar();
+                } else if ( operacao == Operacao.DELETE ) {
+                    a = construir( tipo, insercao );
+                }
+
+                long b0 = THREADS.getCurrentThreadAllocatedBytes();
+                long t0 = System.nanoTime();
+                if ( operacao == Operacao.CARGA ) {
+                    sumidouro += tipo.carregar( insercao ).getSize();
+                    ops += insercao.length;
+                } else {
+                    ops += executar( a, operacao, insercao, consulta );
+                }
+                tempo += System.nanoTime() - t0;
+                bytes += THREADS.getCurrentThreadAllocatedBytes() - b0;
+
+            }
+
+            if ( rodada >= aquecimento ) {
+                tempoTotal += tempo;
+                bytesTotal += bytes;
+                operacoesTotal += ops;
+            }
+
+        }
+
+        Resultado r = new Resultado();
+        r.nsOp = (double) tempoTotal / operacoesTotal;
+        r.bytesOp = (double) bytesTotal / operacoesTotal;
+        r.mbSegundo = tempoTotal == 0 ? 0 : ( bytesTotal / 1048576.0 ) / ( tempoTotal / 1e9 );
+
+        return r;
+
+    }
+
+    /*
+     * Executa uma rodada da operação e retorna a quantidade de operações feitas.
+     */
+    private static int executar( TipoArvore.Adaptador a, Operacao operacao, Integer[] insercao, Integer[] consulta ) {
+
+        long acc = 0;
+        int ops = 0;
+
+        switch ( operacao ) {
+            case PUT:
+                for ( Integer k : insercao ) {
+                    a.put( k, k );
+                }
+                ops = insercao.length;
+                acc = a.getSize();
+                break;
+            case GET:
+                for ( Integer k : consulta ) {
+                    Integer v = a.get( k );
+                    if ( v != null ) {
+                        acc += v;
+                    }
+                }
+                ops = consulta.length;
+                break;
+            case CONTAINS:
+                for ( Integer k : consulta ) {
+                    if ( a.contains( k ) ) {
+                        acc++;
+                    }
+                }
+                ops = consulta.length;
+                break;
+            case DELETE:
+                for ( Integer k : insercao ) {
+                    a.delete( k );
+                }
+                ops = insercao.length;
+                acc = a.getSize();
+                break;
+            case ITERACAO:
+                for ( Integer k : a.chaves() ) {
+                    acc += k;
+                    ops++;
+                }
+                break;
+        }
+
+        sumidouro += acc;
+        return ops;
+
+    }
+
+    private static TipoArvore.Adaptador construir( TipoArvore tipo, Integer[] chaves ) {
+        TipoArvore.Adaptador a = tipo.criar();
+        for ( Integer k : chaves ) {
+            a.put( k, k );
+        }
+        return a;
+    }
+
+    /*
+     * As chaves são encaixotadas antes das medições para que a alocação
+     * reportada seja apenas a das árvores.
+     */
+    private static Integer[] encaixotar( int[] chaves ) {
+        Integer[] r = new Integer[chaves.length];
+        for ( int i = 0; i < chaves.length; i++ ) {
+            r[i] = chaves[i];
+        }
+        return r;
+    }
+
+    private static Map<String, String> lerOpcoes( String[] args ) {
+        Map<String, String> opcoes = new HashMap<>();
+        for ( String a : args ) {
+            if ( !a.startsWith( "--" ) || !a.contains( "=" ) ) {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+            int p = a.indexOf( '=' );
+            opcoes.put( a.substring( 2, p ), a.substring( p + 1 ) );
+        }
+        return opcoes;
+    }
+
+    private static <E extends Enum<E>> EnumSet<E> lerEnum( String valores, Class<E> tipo ) {
+        EnumSet<E> r = EnumSet.noneOf( tipo );
+        for ( String v : valores.split( "," ) ) {
+            r.add( Enum.valueOf( tipo, v.trim().toUpperCase( Locale.ROOT ) ) );
+        }
+        return r;
+    }
+
+    private static Map<String, Resultado> lerResultados( Path arquivo ) throws IOException {
+
+        Map<String, Resultado> resultados = new HashMap<>();
+
+        try ( BufferedReader br = Files.newBufferedReader( arquivo, StandardCharsets.UTF_8 ) ) {
+            String linha;
+            while ( ( linha = br.readLine() ) != null ) {
+                if ( linha.isBlank() || linha.startsWith( "#" ) || linha.startsWith( "arvore," ) ) {
+                    continue;
+                }
+                String[] c = linha.split( "," );
+                Resultado r = new Resultado();
+                r.arvore = c[0];
+                r.distribuicao = c[1];
+                r.tamanho = Integer.parseInt( c[2] );
+                r.operacao = c[3];
+                r.nsOp = Double.parseDouble( c[4] );
+                r.bytesOp = Double.parseDouble( c[5] );
+                r.mbSegundo = Double.parseDouble( c[6] );
+                resultados.put( r.chave(), r );
+            }
+        }
+
+        return resultados;
+
+    }
+
+    private static void gravarResultados( Path arquivo, java.util.List<Resultado> resultados ) throws IOException {
+
+        if ( arquivo.getParent() != null ) {
+            Files.createDirectories( arquivo.getParent() );
+        }
+
+        try ( PrintWriter pw = new PrintWriter( Files.newBufferedWriter( arquivo, StandardCharsets.UTF_8 ) ) ) {
+            pw.println( "# " + System.getProperty( "java.vm.name" ) + " " + System.getProperty( "java.version" )
+                    + ", " + Runtime.getRuntime().availableProcessors() + " cpus" );
+            pw.println( "arvore,distribuicao,tamanho,operacao,ns_op,bytes_op,mb_s" );
+            for ( Resultado r : resultados ) {
+                pw.println( r.toCsv() );
+            }
+        }
+
+    }
+
+}
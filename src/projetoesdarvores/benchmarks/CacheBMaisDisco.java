@@ -0,0 +1,131 @@
+package projetoesdarvores.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import projetoesdarvores.esd.ArvoreBMaisDisco;
+import projetoesdarvores.esd.Codec;
+
+/**
+ * Mede a ArvoreBMaisDisco com diferentes tamanhos de cache de páginas,
+ * reportando, para cada fase, a vazão, a taxa de acertos da cache e as
+ * páginas lidas e gravadas por operação.
+ *
+ * As fases são: carga de chaves uniformes em [0, 2 * chaves) com flush ao
+ * final, consultas a chaves uniformes no mesmo intervalo e varreduras de
+ * intervalos com cerca de 100 chaves. As leituras são do FileChannel e podem
+ * ser atendidas pela cache do sistema operacional, então as páginas por
+ * operação são a medida que não depende do disco.
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     ant benchmark -Dbenchmark.class=projetoesdarvores.benchmarks.CacheBMaisDisco
+ *         -Dbenchmark.args="--chaves=1000000 --caches=64,1024,16384 --pagina=4096 --consultas=1000000"
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class CacheBMaisDisco {
+
+    private static final long SEMENTE = 20111101L;
+
+    // acumula resultados para que o JIT não elimine as operações medidas
+    private static long sumidouro;
+
+    public static void main( String[] args ) throws IOException {
+
+        int chaves = 1_000_000;
+        String caches = "64,1024,16384";
+        int pagina = ArvoreBMaisDisco.TAMANHO_PAGINA_PADRAO;
+        int consultas = 1_000_000;
+        Path diretorio = null;
+
+        for ( String a : args ) {
+            if ( a.startsWith( "--chaves=" ) ) {
+                chaves = Integer.parseInt( a.substring( "--chaves=".length() ) );
+            } else if ( a.startsWith( "--caches=" ) ) {
+                caches = a.substring( "--caches=".length() );
+            } else if ( a.startsWith( "--pagina=" ) ) {
+                pagina = Integer.parseInt( a.substring( "--pagina=".length() ) );
+            } else if ( a.startsWith( "--consultas=" ) ) {
+                consultas = Integer.parseInt( a.substring( "--consultas=".length() ) );
+            } else if ( a.startsWith( "--diretorio=" ) ) {
+                diretorio = Path.of( a.substring( "--diretorio=".length() ) );
+            } else {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+        }
+
+        if ( diretorio == null ) {
+            diretorio = Files.createTempDirectory( "cache-bmais-disco" );
+        }
+
+        System.out.printf( "%d chaves, páginas de %d bytes%n", chaves, pagina );
+        System.out.printf( "%-8s %-10s %14s %10s %12s %12s%n",
+                "cache", "fase", "ops/s", "acertos", "lidas/op", "gravadas/op" );
+
+        for ( String c : caches.split( "," ) ) {
+
+            int paginasEmCache = Integer.parseInt( c.trim() );
+            Path arquivo = diretorio.resolve( "arvore-" + paginasEmCache + ".db" );
+            Files.deleteIfExists( arquivo );
+
+            try ( ArvoreBMaisDisco<Integer, Integer> arvore = new ArvoreBMaisDisco<>(
+                    arquivo, Codec.INTEGER, Codec.INTEGER, pagina, paginasEmCache ) ) {
+
+                SplittableRandom r = new SplittableRandom( SEMENTE );
+
+                long inicio = System.nanoTime();
+                for ( int i = 0; i < chaves; i++ ) {
+                    arvore.put( r.nextInt( 2 * chaves ), i );
+                }
+                arvore.flush();
+                reportar( paginasEmCache, "put", chaves, inicio, arvore );
+
+                inicio = System.nanoTime();
+                for ( int i = 0; i < consultas; i++ ) {
+                    Integer v = arvore.get( r.nextInt( 2 * chaves ) );
+                    if ( v != null ) {
+                        sumidouro += v;
+                    }
+                }
+                reportar( paginasEmCache, "get", consultas, inicio, arvore );
+
+                // cada varredura cobre cerca de 100 chaves, pois metade do
+                // intervalo está presente
+                int varreduras = consultas / 100;
+                inicio = System.nanoTime();
+                for ( int i = 0; i < varreduras; i++ ) {
+                    int lo = r.nextInt( 2 * chaves );
+                    for ( Integer k : arvore.getKeys( lo, lo + 200 ) ) {
+                        sumidouro += k;
+                    }
+                }
+                reportar( paginasEmCache, "intervalo", varreduras, inicio, arvore );
+
+            }
+
+            Files.delete( arquivo );
+
+        }
+
+        Files.deleteIfExists( diretorio );
+
+        System.out.println( "(" + sumidouro + ")" );
+
+    }
+
+    private static void reportar( int cache, String fase, int operacoes, long inicio, ArvoreBMaisDisco<?, ?> arvore ) {
+
+        double segundos = ( System.nanoTime() - inicio ) / 1e9;
+
+        System.out.printf( Locale.ROOT, "%-8d %-10s %14.0f %10.3f %12.3f %12.3f%n",
+                cache, fase, operacoes / segundos, arvore.getTaxaAcertosCache(),
+                (double) arvore.getPaginasLidas() / operacoes,
+                (double) arvore.getPaginasEscritas() / operacoes );
+
+        arvore.zerarEstatisticas();
+
+    }
+
+}
@@ -0,0 +1,176 @@
+package projetoesdarvores.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import projetoesdarvores.benchmarks.GeradorChaves.Distribuicao;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreAVLInt;
+
+/**
+ * Compara a ArvoreAVL genérica com chaves Integer com a especialização
+ * ArvoreAVLInt, medindo o tempo por operação de put, get e delete e o heap
+ * ocupado pela árvore construída.
+ *
+ * As chaves da árvore genérica são encaixotadas no momento da operação,
+ * como aconteceria em uma aplicação que recebe chaves int, então o custo
+ * do encaixotamento faz parte da medição. Os valores são o mesmo objeto
+ * nas duas árvores para que apenas a representação das chaves mude.
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     ant benchmark -Dbenchmark.class=projetoesdarvores.benchmarks.ComparacaoAVLInt
+ *         -Dbenchmark.args="--tamanhos=100000,1000000 --distribuicao=UNIFORME --iteracoes=5"
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ComparacaoAVLInt {
+
+    private static final long SEMENTE = 20111101L;
+
+    private static final String VALOR = "v";
+
+    // acumula resultados para que o JIT não elimine as operações medidas
+    private static long sumidouro;
+
+    public static void main( String[] args ) {
+
+        String tamanhos = "100000,1000000";
+        Distribuicao distribuicao = Distribuicao.UNIFORME;
+        int iteracoes = 5;
+
+        for ( String a : args ) {
+            if ( a.startsWith( "--tamanhos=" ) ) {
+                tamanhos = a.substring( "--tamanhos=".length() );
+            } else if ( a.startsWith( "--distribuicao=" ) ) {
+                distribuicao = Distribuicao.valueOf( a.substring( "--distribuicao=".length() ).toUpperCase( Locale.ROOT ) );
+            } else if ( a.startsWith( "--iteracoes=" ) ) {
+                iteracoes = Integer.parseInt( a.substring( "--iteracoes=".length() ) );
+            } else {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+        }
+
+        System.out.printf( "%-8s %9s %10s %10s %10s %12s%n", "arvore", "n", "put ns", "get ns", "delete ns", "heap B/no" );
+
+        for ( String t : tamanhos.split( "," ) ) {
+
+            int n = Integer.parseInt( t.trim() );
+            int[] insercao = GeradorChaves.gerar( distribuicao, n, SEMENTE );
+            int[] consulta = GeradorChaves.gerar( distribuicao, n, SEMENTE + 1 );
+
+            // a primeira metade das iterações é aquecimento
+            double[] generica = new double[3];
+            double[] primitiva = new double[3];
+            for ( int i = 0; i < 2 * iteracoes; i++ ) {
+                double[] g = medirGenerica( insercao, consulta );
+                double[] p = medirPrimitiva( insercao, consulta );
+                if ( i >= iteracoes ) {
+                    for ( int j = 0; j < 3; j++ ) {
+                        generica[j] += g[j] / iteracoes;
+                        primitiva[j] += p[j] / iteracoes;
+                    }
+                }
+            }
+
+            ArvoreAVL<Integer, String> g = new ArvoreAVL<>();
+            long antes = heapUsado();
+            for ( int k : insercao ) {
+                g.put( k, VALOR );
+            }
+            double heapGenerica = (double) ( heapUsado() - antes ) / g.getSize();
+            sumidouro += g.getSize();
+            g = null;
+
+            ArvoreAVLInt<String> p = new ArvoreAVLInt<>();
+            antes = heapUsado();
+            for ( int k : insercao ) {
+                p.put( k, VALOR );
+            }
+            double heapPrimitiva = (double) ( heapUsado() - antes ) / p.getSize();
+            sumidouro += p.getSize();
+            p = null;
+
+            System.out.printf( Locale.ROOT, "%-8s %9d %10.1f %10.1f %10.1f %12.1f%n",
+                    "AVL", n, generica[0], generica[1], generica[2], heapGenerica );
+            System.out.printf( Locale.ROOT, "%-8s %9d %10.1f %10.1f %10.1f %12.1f%n",
+                    "AVLInt", n, primitiva[0], primitiva[1], primitiva[2], heapPrimitiva );
+
+        }
+
+        System.out.println( "(" + sumidouro + ")" );
+
+    }
+
+    private static double[] medirGenerica( int[] insercao, int[] consulta ) {
+
+        ArvoreAVL<Integer, String> a = new ArvoreAVL<>();
+        long acc = 0;
+
+        long t0 = System.nanoTime();
+        for ( int k : insercao ) {
+            a.put( k, VALOR );
+        }
+        long t1 = System.nanoTime();
+        for ( int k : consulta ) {
+            if ( a.get( k ) != null ) {
+                acc++;
+            }
+        }
+        long t2 = System.nanoTime();
+        for ( int k : insercao ) {
+            a.delete( k );
+        }
+        long t3 = System.nanoTime();
+
+        sumidouro += acc + a.getSize();
+
+        return new double[]{
+            (double) ( t1 - t0 ) / insercao.length,
+            (double) ( t2 - t1 ) / consulta.length,
+            (double) ( t3 - t2 ) / insercao.length
+        };
+
+    }
+
+    private static double[] medirPrimitiva( int[] insercao, int[] consulta ) {
+
+        ArvoreAVLInt<String> a = new ArvoreAVLInt<>();
+        long acc = 0;
+
+        long t0 = System.nanoTime();
+        for ( int k : insercao ) {
+            a.put( k, VALOR );
+        }
+        long t1 = System.nanoTime();
+        for ( int k : consulta ) {
+            if ( a.get( k ) != null ) {
+                acc++;
+            }
+        }
+        long t2 = System.nanoTime();
+        for ( int k : insercao ) {
+            a.delete( k );
+        }
+        long t3 = System.nanoTime();
+
+        sumidouro += acc + a.getSize();
+
+        return new double[]{
+            (double) ( t1 - t0 ) / insercao.length,
+            (double) ( t2 - t1 ) / consulta.length,
+            (double) ( t3 - t2 ) / insercao.length
+        };
+
+    }
+
+    /*
+     * Heap ocupado após coletas completas, usado para estimar o tamanho
+     * retido pela árvore.
+     */
+    private static long heapUsado() {
+        for ( int i = 0; i < 3; i++ ) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+}
@@ -0,0 +1,192 @@
+package projetoesdarvores.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import projetoesdarvores.benchmarks.GeradorChaves.Distribuicao;
+import projetoesdarvores.esd.ArvoreB;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Compara a ArvoreB, em várias ordens, com a ArvoreVermelhoPreto, medindo o
+ * tempo por operação de put, get, delete e iteração e o heap ocupado pela
+ * árvore construída.
+ *
+ * Serve para escolher a ordem padrão da ArvoreB: ordens pequenas usam busca
+ * linear dentro do nó e ordens grandes, busca binária, e a partir de certo
+ * ponto o deslocamento das chaves a cada inserção ou remoção passa a custar
+ * mais do que os níveis economizados.
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     ant benchmark -Dbenchmark.class=projetoesdarvores.benchmarks.ComparacaoArvoreB
+ *         -Dbenchmark.args="--tamanhos=100000,1000000 --ordens=4,8,16,32,64,128 --distribuicao=UNIFORME --iteracoes=5"
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ComparacaoArvoreB {
+
+    private static final long SEMENTE = 20111101L;
+
+    private static final String VALOR = "v";
+
+    // acumula resultados para que o JIT não elimine as operações medidas
+    private static long sumidouro;
+
+    /*
+     * Operações comuns às árvores comparadas.
+     */
+    private static interface Arvore {
+        void put( Integer key, String value );
+        String get( Integer key );
+        void delete( Integer key );
+        int getSize();
+        Iterable<Integer> chaves();
+    }
+
+    public static void main( String[] args ) {
+
+        String tamanhos = "100000,1000000";
+        String ordens = "4,8,16,32,64,128";
+        Distribuicao distribuicao = Distribuicao.UNIFORME;
+        int iteracoes = 5;
+
+        for ( String a : args ) {
+            if ( a.startsWith( "--tamanhos=" ) ) {
+                tamanhos = a.substring( "--tamanhos=".length() );
+            } else if ( a.startsWith( "--ordens=" ) ) {
+                ordens = a.substring( "--ordens=".length() );
+            } else if ( a.startsWith( "--distribuicao=" ) ) {
+                distribuicao = Distribuicao.valueOf( a.substring( "--distribuicao=".length() ).toUpperCase( Locale.ROOT ) );
+            } else if ( a.startsWith( "--iteracoes=" ) ) {
+                iteracoes = Integer.parseInt( a.substring( "--iteracoes=".length() ) );
+            } else {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+        }
+
+        System.out.printf( "%-8s %9s %10s %10s %10s %10s %12s%n",
+                "arvore", "n", "put ns", "get ns", "delete ns", "iter ns", "heap B/par" );
+
+        for ( String t : tamanhos.split( "," ) ) {
+
+            int n = Integer.parseInt( t.trim() );
+            int[] insercao = GeradorChaves.gerar( distribuicao, n, SEMENTE );
+            int[] consulta = GeradorChaves.gerar( distribuicao, n, SEMENTE + 1 );
+
+            medir( "AVP", 0, insercao, consulta, iteracoes );
+            for ( String o : ordens.split( "," ) ) {
+                int ordem = Integer.parseInt( o.trim() );
+                medir( "AB" + ordem, ordem, insercao, consulta, iteracoes );
+            }
+
+        }
+
+        System.out.println( "(" + sumidouro + ")" );
+
+    }
+
+    /*
+     * Cria uma ArvoreB da ordem informada ou, com ordem 0, uma
+     * ArvoreVermelhoPreto.
+     */
+    private static Arvore criar( int ordem ) {
+
+        if ( ordem == 0 ) {
+            ArvoreVermelhoPreto<Integer, String> a = new ArvoreVermelhoPreto<>();
+            return new Arvore() {
+                @Override public void put( Integer k, String v ) { a.put( k, v ); }
+                @Override public String get( Integer k ) { return a.get( k ); }
+                @Override public void delete( Integer k ) { a.delete( k ); }
+                @Override public int getSize() { return a.getSize(); }
+                @Override public Iterable<Integer> chaves() { return a; }
+            };
+        }
+
+        ArvoreB<Integer, String> a = new ArvoreB<>( ordem );
+        return new Arvore() {
+            @Override public void put( Integer k, String v ) { a.put( k, v ); }
+            @Override public String get( Integer k ) { return a.get( k ); }
+            @Override public void delete( Integer k ) { a.delete( k ); }
+            @Override public int getSize() { return a.getSize(); }
+            @Override public Iterable<Integer> chaves() { return a; }
+        };
+
+    }
+
+    private static void medir( String nome, int ordem, int[] insercao, int[] consulta, int iteracoes ) {
+
+        // a primeira metade das iterações é aquecimento
+        double[] media = new double[4];
+        for ( int i = 0; i < 2 * iteracoes; i++ ) {
+            double[] m = medirRodada( criar( ordem ), insercao, consulta );
+            if ( i >= iteracoes ) {
+                for ( int j = 0; j < media.length; j++ ) {
+                    media[j] += m[j] / iteracoes;
+                }
+            }
+        }
+
+        // o heap é medido com a árvore e depois sem ela, o que não depende
+        // de as árvores das medições anteriores já terem sido coletadas
+        Arvore a = criar( ordem );
+        for ( int k : insercao ) {
+            a.put( k, VALOR );
+        }
+        int size = a.getSize();
+        long com = heapUsado();
+        sumidouro += a.getSize();
+        a = null;
+        double heap = (double) ( com - heapUsado() ) / size;
+
+        System.out.printf( Locale.ROOT, "%-8s %9d %10.1f %10.1f %10.1f %10.1f %12.1f%n",
+                nome, insercao.length, media[0], media[1], media[2], media[3], heap );
+
+    }
+
+    private static double[] medirRodada( Arvore a, int[] insercao, int[] consulta ) {
+
+        long acc = 0;
+
+        long t0 = System.nanoTime();
+        for ( int k : insercao ) {
+            a.put( k, VALOR );
+        }
+        long t1 = System.nanoTime();
+        for ( int k : consulta ) {
+            if ( a.get( k ) != null ) {
+                acc++;
+            }
+        }
+        long t2 = System.nanoTime();
+        for ( Integer k : a.chaves() ) {
+            acc += k;
+        }
+        long t3 = System.nanoTime();
+        int size = a.getSize();
+        for ( int k : insercao ) {
+            a.delete( k );
+        }
+        long t4 = System.nanoTime();
+
+        sumidouro += acc + a.getSize();
+
+        return new double[]{
+            (double) ( t1 - t0 ) / insercao.length,
+            (double) ( t2 - t1 ) / consulta.length,
+            (double) ( t4 - t3 ) / insercao.length,
+            (double) ( t3 - t2 ) / size
+        };
+
+    }
+
+    /*
+     * Heap ocupado após coletas completas, usado para estimar o tamanho
+     * retido pela árvore.
+     */
+    private static long heapUsado() {
+        for ( int i = 0; i < 3; i++ ) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+}
@@ -0,0 +1,172 @@
+package projetoesdarvores.benchmarks;
+
+import java.util.Locale;
+import projetoesdarvores.benchmarks.GeradorChaves.Distribuicao;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+import projetoesdarvores.esd.ArvoreVermelhoPretoIterativa;
+import projetoesdarvores.esd.Instrumentacao;
+
+/**
+ * Compara a ArvoreVermelhoPreto (inclinada à esquerda e recursiva) com a
+ * ArvoreVermelhoPretoIterativa (clássica, com ponteiros para os pais),
+ * medindo o tempo por operação de put, get e delete e, em uma rodada
+ * separada com instrumentação, as rotações e inversões de cores médias por
+ * put e por delete.
+ *
+ * As rodadas de tempo não usam instrumentação, para que a contagem não
+ * interfira na medida. As chaves são removidas na mesma ordem em que foram
+ * inseridas.
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     ant benchmark -Dbenchmark.class=projetoesdarvores.benchmarks.ComparacaoVermelhoPreto
+ *         -Dbenchmark.args="--tamanhos=100000,1000000 --distribuicoes=SEQUENCIAL,UNIFORME --iteracoes=5"
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ComparacaoVermelhoPreto {
+
+    private static final long SEMENTE = 20111101L;
+
+    // acumula resultados para que o JIT não elimine as operações medidas
+    private static long sumidouro;
+
+    /*
+     * Operações comparadas.
+     */
+    private static interface Arvore {
+        void put( Integer key, Integer value );
+        Integer get( Integer key );
+        void delete( Integer key );
+        int getSize();
+    }
+
+    public static void main( String[] args ) {
+
+        String tamanhos = "100000,1000000";
+        String distribuicoes = "SEQUENCIAL,UNIFORME";
+        int iteracoes = 5;
+
+        for ( String a : args ) {
+            if ( a.startsWith( "--tamanhos=" ) ) {
+                tamanhos = a.substring( "--tamanhos=".length() );
+            } else if ( a.startsWith( "--distribuicoes=" ) ) {
+                distribuicoes = a.substring( "--distribuicoes=".length() );
+            } else if ( a.startsWith( "--iteracoes=" ) ) {
+                iteracoes = Integer.parseInt( a.substring( "--iteracoes=".length() ) );
+            } else {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+        }
+
+        System.out.printf( "%-14s %-10s %9s %10s %10s %10s %8s %8s %8s %8s%n",
+                "arvore", "dist", "n", "put ns", "get ns", "delete ns",
+                "rot/put", "inv/put", "rot/del", "inv/del" );
+
+        for ( String d : distribuicoes.split( "," ) ) {
+
+            Distribuicao distribuicao = Distribuicao.valueOf( d.trim().toUpperCase( Locale.ROOT ) );
+
+            for ( String t : tamanhos.split( "," ) ) {
+
+                int n = Integer.parseInt( t.trim() );
+                Integer[] insercao = encaixotar( GeradorChaves.gerar( distribuicao, n, SEMENTE ) );
+                Integer[] consulta = encaixotar( GeradorChaves.gerar( distribuicao, n, SEMENTE + 1 ) );
+
+                medir( "AVP", distribuicao, insercao, consulta, iteracoes );
+                medir( "AVP_ITERATIVA", distribuicao, insercao, consulta, iteracoes );
+
+            }
+
+        }
+
+        System.out.println( "(" + sumidouro + ")" );
+
+    }
+
+    private static Integer[] encaixotar( int[] chaves ) {
+        Integer[] c = new Integer[chaves.length];
+        for ( int i = 0; i < chaves.length; i++ ) {
+            c[i] = chaves[i];
+        }
+        return c;
+    }
+
+    private static Arvore criar( String nome, Instrumentacao instrumentacao ) {
+
+        if ( nome.equals( "AVP" ) ) {
+            ArvoreVermelhoPreto<Integer, Integer> a = new ArvoreVermelhoPreto<>();
+            a.setInstrumentacao( instrumentacao );
+            return new Arvore() {
+                @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+                @Override public Integer get( Integer k ) { return a.get( k ); }
+                @Override public void delete( Integer k ) { a.delete( k ); }
+                @Override public int getSize() { return a.getSize(); }
+            };
+        }
+
+        ArvoreVermelhoPretoIterativa<Integer, Integer> a = new ArvoreVermelhoPretoIterativa<>();
+        a.setInstrumentacao( instrumentacao );
+        return new Arvore() {
+            @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+            @Override public Integer get( Integer k ) { return a.get( k ); }
+            @Override public void delete( Integer k ) { a.delete( k ); }
+            @Override public int getSize() { return a.getSize(); }
+        };
+
+    }
+
+    private static void medir( String nome, Distribuicao distribuicao, Integer[] insercao, Integer[] consulta, int iteracoes ) {
+
+        // a primeira metade das iterações é aquecimento
+        double[] media = new double[3];
+        for ( int i = 0; i < 2 * iteracoes; i++ ) {
+            double[] m = medirRodada( criar( nome, null ), insercao, consulta );
+            if ( i >= iteracoes ) {
+                for ( int j = 0; j < media.length; j++ ) {
+                    media[j] += m[j] / iteracoes;
+                }
+            }
+        }
+
+        // rodada separada, com todas as operações amostradas
+        Instrumentacao instrumentacao = new Instrumentacao( nome );
+        medirRodada( criar( nome, instrumentacao ), insercao, consulta );
+
+        System.out.printf( Locale.ROOT, "%-14s %-10s %9d %10.1f %10.1f %10.1f %8.3f %8.3f %8.3f %8.3f%n",
+                nome, distribuicao, insercao.length, media[0], media[1], media[2],
+                instrumentacao.getRotacoesMediasPut(), instrumentacao.getInversoesCoresMediasPut(),
+                instrumentacao.getRotacoesMediasDelete(), instrumentacao.getInversoesCoresMediasDelete() );
+
+    }
+
+    private static double[] medirRodada( Arvore a, Integer[] insercao, Integer[] consulta ) {
+
+        long acc = 0;
+
+        long t0 = System.nanoTime();
+        for ( Integer k : insercao ) {
+            a.put( k, k );
+        }
+        long t1 = System.nanoTime();
+        for ( Integer k : consulta ) {
+            if ( a.get( k ) != null ) {
+                acc++;
+            }
+        }
+        long t2 = System.nanoTime();
+        for ( Integer k : insercao ) {
+            a.delete( k );
+        }
+        long t3 = System.nanoTime();
+
+        sumidouro += acc + a.getSize();
+
+        return new double[]{
+            (double) ( t1 - t0 ) / insercao.length,
+            (double) ( t2 - t1 ) / consulta.length,
+            (double) ( t3 - t2 ) / insercao.length
+        };
+
+    }
+
+}
@@ -0,0 +1,149 @@
+package projetoesdarvores.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+import projetoesdarvores.esd.ArvoreVermelhoPretoDuravel;
+import projetoesdarvores.esd.Codec;
+
+/**
+ * Compara a vazão de escrita da ArvoreVermelhoPretoDuravel, com diferentes
+ * tamanhos de commit em grupo, com a da ArvoreVermelhoPreto em memória.
+ *
+ * A carga são puts e deletes de chaves uniformes em [0, 2 * operacoes), na
+ * proporção de 3 para 1. Cada configuração é medida em um diretório novo e
+ * inclui os pontos de verificação automáticos e a sincronização final.
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     ant benchmark -Dbenchmark.class=projetoesdarvores.benchmarks.DurabilidadeAVP
+ *         -Dbenchmark.args="--operacoes=1000000 --commits=1,64,4096 --intervalo=10 --checkpoint=1000000"
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class DurabilidadeAVP {
+
+    private static final long SEMENTE = 20111101L;
+
+    public static void main( String[] args ) throws IOException {
+
+        int operacoes = 1_000_000;
+        String commits = "1,64,4096";
+        long intervalo = 10;
+        int checkpoint = ArvoreVermelhoPretoDuravel.OPERACOES_POR_CHECKPOINT_PADRAO;
+        Path base = null;
+
+        for ( String a : args ) {
+            if ( a.startsWith( "--operacoes=" ) ) {
+                operacoes = Integer.parseInt( a.substring( "--operacoes=".length() ) );
+            } else if ( a.startsWith( "--commits=" ) ) {
+                commits = a.substring( "--commits=".length() );
+            } else if ( a.startsWith( "--intervalo=" ) ) {
+                intervalo = Long.parseLong( a.substring( "--intervalo=".length() ) );
+            } else if ( a.startsWith( "--checkpoint=" ) ) {
+                checkpoint = Integer.parseInt( a.substring( "--checkpoint=".length() ) );
+            } else if ( a.startsWith( "--diretorio=" ) ) {
+                base = Path.of( a.substring( "--diretorio=".length() ) );
+            } else {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+        }
+
+        if ( base == null ) {
+            base = Files.createTempDirectory( "durabilidade-avp" );
+        }
+
+        System.out.printf( "%d operações, intervalo de commit %d ms, checkpoint a cada %d operações%n",
+                operacoes, intervalo, checkpoint );
+        System.out.printf( "%-22s %14s %10s%n", "arvore", "ops/s", "relativo" );
+
+        // a primeira medição de cada configuração é aquecimento
+        medirMemoria( operacoes / 4 );
+        double memoria = medirMemoria( operacoes );
+        System.out.printf( Locale.ROOT, "%-22s %14.0f %10.2f%n", "AVP (memória)", memoria, 1.0 );
+
+        int execucao = 0;
+
+        for ( String c : commits.split( "," ) ) {
+
+            int porCommit = Integer.parseInt( c.trim() );
+            int aquecimento = porCommit == 1 ? operacoes / 100 : operacoes / 4;
+
+            medirDuravel( base.resolve( "e" + execucao++ ), aquecimento, porCommit, intervalo, checkpoint );
+            double vazao = medirDuravel( base.resolve( "e" + execucao++ ),
+                    porCommit == 1 ? operacoes / 20 : operacoes, porCommit, intervalo, checkpoint );
+
+            System.out.printf( Locale.ROOT, "%-22s %14.0f %10.2f%n",
+                    "AVP_DURAVEL commit=" + porCommit, vazao, vazao / memoria );
+
+        }
+
+        apagar( base );
+
+    }
+
+    private static double medirMemoria( int operacoes ) {
+
+        ArvoreVermelhoPreto<Integer, Integer> arvore = new ArvoreVermelhoPreto<>();
+        SplittableRandom r = new SplittableRandom( SEMENTE );
+
+        long inicio = System.nanoTime();
+        for ( int i = 0; i < operacoes; i++ ) {
+            Integer chave = r.nextInt( 2 * operacoes );
+            if ( r.nextInt( 4 ) == 0 ) {
+                arvore.delete( chave );
+            } else {
+                arvore.put( chave, i );
+            }
+        }
+        long fim = System.nanoTime();
+
+        return operacoes / ( ( fim - inicio ) / 1e9 );
+
+    }
+
+    private static double medirDuravel( Path diretorio, int operacoes, int porCommit, long intervalo, int checkpoint )
+            throws IOException {
+
+        SplittableRandom r = new SplittableRandom( SEMENTE );
+        long inicio;
+        long fim;
+
+        try ( ArvoreVermelhoPretoDuravel<Integer, Integer> arvore = new ArvoreVermelhoPretoDuravel<>(
+                diretorio, Codec.INTEGER, Codec.INTEGER, porCommit, intervalo, checkpoint ) ) {
+
+            inicio = System.nanoTime();
+            for ( int i = 0; i < operacoes; i++ ) {
+                Integer chave = r.nextInt( 2 * operacoes );
+                if ( r.nextInt( 4 ) == 0 ) {
+                    arvore.delete( chave );
+                } else {
+                    arvore.put( chave, i );
+                }
+            }
+            arvore.sync();
+            fim = System.nanoTime();
+
+        }
+
+        apagar( diretorio );
+
+        return operacoes / ( ( fim - inicio ) / 1e9 );
+
+    }
+
+    private static void apagar( Path diretorio ) throws IOException {
+        if ( Files.exists( diretorio ) ) {
+            try ( Stream<Path> caminhos = Files.walk( diretorio ) ) {
+                for ( Path p : (Iterable<Path>) caminhos.sorted( Comparator.reverseOrder() )::iterator ) {
+                    Files.delete( p );
+                }
+            }
+        }
+    }
+
+}
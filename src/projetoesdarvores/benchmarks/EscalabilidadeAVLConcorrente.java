@@ -0,0 +1,211 @@
+package projetoesdarvores.benchmarks;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreAVLConcorrente;
+
+/**
+ * Mede a escalabilidade da ArvoreAVLConcorrente em cargas mistas de leitura e
+ * escrita, de 1 a N threads, comparando-a com a ArvoreAVL protegida por um
+ * único bloco synchronized.
+ *
+ * Cada thread executa, durante o tempo configurado, operações sobre chaves
+ * uniformes em [0, 2 * tamanho): a porcentagem indicada de gets e o restante
+ * dividido igualmente entre puts e deletes, o que mantém a árvore com cerca
+ * de "tamanho" chaves. O resultado é a vazão total em operações por segundo
+ * e o ganho em relação a uma thread.
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     ant benchmark -Dbenchmark.class=projetoesdarvores.benchmarks.EscalabilidadeAVLConcorrente
+ *         -Dbenchmark.args="--threads=1,2,4,8,16,32 --leituras=90 --tamanho=100000 --duracao=2000"
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class EscalabilidadeAVLConcorrente {
+
+    private static final long SEMENTE = 20111101L;
+
+    private static final String VALOR = "v";
+
+    /*
+     * Operações comuns às duas árvores medidas.
+     */
+    private static interface Mapa {
+        void put( Integer key, String value );
+        String get( Integer key );
+        void delete( Integer key );
+    }
+
+    // acumula resultados para que o JIT não elimine as operações medidas
+    private static final AtomicLong sumidouro = new AtomicLong();
+
+    public static void main( String[] args ) throws InterruptedException {
+
+        String threads = "1,2,4,8";
+        int leituras = 90;
+        int tamanho = 100_000;
+        int duracao = 2_000;
+
+        for ( String a : args ) {
+            if ( a.startsWith( "--threads=" ) ) {
+                threads = a.substring( "--threads=".length() );
+            } else if ( a.startsWith( "--leituras=" ) ) {
+                leituras = Integer.parseInt( a.substring( "--leituras=".length() ) );
+            } else if ( a.startsWith( "--tamanho=" ) ) {
+                tamanho = Integer.parseInt( a.substring( "--tamanho=".length() ) );
+            } else if ( a.startsWith( "--duracao=" ) ) {
+                duracao = Integer.parseInt( a.substring( "--duracao=".length() ) );
+            } else {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+        }
+
+        if ( leituras < 0 || leituras > 100 ) {
+            throw new IllegalArgumentException( "--leituras must be between 0 and 100" );
+        }
+
+        System.out.printf( "%d processadores, %d%% leituras, %d chaves, %d ms por medição%n",
+                Runtime.getRuntime().availableProcessors(), leituras, tamanho, duracao );
+        System.out.printf( "%-14s %8s %14s %8s%n", "arvore", "threads", "ops/s", "ganho" );
+
+        for ( String nome : new String[]{ "AVL_SYNC", "AVL_CONC" } ) {
+
+            double base = 0;
+
+            for ( String t : threads.split( "," ) ) {
+
+                int n = Integer.parseInt( t.trim() );
+
+                // a primeira medição de cada configuração é aquecimento
+                medir( nome, n, leituras, tamanho, duracao / 2 );
+                double vazao = medir( nome, n, leituras, tamanho, duracao );
+
+                if ( base == 0 ) {
+                    base = vazao;
+                }
+
+                System.out.printf( Locale.ROOT, "%-14s %8d %14.0f %8.2f%n", nome, n, vazao, vazao / base );
+
+            }
+
+        }
+
+        System.out.println( "(" + sumidouro.get() + ")" );
+
+    }
+
+    private static Mapa criar( String nome ) {
+
+        if ( nome.equals( "AVL_SYNC" ) ) {
+            ArvoreAVL<Integer, String> a = new ArvoreAVL<>();
+            return new Mapa() {
+                @Override
+                public synchronized void put( Integer key, String value ) {
+                    a.put( key, value );
+                }
+                @Override
+                public synchronized String get( Integer key ) {
+                    return a.get( key );
+                }
+                @Override
+                public synchronized void delete( Integer key ) {
+                    a.delete( key );
+                }
+            };
+        }
+
+        ArvoreAVLConcorrente<Integer, String> a = new ArvoreAVLConcorrente<>();
+        return new Mapa() {
+            @Override
+            public void put( Integer key, String value ) {
+                a.put( key, value );
+            }
+            @Override
+            public String get( Integer key ) {
+                return a.get( key );
+            }
+            @Override
+            public void delete( Integer key ) {
+                a.delete( key );
+            }
+        };
+
+    }
+
+    /*
+     * Executa a carga mista com n threads e retorna a vazão total.
+     */
+    private static double medir( String nome, int n, int leituras, int tamanho, int duracao )
+            throws InterruptedException {
+
+        Mapa mapa = criar( nome );
+        SplittableRandom aleatorio = new SplittableRandom( SEMENTE );
+        for ( int i = 0; i < tamanho; i++ ) {
+            mapa.put( aleatorio.nextInt( 2 * tamanho ), VALOR );
+        }
+
+        CountDownLatch largada = new CountDownLatch( 1 );
+        AtomicLong operacoes = new AtomicLong();
+        Thread[] trabalhadoras = new Thread[n];
+        long[] fim = new long[1];
+
+        for ( int i = 0; i < n; i++ ) {
+
+            SplittableRandom r = aleatorio.split();
+
+            trabalhadoras[i] = new Thread( () -> {
+
+                long ops = 0;
+                long acc = 0;
+
+                try {
+                    largada.await();
+                } catch ( InterruptedException exc ) {
+                    return;
+                }
+
+                while ( System.nanoTime() < fim[0] ) {
+                    // verifica o relógio a cada lote para não medi-lo
+                    for ( int j = 0; j < 64; j++ ) {
+                        Integer chave = r.nextInt( 2 * tamanho );
+                        int sorteio = r.nextInt( 100 );
+                        if ( sorteio < leituras ) {
+                            if ( mapa.get( chave ) != null ) {
+                                acc++;
+                            }
+                        } else if ( ( sorteio & 1 ) == 0 ) {
+                            mapa.put( chave, VALOR );
+                        } else {
+                            mapa.delete( chave );
+                        }
+                    }
+                    ops += 64;
+                }
+
+                operacoes.addAndGet( ops );
+                sumidouro.addAndGet( acc );
+
+            } );
+
+            trabalhadoras[i].start();
+
+        }
+
+        long inicio = System.nanoTime();
+        fim[0] = inicio + duracao * 1_000_000L;
+        largada.countDown();
+
+        for ( Thread t : trabalhadoras ) {
+            t.join();
+        }
+
+        double segundos = ( System.nanoTime() - inicio ) / 1e9;
+
+        return operacoes.get() / segundos;
+
+    }
+
+}
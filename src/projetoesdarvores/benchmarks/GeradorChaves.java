@@ -0,0 +1,125 @@
+package projetoesdarvores.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Geradores dos fluxos de chaves usados nos benchmarks.
+ *
+ * Todos os fluxos produzem chaves no intervalo [0, n) e são determinísticos
+ * para uma mesma semente, o que permite comparar execuções diferentes.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class GeradorChaves {
+
+    /*
+     * Distribuições de chaves suportadas.
+     */
+    public static enum Distribuicao {
+        SEQUENCIAL,
+        REVERSA,
+        UNIFORME,
+        ZIPF
+    }
+
+    // expoente da distribuição de Zipf (mesmo valor usado pelo YCSB)
+    public static final double THETA_ZIPF = 0.99;
+
+    /**
+     * Gera um fluxo de n chaves seguindo a distribuição informada.
+     *
+     * @param distribuicao Distribuição das chaves.
+     * @param n Quantidade de chaves do fluxo.
+     * @param semente Semente do gerador de números pseudoaleatórios.
+     * @return O fluxo de chaves.
+     */
+    public static int[] gerar( Distribuicao distribuicao, int n, long semente ) {
+
+        int[] chaves = new int[n];
+
+        switch ( distribuicao ) {
+            case SEQUENCIAL:
+                for ( int i = 0; i < n; i++ ) {
+                    chaves[i] = i;
+                }
+                break;
+            case REVERSA:
+                for ( int i = 0; i < n; i++ ) {
+                    chaves[i] = n - 1 - i;
+                }
+                break;
+            case UNIFORME:
+                // permutação aleatória, para que todas as chaves apareçam
+                for ( int i = 0; i < n; i++ ) {
+                    chaves[i] = i;
+                }
+                embaralhar( chaves, new Random( semente ) );
+                break;
+            case ZIPF:
+                gerarZipf( chaves, n, semente );
+                break;
+        }
+
+        return chaves;
+
+    }
+
+    /*
+     * Gera chaves com distribuição de Zipf (Gray et al., "Quickly Generating
+     * Billion-Record Synthetic Databases", SIGMOD 1994). As posições mais
+     * populares são espalhadas pelo intervalo através de uma permutação,
+     * evitando que as chaves quentes fiquem todas no início da árvore.
+     */
+    private static void gerarZipf( int[] chaves, int n, long semente ) {
+
+        Random r = new Random( semente );
+
+        int[] permutacao = new int[n];
+        for ( int i = 0; i < n; i++ ) {
+            permutacao[i] = i;
+        }
+        embaralhar( permutacao, r );
+
+        double zetaN = zeta( n, THETA_ZIPF );
+        double zeta2 = zeta( Math.min( n, 2 ), THETA_ZIPF );
+        double alfa = 1.0 / ( 1.0 - THETA_ZIPF );
+        double eta = ( 1.0 - Math.pow( 2.0 / n, 1.0 - THETA_ZIPF ) ) / ( 1.0 - zeta2 / zetaN );
+
+        for ( int i = 0; i < n; i++ ) {
+
+            double u = r.nextDouble();
+            double uz = u * zetaN;
+            int posicao;
+
+            if ( uz < 1.0 ) {
+                posicao = 0;
+            } else if ( uz < 1.0 + Math.pow( 0.5, THETA_ZIPF ) ) {
+                posicao = 1;
+            } else {
+                posicao = (int) ( n * Math.pow( eta * u - eta + 1.0, alfa ) );
+            }
+
+            chaves[i] = permutacao[Math.min( posicao, n - 1 )];
+
+        }
+
+    }
+
+    private static double zeta( int n, double theta ) {
+        double soma = 0;
+        for ( int i = 1; i <= n; i++ ) {
+            soma += 1.0 / Math.pow( i, theta );
+        }
+        return soma;
+    }
+
+    private static void embaralhar( int[] v, Random r ) {
+        for ( int i = v.length - 1; i > 0; i-- ) {
+            int j = r.nextInt( i + 1 );
+            int t = v[i];
+            v[i] = v[j];
+            v[j] = t;
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package projetoesdarvores.benchmarks;
+
+import java.util.Locale;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Mede union, intersection e difference da ArvoreAVL e da ArvoreVermelhoPreto
+ * entre duas árvores de n chaves e compara a união com a alternativa
+ * sequencial de percorrer uma árvore inserindo cada par na outra.
+ *
+ * A primeira árvore tem as chaves múltiplas de 2 e a segunda as múltiplas de
+ * 3, então um terço das chaves da segunda está na primeira. As operações de
+ * conjunto usam o pool comum de fork-join, cujo paralelismo pode ser ajustado
+ * com -Djava.util.concurrent.ForkJoinPool.common.parallelism em
+ * benchmark.jvmargs.
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     ant benchmark -Dbenchmark.class=projetoesdarvores.benchmarks.OperacoesConjunto
+ *         -Dbenchmark.args="--n=10000000 --iteracoes=3"
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class OperacoesConjunto {
+
+    // acumula resultados para que o JIT não elimine as operações medidas
+    private static long sumidouro;
+
+    /*
+     * Operações comparadas, sobre pares de árvores do mesmo tipo.
+     */
+    private static interface Arvores {
+        void criar( Integer[] primeira, Integer[] segunda );
+        void union();
+        void intersection();
+        void difference();
+        void putUmAUm();
+        int getSize();
+    }
+
+    public static void main( String[] args ) {
+
+        int n = 10_000_000;
+        int iteracoes = 3;
+
+        for ( String a : args ) {
+            if ( a.startsWith( "--n=" ) ) {
+                n = Integer.parseInt( a.substring( "--n=".length() ) );
+            } else if ( a.startsWith( "--iteracoes=" ) ) {
+                iteracoes = Integer.parseInt( a.substring( "--iteracoes=".length() ) );
+            } else {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+        }
+
+        Integer[] primeira = new Integer[n];
+        Integer[] segunda = new Integer[n];
+        for ( int i = 0; i < n; i++ ) {
+            primeira[i] = 2 * i;
+            segunda[i] = 3 * i;
+        }
+
+        System.out.printf( "n = %d, %d processadores%n", n, Runtime.getRuntime().availableProcessors() );
+        System.out.printf( "%-6s %12s %12s %12s %12s%n",
+                "arvore", "union ms", "inter ms", "diff ms", "put ms" );
+
+        medir( "AVL", avl(), primeira, segunda, iteracoes );
+        medir( "AVP", avp(), primeira, segunda, iteracoes );
+
+        System.out.println( "(" + sumidouro + ")" );
+
+    }
+
+    private static Arvores avl() {
+        return new Arvores() {
+            ArvoreAVL<Integer, Integer> a;
+            ArvoreAVL<Integer, Integer> b;
+            @Override public void criar( Integer[] p, Integer[] s ) {
+                a = ArvoreAVL.fromSorted( p, p );
+                b = ArvoreAVL.fromSorted( s, s );
+            }
+            @Override public void union() { a.union( b ); }
+            @Override public void intersection() { a.intersection( b ); }
+            @Override public void difference() { a.difference( b ); }
+            @Override public void putUmAUm() {
+                for ( Integer k : b ) {
+                    a.put( k, k );
+                }
+            }
+            @Override public int getSize() { return a.getSize(); }
+        };
+    }
+
+    private static Arvores avp() {
+        return new Arvores() {
+            ArvoreVermelhoPreto<Integer, Integer> a;
+            ArvoreVermelhoPreto<Integer, Integer> b;
+            @Override public void criar( Integer[] p, Integer[] s ) {
+                a = ArvoreVermelhoPreto.fromSorted( p, p );
+                b = ArvoreVermelhoPreto.fromSorted( s, s );
+            }
+            @Override public void union() { a.union( b ); }
+            @Override public void intersection() { a.intersection( b ); }
+            @Override public void difference() { a.difference( b ); }
+            @Override public void putUmAUm() {
+                for ( Integer k : b ) {
+                    a.put( k, k );
+                }
+            }
+            @Override public int getSize() { return a.getSize(); }
+        };
+    }
+
+    private static void medir( String nome, Arvores arvores, Integer[] primeira, Integer[] segunda, int iteracoes ) {
+
+        // a primeira metade das iterações é aquecimento
+        double[] media = new double[4];
+        for ( int i = 0; i < 2 * iteracoes; i++ ) {
+            double[] m = new double[4];
+            for ( int j = 0; j < m.length; j++ ) {
+                arvores.criar( primeira, segunda );
+                long inicio = System.nanoTime();
+                switch ( j ) {
+                    case 0: arvores.union(); break;
+                    case 1: arvores.intersection(); break;
+                    case 2: arvores.difference(); break;
+                    default: arvores.putUmAUm();
+                }
+                m[j] = ( System.nanoTime() - inicio ) / 1e6;
+                sumidouro += arvores.getSize();
+            }
+            if ( i >= iteracoes ) {
+                for ( int j = 0; j < media.length; j++ ) {
+                    media[j] += m[j] / iteracoes;
+                }
+            }
+        }
+
+        System.out.printf( Locale.ROOT, "%-6s %12.1f %12.1f %12.1f %12.1f%n",
+                nome, media[0], media[1], media[2], media[3] );
+
+    }
+
+}
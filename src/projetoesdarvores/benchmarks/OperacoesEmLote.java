@@ -0,0 +1,177 @@
+package projetoesdarvores.benchmarks;
+
+import java.util.Locale;
+import java.util.Random;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Compara as operações em lote (putAll, getAll e deleteAll) da ArvoreAVL e da
+ * ArvoreVermelhoPreto com as mesmas chaves inseridas, buscadas e removidas
+ * uma a uma, reportando o tempo por chave.
+ *
+ * Cada rodada parte de uma árvore com n chaves pares construída com
+ * fromSorted e aplica lotes de k chaves uniformes em [0, 2n), de modo que
+ * cerca de metade das chaves do lote já está na árvore. A vantagem do lote
+ * cresce com k / n, pois a passagem única custa O(k log(n/k + 1)).
+ *
+ * Uso (ver alvo "benchmark" do build.xml):
+ *     ant benchmark -Dbenchmark.class=projetoesdarvores.benchmarks.OperacoesEmLote
+ *         -Dbenchmark.args="--n=1000000 --lotes=1000,10000,100000,1000000 --iteracoes=5"
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class OperacoesEmLote {
+
+    private static final long SEMENTE = 20111101L;
+
+    // acumula resultados para que o JIT não elimine as operações medidas
+    private static long sumidouro;
+
+    /*
+     * Operações comparadas, individuais e em lote.
+     */
+    private static interface Arvore {
+        void put( Integer key, Integer value );
+        Integer get( Integer key );
+        void delete( Integer key );
+        void putAll( Integer[] keys, Integer[] values );
+        void getAll( Integer[] keys, Integer[] values );
+        void deleteAll( Integer[] keys );
+    }
+
+    public static void main( String[] args ) {
+
+        int n = 1_000_000;
+        String lotes = "1000,10000,100000,1000000";
+        int iteracoes = 5;
+
+        for ( String a : args ) {
+            if ( a.startsWith( "--n=" ) ) {
+                n = Integer.parseInt( a.substring( "--n=".length() ) );
+            } else if ( a.startsWith( "--lotes=" ) ) {
+                lotes = a.substring( "--lotes=".length() );
+            } else if ( a.startsWith( "--iteracoes=" ) ) {
+                iteracoes = Integer.parseInt( a.substring( "--iteracoes=".length() ) );
+            } else {
+                throw new IllegalArgumentException( "invalid option: " + a );
+            }
+        }
+
+        Integer[] chaves = new Integer[n];
+        for ( int i = 0; i < n; i++ ) {
+            chaves[i] = 2 * i;
+        }
+
+        System.out.printf( "n = %d%n", n );
+        System.out.printf( "%-6s %9s %10s %10s %10s %10s %10s %10s%n",
+                "arvore", "k", "put ns", "putAll ns", "get ns", "getAll ns", "delete ns", "delAll ns" );
+
+        Random r = new Random( SEMENTE );
+
+        for ( String l : lotes.split( "," ) ) {
+
+            int k = Integer.parseInt( l.trim() );
+            Integer[] lote = new Integer[k];
+            for ( int i = 0; i < k; i++ ) {
+                lote[i] = r.nextInt( 2 * n );
+            }
+
+            medir( "AVL", chaves, lote, iteracoes );
+            medir( "AVP", chaves, lote, iteracoes );
+
+        }
+
+        System.out.println( "(" + sumidouro + ")" );
+
+    }
+
+    private static Arvore criar( String nome, Integer[] chaves ) {
+
+        if ( nome.equals( "AVL" ) ) {
+            ArvoreAVL<Integer, Integer> a = ArvoreAVL.fromSorted( chaves, chaves );
+            return new Arvore() {
+                @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+                @Override public Integer get( Integer k ) { return a.get( k ); }
+                @Override public void delete( Integer k ) { a.delete( k ); }
+                @Override public void putAll( Integer[] k, Integer[] v ) { a.putAll( k, v ); }
+                @Override public void getAll( Integer[] k, Integer[] v ) { a.getAll( k, v ); }
+                @Override public void deleteAll( Integer[] k ) { a.deleteAll( k ); }
+            };
+        }
+
+        ArvoreVermelhoPreto<Integer, Integer> a = ArvoreVermelhoPreto.fromSorted( chaves, chaves );
+        return new Arvore() {
+            @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+            @Override public Integer get( Integer k ) { return a.get( k ); }
+            @Override public void delete( Integer k ) { a.delete( k ); }
+            @Override public void putAll( Integer[] k, Integer[] v ) { a.putAll( k, v ); }
+            @Override public void getAll( Integer[] k, Integer[] v ) { a.getAll( k, v ); }
+            @Override public void deleteAll( Integer[] k ) { a.deleteAll( k ); }
+        };
+
+    }
+
+    private static void medir( String nome, Integer[] chaves, Integer[] lote, int iteracoes ) {
+
+        // a primeira metade das iterações é aquecimento
+        double[] media = new double[6];
+        for ( int i = 0; i < 2 * iteracoes; i++ ) {
+            double[] m = medirRodada( criar( nome, chaves ), criar( nome, chaves ), lote );
+            if ( i >= iteracoes ) {
+                for ( int j = 0; j < media.length; j++ ) {
+                    media[j] += m[j] / iteracoes;
+                }
+            }
+        }
+
+        System.out.printf( Locale.ROOT, "%-6s %9d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                nome, lote.length, media[0], media[1], media[2], media[3], media[4], media[5] );
+
+    }
+
+    /*
+     * Aplica o lote chave a chave em uma árvore e de uma vez na outra.
+     */
+    private static double[] medirRodada( Arvore individual, Arvore emLote, Integer[] lote ) {
+
+        Integer[] valores = new Integer[lote.length];
+        long acc = 0;
+
+        long t0 = System.nanoTime();
+        for ( Integer k : lote ) {
+            individual.put( k, k );
+        }
+        long t1 = System.nanoTime();
+        emLote.putAll( lote, lote );
+        long t2 = System.nanoTime();
+        for ( Integer k : lote ) {
+            if ( individual.get( k ) != null ) {
+                acc++;
+            }
+        }
+        long t3 = System.nanoTime();
+        emLote.getAll( lote, valores );
+        long t4 = System.nanoTime();
+        for ( Integer k : lote ) {
+            individual.delete( k );
+        }
+        long t5 = System.nanoTime();
+        emLote.deleteAll( lote );
+        long t6 = System.nanoTime();
+
+        for ( Integer v : valores ) {
+            acc += v;
+        }
+        sumidouro += acc;
+
+        double k = lote.length;
+        return new double[]{
+            ( t1 - t0 ) / k, ( t2 - t1 ) / k,
+            ( t3 - t2 ) / k, ( t4 - t3 ) / k,
+            ( t5 - t4 ) / k, ( t6 - t5 ) / k
+        };
+
+    }
+
+}
@@ -0,0 +1,178 @@
+package projetoesdarvores.benchmarks;
+
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreB;
+import projetoesdarvores.esd.ArvoreBinariaBusca;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+import projetoesdarvores.esd.ArvoreVermelhoPretoCompacta;
+import projetoesdarvores.esd.ArvoreVermelhoPretoIterativa;
+import projetoesdarvores.esd.ArvoreVermelhoPretoPersistente;
+
+/**
+ * Árvores que podem ser medidas pelos benchmarks.
+ *
+ * As árvores do pacote esd não compartilham uma interface, então cada tipo
+ * sabe criar um adaptador com as operações medidas.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public enum TipoArvore {
+
+    ABB {
+        @Override
+        public Adaptador criar() {
+            ArvoreBinariaBusca<Integer, Integer> a = new ArvoreBinariaBusca<>();
+            return new Adaptador() {
+                @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+                @Override public Integer get( Integer k ) { return a.get( k ); }
+                @Override public void delete( Integer k ) { a.delete( k ); }
+                @Override public boolean contains( Integer k ) { return a.contains( k ); }
+                @Override public int getSize() { return a.getSize(); }
+                @Override public Iterable<Integer> chaves() { return a; }
+            };
+        }
+    },
+
+    AVL {
+        @Override
+        public Adaptador criar() {
+            return adaptar( new ArvoreAVL<>() );
+        }
+        @Override
+        public Adaptador carregar( Integer[] chaves ) {
+            return adaptar( ArvoreAVL.fromUnsorted( chaves, chaves ) );
+        }
+    },
+
+    AVP {
+        @Override
+        public Adaptador criar() {
+            return adaptar( new ArvoreVermelhoPreto<>() );
+        }
+        @Override
+        public Adaptador carregar( Integer[] chaves ) {
+            return adaptar( ArvoreVermelhoPreto.fromUnsorted( chaves, chaves ) );
+        }
+    },
+
+    AVP_COMPACTA {
+        @Override
+        public Adaptador criar() {
+            ArvoreVermelhoPretoCompacta<Integer, Integer> a = new ArvoreVermelhoPretoCompacta<>();
+            return new Adaptador() {
+                @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+                @Override public Integer get( Integer k ) { return a.get( k ); }
+                @Override public void delete( Integer k ) { a.delete( k ); }
+                @Override public boolean contains( Integer k ) { return a.contains( k ); }
+                @Override public int getSize() { return a.getSize(); }
+                @Override public Iterable<Integer> chaves() { return a; }
+            };
+        }
+    },
+
+    AVP_ITERATIVA {
+        @Override
+        public Adaptador criar() {
+            ArvoreVermelhoPretoIterativa<Integer, Integer> a = new ArvoreVermelhoPretoIterativa<>();
+            return new Adaptador() {
+                @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+                @Override public Integer get( Integer k ) { return a.get( k ); }
+                @Override public void delete( Integer k ) { a.delete( k ); }
+                @Override public boolean contains( Integer k ) { return a.contains( k ); }
+                @Override public int getSize() { return a.getSize(); }
+                @Override public Iterable<Integer> chaves() { return a; }
+            };
+        }
+    },
+
+    AB {
+        @Override
+        public Adaptador criar() {
+            ArvoreB<Integer, Integer> a = new ArvoreB<>();
+            return new Adaptador() {
+                @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+                @Override public Integer get( Integer k ) { return a.get( k ); }
+                @Override public void delete( Integer k ) { a.delete( k ); }
+                @Override public boolean contains( Integer k ) { return a.contains( k ); }
+                @Override public int getSize() { return a.getSize(); }
+                @Override public Iterable<Integer> chaves() { return a; }
+            };
+        }
+    },
+
+    AVP_PERSISTENTE {
+        @Override
+        public Adaptador criar() {
+            // guarda a versão mais recente, então cada escrita mede também
+            // a cópia do caminho alterado
+            return new Adaptador() {
+                ArvoreVermelhoPretoPersistente<Integer, Integer> a = new ArvoreVermelhoPretoPersistente<>();
+                @Override public void put( Integer k, Integer v ) { a = a.put( k, v ); }
+                @Override public Integer get( Integer k ) { return a.get( k ); }
+                @Override public void delete( Integer k ) { a = a.delete( k ); }
+                @Override public boolean contains( Integer k ) { return a.contains( k ); }
+                @Override public int getSize() { return a.getSize(); }
+                @Override public Iterable<Integer> chaves() { return a; }
+            };
+        }
+    };
+
+    /*
+     * Operações comuns às árvores medidas.
+     */
+    public static interface Adaptador {
+        void put( Integer key, Integer value );
+        Integer get( Integer key );
+        void delete( Integer key );
+        boolean contains( Integer key );
+        int getSize();
+        Iterable<Integer> chaves();
+    }
+
+    /**
+     * Cria uma árvore vazia do tipo correspondente.
+     *
+     * @return O adaptador para a nova árvore.
+     */
+    public abstract Adaptador criar();
+
+    /**
+     * Cria uma árvore do tipo correspondente contendo as chaves informadas,
+     * fora de ordem, cada uma associada a si mesma. Usa a construção em lote
+     * quando a árvore oferece uma e, caso contrário, uma chamada a put por
+     * chave.
+     *
+     * @param chaves As chaves.
+     * @return O adaptador para a nova árvore.
+     */
+    public Adaptador carregar( Integer[] chaves ) {
+        Adaptador a = criar();
+        for ( Integer k : chaves ) {
+            a.put( k, k );
+        }
+        return a;
+    }
+
+    private static Adaptador adaptar( ArvoreAVL<Integer, Integer> a ) {
+        return new Adaptador() {
+            @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+            @Override public Integer get( Integer k ) { return a.get( k ); }
+            @Override public void delete( Integer k ) { a.delete( k ); }
+            @Override public boolean contains( Integer k ) { return a.contains( k ); }
+            @Override public int getSize() { return a.getSize(); }
+            @Override public Iterable<Integer> chaves() { return a; }
+        };
+    }
+
+    private static Adaptador adaptar( ArvoreVermelhoPreto<Integer, Integer> a ) {
+        return new Adaptador() {
+            @Override public void put( Integer k, Integer v ) { a.put( k, v ); }
+            @Override public Integer get( Integer k ) { return a.get( k ); }
+            @Override public void delete( Integer k ) { a.delete( k ); }
+            @Override public boolean contains( Integer k ) { return a.contains( k ); }
+            @Override public int getSize() { return a.getSize(); }
+            @Override public Iterable<Integer> chaves() { return a; }
+        };
+    }
+
+}
@@ -1,10 +1,29 @@
 package projetoesdarvores.esd;
 
-import aesd.ds.implementations.linear.LinkedQueue;
-import aesd.ds.implementations.linear.ResizingArrayList;
-import aesd.ds.interfaces.List;
-import aesd.ds.interfaces.Queue;
+import aesd.ds.implementations.linear.ResizingArrayStack;
+import aesd.ds.interfaces.Stack;
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import projetoesdarvores.esd.Instrumentacao.Operacao;
+import projetoesdarvores.esd.OuvinteEstrutural.TipoEvento;
 
 /**
  * Implementação de uma árvore AVL (Adelson-Velsky e Landis).
@@ -31,6 +50,10 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
         
         public int height;
         
+        // quantidade de nós da subárvore, que mantém exatos os tamanhos das
+        // partes de split e das operações de conjunto
+        public int size;
+        
         @Override
         public String toString() {
             return key + " -> " + value + " (" + height + ")";
@@ -38,21 +61,188 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
         
     }
     
+    /*
+     * Nó das árvores com monoide, que guarda também o agregado dos valores
+     * da sua subárvore. As árvores sem monoide usam apenas Node e não pagam
+     * pelo campo extra.
+     */
+    private static class NodeAgregado<Key extends Comparable<Key>, Value> extends Node<Key, Value> {
+        Object aggregate;
+    }
+    
     // raiz da árvore
     private Node<Key, Value> root;
     
-    // tamanho da árvore (quantidade de pares chave/valor)
-    private int size;
+    // quantidade de modificações estruturais, usada pelos iteradores
+    private int modCount;
+    
+    // ouvinte opcional dos passos estruturais; null quando desligado
+    private OuvinteEstrutural ouvinte;
+    
+    // instrumentação opcional; null quando desligada
+    private Medicao medidor;
+    
+    // agregado opcional das subárvores; null quando desligado, e então os
+    // nós são instâncias de Node em vez de NodeAgregado
+    private final Monoide<? super Value, Object> monoide;
+    
+    // medição da operação em andamento; null quando ela não é amostrada
+    private Medicao medicao;
     
     // fator de balanceamento
     // valor máximo na diferença de alturas de duas subárvores
     private static final int ALLOWED_IMBALANCE = 1;
     
+    // altura a partir da qual as duas metades de union, intersection e
+    // difference são processadas em paralelo (de 600 a 16 mil nós); abaixo
+    // dela o custo de criar a tarefa supera o ganho
+    private static final int ALTURA_MINIMA_PARALELA = 14;
+    
+    /*
+     * Operações de conjunto baseadas em junção.
+     */
+    private static enum OperacaoConjunto {
+        UNIAO,
+        INTERSECAO,
+        DIFERENCA
+    }
+    
+    /*
+     * Resultado de um split: as subárvores com as chaves menores e maiores
+     * que a chave procurada e o nó com a chave, caso exista.
+     */
+    private static class Divisao<Key extends Comparable<Key>, Value> {
+        Node<Key, Value> left;
+        Node<Key, Value> middle;
+        Node<Key, Value> right;
+    }
+    
     /**
      * Constrói uma Árvore AVL vazia.
      */
     public ArvoreAVL() {
         root = null;
+        monoide = null;
+    }
+    
+    /**
+     * Constrói uma Árvore AVL vazia que mantém em cada nó o agregado dos
+     * valores da sua subárvore, permitindo consultas aggregate( lo, hi ) em
+     * O(log n). O agregado é recalculado junto com a altura, então put,
+     * delete e as demais operações continuam O(log n), com uma chamada a
+     * combine a mais por nó do caminho.
+     * 
+     * Árvores combinadas por join, union, intersection e difference devem ter
+     * monoides iguais segundo equals, como os de duas chamadas a
+     * Monoide.count().
+     * 
+     * @param monoide O agregado mantido pela árvore.
+     */
+    @SuppressWarnings( "unchecked" )
+    public ArvoreAVL( Monoide<? super Value, ?> monoide ) throws IllegalArgumentException {
+        if ( monoide == null ) {
+            throw new IllegalArgumentException( "monoid must not be null" );
+        }
+        root = null;
+        this.monoide = (Monoide<? super Value, Object>) monoide;
+    }
+    
+    /**
+     * Constrói uma árvore AVL perfeitamente balanceada em tempo O(n) a
+     * partir de chaves em ordem estritamente crescente.
+     * 
+     * @param keys As chaves, em ordem estritamente crescente.
+     * @param values Os valores, na mesma posição das chaves.
+     * @return A árvore construída.
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreAVL<Key, Value> fromSorted( 
+            Key[] keys, Value[] values ) throws IllegalArgumentException {
+        return build( new EntradasOrdenadas<>( keys, values ), new ArvoreAVL<>() );
+    }
+    
+    /**
+     * Constrói, como fromSorted( keys, values ), uma árvore AVL com monoide,
+     * calculando os agregados durante a construção.
+     * 
+     * @param keys As chaves, em ordem estritamente crescente.
+     * @param values Os valores, na mesma posição das chaves.
+     * @param monoide O agregado mantido pela árvore.
+     * @return A árvore construída.
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreAVL<Key, Value> fromSorted( 
+            Key[] keys, Value[] values, Monoide<? super Value, ?> monoide ) throws IllegalArgumentException {
+        return build( new EntradasOrdenadas<>( keys, values ), new ArvoreAVL<>( monoide ) );
+    }
+    
+    /**
+     * Constrói uma árvore AVL perfeitamente balanceada em tempo O(n) a
+     * partir de n pares em ordem estritamente crescente de chaves, lidos
+     * diretamente do iterador.
+     * 
+     * @param entries Os pares chave/valor, em ordem estritamente crescente.
+     * @param n A quantidade de pares que serão lidos do iterador.
+     * @return A árvore construída.
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreAVL<Key, Value> fromSorted( 
+            Iterator<Entry<Key, Value>> entries, int n ) throws IllegalArgumentException {
+        return build( new EntradasOrdenadas<>( entries, n ), new ArvoreAVL<>() );
+    }
+    
+    /**
+     * Constrói uma árvore AVL perfeitamente balanceada a partir de pares fora
+     * de ordem. Os pares são ordenados em paralelo e depois a árvore é
+     * construída em tempo linear. Para chaves repetidas prevalece o último
+     * valor, como em chamadas sucessivas a put.
+     * 
+     * @param keys As chaves.
+     * @param values Os valores, na mesma posição das chaves.
+     * @return A árvore construída.
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreAVL<Key, Value> fromUnsorted( 
+            Key[] keys, Value[] values ) throws IllegalArgumentException {
+        return build( EntradasOrdenadas.sort( keys, values ), new ArvoreAVL<>() );
+    }
+    
+    private static <Key extends Comparable<Key>, Value> ArvoreAVL<Key, Value> build( 
+            EntradasOrdenadas<Key, Value> entries, ArvoreAVL<Key, Value> tree ) {
+        tree.root = build( entries, entries.getSize(), tree.monoide );
+        return tree;
+    }
+    
+    /*
+     * Constrói em ordem uma subárvore com os próximos n pares: primeiro a
+     * metade esquerda, depois a raiz e por fim a metade direita. Como as
+     * metades diferem em no máximo um nó, suas alturas também diferem em no
+     * máximo um. Com monoide, o agregado de cada nó é calculado depois dos
+     * das suas subárvores.
+     */
+    private static <Key extends Comparable<Key>, Value> Node<Key, Value> build( 
+            EntradasOrdenadas<Key, Value> entries, int n, Monoide<? super Value, Object> monoide ) {
+        
+        if ( n == 0 ) {
+            return null;
+        }
+        
+        int leftSize = ( n - 1 ) / 2;
+        Node<Key, Value> left = build( entries, leftSize, monoide );
+        
+        entries.next();
+        Node<Key, Value> node = newNode( monoide );
+        node.key = entries.key;
+        node.value = entries.value;
+        node.left = left;
+        node.right = build( entries, n - 1 - leftSize, monoide );
+        node.height = Math.max( 
+                node.left == null ? 0 : node.left.height, 
+                node.right == null ? 0 : node.right.height ) + 1;
+        node.size = n;
+        
+        if ( monoide != null ) {
+            updateAggregate( node, monoide );
+        }
+        
+        return node;
+        
     }
     
     public void put( Key key, Value value ) throws IllegalArgumentException {
@@ -66,7 +256,11 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
             return;
         }
         
+        Medicao m = iniciarMedicao();
         root = (Node<Key, Value>) put( root, key, value );
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.PUT );
+        }
         
     }
     
@@ -74,19 +268,25 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
         
         if ( node == null ) {
             
-            Node<Key, Value> avlNode = new Node<>();
+            Node<Key, Value> avlNode = newNode( monoide );
             avlNode.key = key;
             avlNode.value = value;
             avlNode.left = null;
             avlNode.right = null;
             avlNode.height = 1;
+            avlNode.size = 1;
             
             node = avlNode;
             
-            size++;
+            modCount++;
+            
+            if ( ouvinte != null ) {
+                ouvinte.evento( TipoEvento.INSERCAO, key, null, 0 );
+            }
             
         } else {
 
+            contarPasso();
             int comp = key.compareTo( node.key );
 
             if ( comp < 0 ) {
@@ -108,13 +308,19 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
         if ( key == null ) {
             throw new IllegalArgumentException( "argument to get() is null" );
         }
-        return get( root, key );
+        Medicao m = iniciarMedicao();
+        Value value = get( root, key );
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.GET );
+        }
+        return value;
     }
     
     private Value get( Node<Key, Value> node, Key key ) {
         
         while ( node != null ) {
             
+            contarPasso();
             int comp = key.compareTo( node.key );
             
             if ( comp < 0 ) {
@@ -137,12 +343,16 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
             throw new IllegalArgumentException( "argument to delete() is null" );
         }
         
-        if ( !contains( key ) ) {
-            return;
+        Medicao m = iniciarMedicao();
+        
+        if ( get( root, key ) != null ) {
+            root = (Node<Key, Value>) delete( root, key );
+            modCount++;
         }
         
-        root = (Node<Key, Value>) delete( root, key );
-        size--;
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.DELETE );
+        }
         
     }
 
@@ -152,6 +362,7 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
             return node;
         }
         
+        contarComparacao();
         int comp = key.compareTo( node.key );
 
         if ( comp < 0 ) {
@@ -164,6 +375,9 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
             if ( node.left != null && node.right != null ) {
                 
                 Node<Key, Value> min = min( node.right );
+                if ( ouvinte != null ) {
+                    ouvinte.evento( TipoEvento.SUBSTITUICAO, node.key, min.key, 0 );
+                }
                 node.key = min.key;
                 node.value = min.value;
                 
@@ -171,6 +385,9 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
                 
                 // um ou nenhum filho
             } else {
+                if ( ouvinte != null ) {
+                    ouvinte.evento( TipoEvento.REMOCAO, node.key, null, 0 );
+                }
                 node = ( node.left != null ) ? node.left : node.right;
             }
             
@@ -180,182 +397,829 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
         
     }
     
-    public boolean contains( Key key ) throws IllegalArgumentException {
-        return get( key ) != null;
-    }
-
-    public Node<Key, Value> min() {
+    /**
+     * Insere um lote de pares em uma única passagem pela árvore. O lote é
+     * ordenado e depois intercalado recursivamente com a árvore: em cada nó
+     * visitado o lote é dividido entre as subárvores, cada uma recebe a sua
+     * parte e o nó é religado às subárvores resultantes por uma junção, que
+     * rebalanceia apenas o caminho entre as alturas das duas. Faixas do lote
+     * que chegam a uma posição vazia viram subárvores construídas em tempo
+     * linear. Para k pares o custo é O(k log(n/k + 1)), contra O(k log n) de
+     * k chamadas a put.
+     * 
+     * Para chaves repetidas prevalece o último valor. Com um ouvinte
+     * registrado os pares são inseridos um a um, para que cada passo
+     * estrutural continue sendo avisado, e operações em lote não são
+     * amostradas pela instrumentação.
+     * 
+     * @param keys As chaves.
+     * @param values Os valores, na mesma posição das chaves.
+     */
+    public void putAll( Key[] keys, Value[] values ) throws IllegalArgumentException {
         
-        if ( isEmpty() ) {
-            return null;
+        LoteOrdenado<Key, Value> lote = LoteOrdenado.paraInsercao( keys, values );
+        
+        if ( ouvinte != null ) {
+            for ( int i = 0; i < lote.size; i++ ) {
+                put( lote.keys[i], lote.values[i] );
+            }
+            return;
         }
         
-        return min( root );
+        root = putAll( root, lote, 0, lote.size );
+        if ( lote.alterados > 0 ) {
+            modCount++;
+        }
         
     }
     
-    private Node<Key, Value> min( Node<Key, Value> node ) {
+    private Node<Key, Value> putAll( Node<Key, Value> node, LoteOrdenado<Key, Value> lote, int lo, int hi ) {
         
-        if ( node == null ) {
+        if ( lo == hi ) {
             return node;
         }
-
-        while ( node.left != null ) {
-            node = node.left;
+        
+        if ( node == null ) {
+            lote.alterados += hi - lo;
+            return build( lote.entradas( lo, hi ), hi - lo, monoide );
         }
         
-        return node;
+        int p = lote.lowerBound( lo, hi, node.key );
+        int q = p;
+        
+        if ( p < hi && lote.keys[p].compareTo( node.key ) == 0 ) {
+            node.value = lote.values[p];
+            q++;
+        }
+        
+        Node<Key, Value> left = putAll( node.left, lote, lo, p );
+        Node<Key, Value> right = putAll( node.right, lote, q, hi );
+        
+        return join( left, node, right );
         
     }
-
-    public Node<Key, Value> max() {
+    
+    /**
+     * Busca um lote de chaves em uma única passagem pela árvore, em
+     * O(k log(n/k + 1)) para k chaves.
+     * 
+     * @param keys As chaves buscadas, em qualquer ordem e possivelmente
+     * repetidas.
+     * @param values Recebe, na posição de cada chave, o valor associado a
+     * ela ou null caso a chave não esteja na árvore.
+     */
+    public void getAll( Key[] keys, Value[] values ) throws IllegalArgumentException {
         
-        if ( isEmpty() ) {
-            return null;
+        if ( values == null || ( keys != null && values.length < keys.length ) ) {
+            throw new IllegalArgumentException( "values must hold one value per key" );
         }
         
-        return max( root );
+        LoteOrdenado<Key, Value> lote = LoteOrdenado.paraConsulta( keys, "getAll", true );
+        Arrays.fill( values, 0, lote.size, null );
+        getAll( root, lote, 0, lote.size, values );
         
     }
     
-    private Node<Key, Value> max( Node<Key, Value> node ) {
+    private void getAll( Node<Key, Value> node, LoteOrdenado<Key, Value> lote, int lo, int hi, Value[] values ) {
         
-        if ( node == null ) {
-            return node;
+        if ( node == null || lo == hi ) {
+            return;
         }
-
-        while ( node.right != null ) {
-            node = node.right;
+        
+        int p = lote.lowerBound( lo, hi, node.key );
+        int q = lote.upperBound( p, hi, node.key );
+        
+        for ( int i = p; i < q; i++ ) {
+            values[lote.positions[i]] = node.value;
         }
         
-        return node;
+        getAll( node.left, lote, lo, p, values );
+        getAll( node.right, lote, q, hi, values );
         
     }
-
+    
     /**
-     * Esvazia a árvore.
-     */
-    public void clear() {
-        root = (Node<Key, Value>) clear( root );
-        size = 0;
-    }
-
-    /*
-     * Método privado para remoção de todos os itens de forma recursiva.
+     * Remove um lote de chaves em uma única passagem pela árvore, em
+     * O(k log(n/k + 1)) para k chaves. Cada nó removido é substituído pela
+     * junção das suas subárvores. Chaves ausentes ou repetidas são
+     * ignoradas. Com um ouvinte registrado as chaves são removidas uma a uma.
+     * 
+     * @param keys As chaves que serão removidas.
      */
-    private Node<Key, Value> clear( Node<Key, Value> node ) {
-
-        if ( node != null ) {
-            node.left = clear( node.left );
-            node.right = clear( node.right );
+    public void deleteAll( Key[] keys ) throws IllegalArgumentException {
+        
+        LoteOrdenado<Key, Value> lote = LoteOrdenado.paraConsulta( keys, "deleteAll", false );
+        
+        if ( ouvinte != null ) {
+            for ( int i = 0; i < lote.size; i++ ) {
+                delete( lote.keys[i] );
+            }
+            return;
         }
-
-        return null;
-
+        
+        root = deleteAll( root, lote, 0, lote.size );
+        if ( lote.alterados > 0 ) {
+            modCount++;
+        }
+        
     }
     
-    public boolean isEmpty() {
-        return size == 0;
+    private Node<Key, Value> deleteAll( Node<Key, Value> node, LoteOrdenado<Key, Value> lote, int lo, int hi ) {
+        
+        if ( node == null || lo == hi ) {
+            return node;
+        }
+        
+        int p = lote.lowerBound( lo, hi, node.key );
+        int q = lote.upperBound( p, hi, node.key );
+        
+        Node<Key, Value> left = deleteAll( node.left, lote, lo, p );
+        Node<Key, Value> right = deleteAll( node.right, lote, q, hi );
+        
+        if ( p < q ) {
+            lote.alterados++;
+            return join( left, right );
+        }
+        
+        return join( left, node, right );
+        
     }
     
-    public int getSize() {
-        return size;
+    /*
+     * Junta duas árvores AVL cujas chaves são, respectivamente, menores e
+     * maiores que a chave de middle. A árvore mais baixa é pendurada, junto
+     * com middle, no nó da borda da mais alta com altura próxima à sua e os
+     * nós da borda são rebalanceados na volta. Custa O(|altura(left) -
+     * altura(right)| + 1).
+     */
+    private Node<Key, Value> join( Node<Key, Value> left, Node<Key, Value> middle, Node<Key, Value> right ) {
+        
+        int hl = height( left );
+        int hr = height( right );
+        
+        if ( hl - hr > ALLOWED_IMBALANCE ) {
+            left.right = join( left.right, middle, right );
+            return balance( left );
+        }
+        
+        if ( hr - hl > ALLOWED_IMBALANCE ) {
+            right.left = join( left, middle, right.left );
+            return balance( right );
+        }
+        
+        middle.left = left;
+        middle.right = right;
+        updateHeight( middle );
+        
+        return middle;
+        
     }
     
-    private Node<Key, Value> balance( Node<Key, Value> node ) {
+    /*
+     * Junta duas árvores sem um nó intermediário, usando como intermediário
+     * o maior nó da árvore da esquerda.
+     */
+    private Node<Key, Value> join( Node<Key, Value> left, Node<Key, Value> right ) {
         
-        if ( node == null ) {
-            return node;
+        if ( left == null ) {
+            return right;
         }
-
-        if ( height( node.left ) - height( node.right ) > ALLOWED_IMBALANCE ) {
-            if ( height( node.left.left ) >= height( node.left.right ) ) {
-                node = rotateWithLeftChild( node );
-            } else {
-                node = doubleWithLeftChild( node );
-            }
-        } else if ( height( node.right ) - height( node.left ) > ALLOWED_IMBALANCE ) {
-            if ( height( node.right.right ) >= height( node.right.left ) ) {
-                node = rotateWithRightChild( node );
-            } else {
-                node = doubleWithRightChild( node );
-            }
+        
+        Node<Key, Value> max = max( left );
+        
+        return join( deleteMax( left ), max, right );
+        
+    }
+    
+    private Node<Key, Value> deleteMax( Node<Key, Value> node ) {
+        
+        if ( node.right == null ) {
+            return node.left;
         }
-
-        ( (Node<Key, Value>) node ).height = Math.max( height( node.left ), height( node.right ) ) + 1;
         
-        return node;
+        node.right = deleteMax( node.right );
+        
+        return balance( node );
         
     }
-
+    
     /**
-     * Retorna a altura de um nó ou 0 caso o nó seja nulo.
+     * Anexa a esta árvore todos os pares de other, cujas chaves devem ser
+     * maiores que todas as chaves desta árvore. Os nós de other passam para
+     * esta árvore por uma junção em O(log n) e other fica vazia.
+     * 
+     * @param other A árvore com as chaves maiores.
      */
-    private int height( Node<Key, Value> node ) {
-        return node == null ? 0 : ( (Node<Key, Value>) node ).height;
+    public void join( ArvoreAVL<Key, Value> other ) throws IllegalArgumentException {
+        
+        checkOther( other, "join" );
+        
+        if ( root != null && other.root != null 
+                && max( root ).key.compareTo( min( other.root ).key ) >= 0 ) {
+            throw new IllegalArgumentException( "keys of the argument to join() must be greater than the keys of this tree" );
+        }
+        
+        root = join( root, other.root );
+        modCount++;
+        other.esvaziar();
+        
     }
-
+    
     /**
-     * Rotação EE/LL - simétrica à DD/RR
-     * 
-     * Para a inserção, N foi inserido na subárvore esquerda da subárvore
-     * esquerda de A, ou seja, rotacionada um nó com filho à esquerda.
-     *
-     * Para as árvores AVL, essa é uma rotação simples apresentada no slide 11.
-     * 
-     * Diferença entre alturas:
-     *     A = +2;
-     *     B = +1;
+     * Divide a árvore em O(log n): as chaves menores que key permanecem
+     * nesta árvore e as maiores ou iguais são movidas para a árvore
+     * retornada. Os tamanhos das duas partes vêm dos tamanhos das
+     * subárvores, refeitos pelas junções.
      * 
-     * Ao final, atualiza as alturas e retorna a nova raiz.
+     * @param key A primeira chave da árvore retornada.
+     * @return Uma árvore com as chaves maiores ou iguais a key.
      */
-    private Node<Key, Value> rotateWithLeftChild( Node<Key, Value> a ) {
+    public ArvoreAVL<Key, Value> split( Key key ) throws IllegalArgumentException {
         
-        Node<Key, Value> b = a.left;
-        a.left = b.right;
-        b.right = a;
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to split() is null" );
+        }
         
-        Node<Key, Value> aAvl = (Node<Key, Value>) a;
-        Node<Key, Value> bAvl = (Node<Key, Value>) b;
+        Divisao<Key, Value> d = new Divisao<>();
+        split( root, key, d );
         
-        aAvl.height = Math.max( height( a.left ), height( a.right ) ) + 1;
-        bAvl.height = Math.max( height( b.left ), height( b.right ) ) + 1;
+        ArvoreAVL<Key, Value> tree = monoide == null ? new ArvoreAVL<>() : new ArvoreAVL<>( monoide );
+        root = d.left;
+        tree.root = d.middle == null ? d.right : join( null, d.middle, d.right );
+        modCount++;
         
-        return b;
+        return tree;
         
     }
-
+    
     /**
-     * Rotação DD/RR - simétrica à EE/LL
+     * Acrescenta a esta árvore os pares de other. Para as chaves presentes
+     * nas duas prevalece o valor de other, como em chamadas a put. Para
+     * árvores com m e n chaves, m <= n, o custo é O(m log(n/m + 1)) e as duas
+     * metades de cada passo são processadas em paralelo no pool comum de
+     * fork-join enquanto as subárvores forem grandes. Os nós de other são
+     * reaproveitados e other fica vazia.
      * 
-     * Para a inserção, N foi inserido na subárvore direita da subárvore
-     * direita de A, ou seja, rotacionada um nó com filho à direita.
-     *
-     * Para as árvores AVL, essa é uma rotação simples apresentada no slide 17.
+     * @param other A outra árvore.
+     */
+    public void union( ArvoreAVL<Key, Value> other ) throws IllegalArgumentException {
+        executarConjunto( other, OperacaoConjunto.UNIAO, "union" );
+    }
+    
+    /**
+     * Mantém nesta árvore apenas as chaves que também estão em other, com os
+     * valores desta árvore, com o mesmo custo e paralelismo de union. other
+     * fica vazia.
      * 
-     * Diferença entre alturas:
-     *     A = -2;
-     *     B = -1;
+     * @param other A outra árvore.
+     */
+    public void intersection( ArvoreAVL<Key, Value> other ) throws IllegalArgumentException {
+        executarConjunto( other, OperacaoConjunto.INTERSECAO, "intersection" );
+    }
+    
+    /**
+     * Remove desta árvore as chaves que estão em other, com o mesmo custo e
+     * paralelismo de union. other fica vazia.
      * 
-     * Ao final, atualiza as alturas e retorna a nova raiz.
+     * @param other A outra árvore.
      */
-    private Node<Key, Value> rotateWithRightChild( Node<Key, Value> a ) {
+    public void difference( ArvoreAVL<Key, Value> other ) throws IllegalArgumentException {
+        executarConjunto( other, OperacaoConjunto.DIFERENCA, "difference" );
+    }
+    
+    /*
+     * Com um ouvinte registrado a operação é sequencial, para que os passos
+     * cheguem a ele em ordem.
+     */
+    private void executarConjunto( ArvoreAVL<Key, Value> other, OperacaoConjunto operacao, String method ) 
+            throws IllegalArgumentException {
         
-        Node<Key, Value> b = a.right;
-        a.right = b.left;
-        b.left = a;
+        checkOther( other, method );
         
-        Node<Key, Value> aAvl = (Node<Key, Value>) a;
-        Node<Key, Value> bAvl = (Node<Key, Value>) b;
+        TarefaConjunto tarefa = new TarefaConjunto( operacao, root, other.root, ouvinte == null );
+        root = ouvinte == null ? ForkJoinPool.commonPool().invoke( tarefa ) : tarefa.invoke();
+        modCount++;
+        other.esvaziar();
         
-        aAvl.height = Math.max( height( a.left ), height( a.right ) ) + 1;
-        bAvl.height = Math.max( height( b.left ), height( b.right ) ) + 1;
+    }
+    
+    private void checkOther( ArvoreAVL<Key, Value> other, String method ) throws IllegalArgumentException {
         
-        return b;
+        if ( other == null ) {
+            throw new IllegalArgumentException( "argument to " + method + "() is null" );
+        }
         
-    }
-
-    /**
+        if ( other == this ) {
+            throw new IllegalArgumentException( "argument to " + method + "() is this tree" );
+        }
+        
+        // os nós passam de uma árvore para a outra, então precisam guardar
+        // o mesmo agregado
+        if ( !Objects.equals( other.monoide, monoide ) ) {
+            throw new IllegalArgumentException( "argument to " + method + "() has a different monoid" );
+        }
+        
+    }
+    
+    /*
+     * Descarta os nós de uma árvore que foram movidos para outra.
+     */
+    private void esvaziar() {
+        root = null;
+        modCount++;
+    }
+    
+    /*
+     * Separa a subárvore de node pela chave key: as partes menores e maiores
+     * que key são refeitas por junções na volta da descida, em O(log n).
+     */
+    private void split( Node<Key, Value> node, Key key, Divisao<Key, Value> d ) {
+        
+        if ( node == null ) {
+            d.left = null;
+            d.middle = null;
+            d.right = null;
+            return;
+        }
+        
+        int comp = key.compareTo( node.key );
+        
+        if ( comp < 0 ) {
+            Node<Key, Value> right = node.right;
+            split( node.left, key, d );
+            d.right = join( d.right, node, right );
+        } else if ( comp > 0 ) {
+            Node<Key, Value> left = node.left;
+            split( node.right, key, d );
+            d.left = join( left, node, d.left );
+        } else {
+            d.left = node.left;
+            d.middle = node;
+            d.right = node.right;
+        }
+        
+    }
+    
+    /*
+     * Operação de conjunto entre as subárvores a (desta árvore) e b (da
+     * outra): b é dividida pela chave da raiz de a, as metades menores e
+     * maiores são combinadas recursivamente e o resultado é juntado de volta
+     * usando a raiz de a como nó intermediário, caso ela permaneça. Acima de
+     * ALTURA_MINIMA_PARALELA a metade esquerda vira uma tarefa separada.
+     */
+    private class TarefaConjunto extends RecursiveTask<Node<Key, Value>> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final OperacaoConjunto operacao;
+        private final Node<Key, Value> a;
+        private final Node<Key, Value> b;
+        private final boolean paralela;
+        
+        TarefaConjunto( OperacaoConjunto operacao, Node<Key, Value> a, Node<Key, Value> b, boolean paralela ) {
+            this.operacao = operacao;
+            this.a = a;
+            this.b = b;
+            this.paralela = paralela;
+        }
+        
+        @Override
+        protected Node<Key, Value> compute() {
+            return executar( a, b );
+        }
+        
+        private Node<Key, Value> executar( Node<Key, Value> a, Node<Key, Value> b ) {
+            
+            if ( a == null ) {
+                return operacao == OperacaoConjunto.UNIAO ? b : null;
+            }
+            
+            if ( b == null ) {
+                return operacao == OperacaoConjunto.INTERSECAO ? null : a;
+            }
+            
+            boolean dividir = paralela && Math.max( height( a ), height( b ) ) >= ALTURA_MINIMA_PARALELA;
+            Divisao<Key, Value> d = new Divisao<>();
+            split( b, a.key, d );
+            
+            Node<Key, Value> left;
+            Node<Key, Value> right;
+            
+            if ( dividir ) {
+                TarefaConjunto tarefa = new TarefaConjunto( operacao, a.left, d.left, true );
+                tarefa.fork();
+                right = executar( a.right, d.right );
+                left = tarefa.join();
+            } else {
+                left = executar( a.left, d.left );
+                right = executar( a.right, d.right );
+            }
+            
+            boolean comum = d.middle != null;
+            
+            switch ( operacao ) {
+                case UNIAO:
+                    if ( comum ) {
+                        a.value = d.middle.value;
+                    }
+                    return ArvoreAVL.this.join( left, a, right );
+                case INTERSECAO:
+                    return comum ? ArvoreAVL.this.join( left, a, right ) : ArvoreAVL.this.join( left, right );
+                default:
+                    return comum ? ArvoreAVL.this.join( left, right ) : ArvoreAVL.this.join( left, a, right );
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Retorna o agregado de todos os valores da árvore em O(1).
+     * 
+     * @return O agregado, do tipo do monoide da árvore.
+     */
+    @SuppressWarnings( "unchecked" )
+    public <A> A aggregate() throws IllegalStateException {
+        checkMonoide();
+        return (A) aggregate( root );
+    }
+    
+    /**
+     * Retorna o agregado dos valores das chaves do intervalo [lo, hi] em
+     * O(log n), independentemente de quantas chaves o intervalo contém: a
+     * busca desce até o primeiro nó dentro do intervalo e, a partir dele,
+     * combina os agregados das subárvores que ficam inteiras dentro do
+     * intervalo ao longo das bordas esquerda e direita.
+     * 
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return O agregado, do tipo do monoide da árvore.
+     */
+    @SuppressWarnings( "unchecked" )
+    public <A> A aggregate( Key lo, Key hi ) throws IllegalArgumentException, IllegalStateException {
+        
+        checkRange( lo, hi, "aggregate()" );
+        checkMonoide();
+        
+        if ( lo.compareTo( hi ) > 0 ) {
+            return (A) monoide.identity();
+        }
+        
+        // primeiro nó com chave no intervalo
+        Node<Key, Value> split = root;
+        while ( split != null ) {
+            if ( lo.compareTo( split.key ) > 0 ) {
+                split = split.right;
+            } else if ( hi.compareTo( split.key ) < 0 ) {
+                split = split.left;
+            } else {
+                break;
+            }
+        }
+        
+        if ( split == null ) {
+            return (A) monoide.identity();
+        }
+        
+        // chaves maiores ou iguais a lo na subárvore esquerda, acumuladas
+        // da direita para a esquerda
+        Object left = monoide.identity();
+        for ( Node<Key, Value> node = split.left; node != null; ) {
+            if ( lo.compareTo( node.key ) <= 0 ) {
+                left = monoide.combine( monoide.combine( monoide.lift( node.value ), aggregate( node.right ) ), left );
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        
+        // chaves menores ou iguais a hi na subárvore direita, acumuladas da
+        // esquerda para a direita
+        Object right = monoide.identity();
+        for ( Node<Key, Value> node = split.right; node != null; ) {
+            if ( hi.compareTo( node.key ) >= 0 ) {
+                right = monoide.combine( right, monoide.combine( aggregate( node.left ), monoide.lift( node.value ) ) );
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        
+        return (A) monoide.combine( monoide.combine( left, monoide.lift( split.value ) ), right );
+        
+    }
+    
+    private void checkMonoide() throws IllegalStateException {
+        if ( monoide == null ) {
+            throw new IllegalStateException( "tree has no monoid" );
+        }
+    }
+    
+    public boolean contains( Key key ) throws IllegalArgumentException {
+        return get( key ) != null;
+    }
+
+    public Node<Key, Value> min() {
+        
+        if ( isEmpty() ) {
+            return null;
+        }
+        
+        return min( root );
+        
+    }
+    
+    private Node<Key, Value> min( Node<Key, Value> node ) {
+        
+        if ( node == null ) {
+            return node;
+        }
+
+        while ( node.left != null ) {
+            node = node.left;
+        }
+        
+        return node;
+        
+    }
+
+    public Node<Key, Value> max() {
+        
+        if ( isEmpty() ) {
+            return null;
+        }
+        
+        return max( root );
+        
+    }
+    
+    private Node<Key, Value> max( Node<Key, Value> node ) {
+        
+        if ( node == null ) {
+            return node;
+        }
+
+        while ( node.right != null ) {
+            node = node.right;
+        }
+        
+        return node;
+        
+    }
+
+    /**
+     * Esvazia a árvore.
+     */
+    public void clear() {
+        root = (Node<Key, Value>) clear( root );
+        modCount++;
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.LIMPEZA, null, null, 0 );
+        }
+    }
+
+    /*
+     * Método privado para remoção de todos os itens de forma recursiva.
+     */
+    private Node<Key, Value> clear( Node<Key, Value> node ) {
+
+        if ( node != null ) {
+            node.left = clear( node.left );
+            node.right = clear( node.right );
+        }
+
+        return null;
+
+    }
+    
+    public boolean isEmpty() {
+        return root == null;
+    }
+    
+    public int getSize() {
+        return size( root );
+    }
+    
+    private int size( Node<Key, Value> node ) {
+        return node == null ? 0 : node.size;
+    }
+    
+    /**
+     * Registra o ouvinte que receberá cada passo estrutural de put, delete e
+     * clear: inserções, remoções, substituições pelo sucessor, rotações e
+     * mudanças de altura. Com null, o padrão, nenhum passo é informado.
+     * 
+     * @param ouvinte O ouvinte ou null.
+     */
+    public void setOuvinte( OuvinteEstrutural ouvinte ) {
+        this.ouvinte = ouvinte;
+    }
+    
+    public OuvinteEstrutural getOuvinte() {
+        return ouvinte;
+    }
+    
+    /**
+     * Liga a instrumentação das operações get, put e delete, que passam a
+     * ser amostradas conforme a taxa configurada nela. Com null, o padrão,
+     * nada é medido.
+     * 
+     * @param instrumentacao A instrumentação ou null.
+     */
+    public void setInstrumentacao( Instrumentacao instrumentacao ) {
+        medidor = instrumentacao == null ? null : new Medicao( instrumentacao );
+        medicao = null;
+    }
+    
+    /*
+     * Começa a medir uma operação caso a instrumentação esteja ligada e a
+     * operação seja amostrada. Retorna a medição ou null.
+     */
+    private Medicao iniciarMedicao() {
+        Medicao m = medidor;
+        if ( m != null ) {
+            m = m.iniciar() ? m : null;
+            medicao = m;
+        }
+        return m;
+    }
+    
+    private void terminarMedicao( Medicao m, Operacao operacao ) {
+        medicao = null;
+        m.terminar( operacao );
+    }
+    
+    /*
+     * Conta uma comparação que também avança no caminho de busca.
+     */
+    private void contarPasso() {
+        if ( medicao != null ) {
+            medicao.comparacoes++;
+            medicao.caminho++;
+        }
+    }
+    
+    private void contarComparacao() {
+        if ( medicao != null ) {
+            medicao.comparacoes++;
+        }
+    }
+    
+    private void contarRotacao() {
+        if ( medicao != null ) {
+            medicao.rotacoes++;
+        }
+    }
+    
+    private Node<Key, Value> balance( Node<Key, Value> node ) {
+        
+        if ( node == null ) {
+            return node;
+        }
+
+        if ( height( node.left ) - height( node.right ) > ALLOWED_IMBALANCE ) {
+            if ( height( node.left.left ) >= height( node.left.right ) ) {
+                node = rotateWithLeftChild( node );
+            } else {
+                node = doubleWithLeftChild( node );
+            }
+        } else if ( height( node.right ) - height( node.left ) > ALLOWED_IMBALANCE ) {
+            if ( height( node.right.right ) >= height( node.right.left ) ) {
+                node = rotateWithRightChild( node );
+            } else {
+                node = doubleWithRightChild( node );
+            }
+        }
+
+        updateHeight( node );
+        
+        return node;
+        
+    }
+
+    /**
+     * Recalcula a altura e o tamanho de um nó a partir dos filhos, avisando o
+     * ouvinte caso a altura mude. Com monoide, recalcula também o agregado: todo
+     * nó cuja subárvore muda, seja pelo caminho de put e delete, pelas
+     * rotações ou pelas junções, passa por aqui.
+     */
+    private void updateHeight( Node<Key, Value> node ) {
+        
+        int height = Math.max( height( node.left ), height( node.right ) ) + 1;
+        
+        if ( ouvinte != null && node.height != height ) {
+            ouvinte.evento( TipoEvento.ALTURA, node.key, null, height );
+        }
+        
+        node.height = height;
+        node.size = size( node.left ) + size( node.right ) + 1;
+        
+        if ( monoide != null ) {
+            updateAggregate( node, monoide );
+        }
+        
+    }
+    
+    private static <Key extends Comparable<Key>, Value> Node<Key, Value> newNode( 
+            Monoide<? super Value, Object> monoide ) {
+        return monoide == null ? new Node<>() : new NodeAgregado<>();
+    }
+    
+    /*
+     * Agregado da subárvore de node a partir dos agregados dos filhos.
+     */
+    private static <Key extends Comparable<Key>, Value> void updateAggregate( 
+            Node<Key, Value> node, Monoide<? super Value, Object> monoide ) {
+        
+        Object aggregate = monoide.lift( node.value );
+        
+        if ( node.left != null ) {
+            aggregate = monoide.combine( ( (NodeAgregado<Key, Value>) node.left ).aggregate, aggregate );
+        }
+        if ( node.right != null ) {
+            aggregate = monoide.combine( aggregate, ( (NodeAgregado<Key, Value>) node.right ).aggregate );
+        }
+        
+        ( (NodeAgregado<Key, Value>) node ).aggregate = aggregate;
+        
+    }
+    
+    private Object aggregate( Node<Key, Value> node ) {
+        return node == null ? monoide.identity() : ( (NodeAgregado<Key, Value>) node ).aggregate;
+    }
+
+    /**
+     * Retorna a altura de um nó ou 0 caso o nó seja nulo.
+     */
+    private int height( Node<Key, Value> node ) {
+        return node == null ? 0 : ( (Node<Key, Value>) node ).height;
+    }
+
+    /**
+     * Rotação EE/LL - simétrica à DD/RR
+     * 
+     * Para a inserção, N foi inserido na subárvore esquerda da subárvore
+     * esquerda de A, ou seja, rotacionada um nó com filho à esquerda.
+     *
+     * Para as árvores AVL, essa é uma rotação simples apresentada no slide 11.
+     * 
+     * Diferença entre alturas:
+     *     A = +2;
+     *     B = +1;
+     * 
+     * Ao final, atualiza as alturas e retorna a nova raiz.
+     */
+    private Node<Key, Value> rotateWithLeftChild( Node<Key, Value> a ) {
+        
+        Node<Key, Value> b = a.left;
+        a.left = b.right;
+        b.right = a;
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.ROTACAO_DIREITA, a.key, b.key, 0 );
+        }
+        contarRotacao();
+        
+        updateHeight( a );
+        updateHeight( b );
+        
+        return b;
+        
+    }
+
+    /**
+     * Rotação DD/RR - simétrica à EE/LL
+     * 
+     * Para a inserção, N foi inserido na subárvore direita da subárvore
+     * direita de A, ou seja, rotacionada um nó com filho à direita.
+     *
+     * Para as árvores AVL, essa é uma rotação simples apresentada no slide 17.
+     * 
+     * Diferença entre alturas:
+     *     A = -2;
+     *     B = -1;
+     * 
+     * Ao final, atualiza as alturas e retorna a nova raiz.
+     */
+    private Node<Key, Value> rotateWithRightChild( Node<Key, Value> a ) {
+        
+        Node<Key, Value> b = a.right;
+        a.right = b.left;
+        b.left = a;
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.ROTACAO_ESQUERDA, a.key, b.key, 0 );
+        }
+        contarRotacao();
+        
+        updateHeight( a );
+        updateHeight( b );
+        
+        return b;
+        
+    }
+
+    /**
      * Rotação ED/LR - simétrica à DE/RL
      * 
      * Para a inserção, N foi inserido na subárvore direita da subárvore
@@ -399,31 +1263,503 @@ public class ArvoreAVL<Key extends Comparable<Key>, Value> implements Iterable<K
         return rotateWithRightChild( a );
     }
     
+    /**
+     * Grava a árvore em um fluxo, em ordem, no formato binário versionado
+     * e com soma de verificação lido por readFrom. Os pares são gravados à
+     * medida que são percorridos e o fluxo não é fechado.
+     * 
+     * @param out O fluxo de saída.
+     * @param keyCodec A codificação das chaves.
+     * @param valueCodec A codificação dos valores.
+     */
+    public void writeTo( OutputStream out, Codec<Key> keyCodec, Codec<Value> valueCodec )
+            throws IOException, IllegalArgumentException {
+        FormatoBinario.escrever( out, getSize(), getEntries(), keyCodec, valueCodec );
+    }
+    
+    /**
+     * Grava a árvore em um canal, como writeTo( OutputStream, ... ).
+     */
+    public void writeTo( WritableByteChannel channel, Codec<Key> keyCodec, Codec<Value> valueCodec )
+            throws IOException, IllegalArgumentException {
+        if ( channel == null ) {
+            throw new IllegalArgumentException( "first argument to writeTo() is null" );
+        }
+        writeTo( Channels.newOutputStream( channel ), keyCodec, valueCodec );
+    }
+    
+    /**
+     * Lê uma árvore gravada por writeTo. Os pares são decodificados um a um
+     * diretamente para a construção em tempo linear de fromSorted e a soma
+     * de verificação é conferida ao final. Como a leitura usa buffer, bytes
+     * do fluxo além do fim da árvore podem ser consumidos.
+     * 
+     * @param in O fluxo de entrada.
+     * @param keyCodec A codificação das chaves.
+     * @param valueCodec A codificação dos valores.
+     * @return A árvore lida.
+     * @throws IOException Se a leitura falhar ou o conteúdo for inválido.
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreAVL<Key, Value> readFrom( 
+            InputStream in, Codec<Key> keyCodec, Codec<Value> valueCodec ) throws IOException, IllegalArgumentException {
+        return FormatoBinario.ler( in, keyCodec, valueCodec, ( entries, n ) -> fromSorted( entries, n ) );
+    }
+    
+    /**
+     * Lê uma árvore de um canal, como readFrom( InputStream, ... ).
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreAVL<Key, Value> readFrom( 
+            ReadableByteChannel channel, Codec<Key> keyCodec, Codec<Value> valueCodec ) throws IOException, IllegalArgumentException {
+        if ( channel == null ) {
+            throw new IllegalArgumentException( "first argument to readFrom() is null" );
+        }
+        return readFrom( Channels.newInputStream( channel ), keyCodec, valueCodec );
+    }
+    
     @Override
     public Iterator<Key> iterator() {
-        return traverseInOrder().iterator();
+        return new InOrderIterator<>( null, null, node -> node.key );
     }
     
     public Iterable<Key> getKeys() {
-        Queue<Key> keys = new LinkedQueue<>();
-        for ( Key k : traverseInOrder() ) {
-            keys.enqueue( k );
+        return () -> new InOrderIterator<>( null, null, node -> node.key );
+    }
+    
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, sem copiá-las.
+     * 
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Key> getKeys( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getKeys()" );
+        return () -> new InOrderIterator<>( lo, hi, node -> node.key );
+    }
+    
+    /**
+     * Retorna os pares chave/valor da árvore em ordem, sem copiá-los.
+     * 
+     * @return Os pares chave/valor.
+     */
+    public Iterable<Entry<Key, Value>> getEntries() {
+        return () -> new InOrderIterator<>( null, null, node -> new Entry<>( node.key, node.value ) );
+    }
+    
+    /**
+     * Retorna os pares chave/valor do intervalo [lo, hi] em ordem, sem
+     * copiá-los.
+     * 
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return Os pares chave/valor do intervalo.
+     */
+    public Iterable<Entry<Key, Value>> getEntries( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getEntries()" );
+        return () -> new InOrderIterator<>( lo, hi, node -> new Entry<>( node.key, node.value ) );
+    }
+    
+    /**
+     * Retorna um spliterator das chaves em ordem, que percorre a árvore sem
+     * copiá-la e se divide nas fronteiras das subárvores, permitindo o uso
+     * da árvore em streams paralelos.
+     * 
+     * @return O spliterator das chaves.
+     */
+    @Override
+    public Spliterator<Key> spliterator() {
+        return new InOrderSpliterator<>( node -> node.key, null );
+    }
+    
+    /**
+     * Retorna um stream sequencial das chaves em ordem. O stream pode ser
+     * tornado paralelo com parallel().
+     * 
+     * @return O stream das chaves.
+     */
+    public Stream<Key> stream() {
+        return StreamSupport.stream( spliterator(), false );
+    }
+    
+    /**
+     * Retorna um stream sequencial dos pares chave/valor em ordem de chaves.
+     * O stream pode ser tornado paralelo com parallel().
+     * 
+     * @return O stream dos pares chave/valor.
+     */
+    public Stream<Entry<Key, Value>> entryStream() {
+        return StreamSupport.stream( new InOrderSpliterator<Entry<Key, Value>>( 
+                node -> new Entry<>( node.key, node.value ), 
+                ( a, b ) -> a.getKey().compareTo( b.getKey() ) ), false );
+    }
+    
+    /**
+     * Retorna um cursor sobre os pares da árvore, inicialmente sem posição.
+     * 
+     * @return O cursor.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    private void checkRange( Key lo, Key hi, String method ) throws IllegalArgumentException {
+        if ( lo == null ) {
+            throw new IllegalArgumentException( "first argument to " + method + " is null" );
+        }
+        if ( hi == null ) {
+            throw new IllegalArgumentException( "second argument to " + method + " is null" );
         }
-        return keys;
     }
     
-    private List<Key> traverseInOrder() {
-        List<Key> keys = new ResizingArrayList<>();
-        inOrder( root, keys );
-        return keys;
+    /*
+     * Iterador em ordem preguiçoso, opcionalmente limitado ao intervalo
+     * [lo, hi]. Guarda apenas o caminho da raiz até o próximo nó, ou seja,
+     * usa memória extra proporcional à altura da árvore, e falha rapidamente
+     * caso a árvore seja modificada estruturalmente durante a iteração.
+     */
+    private class InOrderIterator<T> implements Iterator<T> {
+        
+        private final Stack<Node<Key, Value>> stack;
+        private final Key hi;
+        private final Function<Node<Key, Value>, T> extractor;
+        private final int expectedModCount;
+        
+        InOrderIterator( Key lo, Key hi, Function<Node<Key, Value>, T> extractor ) {
+            
+            this.stack = new ResizingArrayStack<>();
+            this.hi = hi;
+            this.extractor = extractor;
+            this.expectedModCount = modCount;
+            
+            // empilha o caminho até a menor chave maior ou igual a lo
+            Node<Key, Value> node = root;
+            while ( node != null ) {
+                if ( lo != null && lo.compareTo( node.key ) > 0 ) {
+                    node = node.right;
+                } else {
+                    stack.push( node );
+                    node = node.left;
+                }
+            }
+            
+        }
+        
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            return !stack.isEmpty() && ( hi == null || hi.compareTo( stack.peek().key ) >= 0 );
+        }
+        
+        @Override
+        public T next() {
+            
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            
+            Node<Key, Value> node = stack.pop();
+            
+            for ( Node<Key, Value> n = node.right; n != null; n = n.left ) {
+                stack.push( n );
+            }
+            
+            return extractor.apply( node );
+            
+        }
+        
+        private void checkForComodification() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        
     }
     
-    private void inOrder( Node<Key, Value> node, List<Key> keys ) {
-        if ( node != null ) {
-            inOrder( node.left, keys );
-            keys.add( node.key );
-            inOrder( node.right, keys );
+    /*
+     * Spliterator em ordem das chaves de root no intervalo [lo, hi), com
+     * limites nulos indicando intervalos abertos. Antes do primeiro elemento
+     * ser consumido, trySplit procura o primeiro nó do intervalo com chave
+     * maior que lo, descendo a partir de root, e o usa como divisa: a parte
+     * retornada fica com [lo, divisa) e esta com [divisa, hi), cuja raiz
+     * passa a ser o nó da divisa. Depois de iniciado o percurso, que usa uma
+     * pilha como o InOrderIterator, o spliterator não se divide mais.
+     * 
+     * Cada parte recebe o tamanho exato do seu intervalo, calculado em
+     * O(log n) pelos tamanhos das subárvores, então o spliterator é SIZED e
+     * SUBSIZED.
+     */
+    private class InOrderSpliterator<T> implements Spliterator<T> {
+        
+        private final Function<Node<Key, Value>, T> extractor;
+        private final Comparator<? super T> comparator;
+        private final int expectedModCount;
+        
+        private Node<Key, Value> root;
+        private Key lo;
+        private final Key hi;
+        private long estimate;
+        private final boolean sized;
+        
+        // pilha do percurso, criada ao consumir o primeiro elemento
+        private Stack<Node<Key, Value>> stack;
+        
+        InOrderSpliterator( Function<Node<Key, Value>, T> extractor, Comparator<? super T> comparator ) {
+            this( ArvoreAVL.this.root, null, null, getSize(), true, extractor, comparator, modCount );
+        }
+        
+        private InOrderSpliterator( Node<Key, Value> root, Key lo, Key hi, long estimate, boolean sized,
+                Function<Node<Key, Value>, T> extractor, Comparator<? super T> comparator, int expectedModCount ) {
+            this.root = root;
+            this.lo = lo;
+            this.hi = hi;
+            this.estimate = estimate;
+            this.sized = sized;
+            this.extractor = extractor;
+            this.comparator = comparator;
+            this.expectedModCount = expectedModCount;
+        }
+        
+        @Override
+        public Spliterator<T> trySplit() {
+            
+            if ( stack != null ) {
+                return null;
+            }
+            
+            Node<Key, Value> r = subtreeRoot();
+            
+            // primeiro nó abaixo de r com chave em (lo, hi)
+            Node<Key, Value> s = r;
+            while ( s != null && ( ( lo != null && lo.compareTo( s.key ) >= 0 ) 
+                    || ( hi != null && hi.compareTo( s.key ) <= 0 ) ) ) {
+                s = lo != null && lo.compareTo( s.key ) >= 0 ? s.right : s.left;
+            }
+            
+            if ( s == null ) {
+                return null;
+            }
+            
+            long prefixSize = rank( r, s.key ) - rank( r, lo );
+            InOrderSpliterator<T> prefix = new InOrderSpliterator<>( 
+                    r, lo, s.key, prefixSize, true, extractor, comparator, expectedModCount );
+            
+            root = s;
+            lo = s.key;
+            estimate -= prefixSize;
+            
+            return prefix;
+            
+        }
+        
+        /*
+         * Primeiro nó, descendo a partir de root, com chave em [lo, hi): as
+         * chaves do intervalo estão todas na subárvore dele.
+         */
+        private Node<Key, Value> subtreeRoot() {
+            
+            Node<Key, Value> node = root;
+            
+            while ( node != null ) {
+                if ( lo != null && lo.compareTo( node.key ) > 0 ) {
+                    node = node.right;
+                } else if ( hi != null && hi.compareTo( node.key ) <= 0 ) {
+                    node = node.left;
+                } else {
+                    return node;
+                }
+            }
+            
+            return null;
+            
+        }
+        
+        @Override
+        public boolean tryAdvance( Consumer<? super T> action ) {
+            
+            if ( action == null ) {
+                throw new NullPointerException();
+            }
+            
+            Node<Key, Value> node = nextNode();
+            checkForComodification();
+            
+            if ( node == null ) {
+                return false;
+            }
+            
+            action.accept( extractor.apply( node ) );
+            return true;
+            
+        }
+        
+        @Override
+        public void forEachRemaining( Consumer<? super T> action ) {
+            
+            if ( action == null ) {
+                throw new NullPointerException();
+            }
+            
+            for ( Node<Key, Value> node = nextNode(); node != null; node = nextNode() ) {
+                action.accept( extractor.apply( node ) );
+            }
+            
+            checkForComodification();
+            
+        }
+        
+        /*
+         * Próximo nó do percurso ou null ao final do intervalo.
+         */
+        private Node<Key, Value> nextNode() {
+            
+            if ( stack == null ) {
+                stack = new ResizingArrayStack<>();
+                Node<Key, Value> node = root;
+                while ( node != null ) {
+                    if ( lo != null && lo.compareTo( node.key ) > 0 ) {
+                        node = node.right;
+                    } else {
+                        stack.push( node );
+                        node = node.left;
+                    }
+                }
+            }
+            
+            if ( stack.isEmpty() ) {
+                return null;
+            }
+            
+            Node<Key, Value> node = stack.pop();
+            
+            if ( hi != null && hi.compareTo( node.key ) <= 0 ) {
+                while ( !stack.isEmpty() ) {
+                    stack.pop();
+                }
+                return null;
+            }
+            
+            for ( Node<Key, Value> n = node.right; n != null; n = n.left ) {
+                stack.push( n );
+            }
+            
+            return node;
+            
+        }
+        
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+        
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL 
+                    | ( sized ? Spliterator.SIZED | Spliterator.SUBSIZED : 0 );
+        }
+        
+        @Override
+        public Comparator<? super T> getComparator() {
+            return comparator;
+        }
+        
+        private void checkForComodification() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        
+    }
+    
+    /*
+     * Quantidade de chaves menores que key na subárvore de node, usando os
+     * tamanhos das subárvores; com key nulo, nenhuma.
+     */
+    private int rank( Node<Key, Value> node, Key key ) {
+        
+        if ( key == null ) {
+            return 0;
+        }
+        
+        int count = 0;
+        
+        while ( node != null ) {
+            
+            int comp = key.compareTo( node.key );
+            
+            if ( comp < 0 ) {
+                node = node.left;
+            } else if ( comp > 0 ) {
+                count += size( node.left ) + 1;
+                node = node.right;
+            } else {
+                return count + size( node.left );
+            }
+            
+        }
+        
+        return count;
+        
+    }
+    
+    /**
+     * Cursor sobre os pares da árvore em ordem de chaves, para acessos com
+     * localidade: posicionar em uma chave, percorrer as vizinhas e saltar
+     * para uma chave próxima reaproveitando os ancestrais da posição atual.
+     * Custos e invalidação são descritos em CursorCaminho, que implementa a
+     * navegação para as duas árvores balanceadas.
+     */
+    public class Cursor extends CursorCaminho<Key, Value, Node<Key, Value>> {
+        
+        @SuppressWarnings( "unchecked" )
+        private Cursor() {
+            super( (Node<Key, Value>[]) new Node<?, ?>[32], modCount );
+        }
+        
+        @Override
+        Node<Key, Value> root() {
+            return root;
+        }
+        
+        @Override
+        int modCount() {
+            return modCount;
+        }
+        
+        @Override
+        Node<Key, Value> left( Node<Key, Value> node ) {
+            return node.left;
+        }
+        
+        @Override
+        Node<Key, Value> right( Node<Key, Value> node ) {
+            return node.right;
+        }
+        
+        @Override
+        Key key( Node<Key, Value> node ) {
+            return node.key;
+        }
+        
+        @Override
+        Value value( Node<Key, Value> node ) {
+            return node.value;
         }
+        
+        @Override
+        void setValue( Node<Key, Value> node, Value value ) {
+            node.value = value;
+        }
+        
+        // os agregados de todo o caminho dependem do valor trocado
+        @Override
+        void valueChanged() {
+            if ( monoide != null ) {
+                for ( int i = depth() - 1; i >= 0; i-- ) {
+                    updateAggregate( node( i ), monoide );
+                }
+            }
+        }
+        
     }
     
     @Override
@@ -0,0 +1,992 @@
+package projetoesdarvores.esd;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Implementação de uma árvore AVL ordenada que pode ser usada por várias
+ * threads ao mesmo tempo.
+ *
+ * O balanceamento usa as mesmas rotações simples e duplas da ArvoreAVL, mas
+ * as leituras não adquirem travas: cada nó tem uma versão, e um nó que vai
+ * perder parte do intervalo de chaves alcançável a partir dele (o nó que
+ * desce numa rotação ou o nó removido) é marcado como "encolhendo" antes da
+ * alteração dos ligamentos. A busca desce "de mão em mão", lendo a versão do
+ * filho e só então confirmando que o ligamento e a versão do pai não
+ * mudaram. Se alguma validação falhar a busca recomeça da raiz.
+ *
+ * As escritas travam apenas os nós que alteram: a inserção trava o pai da
+ * nova folha, a atualização de um valor trava o próprio nó, a remoção trava
+ * o nó e seu pai e cada passo do rebalanceamento trava o pai, o nó e os
+ * filhos envolvidos na rotação, sempre de cima para baixo. O rebalanceamento
+ * sobe a árvore um nó por vez, liberando as travas entre os passos, então
+ * escritas em partes diferentes da árvore não disputam travas e o
+ * balanceamento pode ficar temporariamente relaxado enquanto há escritas em
+ * andamento, voltando a ser o de uma AVL quando elas terminam.
+ *
+ * As chaves dos nós nunca mudam. A remoção de um nó com dois filhos apenas
+ * anula o seu valor, e o nó passa a servir só de roteamento até ter no
+ * máximo um filho, quando é desligado da árvore pelo rebalanceamento.
+ *
+ * As consultas ordenadas (min, max, floor, ceiling e os iteradores) também
+ * não adquirem travas e são fracamente consistentes, como as da
+ * ConcurrentSkipListMap: cada chave retornada estava na árvore em algum
+ * momento da consulta, mas alterações concorrentes podem ou não ser vistas.
+ *
+ * Implementação baseada nas obras:
+ *     WEISS, M. A. Data Structures and Algorithm Analysis in Java. 3. ed.
+ *     Pearson Education: New Jersey, 2012. 614 p.
+ *     BRONSON, N. G. et al. A Practical Concurrent Binary Search Tree.
+ *     PPoPP '10, p. 257-268, 2010.
+ *
+ * @param <Key> Tipo das chaves que serão armazenadas na árvore.
+ * @param <Value> Tipo dos valores associados às chaves armazenadas na árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ArvoreAVLConcorrente<Key extends Comparable<Key>, Value> implements Iterable<Key> {
+
+    /*
+     * Classe interna estática que define os nós da árvore. Um valor nulo
+     * indica um nó de roteamento (chave removida). Os ligamentos, a altura e
+     * a versão só são alterados com a trava do nó (o monitor do objeto) e a
+     * do seu pai.
+     */
+    private static class Node<Key extends Comparable<Key>, Value> {
+        
+        final Key key;
+        volatile Value value;
+        volatile Node<Key, Value> left;
+        volatile Node<Key, Value> right;
+        volatile Node<Key, Value> parent;
+        volatile int height;
+        
+        // bits SHRINKING e UNLINKED mais um contador de alterações
+        volatile long version;
+        
+        Node( Key key, Value value, Node<Key, Value> parent ) {
+            this.key = key;
+            this.value = value;
+            this.parent = parent;
+            this.height = 1;
+        }
+        
+        @Override
+        public String toString() {
+            return key + " -> " + value + " (" + height + ")";
+        }
+        
+    }
+    
+    // o nó está perdendo parte do seu intervalo de chaves
+    private static final long SHRINKING = 1L;
+    
+    // o nó foi desligado da árvore
+    private static final long UNLINKED = 2L;
+    
+    // incremento da versão a cada alteração concluída
+    private static final long VERSION_INCREMENT = 4L;
+    
+    // tentativas de espera ativa antes de aguardar a trava do nó
+    private static final int SPINS = 100;
+    
+    // nó sentinela cujo filho direito é a raiz da árvore, para que a troca
+    // da raiz também seja validada pelas buscas; nunca encolhe
+    private final Node<Key, Value> holder = new Node<>( null, null, null );
+    
+    // tamanho da árvore (quantidade de pares chave/valor)
+    private final LongAdder size = new LongAdder();
+    
+    // fator de balanceamento
+    // valor máximo na diferença de alturas de duas subárvores
+    private static final int ALLOWED_IMBALANCE = 1;
+    
+    /**
+     * Constrói uma Árvore AVL concorrente vazia.
+     */
+    public ArvoreAVLConcorrente() {
+    }
+    
+    public void put( Key key, Value value ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "first argument to put() is null" );
+        }
+        
+        if ( value == null ) {
+            delete( key );
+            return;
+        }
+        
+        retry:
+        while ( true ) {
+            
+            Node<Key, Value> node = holder;
+            long version = node.version;
+            int comp = 1;
+            
+            while ( true ) {
+                
+                Node<Key, Value> child = child( node, comp );
+                
+                if ( child == null ) {
+                    
+                    synchronized ( node ) {
+                        // a versão inalterada garante que a chave ainda
+                        // pertence ao intervalo do nó
+                        if ( node.version != version || child( node, comp ) != null ) {
+                            continue retry;
+                        }
+                        setChild( node, comp, new Node<>( key, value, node ) );
+                    }
+                    
+                    size.increment();
+                    fixHeightAndRebalance( node );
+                    return;
+                    
+                }
+                
+                int childComp = key.compareTo( child.key );
+                
+                if ( childComp == 0 ) {
+                    
+                    Value old;
+                    synchronized ( child ) {
+                        if ( isUnlinked( child.version ) ) {
+                            continue retry;
+                        }
+                        old = child.value;
+                        child.value = value;
+                    }
+                    
+                    // o nó era de roteamento
+                    if ( old == null ) {
+                        size.increment();
+                    }
+                    return;
+                    
+                }
+                
+                long childVersion = child.version;
+                
+                if ( isChanging( childVersion ) ) {
+                    waitUntilChanged( child, childVersion );
+                    continue retry;
+                }
+                
+                if ( child != child( node, comp ) || node.version != version ) {
+                    continue retry;
+                }
+                
+                node = child;
+                version = childVersion;
+                comp = childComp;
+                
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Busca o valor associado a uma chave sem adquirir travas.
+     *
+     * @param key A chave.
+     * @return O valor associado ou null caso a chave não exista.
+     */
+    public Value get( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to get() is null" );
+        }
+        
+        Node<Key, Value> node = find( key );
+        return node == null ? null : node.value;
+        
+    }
+    
+    /*
+     * Busca o nó com a chave, inclusive um nó de roteamento, sem adquirir
+     * travas.
+     */
+    private Node<Key, Value> find( Key key ) {
+        
+        retry:
+        while ( true ) {
+            
+            Node<Key, Value> node = holder;
+            long version = node.version;
+            int comp = 1;
+            
+            while ( true ) {
+                
+                Node<Key, Value> child = child( node, comp );
+                
+                if ( child == null ) {
+                    // o ligamento lido só vale se o pai não encolheu
+                    if ( node.version != version ) {
+                        continue retry;
+                    }
+                    return null;
+                }
+                
+                int childComp = key.compareTo( child.key );
+                
+                // as chaves são únicas e nunca mudam
+                if ( childComp == 0 ) {
+                    return child;
+                }
+                
+                long childVersion = child.version;
+                
+                if ( isChanging( childVersion ) ) {
+                    waitUntilChanged( child, childVersion );
+                    continue retry;
+                }
+                
+                // o filho ainda era filho do pai quando sua versão foi lida
+                if ( child != child( node, comp ) || node.version != version ) {
+                    continue retry;
+                }
+                
+                node = child;
+                version = childVersion;
+                comp = childComp;
+                
+            }
+            
+        }
+        
+    }
+    
+    public void delete( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to delete() is null" );
+        }
+        
+        while ( true ) {
+            
+            Node<Key, Value> node = find( key );
+            
+            if ( node == null || node.value == null ) {
+                return;
+            }
+            
+            Node<Key, Value> parent = node.parent;
+            boolean unlinked = false;
+            
+            synchronized ( parent ) {
+                
+                // o pai mudou ou o nó já foi desligado
+                if ( node.parent != parent || isUnlinked( node.version ) ) {
+                    continue;
+                }
+                
+                synchronized ( node ) {
+                    
+                    if ( node.value == null ) {
+                        return;
+                    }
+                    
+                    node.value = null;
+                    size.decrement();
+                    
+                    // com dois filhos o nó fica como nó de roteamento
+                    if ( node.left == null || node.right == null ) {
+                        unlink( parent, node );
+                        unlinked = true;
+                    }
+                    
+                }
+                
+            }
+            
+            if ( unlinked ) {
+                fixHeightAndRebalance( parent );
+            }
+            return;
+            
+        }
+        
+    }
+    
+    public boolean contains( Key key ) throws IllegalArgumentException {
+        return get( key ) != null;
+    }
+    
+    /**
+     * Retorna o par com a menor chave ou null caso a árvore esteja vazia.
+     *
+     * @return O par com a menor chave.
+     */
+    public Entry<Key, Value> min() {
+        return nearest( null, true, true );
+    }
+    
+    /**
+     * Retorna o par com a maior chave ou null caso a árvore esteja vazia.
+     *
+     * @return O par com a maior chave.
+     */
+    public Entry<Key, Value> max() {
+        return nearest( null, false, true );
+    }
+    
+    /**
+     * Retorna o par com a maior chave menor ou igual à chave informada.
+     *
+     * @param key A chave.
+     * @return O par encontrado ou null caso não exista.
+     */
+    public Entry<Key, Value> floor( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to floor() is null" );
+        }
+        
+        return nearest( key, false, true );
+        
+    }
+    
+    /**
+     * Retorna o par com a menor chave maior ou igual à chave informada.
+     *
+     * @param key A chave.
+     * @return O par encontrado ou null caso não exista.
+     */
+    public Entry<Key, Value> ceiling( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to ceiling() is null" );
+        }
+        
+        return nearest( key, true, true );
+        
+    }
+    
+    /*
+     * Busca o par mais próximo da chave na direção indicada (a menor chave
+     * maior que ela quando ascending, a maior chave menor que ela caso
+     * contrário), incluindo a própria chave quando inclusive. Uma chave nula
+     * não limita a busca. Quando o nó encontrado é de roteamento a busca é
+     * refeita a partir da sua chave, excluindo-a.
+     */
+    private Entry<Key, Value> nearest( Key key, boolean ascending, boolean inclusive ) {
+        
+        while ( true ) {
+            
+            Node<Key, Value> node = nearestNode( key, ascending, inclusive );
+            
+            if ( node == null ) {
+                return null;
+            }
+            
+            Value value = node.value;
+            
+            if ( value != null ) {
+                return new Entry<>( node.key, value );
+            }
+            
+            key = node.key;
+            inclusive = false;
+            
+        }
+        
+    }
+    
+    /*
+     * Uma descida validada como a de find que guarda o último nó do caminho
+     * que satisfaz o limite.
+     */
+    private Node<Key, Value> nearestNode( Key key, boolean ascending, boolean inclusive ) {
+        
+        retry:
+        while ( true ) {
+            
+            Node<Key, Value> node = holder;
+            long version = node.version;
+            int comp = 1;
+            Node<Key, Value> best = null;
+            
+            while ( true ) {
+                
+                Node<Key, Value> child = child( node, comp );
+                
+                if ( child == null ) {
+                    if ( node.version != version ) {
+                        continue retry;
+                    }
+                    return best;
+                }
+                
+                long childVersion = child.version;
+                
+                if ( isChanging( childVersion ) ) {
+                    waitUntilChanged( child, childVersion );
+                    continue retry;
+                }
+                
+                if ( child != child( node, comp ) || node.version != version ) {
+                    continue retry;
+                }
+                
+                int childComp = key == null ? 0 : key.compareTo( child.key );
+                
+                if ( childComp == 0 && key != null && inclusive ) {
+                    return child;
+                }
+                
+                boolean satisfies;
+                if ( key == null ) {
+                    satisfies = true;
+                } else if ( ascending ) {
+                    satisfies = childComp < 0;
+                } else {
+                    satisfies = childComp > 0;
+                }
+                
+                // um nó que satisfaz o limite é candidato e a busca continua
+                // procurando um mais próximo
+                if ( satisfies ) {
+                    best = child;
+                    comp = ascending ? -1 : 1;
+                } else {
+                    comp = ascending ? 1 : -1;
+                }
+                
+                node = child;
+                version = childVersion;
+                
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Esvazia a árvore, removendo as chaves uma a uma. Assim como a
+     * ConcurrentSkipListMap, a operação não é atômica: chaves inseridas
+     * durante a limpeza podem permanecer na árvore.
+     */
+    public void clear() {
+        for ( Key key : getKeys() ) {
+            delete( key );
+        }
+    }
+    
+    public boolean isEmpty() {
+        return min() == null;
+    }
+    
+    /**
+     * Retorna a quantidade de pares chave/valor. Com escritas concorrentes o
+     * valor é apenas uma estimativa.
+     *
+     * @return A quantidade de pares.
+     */
+    public int getSize() {
+        return (int) Math.max( 0L, size.sum() );
+    }
+    
+    /*
+     * Verifica se a versão indica um nó encolhendo ou desligado.
+     */
+    private static boolean isChanging( long version ) {
+        return ( version & ( SHRINKING | UNLINKED ) ) != 0;
+    }
+    
+    private static boolean isUnlinked( long version ) {
+        return ( version & UNLINKED ) != 0;
+    }
+    
+    /*
+     * Aguarda o fim da alteração de um nó que está encolhendo. Depois de
+     * algumas tentativas a espera é feita na trava do nó, mantida pela
+     * escrita durante toda a alteração.
+     */
+    private void waitUntilChanged( Node<Key, Value> node, long version ) {
+        
+        if ( ( version & SHRINKING ) == 0 ) {
+            return;
+        }
+        
+        for ( int i = 0; i < SPINS; i++ ) {
+            if ( node.version != version ) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+        
+        synchronized ( node ) {
+            // a trava só é obtida depois que a escrita termina
+        }
+        
+    }
+    
+    private Node<Key, Value> child( Node<Key, Value> node, int comp ) {
+        return comp < 0 ? node.left : node.right;
+    }
+    
+    private void setChild( Node<Key, Value> node, int comp, Node<Key, Value> child ) {
+        if ( comp < 0 ) {
+            node.left = child;
+        } else {
+            node.right = child;
+        }
+    }
+    
+    private void replaceChild( Node<Key, Value> parent, Node<Key, Value> old, Node<Key, Value> child ) {
+        if ( parent.left == old ) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+        if ( child != null ) {
+            child.parent = parent;
+        }
+    }
+    
+    /*
+     * Desliga da árvore um nó com no máximo um filho. O pai e o nó estão
+     * travados.
+     */
+    private void unlink( Node<Key, Value> parent, Node<Key, Value> node ) {
+        
+        long version = node.version;
+        node.version = version | SHRINKING;
+        
+        replaceChild( parent, node, node.left != null ? node.left : node.right );
+        
+        node.version = ( version + VERSION_INCREMENT ) | UNLINKED;
+        
+    }
+    
+    /*
+     * Corrige a altura e o balanceamento do nó e sobe a árvore enquanto a
+     * altura mudar. Cada passo trava o pai e o nó (e os filhos rotacionados)
+     * e as travas são liberadas antes de subir, então uma correção pode ser
+     * feita por outra escrita entre dois passos; quem altera a altura de um
+     * nó é responsável por continuar a correção a partir do pai dele.
+     */
+    private void fixHeightAndRebalance( Node<Key, Value> node ) {
+        
+        while ( node != holder ) {
+            
+            Node<Key, Value> parent = node.parent;
+            Node<Key, Value> next = null;
+            Node<Key, Value> top = null;
+            
+            synchronized ( parent ) {
+                
+                // o pai mudou por uma rotação concorrente
+                if ( node.parent != parent ) {
+                    continue;
+                }
+                
+                // quem desligou o nó continua a correção a partir do pai
+                if ( isUnlinked( node.version ) ) {
+                    return;
+                }
+                
+                synchronized ( node ) {
+                    
+                    int leftHeight = height( node.left );
+                    int rightHeight = height( node.right );
+                    
+                    if ( node.value == null && ( node.left == null || node.right == null ) ) {
+                        
+                        unlink( parent, node );
+                        next = parent;
+                        
+                    } else if ( leftHeight - rightHeight > ALLOWED_IMBALANCE ) {
+                        
+                        int oldHeight = node.height;
+                        Node<Key, Value> b = node.left;
+                        synchronized ( b ) {
+                            if ( height( b.left ) >= height( b.right ) ) {
+                                top = rotateWithLeftChild( parent, node );
+                            } else {
+                                synchronized ( b.right ) {
+                                    top = doubleWithLeftChild( parent, node );
+                                }
+                            }
+                        }
+                        if ( top.height != oldHeight ) {
+                            next = parent;
+                        }
+                        
+                    } else if ( rightHeight - leftHeight > ALLOWED_IMBALANCE ) {
+                        
+                        int oldHeight = node.height;
+                        Node<Key, Value> b = node.right;
+                        synchronized ( b ) {
+                            if ( height( b.right ) >= height( b.left ) ) {
+                                top = rotateWithRightChild( parent, node );
+                            } else {
+                                synchronized ( b.left ) {
+                                    top = doubleWithRightChild( parent, node );
+                                }
+                            }
+                        }
+                        if ( top.height != oldHeight ) {
+                            next = parent;
+                        }
+                        
+                    } else {
+                        
+                        int height = Math.max( leftHeight, rightHeight ) + 1;
+                        if ( height != node.height ) {
+                            node.height = height;
+                            next = parent;
+                        }
+                        
+                    }
+                    
+                }
+                
+            }
+            
+            // com escritas concorrentes os nós rebaixados pela rotação e o
+            // novo topo podem continuar precisando de correção
+            if ( top != null ) {
+                fixIfNeeded( top.left );
+                fixIfNeeded( top.right );
+                fixIfNeeded( top );
+            }
+            
+            node = next;
+            if ( node == null ) {
+                return;
+            }
+            
+        }
+        
+    }
+    
+    private void fixIfNeeded( Node<Key, Value> node ) {
+        
+        if ( node == null || isUnlinked( node.version ) ) {
+            return;
+        }
+        
+        Node<Key, Value> left = node.left;
+        Node<Key, Value> right = node.right;
+        int leftHeight = height( left );
+        int rightHeight = height( right );
+        
+        if ( ( node.value == null && ( left == null || right == null ) )
+                || Math.abs( leftHeight - rightHeight ) > ALLOWED_IMBALANCE
+                || node.height != Math.max( leftHeight, rightHeight ) + 1 ) {
+            fixHeightAndRebalance( node );
+        }
+        
+    }
+    
+    /**
+     * Retorna a altura de um nó ou 0 caso o nó seja nulo.
+     */
+    private int height( Node<Key, Value> node ) {
+        return node == null ? 0 : node.height;
+    }
+    
+    /**
+     * Rotação EE/LL - simétrica à DD/RR (ver ArvoreAVL).
+     *
+     * O pai, A e B estão travados. Apenas A perde parte do seu intervalo de
+     * chaves, então só ele é marcado como encolhendo.
+     */
+    private Node<Key, Value> rotateWithLeftChild( Node<Key, Value> parent, Node<Key, Value> a ) {
+        
+        Node<Key, Value> b = a.left;
+        long version = a.version;
+        a.version = version | SHRINKING;
+        
+        Node<Key, Value> c = b.right;
+        a.left = c;
+        if ( c != null ) {
+            c.parent = a;
+        }
+        b.right = a;
+        a.parent = b;
+        replaceChild( parent, a, b );
+        
+        a.height = Math.max( height( a.left ), height( a.right ) ) + 1;
+        b.height = Math.max( height( b.left ), height( b.right ) ) + 1;
+        
+        a.version = version + VERSION_INCREMENT;
+        
+        return b;
+        
+    }
+    
+    /**
+     * Rotação DD/RR - simétrica à EE/LL (ver ArvoreAVL).
+     */
+    private Node<Key, Value> rotateWithRightChild( Node<Key, Value> parent, Node<Key, Value> a ) {
+        
+        Node<Key, Value> b = a.right;
+        long version = a.version;
+        a.version = version | SHRINKING;
+        
+        Node<Key, Value> c = b.left;
+        a.right = c;
+        if ( c != null ) {
+            c.parent = a;
+        }
+        b.left = a;
+        a.parent = b;
+        replaceChild( parent, a, b );
+        
+        a.height = Math.max( height( a.left ), height( a.right ) ) + 1;
+        b.height = Math.max( height( b.left ), height( b.right ) ) + 1;
+        
+        a.version = version + VERSION_INCREMENT;
+        
+        return b;
+        
+    }
+    
+    /**
+     * Rotação ED/LR - simétrica à DE/RL (ver ArvoreAVL).
+     *
+     * Feita em um único passo com o pai, A, B (filho esquerdo de A) e C
+     * (filho direito de B) travados. A e B encolhem e C sobe para o lugar
+     * de A.
+     */
+    private Node<Key, Value> doubleWithLeftChild( Node<Key, Value> parent, Node<Key, Value> a ) {
+        
+        Node<Key, Value> b = a.left;
+        Node<Key, Value> c = b.right;
+        long versionA = a.version;
+        long versionB = b.version;
+        a.version = versionA | SHRINKING;
+        b.version = versionB | SHRINKING;
+        
+        Node<Key, Value> cLeft = c.left;
+        Node<Key, Value> cRight = c.right;
+        a.left = cRight;
+        if ( cRight != null ) {
+            cRight.parent = a;
+        }
+        b.right = cLeft;
+        if ( cLeft != null ) {
+            cLeft.parent = b;
+        }
+        c.left = b;
+        b.parent = c;
+        c.right = a;
+        a.parent = c;
+        replaceChild( parent, a, c );
+        
+        a.height = Math.max( height( a.left ), height( a.right ) ) + 1;
+        b.height = Math.max( height( b.left ), height( b.right ) ) + 1;
+        c.height = Math.max( a.height, b.height ) + 1;
+        
+        a.version = versionA + VERSION_INCREMENT;
+        b.version = versionB + VERSION_INCREMENT;
+        
+        return c;
+        
+    }
+    
+    /**
+     * Rotação DE/RL - simétrica à ED/LR (ver ArvoreAVL).
+     */
+    private Node<Key, Value> doubleWithRightChild( Node<Key, Value> parent, Node<Key, Value> a ) {
+        
+        Node<Key, Value> b = a.right;
+        Node<Key, Value> c = b.left;
+        long versionA = a.version;
+        long versionB = b.version;
+        a.version = versionA | SHRINKING;
+        b.version = versionB | SHRINKING;
+        
+        Node<Key, Value> cLeft = c.left;
+        Node<Key, Value> cRight = c.right;
+        a.right = cLeft;
+        if ( cLeft != null ) {
+            cLeft.parent = a;
+        }
+        b.left = cRight;
+        if ( cRight != null ) {
+            cRight.parent = b;
+        }
+        c.right = b;
+        b.parent = c;
+        c.left = a;
+        a.parent = c;
+        replaceChild( parent, a, c );
+        
+        a.height = Math.max( height( a.left ), height( a.right ) ) + 1;
+        b.height = Math.max( height( b.left ), height( b.right ) ) + 1;
+        c.height = Math.max( a.height, b.height ) + 1;
+        
+        a.version = versionA + VERSION_INCREMENT;
+        b.version = versionB + VERSION_INCREMENT;
+        
+        return c;
+        
+    }
+    
+    @Override
+    public Iterator<Key> iterator() {
+        return getKeys().iterator();
+    }
+    
+    /**
+     * Retorna as chaves da árvore em ordem. O iterador é fracamente
+     * consistente: não lança ConcurrentModificationException e cada
+     * chamada a next busca a chave seguinte à última retornada.
+     *
+     * @return As chaves.
+     */
+    public Iterable<Key> getKeys() {
+        return () -> new InOrderIterator<>( null, null, Entry::getKey );
+    }
+    
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, com um iterador
+     * fracamente consistente.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Key> getKeys( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getKeys()" );
+        return () -> new InOrderIterator<>( lo, hi, Entry::getKey );
+    }
+    
+    /**
+     * Retorna os pares chave/valor da árvore em ordem, com um iterador
+     * fracamente consistente.
+     *
+     * @return Os pares chave/valor.
+     */
+    public Iterable<Entry<Key, Value>> getEntries() {
+        return () -> new InOrderIterator<>( null, null, entry -> entry );
+    }
+    
+    /**
+     * Retorna os pares chave/valor do intervalo [lo, hi] em ordem, com um
+     * iterador fracamente consistente.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return Os pares chave/valor do intervalo.
+     */
+    public Iterable<Entry<Key, Value>> getEntries( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getEntries()" );
+        return () -> new InOrderIterator<>( lo, hi, entry -> entry );
+    }
+    
+    private void checkRange( Key lo, Key hi, String method ) throws IllegalArgumentException {
+        if ( lo == null ) {
+            throw new IllegalArgumentException( "first argument to " + method + " is null" );
+        }
+        if ( hi == null ) {
+            throw new IllegalArgumentException( "second argument to " + method + " is null" );
+        }
+    }
+    
+    /*
+     * Iterador em ordem fracamente consistente, opcionalmente limitado ao
+     * intervalo [lo, hi]. Não guarda caminho algum: o próximo par é buscado
+     * sem travas a partir da raiz com a chave do último par retornado, o que
+     * custa O(lg n) por elemento.
+     */
+    private class InOrderIterator<T> implements Iterator<T> {
+        
+        private final Key hi;
+        private final Function<Entry<Key, Value>, T> mapper;
+        private Entry<Key, Value> next;
+        
+        InOrderIterator( Key lo, Key hi, Function<Entry<Key, Value>, T> mapper ) {
+            this.hi = hi;
+            this.mapper = mapper;
+            this.next = limit( nearest( lo, true, true ) );
+        }
+        
+        private Entry<Key, Value> limit( Entry<Key, Value> entry ) {
+            if ( entry != null && hi != null && entry.getKey().compareTo( hi ) > 0 ) {
+                return null;
+            }
+            return entry;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+        
+        @Override
+        public T next() {
+            
+            if ( next == null ) {
+                throw new NoSuchElementException();
+            }
+            
+            Entry<Key, Value> entry = next;
+            next = limit( nearest( entry.getKey(), true, false ) );
+            
+            return mapper.apply( entry );
+            
+        }
+        
+    }
+    
+    /**
+     * Representação da árvore sem travas. Com escritas concorrentes ela não
+     * é um retrato de um único instante. Nós de roteamento aparecem com
+     * valor nulo.
+     */
+    @Override
+    public String toString() {
+        
+        StringBuilder sb = new StringBuilder();
+        Node<Key, Value> root = holder.right;
+        
+        if ( root != null ) {
+            preOrderForPrint( root, root, "", null, sb );
+        } else {
+            sb.append( "empty AVL tree!\n" );
+        }
+        
+        return sb.toString();
+        
+    }
+    
+    private void preOrderForPrint( Node<Key, Value> node, Node<Key, Value> root, String ident, String leftRight, StringBuilder sb ) {
+        
+        if ( node != null ) {
+            
+            String rootIdent = "";
+            String leafIdent = "";
+            
+            if ( node != root ) {
+                rootIdent = ident + "|--";
+                leafIdent = ident + "|  ";
+            }
+            
+            sb.append( rootIdent );
+            if ( leftRight != null ) {
+                sb.append( "(" ).append( leftRight ).append( ") " );
+            }
+            sb.append( node );
+            if ( node == root ) {
+                sb.append(  " <- root" );
+            }
+            sb.append( "\n" );
+            
+            preOrderForPrint( node.left, root, leafIdent, "L", sb );
+            preOrderForPrint( node.right, root, leafIdent, "R", sb );
+            
+        }
+        
+    }
+
+}
@@ -0,0 +1,493 @@
+package projetoesdarvores.esd;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Implementação de uma árvore AVL especializada para chaves do tipo int.
+ *
+ * Tem a mesma organização e as mesmas operações da ArvoreAVL, mas as chaves
+ * ficam armazenadas diretamente nos nós como int, então put, get e delete
+ * não encaixotam as chaves e a descida pela árvore compara inteiros
+ * primitivos em vez de seguir uma referência para chamar compareTo.
+ *
+ * Implementação baseada na obra: WEISS, M. A. Data Structures and Algorithm
+ * Analysis in Java. 3. ed. Pearson Education: New Jersey, 2012. 614 p.
+ *
+ * @param <Value> Tipo dos valores associados às chaves armazenadas na árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ArvoreAVLInt<Value> implements Iterable<Integer> {
+
+    /*
+     * Classe interna estática que define os nós da árvore AVL.
+     */
+    public static class Node<Value> {
+        
+        public int key;
+        public Value value;
+        public Node<Value> left;
+        public Node<Value> right;
+        
+        public int height;
+        
+        @Override
+        public String toString() {
+            return key + " -> " + value + " (" + height + ")";
+        }
+        
+    }
+    
+    // raiz da árvore
+    private Node<Value> root;
+    
+    // tamanho da árvore (quantidade de pares chave/valor)
+    private int size;
+    
+    // quantidade de modificações estruturais, usada pelos iteradores
+    private int modCount;
+    
+    // fator de balanceamento
+    // valor máximo na diferença de alturas de duas subárvores
+    private static final int ALLOWED_IMBALANCE = 1;
+    
+    /**
+     * Constrói uma Árvore AVL vazia.
+     */
+    public ArvoreAVLInt() {
+        root = null;
+    }
+    
+    /**
+     * Constrói uma árvore AVL perfeitamente balanceada em tempo O(n) a
+     * partir de chaves em ordem estritamente crescente.
+     *
+     * @param keys As chaves, em ordem estritamente crescente.
+     * @param values Os valores, na mesma posição das chaves.
+     * @return A árvore construída.
+     */
+    public static <Value> ArvoreAVLInt<Value> fromSorted( int[] keys, Value[] values ) throws IllegalArgumentException {
+        
+        if ( keys == null || values == null ) {
+            throw new IllegalArgumentException( "keys and values must not be null" );
+        }
+        
+        if ( keys.length != values.length ) {
+            throw new IllegalArgumentException( "keys and values must have the same length" );
+        }
+        
+        for ( int i = 0; i < keys.length; i++ ) {
+            if ( values[i] == null ) {
+                throw new IllegalArgumentException( "null value at position " + i );
+            }
+            if ( i > 0 && keys[i-1] >= keys[i] ) {
+                throw new IllegalArgumentException( "keys are not in strictly increasing order at position " + i );
+            }
+        }
+        
+        ArvoreAVLInt<Value> tree = new ArvoreAVLInt<>();
+        tree.root = build( keys, values, 0, keys.length );
+        tree.size = keys.length;
+        
+        return tree;
+        
+    }
+    
+    /*
+     * Constrói a subárvore com os pares das posições [lo, hi).
+     */
+    private static <Value> Node<Value> build( int[] keys, Value[] values, int lo, int hi ) {
+        
+        if ( lo == hi ) {
+            return null;
+        }
+        
+        int mid = lo + ( hi - lo - 1 ) / 2;
+        
+        Node<Value> node = new Node<>();
+        node.key = keys[mid];
+        node.value = values[mid];
+        node.left = build( keys, values, lo, mid );
+        node.right = build( keys, values, mid + 1, hi );
+        node.height = Math.max(
+                node.left == null ? 0 : node.left.height,
+                node.right == null ? 0 : node.right.height ) + 1;
+                
+        return node;
+        
+    }
+    
+    public void put( int key, Value value ) {
+        
+        if ( value == null ) {
+            delete( key );
+            return;
+        }
+        
+        root = put( root, key, value );
+        
+    }
+    
+    private Node<Value> put( Node<Value> node, int key, Value value ) {
+        
+        if ( node == null ) {
+            
+            Node<Value> avlNode = new Node<>();
+            avlNode.key = key;
+            avlNode.value = value;
+            avlNode.left = null;
+            avlNode.right = null;
+            avlNode.height = 1;
+            
+            size++;
+            modCount++;
+            
+            return avlNode;
+            
+        }
+        
+        if ( key < node.key ) {
+            node.left = put( node.left, key, value );
+        } else if ( key > node.key ) {
+            node.right = put( node.right, key, value );
+        } else {
+            node.value = value;
+            return node;
+        }
+        
+        // balanceia a árvore
+        return balance( node );
+        
+    }
+    
+    public Value get( int key ) {
+        
+        Node<Value> node = root;
+        
+        while ( node != null ) {
+            
+            if ( key < node.key ) {
+                node = node.left;
+            } else if ( key > node.key ) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+            
+        }
+        
+        return null;
+        
+    }
+    
+    public void delete( int key ) {
+        
+        if ( !contains( key ) ) {
+            return;
+        }
+        
+        root = delete( root, key );
+        size--;
+        modCount++;
+        
+    }
+    
+    private Node<Value> delete( Node<Value> node, int key ) {
+        
+        if ( node == null ) {
+            return node;
+        }
+        
+        if ( key < node.key ) {
+            node.left = delete( node.left, key );
+        } else if ( key > node.key ) {
+            node.right = delete( node.right, key );
+        } else {
+            
+            // dois filhos
+            if ( node.left != null && node.right != null ) {
+                
+                Node<Value> min = min( node.right );
+                node.key = min.key;
+                node.value = min.value;
+                
+                node.right = delete( node.right, node.key );
+                
+                // um ou nenhum filho
+            } else {
+                node = ( node.left != null ) ? node.left : node.right;
+            }
+            
+        }
+        
+        return balance( node );
+        
+    }
+    
+    public boolean contains( int key ) {
+        return get( key ) != null;
+    }
+    
+    public Node<Value> min() {
+        
+        if ( isEmpty() ) {
+            return null;
+        }
+        
+        return min( root );
+        
+    }
+    
+    private Node<Value> min( Node<Value> node ) {
+        
+        while ( node.left != null ) {
+            node = node.left;
+        }
+        
+        return node;
+        
+    }
+    
+    public Node<Value> max() {
+        
+        if ( isEmpty() ) {
+            return null;
+        }
+        
+        Node<Value> node = root;
+        
+        while ( node.right != null ) {
+            node = node.right;
+        }
+        
+        return node;
+        
+    }
+    
+    /**
+     * Esvazia a árvore.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+        modCount++;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    private Node<Value> balance( Node<Value> node ) {
+        
+        if ( node == null ) {
+            return node;
+        }
+        
+        if ( height( node.left ) - height( node.right ) > ALLOWED_IMBALANCE ) {
+            if ( height( node.left.left ) >= height( node.left.right ) ) {
+                node = rotateWithLeftChild( node );
+            } else {
+                node = doubleWithLeftChild( node );
+            }
+        } else if ( height( node.right ) - height( node.left ) > ALLOWED_IMBALANCE ) {
+            if ( height( node.right.right ) >= height( node.right.left ) ) {
+                node = rotateWithRightChild( node );
+            } else {
+                node = doubleWithRightChild( node );
+            }
+        }
+        
+        node.height = Math.max( height( node.left ), height( node.right ) ) + 1;
+        
+        return node;
+        
+    }
+    
+    /**
+     * Retorna a altura de um nó ou 0 caso o nó seja nulo.
+     */
+    private int height( Node<Value> node ) {
+        return node == null ? 0 : node.height;
+    }
+    
+    /**
+     * Rotação EE/LL - simétrica à DD/RR (ver ArvoreAVL).
+     */
+    private Node<Value> rotateWithLeftChild( Node<Value> a ) {
+        
+        Node<Value> b = a.left;
+        a.left = b.right;
+        b.right = a;
+        
+        a.height = Math.max( height( a.left ), height( a.right ) ) + 1;
+        b.height = Math.max( height( b.left ), height( b.right ) ) + 1;
+        
+        return b;
+        
+    }
+    
+    /**
+     * Rotação DD/RR - simétrica à EE/LL (ver ArvoreAVL).
+     */
+    private Node<Value> rotateWithRightChild( Node<Value> a ) {
+        
+        Node<Value> b = a.right;
+        a.right = b.left;
+        b.left = a;
+        
+        a.height = Math.max( height( a.left ), height( a.right ) ) + 1;
+        b.height = Math.max( height( b.left ), height( b.right ) ) + 1;
+        
+        return b;
+        
+    }
+    
+    /**
+     * Rotação ED/LR - simétrica à DE/RL (ver ArvoreAVL).
+     */
+    private Node<Value> doubleWithLeftChild( Node<Value> a ) {
+        a.left = rotateWithRightChild( a.left );
+        return rotateWithLeftChild( a );
+    }
+    
+    /**
+     * Rotação DE/RL - simétrica à ED/LR (ver ArvoreAVL).
+     */
+    private Node<Value> doubleWithRightChild( Node<Value> a ) {
+        a.right = rotateWithLeftChild( a.right );
+        return rotateWithRightChild( a );
+    }
+    
+    /**
+     * Retorna um iterador em ordem sobre as chaves. O método nextInt do
+     * iterador retorna as chaves sem encaixotá-las.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new InOrderIterator( Integer.MIN_VALUE, Integer.MAX_VALUE );
+    }
+    
+    public Iterable<Integer> getKeys() {
+        return this;
+    }
+    
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, sem copiá-las.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Integer> getKeys( int lo, int hi ) {
+        return () -> new InOrderIterator( lo, hi );
+    }
+    
+    /*
+     * Iterador em ordem preguiçoso sobre as chaves do intervalo [lo, hi],
+     * com memória extra proporcional à altura da árvore. A pilha de nós é um
+     * arranjo, já que a altura de uma árvore AVL é pequena e conhecida.
+     */
+    private class InOrderIterator implements PrimitiveIterator.OfInt {
+        
+        @SuppressWarnings( "unchecked" )
+        private Node<Value>[] stack = (Node<Value>[]) new Node<?>[height( root ) + 1];
+        private int top;
+        private final int hi;
+        private final int expectedModCount;
+        
+        InOrderIterator( int lo, int hi ) {
+            
+            this.hi = hi;
+            this.expectedModCount = modCount;
+            
+            // empilha o caminho até a menor chave maior ou igual a lo
+            Node<Value> node = root;
+            while ( node != null ) {
+                if ( lo > node.key ) {
+                    node = node.right;
+                } else {
+                    stack[top++] = node;
+                    node = node.left;
+                }
+            }
+            
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+            return top > 0 && stack[top-1].key <= hi;
+        }
+        
+        @Override
+        public int nextInt() {
+            
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            
+            Node<Value> node = stack[--top];
+            
+            for ( Node<Value> n = node.right; n != null; n = n.left ) {
+                stack[top++] = n;
+            }
+            
+            return node.key;
+            
+        }
+        
+    }
+    
+    @Override
+    public String toString() {
+        
+        StringBuilder sb = new StringBuilder();
+        
+        if ( !isEmpty()) {
+            preOrderForPrint( root, "", null, sb );
+        } else {
+            sb.append( "empty AVL tree!\n" );
+        }
+        
+        return sb.toString();
+        
+    }
+    
+    private void preOrderForPrint( Node<Value> node, String ident, String leftRight, StringBuilder sb ) {
+        
+        if ( node != null ) {
+            
+            String rootIdent = "";
+            String leafIdent = "";
+            
+            if ( node != root ) {
+                rootIdent = ident + "|--";
+                leafIdent = ident + "|  ";
+            }
+            
+            sb.append( rootIdent );
+            if ( leftRight != null ) {
+                sb.append( "(" ).append( leftRight ).append( ") " );
+            }
+            sb.append( node );
+            if ( node == root ) {
+                sb.append(  " <- root" );
+            }
+            sb.append( "\n" );
+            
+            preOrderForPrint( node.left, leafIdent, "L", sb );
+            preOrderForPrint( node.right, leafIdent, "R", sb );
+            
+        }
+        
+    }
+
+}
@@ -0,0 +1,780 @@
+package projetoesdarvores.esd;
+
+import aesd.ds.implementations.linear.ResizingArrayList;
+import aesd.ds.interfaces.List;
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import projetoesdarvores.esd.OuvinteEstrutural.TipoEvento;
+
+/**
+ * Implementação de uma árvore B em memória.
+ *
+ * Cada nó guarda até ordem - 1 chaves e valores em arranjos contíguos e até
+ * ordem filhos, então uma busca visita cerca de log_ordem(n) nós em vez dos
+ * log_2(n) das árvores binárias. Dentro do nó a busca é linear para ordens
+ * de até LIMITE_BUSCA_LINEAR e binária para as maiores.
+ *
+ * A inserção divide preventivamente os nós cheios e a remoção garante, antes
+ * de descer, que o filho visitado tenha pelo menos t chaves (emprestando de
+ * um irmão ou fundindo-se a ele), então ambas são feitas em uma única
+ * descida, sem recursão.
+ *
+ * Implementação baseada na obra: CORMEN, T. H. et al. Introduction to
+ * Algorithms. 3. ed. Cambridge: The MIT Press, 2009. 1292 p.
+ *
+ * @param <Key> Tipo das chaves que serão armazenadas na árvore.
+ * @param <Value> Tipo dos valores associados às chaves armazenadas na árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ArvoreB<Key extends Comparable<Key>, Value> implements Iterable<Key> {
+
+    /*
+     * Classe interna estática que define os nós da árvore B.
+     */
+    public static class Node<Key extends Comparable<Key>, Value> {
+        
+        private final Object[] keys;
+        private final Object[] values;
+        private final Node<Key, Value>[] children;
+        private int n;
+        
+        private Node( int ordem, boolean leaf ) {
+            keys = new Object[ordem - 1];
+            values = new Object[ordem - 1];
+            @SuppressWarnings( "unchecked" )
+            Node<Key, Value>[] c = leaf ? null : (Node<Key, Value>[]) new Node<?, ?>[ordem];
+            children = c;
+        }
+        
+        public int getKeyCount() {
+            return n;
+        }
+        
+        @SuppressWarnings( "unchecked" )
+        public Key getKey( int i ) {
+            return (Key) keys[i];
+        }
+        
+        public boolean isLeaf() {
+            return children == null;
+        }
+        
+        public Node<Key, Value> getChild( int i ) {
+            return children[i];
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder( "[" );
+            for ( int i = 0; i < n; i++ ) {
+                sb.append( i == 0 ? "" : " " ).append( keys[i] );
+            }
+            return sb.append( "]" ).toString();
+        }
+        
+    }
+    
+    // ordem padrão: com referências comprimidas, as 15 chaves de um nó
+    // cabem em uma linha de cache de 64 bytes (ver ComparacaoArvoreB)
+    public static final int ORDEM_PADRAO = 16;
+    
+    // maior ordem em que a busca dentro do nó é linear
+    public static final int LIMITE_BUSCA_LINEAR = 16;
+    
+    // quantidade máxima de filhos de um nó e grau mínimo (t)
+    private final int ordem;
+    private final int t;
+    private final boolean buscaLinear;
+    
+    // raiz da árvore
+    private Node<Key, Value> root;
+    
+    // tamanho da árvore (quantidade de pares chave/valor)
+    private int size;
+    
+    // quantidade de níveis da árvore
+    private int height;
+    
+    // quantidade de modificações estruturais, usada pelos iteradores
+    private int modCount;
+    
+    // ouvinte opcional dos passos estruturais; null quando desligado
+    private OuvinteEstrutural ouvinte;
+    
+    /**
+     * Constrói uma árvore B vazia de ordem ORDEM_PADRAO.
+     */
+    public ArvoreB() {
+        this( ORDEM_PADRAO );
+    }
+    
+    /**
+     * Constrói uma árvore B vazia.
+     *
+     * @param ordem A quantidade máxima de filhos de cada nó, par e maior ou
+     * igual a 4. Cada nó, exceto a raiz, tem entre ordem / 2 - 1 e ordem - 1
+     * chaves.
+     */
+    public ArvoreB( int ordem ) throws IllegalArgumentException {
+        
+        if ( ordem < 4 || ordem % 2 != 0 ) {
+            throw new IllegalArgumentException( "order must be even and at least 4: " + ordem );
+        }
+        
+        this.ordem = ordem;
+        this.t = ordem / 2;
+        this.buscaLinear = ordem <= LIMITE_BUSCA_LINEAR;
+        
+    }
+    
+    public int getOrdem() {
+        return ordem;
+    }
+    
+    /*
+     * Retorna a posição da primeira chave do nó maior ou igual a key, ou
+     * node.n caso não exista.
+     */
+    @SuppressWarnings( "unchecked" )
+    private int find( Node<Key, Value> node, Key key ) {
+        
+        Object[] keys = node.keys;
+        
+        if ( buscaLinear ) {
+            int i = 0;
+            while ( i < node.n && key.compareTo( (Key) keys[i] ) > 0 ) {
+                i++;
+            }
+            return i;
+        }
+        
+        int lo = 0;
+        int hi = node.n;
+        while ( lo < hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            if ( key.compareTo( (Key) keys[mid] ) > 0 ) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+        
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    private boolean matches( Node<Key, Value> node, int i, Key key ) {
+        return i < node.n && key.compareTo( (Key) node.keys[i] ) == 0;
+    }
+    
+    public void put( Key key, Value value ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "first argument to put() is null" );
+        }
+        
+        if ( value == null ) {
+            delete( key );
+            return;
+        }
+        
+        if ( root == null ) {
+            root = new Node<>( ordem, true );
+            height = 1;
+        }
+        
+        // uma raiz cheia é dividida e a árvore cresce para cima
+        if ( root.n == ordem - 1 ) {
+            Node<Key, Value> newRoot = new Node<>( ordem, false );
+            newRoot.children[0] = root;
+            root = newRoot;
+            height++;
+            splitChild( newRoot, 0 );
+        }
+        
+        Node<Key, Value> node = root;
+        
+        while ( true ) {
+            
+            int i = find( node, key );
+            
+            if ( matches( node, i, key ) ) {
+                node.values[i] = value;
+                return;
+            }
+            
+            if ( node.isLeaf() ) {
+                insertAt( node, i, key, value );
+                size++;
+                modCount++;
+                if ( ouvinte != null ) {
+                    ouvinte.evento( TipoEvento.INSERCAO, key, null, 0 );
+                }
+                return;
+            }
+            
+            if ( node.children[i].n == ordem - 1 ) {
+                splitChild( node, i );
+                if ( matches( node, i, key ) ) {
+                    node.values[i] = value;
+                    return;
+                }
+                if ( key.compareTo( node.getKey( i ) ) > 0 ) {
+                    i++;
+                }
+            }
+            
+            node = node.children[i];
+            
+        }
+        
+    }
+    
+    /*
+     * Divide o filho cheio de posição i de um nó não cheio: as t - 1 maiores
+     * chaves vão para um novo irmão à direita e a chave do meio sobe para o
+     * pai.
+     */
+    private void splitChild( Node<Key, Value> parent, int i ) {
+        
+        Node<Key, Value> full = parent.children[i];
+        Node<Key, Value> right = new Node<>( ordem, full.isLeaf() );
+        
+        System.arraycopy( full.keys, t, right.keys, 0, t - 1 );
+        System.arraycopy( full.values, t, right.values, 0, t - 1 );
+        if ( !full.isLeaf() ) {
+            System.arraycopy( full.children, t, right.children, 0, t );
+        }
+        right.n = t - 1;
+        
+        Object middleKey = full.keys[t - 1];
+        Object middleValue = full.values[t - 1];
+        clear( full, t - 1 );
+        
+        System.arraycopy( parent.children, i + 1, parent.children, i + 2, parent.n - i );
+        parent.children[i + 1] = right;
+        insertAt( parent, i, middleKey, middleValue );
+        
+        modCount++;
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.DIVISAO, middleKey, null, 0 );
+        }
+        
+    }
+    
+    /*
+     * Insere um par na posição i de um nó, deslocando os seguintes.
+     */
+    private void insertAt( Node<Key, Value> node, int i, Object key, Object value ) {
+        System.arraycopy( node.keys, i, node.keys, i + 1, node.n - i );
+        System.arraycopy( node.values, i, node.values, i + 1, node.n - i );
+        node.keys[i] = key;
+        node.values[i] = value;
+        node.n++;
+    }
+    
+    /*
+     * Remove o par da posição i de um nó e, se não for folha, o filho da
+     * posição childIndex.
+     */
+    private void removeAt( Node<Key, Value> node, int i, int childIndex ) {
+        System.arraycopy( node.keys, i + 1, node.keys, i, node.n - i - 1 );
+        System.arraycopy( node.values, i + 1, node.values, i, node.n - i - 1 );
+        if ( !node.isLeaf() ) {
+            System.arraycopy( node.children, childIndex + 1, node.children, childIndex, node.n - childIndex );
+            node.children[node.n] = null;
+        }
+        node.n--;
+        node.keys[node.n] = null;
+        node.values[node.n] = null;
+    }
+    
+    /*
+     * Solta as referências das posições a partir de from, que passa a ser
+     * a quantidade de chaves do nó.
+     */
+    private void clear( Node<Key, Value> node, int from ) {
+        for ( int i = from; i < node.n; i++ ) {
+            node.keys[i] = null;
+            node.values[i] = null;
+        }
+        if ( !node.isLeaf() ) {
+            for ( int i = from + 1; i <= node.n; i++ ) {
+                node.children[i] = null;
+            }
+        }
+        node.n = from;
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    public Value get( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to get() is null" );
+        }
+        
+        Node<Key, Value> node = root;
+        
+        while ( node != null ) {
+            int i = find( node, key );
+            if ( matches( node, i, key ) ) {
+                return (Value) node.values[i];
+            }
+            node = node.isLeaf() ? null : node.children[i];
+        }
+        
+        return null;
+        
+    }
+    
+    public void delete( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to delete() is null" );
+        }
+        
+        if ( !contains( key ) ) {
+            return;
+        }
+        
+        Node<Key, Value> node = root;
+        
+        while ( true ) {
+            
+            int i = find( node, key );
+            
+            if ( matches( node, i, key ) ) {
+                
+                if ( node.isLeaf() ) {
+                    if ( ouvinte != null ) {
+                        ouvinte.evento( TipoEvento.REMOCAO, key, null, 0 );
+                    }
+                    removeAt( node, i, i );
+                    break;
+                }
+                
+                Node<Key, Value> left = node.children[i];
+                Node<Key, Value> right = node.children[i + 1];
+                
+                if ( left.n >= t ) {
+                    
+                    // o predecessor ocupa o lugar da chave e é removido da
+                    // subárvore esquerda, que pode perder uma chave
+                    Node<Key, Value> max = left;
+                    while ( !max.isLeaf() ) {
+                        max = max.children[max.n];
+                    }
+                    replace( node, i, max, max.n - 1 );
+                    key = node.getKey( i );
+                    node = left;
+                    
+                } else if ( right.n >= t ) {
+                    
+                    Node<Key, Value> min = right;
+                    while ( !min.isLeaf() ) {
+                        min = min.children[0];
+                    }
+                    replace( node, i, min, 0 );
+                    key = node.getKey( i );
+                    node = right;
+                    
+                } else {
+                    
+                    // os dois filhos têm o mínimo: a chave desce para o nó
+                    // fundido e é removida dele
+                    merge( node, i );
+                    node = left;
+                    
+                }
+                
+                continue;
+                
+            }
+            
+            Node<Key, Value> child = node.children[i];
+            
+            // garante que o filho visitado possa perder uma chave
+            if ( child.n == t - 1 ) {
+                if ( i > 0 && node.children[i - 1].n >= t ) {
+                    borrowFromLeft( node, i );
+                } else if ( i < node.n && node.children[i + 1].n >= t ) {
+                    borrowFromRight( node, i );
+                } else if ( i < node.n ) {
+                    merge( node, i );
+                } else {
+                    merge( node, i - 1 );
+                    child = node.children[i - 1];
+                }
+            }
+            
+            node = child;
+            
+        }
+        
+        size--;
+        modCount++;
+        
+        // uma raiz vazia é descartada e a árvore encolhe
+        if ( root.n == 0 ) {
+            root = root.isLeaf() ? null : root.children[0];
+            height--;
+        }
+        
+    }
+    
+    /*
+     * Substitui o par da posição i de um nó pelo da posição j de outro.
+     */
+    private void replace( Node<Key, Value> node, int i, Node<Key, Value> from, int j ) {
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.SUBSTITUICAO, node.keys[i], from.keys[j], 0 );
+        }
+        node.keys[i] = from.keys[j];
+        node.values[i] = from.values[j];
+    }
+    
+    /*
+     * Funde o filho i + 1 de um nó ao filho i, descendo entre eles a chave
+     * separadora de posição i.
+     */
+    private void merge( Node<Key, Value> parent, int i ) {
+        
+        Node<Key, Value> left = parent.children[i];
+        Node<Key, Value> right = parent.children[i + 1];
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.FUSAO, parent.keys[i], null, 0 );
+        }
+        
+        left.keys[left.n] = parent.keys[i];
+        left.values[left.n] = parent.values[i];
+        System.arraycopy( right.keys, 0, left.keys, left.n + 1, right.n );
+        System.arraycopy( right.values, 0, left.values, left.n + 1, right.n );
+        if ( !left.isLeaf() ) {
+            System.arraycopy( right.children, 0, left.children, left.n + 1, right.n + 1 );
+        }
+        left.n += right.n + 1;
+        
+        removeAt( parent, i, i + 1 );
+        modCount++;
+        
+    }
+    
+    /*
+     * A chave separadora desce para o início do filho i e a última chave do
+     * irmão esquerdo sobe para o seu lugar.
+     */
+    private void borrowFromLeft( Node<Key, Value> parent, int i ) {
+        
+        Node<Key, Value> child = parent.children[i];
+        Node<Key, Value> sibling = parent.children[i - 1];
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.ROTACAO_DIREITA, parent.keys[i - 1], sibling.keys[sibling.n - 1], 0 );
+        }
+        
+        if ( !child.isLeaf() ) {
+            System.arraycopy( child.children, 0, child.children, 1, child.n + 1 );
+            child.children[0] = sibling.children[sibling.n];
+        }
+        insertAt( child, 0, parent.keys[i - 1], parent.values[i - 1] );
+        
+        parent.keys[i - 1] = sibling.keys[sibling.n - 1];
+        parent.values[i - 1] = sibling.values[sibling.n - 1];
+        clear( sibling, sibling.n - 1 );
+        
+        modCount++;
+        
+    }
+    
+    /*
+     * A chave separadora desce para o fim do filho i e a primeira chave do
+     * irmão direito sobe para o seu lugar.
+     */
+    private void borrowFromRight( Node<Key, Value> parent, int i ) {
+        
+        Node<Key, Value> child = parent.children[i];
+        Node<Key, Value> sibling = parent.children[i + 1];
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.ROTACAO_ESQUERDA, parent.keys[i], sibling.keys[0], 0 );
+        }
+        
+        child.keys[child.n] = parent.keys[i];
+        child.values[child.n] = parent.values[i];
+        if ( !child.isLeaf() ) {
+            child.children[child.n + 1] = sibling.children[0];
+        }
+        child.n++;
+        
+        parent.keys[i] = sibling.keys[0];
+        parent.values[i] = sibling.values[0];
+        removeAt( sibling, 0, 0 );
+        
+        modCount++;
+        
+    }
+    
+    public boolean contains( Key key ) throws IllegalArgumentException {
+        return get( key ) != null;
+    }
+    
+    /**
+     * Esvazia a árvore.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+        height = 0;
+        modCount++;
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.LIMPEZA, null, null, 0 );
+        }
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Retorna a quantidade de níveis de nós da árvore.
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Registra o ouvinte que receberá cada passo estrutural de put, delete e
+     * clear: inserções e remoções em folhas, divisões e fusões de nós,
+     * substituições pelo predecessor ou sucessor e empréstimos de um irmão,
+     * informados como rotações através do pai. Com null, o padrão, nenhum
+     * passo é informado.
+     *
+     * @param ouvinte O ouvinte ou null.
+     */
+    public void setOuvinte( OuvinteEstrutural ouvinte ) {
+        this.ouvinte = ouvinte;
+    }
+    
+    public OuvinteEstrutural getOuvinte() {
+        return ouvinte;
+    }
+    
+    /**
+     * Retorna os nós da árvore separados por nível, da raiz às folhas, e,
+     * em cada nível, da esquerda para a direita.
+     */
+    public List<List<Node<Key, Value>>> coletarParaDesenho() {
+        
+        List<List<Node<Key, Value>>> niveis = new ResizingArrayList<>();
+        
+        if ( root == null ) {
+            return niveis;
+        }
+        
+        List<Node<Key, Value>> nivel = new ResizingArrayList<>();
+        nivel.add( root );
+        
+        while ( true ) {
+            niveis.add( nivel );
+            if ( nivel.get( 0 ).isLeaf() ) {
+                return niveis;
+            }
+            List<Node<Key, Value>> proximo = new ResizingArrayList<>();
+            for ( Node<Key, Value> node : nivel ) {
+                for ( int i = 0; i <= node.n; i++ ) {
+                    proximo.add( node.children[i] );
+                }
+            }
+            nivel = proximo;
+        }
+        
+    }
+    
+    @Override
+    public Iterator<Key> iterator() {
+        return new InOrderIterator<>( null, null, ( node, i ) -> node.getKey( i ) );
+    }
+    
+    public Iterable<Key> getKeys() {
+        return () -> new InOrderIterator<>( null, null, ( node, i ) -> node.getKey( i ) );
+    }
+    
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, sem copiá-las.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Key> getKeys( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getKeys()" );
+        return () -> new InOrderIterator<>( lo, hi, ( node, i ) -> node.getKey( i ) );
+    }
+    
+    /**
+     * Retorna os pares chave/valor da árvore em ordem, sem copiá-los.
+     *
+     * @return Os pares chave/valor.
+     */
+    public Iterable<Entry<Key, Value>> getEntries() {
+        return () -> new InOrderIterator<>( null, null, this::entry );
+    }
+    
+    /**
+     * Retorna os pares chave/valor do intervalo [lo, hi] em ordem, sem
+     * copiá-los.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return Os pares chave/valor do intervalo.
+     */
+    public Iterable<Entry<Key, Value>> getEntries( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getEntries()" );
+        return () -> new InOrderIterator<>( lo, hi, this::entry );
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    private Entry<Key, Value> entry( Node<Key, Value> node, int i ) {
+        return new Entry<>( (Key) node.keys[i], (Value) node.values[i] );
+    }
+    
+    private void checkRange( Key lo, Key hi, String method ) throws IllegalArgumentException {
+        if ( lo == null ) {
+            throw new IllegalArgumentException( "first argument to " + method + " is null" );
+        }
+        if ( hi == null ) {
+            throw new IllegalArgumentException( "second argument to " + method + " is null" );
+        }
+    }
+    
+    /*
+     * Extrai o elemento devolvido pelo iterador a partir de um nó e uma
+     * posição.
+     */
+    private static interface Extrator<Key extends Comparable<Key>, Value, T> {
+        T extrair( Node<Key, Value> node, int i );
+    }
+    
+    /*
+     * Iterador em ordem preguiçoso, opcionalmente limitado ao intervalo
+     * [lo, hi]. Guarda, para cada nível do caminho até a próxima chave, o nó
+     * e a posição da próxima chave dele, e falha rapidamente caso a árvore
+     * seja modificada estruturalmente durante a iteração.
+     */
+    private class InOrderIterator<T> implements Iterator<T> {
+        
+        private final Node<Key, Value>[] nodes;
+        private final int[] positions;
+        private int top;
+        private final Key hi;
+        private final Extrator<Key, Value, T> extractor;
+        private final int expectedModCount;
+        
+        InOrderIterator( Key lo, Key hi, Extrator<Key, Value, T> extractor ) {
+            
+            @SuppressWarnings( "unchecked" )
+            Node<Key, Value>[] n = (Node<Key, Value>[]) new Node<?, ?>[height];
+            this.nodes = n;
+            this.positions = new int[height];
+            this.hi = hi;
+            this.extractor = extractor;
+            this.expectedModCount = modCount;
+            
+            // empilha o caminho até a menor chave maior ou igual a lo
+            Node<Key, Value> node = root;
+            while ( node != null ) {
+                int i = lo == null ? 0 : find( node, lo );
+                nodes[top] = node;
+                positions[top++] = i;
+                node = node.isLeaf() ? null : node.children[i];
+            }
+            
+        }
+        
+        @Override
+        public boolean hasNext() {
+            
+            checkForComodification();
+            
+            // descarta os níveis cujas chaves já foram todas visitadas
+            while ( top > 0 && positions[top - 1] >= nodes[top - 1].n ) {
+                nodes[--top] = null;
+            }
+            
+            return top > 0 && ( hi == null || hi.compareTo( nodes[top - 1].getKey( positions[top - 1] ) ) >= 0 );
+            
+        }
+        
+        @Override
+        public T next() {
+            
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            
+            Node<Key, Value> node = nodes[top - 1];
+            int i = positions[top - 1]++;
+            T item = extractor.extrair( node, i );
+            
+            // a próxima chave está no início da subárvore à direita desta
+            if ( !node.isLeaf() ) {
+                for ( Node<Key, Value> n = node.children[i + 1]; n != null; n = n.isLeaf() ? null : n.children[0] ) {
+                    nodes[top] = n;
+                    positions[top++] = 0;
+                }
+            }
+            
+            return item;
+            
+        }
+        
+        private void checkForComodification() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        
+    }
+    
+    @Override
+    public String toString() {
+        
+        StringBuilder sb = new StringBuilder();
+        
+        if ( !isEmpty() ) {
+            preOrderForPrint( root, "", sb );
+        } else {
+            sb.append( "empty B-tree!\n" );
+        }
+        
+        return sb.toString();
+        
+    }
+    
+    private void preOrderForPrint( Node<Key, Value> node, String ident, StringBuilder sb ) {
+        
+        sb.append( ident ).append( node );
+        if ( node == root ) {
+            sb.append( " <- root" );
+        }
+        sb.append( "\n" );
+        
+        if ( !node.isLeaf() ) {
+            for ( int i = 0; i <= node.n; i++ ) {
+                preOrderForPrint( node.children[i], ident + "|  ", sb );
+            }
+        }
+        
+    }
+
+}
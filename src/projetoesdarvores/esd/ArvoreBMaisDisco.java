@@ -0,0 +1,1056 @@
+package projetoesdarvores.esd;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * Árvore B+ guardada em um arquivo de páginas de tamanho fixo, acessado por
+ * um FileChannel, para conjuntos ordenados que não cabem no heap.
+ *
+ * Os pares chave/valor ficam apenas nas folhas, que são ligadas da esquerda
+ * para a direita, então uma consulta por intervalo desce uma única vez até a
+ * primeira folha e depois lê as folhas em sequência. As páginas internas
+ * guardam apenas chaves separadoras e os números das páginas filhas. Como
+ * chaves e valores são gravados com Codec e podem ter tamanhos variados, uma
+ * página é dividida quando os bytes das suas entradas deixam de caber nela,
+ * e não ao atingir uma quantidade fixa de chaves.
+ *
+ * As páginas lidas ficam em uma cache de tamanho limitado, com substituição
+ * da menos recentemente usada (LRU). Páginas alteradas são marcadas como
+ * sujas e só são gravadas quando saem da cache, em flush() ou em close()
+ * (write-back), junto com o cabeçalho. Não há log: uma queda entre dois
+ * flush() pode deixar o arquivo inconsistente. Quando a durabilidade de
+ * cada operação importa, a ArvoreVermelhoPretoDuravel é a opção.
+ *
+ * Remoções não fundem nem redistribuem páginas: uma folha pode ficar vazia
+ * e continua ligada, sendo reaproveitada por inserções futuras no seu
+ * intervalo, e a altura da árvore nunca diminui. É a mesma simplificação de
+ * muitos bancos de dados, que deixam a compactação para uma reconstrução.
+ *
+ * Formato do arquivo (todas as páginas terminam com o CRC32 do restante):
+ *     página 0      cabeçalho: número mágico, versão, tamanho de página,
+ *                   raiz, quantidade de páginas, tamanho e altura
+ *     folha         tipo, quantidade n, próxima folha e n pares chave/valor
+ *     interna       tipo, quantidade n, primeiro filho e n pares chave/filho
+ *
+ * Não é segura para uso por várias threads.
+ *
+ * @param <Key> Tipo das chaves que serão armazenadas na árvore.
+ * @param <Value> Tipo dos valores associados às chaves armazenadas na árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ArvoreBMaisDisco<Key extends Comparable<Key>, Value> implements Iterable<Key>, Closeable {
+
+    private static final int MAGICO = 0x45534442;
+    private static final int VERSAO = 1;
+    
+    private static final byte FOLHA = 1;
+    private static final byte INTERNA = 2;
+    
+    // tipo, quantidade e próxima folha (ou primeiro filho), mais o CRC
+    private static final int CABECALHO_PAGINA = 1 + 4 + 8;
+    private static final int TAMANHO_CRC = 4;
+    
+    // página 0 é o cabeçalho, então 0 também significa "nenhuma página"
+    private static final long NENHUMA = 0;
+    
+    public static final int TAMANHO_PAGINA_PADRAO = 4096;
+    public static final int TAMANHO_PAGINA_MINIMO = 256;
+    public static final int PAGINAS_EM_CACHE_PADRAO = 1024;
+    
+    // a descida de um put mantém o caminho em uso, então a cache precisa
+    // comportar pelo menos algumas páginas
+    public static final int PAGINAS_EM_CACHE_MINIMO = 8;
+    
+    /*
+     * Página decodificada. As folhas usam values e proxima e as internas,
+     * children, com n + 1 posições válidas.
+     */
+    private static final class Pagina {
+        
+        final long id;
+        final boolean folha;
+        Object[] keys;
+        Object[] values;
+        long[] children;
+        int n;
+        long proxima;
+        
+        // bytes ocupados pelas entradas
+        int bytes;
+        boolean suja;
+        
+        Pagina( long id, boolean folha, int capacidade ) {
+            this.id = id;
+            this.folha = folha;
+            this.keys = new Object[capacidade];
+            if ( folha ) {
+                this.values = new Object[capacidade];
+            } else {
+                this.children = new long[capacidade + 1];
+            }
+        }
+        
+        void garantirCapacidade( int capacidade ) {
+            if ( capacidade > keys.length ) {
+                int nova = Math.max( capacidade, 2 * keys.length );
+                keys = Arrays.copyOf( keys, nova );
+                if ( folha ) {
+                    values = Arrays.copyOf( values, nova );
+                } else {
+                    children = Arrays.copyOf( children, nova + 1 );
+                }
+            }
+        }
+        
+    }
+    
+    /*
+     * Resultado da divisão de uma página: a chave que sobe para o pai e a
+     * nova página à direita.
+     */
+    private static final class Divisao {
+        
+        final Object chave;
+        final long pagina;
+        
+        Divisao( Object chave, long pagina ) {
+            this.chave = chave;
+            this.pagina = pagina;
+        }
+        
+    }
+    
+    /*
+     * Buffer de bytes que expõe o arranjo interno. As escritas de um byte,
+     * usadas pelos varints dos codecs, não são sincronizadas.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        
+        Buffer( int capacidade ) {
+            super( capacidade );
+        }
+        
+        @Override
+        public void write( int b ) {
+            if ( count == buf.length ) {
+                buf = Arrays.copyOf( buf, 2 * buf.length );
+            }
+            buf[count++] = (byte) b;
+        }
+        
+        byte[] array() {
+            return buf;
+        }
+        
+    }
+    
+    /*
+     * Leitura não sincronizada do conteúdo de uma página.
+     */
+    private static class EntradaPagina extends InputStream {
+        
+        private final byte[] buf;
+        private int pos;
+        private int fim;
+        
+        EntradaPagina( byte[] buf ) {
+            this.buf = buf;
+        }
+        
+        void reiniciar( int fim ) {
+            this.pos = 0;
+            this.fim = fim;
+        }
+        
+        @Override
+        public int read() {
+            return pos < fim ? buf[pos++] & 0xFF : -1;
+        }
+        
+        @Override
+        public int read( byte[] b, int off, int len ) {
+            if ( pos >= fim ) {
+                return -1;
+            }
+            int k = Math.min( len, fim - pos );
+            System.arraycopy( buf, pos, b, off, k );
+            pos += k;
+            return k;
+        }
+        
+        @Override
+        public int available() {
+            return fim - pos;
+        }
+        
+    }
+    
+    private final FileChannel arquivo;
+    private final Codec<Key> keyCodec;
+    private final Codec<Value> valueCodec;
+    private final int tamanhoPagina;
+    private final int paginasEmCache;
+    
+    // bytes disponíveis para as entradas de uma página e o maior par
+    // chave/valor aceito, que garante que uma divisão sempre cabe
+    private final int capacidadePagina;
+    private final int maiorEntrada;
+    
+    private final LinkedHashMap<Long, Pagina> cache;
+    
+    private long root;
+    private long quantidadePaginas;
+    private int size;
+    private int height;
+    private int modCount;
+    private boolean fechada;
+    
+    // codificação de páginas e de entradas avulsas
+    private final Buffer saida;
+    private final DataOutputStream dadosSaida;
+    private final Buffer entrada = new Buffer( 64 );
+    private final DataOutputStream dadosEntrada = new DataOutputStream( entrada );
+    private final ByteBuffer pagina;
+    private final EntradaPagina entradaPagina;
+    private final DataInputStream dadosPagina;
+    private final CRC32 crc = new CRC32();
+    
+    // estatísticas
+    private long acertos;
+    private long faltas;
+    private long paginasLidas;
+    private long paginasEscritas;
+    
+    /**
+     * Abre (ou cria) uma árvore no arquivo informado com páginas de
+     * TAMANHO_PAGINA_PADRAO bytes e cache de PAGINAS_EM_CACHE_PADRAO páginas.
+     *
+     * @param caminho O arquivo da árvore.
+     * @param keyCodec A codificação das chaves.
+     * @param valueCodec A codificação dos valores.
+     */
+    public ArvoreBMaisDisco( Path caminho, Codec<Key> keyCodec, Codec<Value> valueCodec )
+            throws IOException, IllegalArgumentException {
+        this( caminho, keyCodec, valueCodec, TAMANHO_PAGINA_PADRAO, PAGINAS_EM_CACHE_PADRAO );
+    }
+    
+    /**
+     * Abre (ou cria) uma árvore no arquivo informado.
+     *
+     * @param caminho O arquivo da árvore.
+     * @param keyCodec A codificação das chaves.
+     * @param valueCodec A codificação dos valores.
+     * @param tamanhoPagina O tamanho, em bytes, das páginas de um arquivo
+     * novo; um arquivo existente usa o tamanho com que foi criado.
+     * @param paginasEmCache A quantidade máxima de páginas mantidas em
+     * memória.
+     */
+    public ArvoreBMaisDisco( Path caminho, Codec<Key> keyCodec, Codec<Value> valueCodec,
+            int tamanhoPagina, int paginasEmCache ) throws IOException, IllegalArgumentException {
+            
+        if ( caminho == null || keyCodec == null || valueCodec == null ) {
+            throw new IllegalArgumentException( "path and codecs must not be null" );
+        }
+        
+        if ( tamanhoPagina < TAMANHO_PAGINA_MINIMO || paginasEmCache < PAGINAS_EM_CACHE_MINIMO ) {
+            throw new IllegalArgumentException( "page size must be at least " + TAMANHO_PAGINA_MINIMO
+                    + " and cache size at least " + PAGINAS_EM_CACHE_MINIMO );
+        }
+        
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.paginasEmCache = paginasEmCache;
+        this.cache = new LinkedHashMap<>( 2 * paginasEmCache, 0.75f, true );
+        
+        arquivo = FileChannel.open( caminho,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+                
+        try {
+            if ( arquivo.size() > 0 ) {
+                tamanhoPagina = lerCabecalho();
+            }
+        } catch ( IOException | RuntimeException exc ) {
+            arquivo.close();
+            throw exc;
+        }
+        
+        this.tamanhoPagina = tamanhoPagina;
+        this.capacidadePagina = tamanhoPagina - CABECALHO_PAGINA - TAMANHO_CRC;
+        this.maiorEntrada = capacidadePagina / 4;
+        this.saida = new Buffer( tamanhoPagina );
+        this.dadosSaida = new DataOutputStream( saida );
+        this.pagina = ByteBuffer.allocate( tamanhoPagina );
+        this.entradaPagina = new EntradaPagina( pagina.array() );
+        this.dadosPagina = new DataInputStream( entradaPagina );
+        
+        if ( arquivo.size() == 0 ) {
+            iniciar();
+        }
+        
+    }
+    
+    /*
+     * Lê o cabeçalho de um arquivo existente e retorna o seu tamanho de
+     * página.
+     */
+    private int lerCabecalho() throws IOException {
+        
+        ByteBuffer b = ByteBuffer.allocate( TAMANHO_PAGINA_MINIMO );
+        lerCompleto( b, 0 );
+        
+        if ( b.getInt( 0 ) != MAGICO ) {
+            throw new IOException( "not a B+ tree file" );
+        }
+        if ( b.getInt( 4 ) != VERSAO ) {
+            throw new IOException( "unsupported B+ tree file version: " + b.getInt( 4 ) );
+        }
+        
+        crc.reset();
+        crc.update( b.array(), 0, 36 );
+        if ( (int) crc.getValue() != b.getInt( 36 ) ) {
+            throw new IOException( "corrupted B+ tree header" );
+        }
+        
+        int t = b.getInt( 8 );
+        root = b.getLong( 12 );
+        quantidadePaginas = b.getLong( 20 );
+        size = b.getInt( 28 );
+        height = b.getInt( 32 );
+        
+        if ( t < TAMANHO_PAGINA_MINIMO || root <= NENHUMA || root >= quantidadePaginas || height < 1 ) {
+            throw new IOException( "corrupted B+ tree header" );
+        }
+        
+        return t;
+        
+    }
+    
+    private void gravarCabecalho() throws IOException {
+        
+        ByteBuffer b = ByteBuffer.allocate( TAMANHO_PAGINA_MINIMO );
+        b.putInt( MAGICO ).putInt( VERSAO ).putInt( tamanhoPagina )
+                .putLong( root ).putLong( quantidadePaginas ).putInt( size ).putInt( height );
+                
+        crc.reset();
+        crc.update( b.array(), 0, 36 );
+        b.putInt( (int) crc.getValue() );
+        
+        b.clear();
+        while ( b.hasRemaining() ) {
+            arquivo.write( b, b.position() );
+        }
+        
+    }
+    
+    /*
+     * Inicia um arquivo vazio, com uma folha vazia como raiz.
+     */
+    private void iniciar() throws IOException {
+        cache.clear();
+        arquivo.truncate( 0 );
+        quantidadePaginas = 1;
+        Pagina folha = novaPagina( true );
+        marcarSuja( folha );
+        root = folha.id;
+        size = 0;
+        height = 1;
+        gravarCabecalho();
+        modCount++;
+    }
+    
+    private void lerCompleto( ByteBuffer b, long posicao ) throws IOException {
+        while ( b.hasRemaining() ) {
+            if ( arquivo.read( b, posicao + b.position() ) < 0 ) {
+                throw new IOException( "truncated B+ tree file at page " + posicao / b.capacity() );
+            }
+        }
+    }
+    
+    /*
+     * Retorna a página da cache ou a lê do arquivo, liberando espaço na cache
+     * caso necessário.
+     */
+    private Pagina carregar( long id ) throws IOException {
+        
+        Pagina p = cache.get( id );
+        if ( p != null ) {
+            acertos++;
+            return p;
+        }
+        
+        faltas++;
+        p = ler( id );
+        cache.put( id, p );
+        despejar();
+        
+        return p;
+        
+    }
+    
+    /*
+     * Marca uma página alterada como suja e a devolve à cache, caso tenha
+     * sido despejada enquanto estava em uso; a cópia em memória é sempre a
+     * mais recente.
+     */
+    private void marcarSuja( Pagina p ) throws IOException {
+        p.suja = true;
+        if ( cache.put( p.id, p ) == null ) {
+            despejar();
+        }
+    }
+    
+    /*
+     * Despeja as páginas menos recentemente usadas que excedem a capacidade
+     * da cache, gravando as sujas.
+     */
+    private void despejar() throws IOException {
+        Iterator<Pagina> it = cache.values().iterator();
+        while ( cache.size() > paginasEmCache ) {
+            Pagina p = it.next();
+            if ( p.suja ) {
+                gravar( p );
+            }
+            it.remove();
+        }
+    }
+    
+    /*
+     * Cria uma página no fim do arquivo. Ela só entra na cache ao ser marcada
+     * como suja, depois de preenchida.
+     */
+    private Pagina novaPagina( boolean folha ) {
+        return new Pagina( quantidadePaginas++, folha, 16 );
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    private Pagina ler( long id ) throws IOException {
+        
+        pagina.clear();
+        lerCompleto( pagina, id * tamanhoPagina );
+        
+        byte[] a = pagina.array();
+        crc.reset();
+        crc.update( a, 0, tamanhoPagina - TAMANHO_CRC );
+        if ( (int) crc.getValue() != pagina.getInt( tamanhoPagina - TAMANHO_CRC ) ) {
+            throw new IOException( "corrupted B+ tree page: " + id );
+        }
+        
+        paginasLidas++;
+        
+        entradaPagina.reiniciar( tamanhoPagina - TAMANHO_CRC );
+        DataInputStream in = dadosPagina;
+        byte tipo = in.readByte();
+        int n = in.readInt();
+        
+        if ( ( tipo != FOLHA && tipo != INTERNA ) || n < 0 || n > capacidadePagina ) {
+            throw new IOException( "corrupted B+ tree page: " + id );
+        }
+        
+        Pagina p = new Pagina( id, tipo == FOLHA, Math.max( n, 1 ) );
+        p.n = n;
+        
+        if ( p.folha ) {
+            p.proxima = in.readLong();
+            for ( int i = 0; i < n; i++ ) {
+                p.keys[i] = keyCodec.read( in );
+                p.values[i] = valueCodec.read( in );
+            }
+        } else {
+            p.children[0] = in.readLong();
+            for ( int i = 0; i < n; i++ ) {
+                p.keys[i] = keyCodec.read( in );
+                p.children[i+1] = in.readLong();
+            }
+        }
+        
+        p.bytes = tamanhoPagina - TAMANHO_CRC - CABECALHO_PAGINA - in.available();
+        
+        return p;
+        
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    private void gravar( Pagina p ) throws IOException {
+        
+        saida.reset();
+        dadosSaida.writeByte( p.folha ? FOLHA : INTERNA );
+        dadosSaida.writeInt( p.n );
+        
+        if ( p.folha ) {
+            dadosSaida.writeLong( p.proxima );
+            for ( int i = 0; i < p.n; i++ ) {
+                keyCodec.write( (Key) p.keys[i], dadosSaida );
+                valueCodec.write( (Value) p.values[i], dadosSaida );
+            }
+        } else {
+            dadosSaida.writeLong( p.children[0] );
+            for ( int i = 0; i < p.n; i++ ) {
+                keyCodec.write( (Key) p.keys[i], dadosSaida );
+                dadosSaida.writeLong( p.children[i+1] );
+            }
+        }
+        
+        pagina.clear();
+        pagina.put( saida.array(), 0, saida.size() );
+        Arrays.fill( pagina.array(), saida.size(), tamanhoPagina - TAMANHO_CRC, (byte) 0 );
+        
+        crc.reset();
+        crc.update( pagina.array(), 0, tamanhoPagina - TAMANHO_CRC );
+        pagina.putInt( tamanhoPagina - TAMANHO_CRC, (int) crc.getValue() );
+        
+        pagina.clear();
+        long posicao = p.id * tamanhoPagina;
+        while ( pagina.hasRemaining() ) {
+            arquivo.write( pagina, posicao + pagina.position() );
+        }
+        
+        p.suja = false;
+        paginasEscritas++;
+        
+    }
+    
+    /*
+     * Bytes ocupados por uma chave e, caso não seja null, um valor.
+     */
+    private int tamanho( Key key, Value value ) throws IOException {
+        entrada.reset();
+        keyCodec.write( key, dadosEntrada );
+        if ( value != null ) {
+            valueCodec.write( value, dadosEntrada );
+        }
+        return entrada.size();
+    }
+    
+    /*
+     * Posição da primeira chave da página maior ou igual a key, ou p.n caso
+     * não exista.
+     */
+    @SuppressWarnings( "unchecked" )
+    private static <Key extends Comparable<Key>> int limiteInferior( Pagina p, Key key ) {
+        int lo = 0;
+        int hi = p.n;
+        while ( lo < hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            if ( key.compareTo( (Key) p.keys[mid] ) > 0 ) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+    
+    /*
+     * Filho de uma página interna em que key deve estar: cada separadora é
+     * a menor chave da subárvore à sua direita.
+     */
+    @SuppressWarnings( "unchecked" )
+    private static <Key extends Comparable<Key>> int filho( Pagina p, Key key ) {
+        int i = limiteInferior( p, key );
+        if ( i < p.n && key.compareTo( (Key) p.keys[i] ) == 0 ) {
+            i++;
+        }
+        return i;
+    }
+    
+    /*
+     * Desce da raiz até a folha em que key está ou deveria estar.
+     */
+    private Pagina folha( Key key ) throws IOException {
+        Pagina p = carregar( root );
+        while ( !p.folha ) {
+            p = carregar( p.children[filho( p, key )] );
+        }
+        return p;
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    public void put( Key key, Value value ) throws IOException, IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "first argument to put() is null" );
+        }
+        
+        if ( value == null ) {
+            delete( key );
+            return;
+        }
+        
+        verificarAberta();
+        
+        int bytes = tamanho( key, value );
+        if ( bytes > maiorEntrada ) {
+            throw new IllegalArgumentException( "entry of " + bytes + " bytes does not fit in a page of "
+                    + tamanhoPagina + " bytes" );
+        }
+        
+        Divisao d = put( carregar( root ), key, value, bytes );
+        
+        // a raiz foi dividida e a árvore cresce para cima
+        if ( d != null ) {
+            Pagina novaRaiz = novaPagina( false );
+            novaRaiz.keys[0] = d.chave;
+            novaRaiz.children[0] = root;
+            novaRaiz.children[1] = d.pagina;
+            novaRaiz.n = 1;
+            novaRaiz.bytes = tamanho( (Key) d.chave, null ) + 8;
+            marcarSuja( novaRaiz );
+            root = novaRaiz.id;
+            height++;
+        }
+        
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    private Divisao put( Pagina p, Key key, Value value, int bytes ) throws IOException {
+        
+        if ( p.folha ) {
+            
+            int i = limiteInferior( p, key );
+            
+            if ( i < p.n && key.compareTo( (Key) p.keys[i] ) == 0 ) {
+                p.bytes += bytes - tamanho( (Key) p.keys[i], (Value) p.values[i] );
+                p.values[i] = value;
+            } else {
+                p.garantirCapacidade( p.n + 1 );
+                System.arraycopy( p.keys, i, p.keys, i + 1, p.n - i );
+                System.arraycopy( p.values, i, p.values, i + 1, p.n - i );
+                p.keys[i] = key;
+                p.values[i] = value;
+                p.n++;
+                p.bytes += bytes;
+                size++;
+                modCount++;
+            }
+            
+            marcarSuja( p );
+            return p.bytes > capacidadePagina ? dividirFolha( p ) : null;
+            
+        }
+        
+        int i = filho( p, key );
+        Divisao d = put( carregar( p.children[i] ), key, value, bytes );
+        
+        if ( d == null ) {
+            return null;
+        }
+        
+        p.garantirCapacidade( p.n + 1 );
+        System.arraycopy( p.keys, i, p.keys, i + 1, p.n - i );
+        System.arraycopy( p.children, i + 1, p.children, i + 2, p.n - i );
+        p.keys[i] = d.chave;
+        p.children[i+1] = d.pagina;
+        p.n++;
+        p.bytes += tamanho( (Key) d.chave, null ) + 8;
+        
+        marcarSuja( p );
+        return p.bytes > capacidadePagina ? dividirInterna( p ) : null;
+        
+    }
+    
+    /*
+     * Move para uma nova folha à direita as entradas a partir da metade dos
+     * bytes; a primeira chave da nova folha é copiada para o pai.
+     */
+    @SuppressWarnings( "unchecked" )
+    private Divisao dividirFolha( Pagina p ) throws IOException {
+        
+        int m = 0;
+        int esquerda = 0;
+        while ( esquerda < p.bytes / 2 ) {
+            esquerda += tamanho( (Key) p.keys[m], (Value) p.values[m] );
+            m++;
+        }
+        
+        Pagina q = novaPagina( true );
+        int k = p.n - m;
+        q.garantirCapacidade( k );
+        System.arraycopy( p.keys, m, q.keys, 0, k );
+        System.arraycopy( p.values, m, q.values, 0, k );
+        Arrays.fill( p.keys, m, p.n, null );
+        Arrays.fill( p.values, m, p.n, null );
+        q.n = k;
+        q.bytes = p.bytes - esquerda;
+        p.n = m;
+        p.bytes = esquerda;
+        
+        q.proxima = p.proxima;
+        p.proxima = q.id;
+        
+        marcarSuja( q );
+        marcarSuja( p );
+        modCount++;
+        
+        return new Divisao( q.keys[0], q.id );
+        
+    }
+    
+    /*
+     * Move para uma nova página à direita as chaves após a da metade dos
+     * bytes, que sobe para o pai.
+     */
+    @SuppressWarnings( "unchecked" )
+    private Divisao dividirInterna( Pagina p ) throws IOException {
+        
+        int m = 0;
+        int esquerda = 0;
+        while ( esquerda < p.bytes / 2 ) {
+            esquerda += tamanho( (Key) p.keys[m], null ) + 8;
+            m++;
+        }
+        
+        // a última chave contada sobe
+        m--;
+        int meio = tamanho( (Key) p.keys[m], null ) + 8;
+        esquerda -= meio;
+        
+        Pagina q = novaPagina( false );
+        int k = p.n - m - 1;
+        q.garantirCapacidade( k );
+        System.arraycopy( p.keys, m + 1, q.keys, 0, k );
+        System.arraycopy( p.children, m + 1, q.children, 0, k + 1 );
+        Object chave = p.keys[m];
+        Arrays.fill( p.keys, m, p.n, null );
+        q.n = k;
+        q.bytes = p.bytes - esquerda - meio;
+        p.n = m;
+        p.bytes = esquerda;
+        
+        marcarSuja( q );
+        marcarSuja( p );
+        modCount++;
+        
+        return new Divisao( chave, q.id );
+        
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    public Value get( Key key ) throws IOException, IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to get() is null" );
+        }
+        
+        verificarAberta();
+        
+        Pagina p = folha( key );
+        int i = limiteInferior( p, key );
+        
+        if ( i < p.n && key.compareTo( (Key) p.keys[i] ) == 0 ) {
+            return (Value) p.values[i];
+        }
+        
+        return null;
+        
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    public void delete( Key key ) throws IOException, IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to delete() is null" );
+        }
+        
+        verificarAberta();
+        
+        Pagina p = folha( key );
+        int i = limiteInferior( p, key );
+        
+        if ( i < p.n && key.compareTo( (Key) p.keys[i] ) == 0 ) {
+            p.bytes -= tamanho( key, (Value) p.values[i] );
+            System.arraycopy( p.keys, i + 1, p.keys, i, p.n - i - 1 );
+            System.arraycopy( p.values, i + 1, p.values, i, p.n - i - 1 );
+            p.n--;
+            p.keys[p.n] = null;
+            p.values[p.n] = null;
+            size--;
+            modCount++;
+            marcarSuja( p );
+        }
+        
+    }
+    
+    public boolean contains( Key key ) throws IOException, IllegalArgumentException {
+        return get( key ) != null;
+    }
+    
+    /**
+     * Esvazia a árvore, descartando todas as páginas do arquivo.
+     */
+    public void clear() throws IOException {
+        verificarAberta();
+        iniciar();
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Retorna a quantidade de níveis de páginas da árvore.
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    public int getTamanhoPagina() {
+        return tamanhoPagina;
+    }
+    
+    /**
+     * Retorna a quantidade de páginas do arquivo, incluindo o cabeçalho.
+     */
+    public long getQuantidadePaginas() {
+        return quantidadePaginas;
+    }
+    
+    /**
+     * Quantidade de acessos a páginas atendidos pela cache.
+     */
+    public long getAcertosCache() {
+        return acertos;
+    }
+    
+    /**
+     * Quantidade de acessos a páginas que precisaram ler o arquivo.
+     */
+    public long getFaltasCache() {
+        return faltas;
+    }
+    
+    /**
+     * Fração dos acessos a páginas atendidos pela cache, ou 0 caso nenhuma
+     * página tenha sido acessada.
+     */
+    public double getTaxaAcertosCache() {
+        long total = acertos + faltas;
+        return total == 0 ? 0 : (double) acertos / total;
+    }
+    
+    public long getPaginasLidas() {
+        return paginasLidas;
+    }
+    
+    public long getPaginasEscritas() {
+        return paginasEscritas;
+    }
+    
+    public void zerarEstatisticas() {
+        acertos = 0;
+        faltas = 0;
+        paginasLidas = 0;
+        paginasEscritas = 0;
+    }
+    
+    @Override
+    public Iterator<Key> iterator() {
+        return new LeafIterator<>( null, null, ( p, i ) -> p.keys[i] );
+    }
+    
+    public Iterable<Key> getKeys() {
+        return this;
+    }
+    
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, lendo as folhas
+     * ligadas sob demanda. Erros de leitura durante a iteração são lançados
+     * como UncheckedIOException.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Key> getKeys( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getKeys()" );
+        return () -> new LeafIterator<>( lo, hi, ( p, i ) -> p.keys[i] );
+    }
+    
+    /**
+     * Retorna os pares chave/valor da árvore em ordem, lendo as folhas
+     * ligadas sob demanda.
+     *
+     * @return Os pares chave/valor.
+     */
+    public Iterable<Entry<Key, Value>> getEntries() {
+        return () -> new LeafIterator<>( null, null, ( p, i ) -> new Entry<>( p.keys[i], p.values[i] ) );
+    }
+    
+    /**
+     * Retorna os pares chave/valor do intervalo [lo, hi] em ordem, lendo as
+     * folhas ligadas sob demanda.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return Os pares chave/valor do intervalo.
+     */
+    public Iterable<Entry<Key, Value>> getEntries( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getEntries()" );
+        return () -> new LeafIterator<>( lo, hi, ( p, i ) -> new Entry<>( p.keys[i], p.values[i] ) );
+    }
+    
+    private void checkRange( Key lo, Key hi, String method ) throws IllegalArgumentException {
+        if ( lo == null ) {
+            throw new IllegalArgumentException( "first argument to " + method + " is null" );
+        }
+        if ( hi == null ) {
+            throw new IllegalArgumentException( "second argument to " + method + " is null" );
+        }
+    }
+    
+    /*
+     * Extrai o elemento devolvido pelo iterador a partir de uma folha e uma
+     * posição.
+     */
+    private static interface Extrator {
+        Object extrair( Pagina p, int i );
+    }
+    
+    /*
+     * Iterador sobre as folhas ligadas, opcionalmente limitado ao intervalo
+     * [lo, hi]. Desce uma vez até a primeira folha e depois segue os
+     * ponteiros para a próxima, falhando rapidamente caso a árvore seja
+     * modificada durante a iteração.
+     */
+    private class LeafIterator<T> implements Iterator<T> {
+        
+        private Pagina folha;
+        private int posicao;
+        private final Key hi;
+        private final Extrator extractor;
+        private final int expectedModCount;
+        
+        LeafIterator( Key lo, Key hi, Extrator extractor ) {
+            
+            verificarAberta();
+            this.hi = hi;
+            this.extractor = extractor;
+            this.expectedModCount = modCount;
+            
+            try {
+                if ( lo == null ) {
+                    Pagina p = carregar( root );
+                    while ( !p.folha ) {
+                        p = carregar( p.children[0] );
+                    }
+                    folha = p;
+                } else {
+                    folha = folha( lo );
+                    posicao = limiteInferior( folha, lo );
+                }
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+            
+        }
+        
+        @Override
+        @SuppressWarnings( "unchecked" )
+        public boolean hasNext() {
+            
+            checkForComodification();
+            
+            // pula as folhas já consumidas e as vazias
+            try {
+                while ( posicao >= folha.n && folha.proxima != NENHUMA ) {
+                    folha = carregar( folha.proxima );
+                    posicao = 0;
+                }
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+            
+            return posicao < folha.n && ( hi == null || hi.compareTo( (Key) folha.keys[posicao] ) >= 0 );
+            
+        }
+        
+        @Override
+        @SuppressWarnings( "unchecked" )
+        public T next() {
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            return (T) extractor.extrair( folha, posicao++ );
+        }
+        
+        private void checkForComodification() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        
+    }
+    
+    /**
+     * Grava as páginas sujas, em ordem de posição no arquivo, e o cabeçalho,
+     * e sincroniza o arquivo com o disco.
+     */
+    public void flush() throws IOException {
+        
+        verificarAberta();
+        
+        Pagina[] sujas = cache.values().stream().filter( p -> p.suja ).toArray( Pagina[]::new );
+        Arrays.sort( sujas, ( a, b ) -> Long.compare( a.id, b.id ) );
+        for ( Pagina p : sujas ) {
+            gravar( p );
+        }
+        
+        gravarCabecalho();
+        arquivo.force( true );
+        
+    }
+    
+    private void verificarAberta() throws IllegalStateException {
+        if ( fechada ) {
+            throw new IllegalStateException( "B+ tree is closed" );
+        }
+    }
+    
+    /**
+     * Grava as páginas sujas e fecha o arquivo.
+     */
+    @Override
+    public void close() throws IOException {
+        
+        if ( fechada ) {
+            return;
+        }
+        
+        try {
+            flush();
+        } finally {
+            fechada = true;
+            cache.clear();
+            arquivo.close();
+        }
+        
+    }
+    
+    @Override
+    public String toString() {
+        return "B+ tree: " + size + " entries, height " + height + ", " + quantidadePaginas
+                + " pages of " + tamanhoPagina + " bytes";
+    }
+
+}
@@ -1,12 +1,16 @@
 package projetoesdarvores.esd;
 
-import aesd.ds.implementations.linear.LinkedQueue;
 import aesd.ds.implementations.linear.ResizingArrayList;
+import aesd.ds.implementations.linear.ResizingArrayStack;
 import aesd.ds.interfaces.List;
-import aesd.ds.interfaces.Queue;
-import br.com.davidbuzatto.jsge.core.engine.EngineFrame;
+import aesd.ds.interfaces.Stack;
+import aesd.ds.interfaces.SymbolTable.Entry;
 import java.awt.Color;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import projetoesdarvores.esd.Instrumentacao.Operacao;
 
 /**
  * Implementação de uma árvore binária de busca fundamental (Binary Search Tree).
@@ -35,6 +39,7 @@ public class ArvoreBinariaBusca<Key extends Comparable<Key>, Value> implements I
         public Value value;
         public Node<Key, Value> left;
         public Node<Key, Value> right;
+        public int size;
         public int nivel;
         public int ranque;
         public Color cor;
@@ -46,12 +51,37 @@ public class ArvoreBinariaBusca<Key extends Comparable<Key>, Value> implements I
         
     }
     
+    // cor dos nós no desenho, o verde de EngineFrame.GREEN; a constante é
+    // copiada para que a lista de desenho possa ser mantida sem inicializar
+    // o motor gráfico (que exige um display)
+    private static final Color COR_NO = new Color( 0, 228, 48 );
+    
     // raiz da árvore
     private Node<Key, Value> root;
     
     // tamanho da árvore (quantidade de pares chave/valor)
     private int size;
     
+    // quantidade de modificações estruturais, usada pelos iteradores
+    private int modCount;
+    
+    // nós em ordem com nível, ranque e cor para desenho, mantidos
+    // incrementalmente depois da primeira coleta ou null quando precisam ser
+    // reconstruídos
+    private List<Node<Key, Value>> desenho;
+    
+    // nós atualizados incrementalmente desde a última coleta
+    private int trabalhoDesenho;
+    
+    // indica se a árvore mudou desde a última coleta
+    private boolean desenhoAlterado = true;
+    
+    // instrumentação opcional; null quando desligada
+    private Medicao medidor;
+    
+    // medição da operação em andamento; null quando ela não é amostrada
+    private Medicao medicao;
+    
     /**
      * Constrói uma árvore binária de busca vazia.
      */
@@ -70,38 +100,80 @@ public class ArvoreBinariaBusca<Key extends Comparable<Key>, Value> implements I
             return;
         }
         
-        root = put( root, key, value );
+        Medicao m = iniciarMedicao();
+        
+        Node<Key, Value> existente = find( root, key );
+        if ( existente != null ) {
+            existente.value = value;
+        } else {
+            root = put( root, key, value );
+        }
+        
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.PUT );
+        }
         
     }
     
     /*
-     * Método privado para a inserção recursiva.
+     * Método privado para a inserção iterativa.
+     * 
+     * Desce a partir da raiz guardando o pai do ponto de inserção, sem
+     * recursão, para que uma árvore degenerada (chaves inseridas em ordem)
+     * custe O(n) por operação mas nunca esgote a pilha de execução.
+     * 
+     * Só é chamado para chaves ausentes (put verifica a existência antes),
+     * então os tamanhos das subárvores do caminho são incrementados durante
+     * a descida sem precisar ser desfeitos. O ranque e o nível do novo nó são
+     * calculados no caminho.
+     * 
+     * Retorna a raiz da árvore.
      */
     private Node<Key, Value> put( Node<Key, Value> node, Key key, Value value ) {
         
-        if ( node == null ) {
-
-            node = new Node<>();
-            node.key = key;
-            node.value = value;
-            node.left = null;
-            node.right = null;
+        Node<Key, Value> parent = null;
+        Node<Key, Value> current = node;
+        int comp = 0;
+        int ranque = 0;
+        int nivel = 0;
+        
+        while ( current != null ) {
             
-            size++;
-
-        } else {
+            contarComparacao();
+            comp = key.compareTo( current.key );
             
-            int comp = key.compareTo( node.key );
+            current.size++;
+            parent = current;
+            nivel++;
             
             if ( comp < 0 ) {
-                node.left = put( node.left, key, value );
-            } else if ( comp > 0 ) {
-                node.right = put( node.right, key, value );
+                current = current.left;
             } else {
-                node.value = value;
+                ranque += size( current.left ) + 1;
+                current = current.right;
             }
             
         }
+        
+        Node<Key, Value> newNode = new Node<>();
+        newNode.key = key;
+        newNode.value = value;
+        newNode.left = null;
+        newNode.right = null;
+        newNode.size = 1;
+        
+        size++;
+        modCount++;
+        
+        if ( parent == null ) {
+            node = newNode;
+        } else if ( comp < 0 ) {
+            parent.left = newNode;
+        } else {
+            parent.right = newNode;
+        }
+        
+        atualizarDesenhoInsercao( newNode, ranque, nivel );
 
         return node;
 
@@ -111,13 +183,23 @@ public class ArvoreBinariaBusca<Key extends Comparable<Key>, Value> implements I
         if ( key == null ) {
             throw new IllegalArgumentException( "argument to get() is null" );
         }
-        return get( root, key );
+        Medicao m = iniciarMedicao();
+        Node<Key, Value> node = find( root, key );
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.GET );
+        }
+        return node == null ? null : node.value;
     }
 
-    private Value get( Node<Key, Value> node, Key key ) {
+    /*
+     * Busca iterativa do nó da chave, usada por get, put e delete. Retorna
+     * null caso a chave não esteja na árvore.
+     */
+    private Node<Key, Value> find( Node<Key, Value> node, Key key ) {
         
         while ( node != null ) {
             
+            contarPasso();
             int comp = key.compareTo( node.key );
             
             if ( comp < 0 ) {
@@ -125,7 +207,7 @@ public class ArvoreBinariaBusca<Key extends Comparable<Key>, Value> implements I
             } else if ( comp > 0 ) {
                 node = node.right;
             } else {
-                return node.value;
+                return node;
             }
             
         }
@@ -140,81 +222,132 @@ public class ArvoreBinariaBusca<Key extends Comparable<Key>, Value> implements I
             throw new IllegalArgumentException( "argument to delete() is null" );
         }
 
-        root = delete( root, key );
+        Medicao m = iniciarMedicao();
+        
+        if ( find( root, key ) != null ) {
+            root = delete( root, key );
+        }
+        
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.DELETE );
+        }
 
     }
     
     /*
-     * Método privado para a remoção recursiva (Hibbard Deletion).
+     * Método privado para a remoção iterativa (Hibbard Deletion).
+     * 
+     * Localiza o nó e seu pai sem recursão e religa no pai a subárvore que
+     * substitui o nó removido. Só é chamado para chaves presentes (delete
+     * verifica a existência antes), então os tamanhos das subárvores do
+     * caminho são decrementados durante a descida sem precisar ser
+     * desfeitos. Retorna a raiz da árvore.
      */
     private Node<Key, Value> delete( Node<Key, Value> node, Key key ) {
         
-        if ( node != null ) {
+        Node<Key, Value> parent = null;
+        Node<Key, Value> current = node;
+        int comp = 0;
+        int ranque = 0;
+        int nivel = 0;
+        
+        while ( current != null ) {
             
-            Node<Key, Value> temp;
-            int comp = key.compareTo( node.key );
-
-            if ( comp == 0 ) {
-                
-                size--;
-                
-                // o nó não tem filhos
-                if ( node.left == node.right ) {
-
-                    return null;
-
-                // o nó a ser removido não tem filho à esquerda, só à direita
-                // a primeira condição garante que se os dois nós não são o mesmo,
-                // um deles pode ser null.
-                } else if ( node.left == null ) {
+            contarComparacao();
+            int c = key.compareTo( current.key );
+            
+            if ( c == 0 ) {
+                break;
+            }
+            
+            current.size--;
+            parent = current;
+            comp = c;
+            nivel++;
+            
+            if ( c < 0 ) {
+                current = current.left;
+            } else {
+                ranque += size( current.left ) + 1;
+                current = current.right;
+            }
+            
+        }
+        
+        ranque += size( current.left );
+        
+        size--;
+        modCount++;
+        
+        Node<Key, Value> temp;
+        
+        // o nó não tem filhos
+        if ( current.left == current.right ) {
 
-                    temp = node.right;
-                    node.right = null;
-                    return temp;
+            temp = null;
 
-                // o nó a ser removido não tem filho à direita, só à esquerda
-                // a primeira condição garante que se os dois nós não são o mesmo,
-                // um deles pode ser null.
-                } else if ( node.right == null ) {
+        // o nó a ser removido não tem filho à esquerda, só à direita
+        // a primeira condição garante que se os dois nós não são o mesmo,
+        // um deles pode ser null.
+        } else if ( current.left == null ) {
 
-                    temp = node.left;
-                    node.left = null;
-                    return temp;
+            temp = current.right;
+            current.right = null;
 
-                // o nó a ser removido tem filhos em ambos os lados
-                } else {
+        // o nó a ser removido não tem filho à direita, só à esquerda
+        // a primeira condição garante que se os dois nós não são o mesmo,
+        // um deles pode ser null.
+        } else if ( current.right == null ) {
 
-                    // busca pelo menor nó, onde a subárvore esquerda
-                    // será inserida
-                    temp = node.right;
-                    Node<Key, Value> min = temp;
+            temp = current.left;
+            current.left = null;
 
-                    while ( min.left != null ) {
-                        min = min.left;
-                    }
+        // o nó a ser removido tem filhos em ambos os lados
+        } else {
 
-                    // reaponta a subárvore esquerda do nó removido
-                    // no menor item encontrado
-                    min.left = node.left;
+            // busca pelo menor nó, onde a subárvore esquerda
+            // será inserida
+            temp = current.right;
+            Node<Key, Value> min = temp;
 
-                    node.left = null;
-                    node.right = null;
+            while ( min.left != null ) {
+                min = min.left;
+            }
 
-                    return temp;
+            // reaponta a subárvore esquerda do nó removido
+            // no menor item encontrado
+            min.left = current.left;
+            
+            // a subárvore esquerda passa a fazer parte de todas as
+            // subárvores do caminho até o menor item
+            int leftSize = size( current.left );
+            for ( Node<Key, Value> n = temp; n != min; n = n.left ) {
+                n.size += leftSize;
+            }
+            min.size += leftSize;
 
-                }
+            current.left = null;
+            current.right = null;
 
-            } else if ( comp < 0 ) {
-                node.left = delete( node.left, key );
-            } else { // comparacao > 0
-                node.right = delete( node.right, key );
-            }
-            
         }
+        
+        if ( parent == null ) {
+            node = temp;
+        } else if ( comp < 0 ) {
+            parent.left = temp;
+        } else {
+            parent.right = temp;
+        }
+        
+        atualizarDesenhoRemocao( ranque, temp, nivel );
 
         return node;
 
     }
+    
+    private int size( Node<Key, Value> node ) {
+        return node == null ? 0 : node.size;
+    }
         
     public boolean contains( Key key ) throws IllegalArgumentException {
         return get( key ) != null;
@@ -223,16 +356,34 @@ public class ArvoreBinariaBusca<Key extends Comparable<Key>, Value> implements I
     public void clear() {
         root = clear( root );
         size = 0;
+        modCount++;
+        desenho = null;
+        desenhoAlterado = true;
     }
     
     /*
-     * Método privado para remoção de todos os itens de forma recursiva.
+     * Método privado para remoção de todos os itens de forma iterativa.
+     * 
+     * Desmonta a árvore rotacionando para a direita cada nó que tem filho
+     * à esquerda, o que transforma a árvore em uma lista encadeada pela
+     * direita que é desligada nó a nó. Usa memória extra constante, mesmo
+     * para árvores degeneradas.
      */
     private Node<Key, Value> clear( Node<Key, Value> node ) {
 
-        if ( node != null ) {
-            node.left = clear( node.left );
-            node.right = clear( node.right );
+        while ( node != null ) {
+            
+            if ( node.left == null ) {
+                Node<Key, Value> next = node.right;
+                node.right = null;
+                node = next;
+            } else {
+                Node<Key, Value> left = node.left;
+                node.left = left.right;
+                left.right = node;
+                node = left;
+            }
+            
         }
 
         return null;
@@ -247,48 +398,319 @@ public class ArvoreBinariaBusca<Key extends Comparable<Key>, Value> implements I
         return size;
     }
     
+    /**
+     * Liga a instrumentação das operações get, put e delete, que passam a
+     * ser amostradas conforme a taxa configurada nela. Com null, o padrão,
+     * nada é medido.
+     * 
+     * @param instrumentacao A instrumentação ou null.
+     */
+    public void setInstrumentacao( Instrumentacao instrumentacao ) {
+        medidor = instrumentacao == null ? null : new Medicao( instrumentacao );
+        medicao = null;
+    }
+    
+    /*
+     * Começa a medir uma operação caso a instrumentação esteja ligada e a
+     * operação seja amostrada. Retorna a medição ou null.
+     */
+    private Medicao iniciarMedicao() {
+        Medicao m = medidor;
+        if ( m != null ) {
+            m = m.iniciar() ? m : null;
+            medicao = m;
+        }
+        return m;
+    }
+    
+    private void terminarMedicao( Medicao m, Operacao operacao ) {
+        medicao = null;
+        m.terminar( operacao );
+    }
+    
+    /*
+     * Conta uma comparação que também avança no caminho de busca.
+     */
+    private void contarPasso() {
+        if ( medicao != null ) {
+            medicao.comparacoes++;
+            medicao.caminho++;
+        }
+    }
+    
+    private void contarComparacao() {
+        if ( medicao != null ) {
+            medicao.comparacoes++;
+        }
+    }
+    
     @Override
     public Iterator<Key> iterator() {
-        return traverseInOrder().iterator();
+        return new InOrderIterator<>( null, null, node -> node.key );
     }
     
     public Iterable<Key> getKeys() {
-        Queue<Key> keys = new LinkedQueue<>();
-        for ( Key k : traverseInOrder() ) {
-            keys.enqueue( k );
-        }
-        return keys;
+        return () -> new InOrderIterator<>( null, null, node -> node.key );
     }
     
-    private List<Key> traverseInOrder() {
-        List<Key> keys = new ResizingArrayList<>();
-        inOrder( root, keys );
-        return keys;
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, sem copiá-las.
+     * 
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Key> getKeys( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getKeys()" );
+        return () -> new InOrderIterator<>( lo, hi, node -> node.key );
     }
     
-    private void inOrder( Node<Key, Value> node, List<Key> keys ) {
-        if ( node != null ) {
-            inOrder( node.left, keys );
-            keys.add( node.key );
-            inOrder( node.right, keys );
+    /**
+     * Retorna os pares chave/valor da árvore em ordem, sem copiá-los.
+     * 
+     * @return Os pares chave/valor.
+     */
+    public Iterable<Entry<Key, Value>> getEntries() {
+        return () -> new InOrderIterator<>( null, null, node -> new Entry<>( node.key, node.value ) );
+    }
+    
+    /**
+     * Retorna os pares chave/valor do intervalo [lo, hi] em ordem, sem
+     * copiá-los.
+     * 
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return Os pares chave/valor do intervalo.
+     */
+    public Iterable<Entry<Key, Value>> getEntries( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getEntries()" );
+        return () -> new InOrderIterator<>( lo, hi, node -> new Entry<>( node.key, node.value ) );
+    }
+    
+    private void checkRange( Key lo, Key hi, String method ) throws IllegalArgumentException {
+        if ( lo == null ) {
+            throw new IllegalArgumentException( "first argument to " + method + " is null" );
+        }
+        if ( hi == null ) {
+            throw new IllegalArgumentException( "second argument to " + method + " is null" );
         }
     }
     
+    /*
+     * Iterador em ordem preguiçoso, opcionalmente limitado ao intervalo
+     * [lo, hi]. Guarda apenas o caminho da raiz até o próximo nó, ou seja,
+     * usa memória extra proporcional à altura da árvore, e falha rapidamente
+     * caso a árvore seja modificada estruturalmente durante a iteração.
+     */
+    private class InOrderIterator<T> implements Iterator<T> {
+        
+        private final Stack<Node<Key, Value>> stack;
+        private final Key hi;
+        private final Function<Node<Key, Value>, T> extractor;
+        private final int expectedModCount;
+        
+        InOrderIterator( Key lo, Key hi, Function<Node<Key, Value>, T> extractor ) {
+            
+            this.stack = new ResizingArrayStack<>();
+            this.hi = hi;
+            this.extractor = extractor;
+            this.expectedModCount = modCount;
+            
+            // empilha o caminho até a menor chave maior ou igual a lo
+            Node<Key, Value> node = root;
+            while ( node != null ) {
+                if ( lo != null && lo.compareTo( node.key ) > 0 ) {
+                    node = node.right;
+                } else {
+                    stack.push( node );
+                    node = node.left;
+                }
+            }
+            
+        }
+        
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            return !stack.isEmpty() && ( hi == null || hi.compareTo( stack.peek().key ) >= 0 );
+        }
+        
+        @Override
+        public T next() {
+            
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            
+            Node<Key, Value> node = stack.pop();
+            
+            for ( Node<Key, Value> n = node.right; n != null; n = n.left ) {
+                stack.push( n );
+            }
+            
+            return extractor.apply( node );
+            
+        }
+        
+        private void checkForComodification() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        
+    }
+    
+    /**
+     * Retorna os nós em ordem com nível, ranque e cor preenchidos para
+     * desenho.
+     * 
+     * A primeira coleta percorre a árvore toda. A partir dela a lista é
+     * mantida por put e delete: uma inserção ou remoção atualiza apenas o
+     * nó alterado, os ranques dos nós à sua direita e os níveis da subárvore
+     * que subiu ou desceu. Se o trabalho incremental acumulado desde a última
+     * coleta passar do tamanho da árvore (por exemplo, em uma inserção em
+     * lote), a lista é descartada e reconstruída na próxima coleta, que então
+     * custa o mesmo que antes.
+     * 
+     * A lista retornada é a própria lista mantida pela árvore e continua
+     * válida até a próxima alteração.
+     * 
+     * @return Os nós em ordem.
+     */
     public List<Node<Key, Value>> coletarParaDesenho() {
-        List<Node<Key, Value>> nos = new ResizingArrayList<>();
-        emOrdemColeta( root, nos, 0 );
-        return nos;
+        
+        if ( desenho == null ) {
+            desenho = new ResizingArrayList<>();
+            emOrdemColeta( root, desenho, 0 );
+        }
+        
+        trabalhoDesenho = 0;
+        desenhoAlterado = false;
+        
+        return desenho;
+        
+    }
+    
+    /**
+     * Verifica se a árvore mudou desde a última chamada a coletarParaDesenho,
+     * para que quadros sem alterações não precisem coletar nada.
+     * 
+     * @return true caso a árvore tenha mudado.
+     */
+    public boolean isDesenhoAlterado() {
+        return desenhoAlterado;
+    }
+    
+    /*
+     * Insere o novo nó na lista de desenho na posição do seu ranque e
+     * desloca os ranques dos nós à sua direita.
+     */
+    private void atualizarDesenhoInsercao( Node<Key, Value> node, int ranque, int nivel ) {
+        
+        desenhoAlterado = true;
+        
+        if ( !consumirTrabalhoDesenho( size - ranque ) ) {
+            return;
+        }
+        
+        node.nivel = nivel;
+        node.ranque = ranque;
+        node.cor = COR_NO;
+        desenho.add( ranque, node );
+        
+        for ( int i = ranque + 1; i < size; i++ ) {
+            desenho.get( i ).ranque = i;
+        }
+        
     }
     
+    /*
+     * Retira o nó removido da lista de desenho, desloca os ranques dos nós
+     * à sua direita e recalcula os níveis da subárvore que tomou seu lugar.
+     */
+    private void atualizarDesenhoRemocao( int ranque, Node<Key, Value> substituta, int nivel ) {
+        
+        desenhoAlterado = true;
+        
+        if ( !consumirTrabalhoDesenho( size - ranque + size( substituta ) ) ) {
+            return;
+        }
+        
+        desenho.remove( ranque );
+        
+        for ( int i = ranque; i < size; i++ ) {
+            desenho.get( i ).ranque = i;
+        }
+        
+        if ( substituta != null ) {
+            
+            Stack<Node<Key, Value>> stack = new ResizingArrayStack<>();
+            substituta.nivel = nivel;
+            stack.push( substituta );
+            
+            while ( !stack.isEmpty() ) {
+                Node<Key, Value> n = stack.pop();
+                if ( n.left != null ) {
+                    n.left.nivel = n.nivel + 1;
+                    stack.push( n.left );
+                }
+                if ( n.right != null ) {
+                    n.right.nivel = n.nivel + 1;
+                    stack.push( n.right );
+                }
+            }
+            
+        }
+        
+    }
+    
+    /*
+     * Contabiliza o trabalho de uma atualização incremental. Retorna false,
+     * descartando a lista de desenho, caso ela não esteja sendo mantida ou
+     * caso reconstruí-la passe a ser mais barato.
+     */
+    private boolean consumirTrabalhoDesenho( int trabalho ) {
+        
+        if ( desenho == null ) {
+            return false;
+        }
+        
+        trabalhoDesenho += trabalho;
+        
+        if ( trabalhoDesenho > size ) {
+            desenho = null;
+            return false;
+        }
+        
+        return true;
+        
+    }
+    
+    /*
+     * Coleta iterativa em ordem. O nível de cada nó é gravado no momento em
+     * que ele é empilhado, a partir do nível do seu pai.
+     */
     private void emOrdemColeta( Node<Key, Value> node, List<Node<Key, Value>> nos, int nivel ) {
-        if ( node != null ) {
-            emOrdemColeta( node.left, nos, nivel + 1 );
-            node.nivel = nivel;
+        
+        Stack<Node<Key, Value>> stack = new ResizingArrayStack<>();
+        
+        while ( node != null || !stack.isEmpty() ) {
+            
+            while ( node != null ) {
+                node.nivel = nivel++;
+                stack.push( node );
+                node = node.left;
+            }
+            
+            node = stack.pop();
             node.ranque = nos.getSize();
-            node.cor = EngineFrame.GREEN;
+            node.cor = COR_NO;
             nos.add( node );
-            emOrdemColeta( node.right, nos, nivel + 1 );
+            nivel = node.nivel + 1;
+            node = node.right;
+            
         }
+        
     }
     
     @Override
@@ -1,10 +1,28 @@
 package projetoesdarvores.esd;
 
-import aesd.ds.implementations.linear.LinkedQueue;
-import aesd.ds.implementations.linear.ResizingArrayList;
-import aesd.ds.interfaces.List;
-import aesd.ds.interfaces.Queue;
+import aesd.ds.implementations.linear.ResizingArrayStack;
+import aesd.ds.interfaces.Stack;
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import projetoesdarvores.esd.Instrumentacao.Operacao;
+import projetoesdarvores.esd.OuvinteEstrutural.TipoEvento;
 
 /**
  * Implementação de uma árvore vermelho-preto (Red-Black Tree).
@@ -50,6 +68,45 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
     // raiz da árvore
     private Node<Key, Value> root;
     
+    // quantidade de modificações estruturais, usada pelos iteradores
+    private int modCount;
+    
+    // ouvinte opcional dos passos estruturais; null quando desligado
+    private OuvinteEstrutural ouvinte;
+    
+    // instrumentação opcional; null quando desligada
+    private Medicao medidor;
+    
+    // medição da operação em andamento; null quando ela não é amostrada
+    private Medicao medicao;
+    
+    // quantidade de nós das duas subárvores a partir da qual as duas
+    // metades de union, intersection e difference são processadas em
+    // paralelo; abaixo dela o custo de criar a tarefa supera o ganho
+    private static final int TAMANHO_MINIMO_PARALELO = 8192;
+    
+    /*
+     * Operações de conjunto baseadas em junção.
+     */
+    private static enum OperacaoConjunto {
+        UNIAO,
+        INTERSECAO,
+        DIFERENCA
+    }
+    
+    /*
+     * Resultado de um split: as subárvores com as chaves menores e maiores
+     * que a chave procurada, com as suas alturas pretas, e o nó com a chave,
+     * caso exista.
+     */
+    private static class Divisao<Key extends Comparable<Key>, Value> {
+        Node<Key, Value> left;
+        int leftBlackHeight;
+        Node<Key, Value> middle;
+        Node<Key, Value> right;
+        int rightBlackHeight;
+    }
+    
     /**
      * Constrói uma Árvore vermelho-preto vazia.
      */
@@ -57,6 +114,141 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
         root = null;
     }
     
+    /**
+     * Constrói uma árvore vermelho-preto balanceada em tempo O(n) a partir
+     * de chaves em ordem estritamente crescente.
+     * 
+     * @param keys As chaves, em ordem estritamente crescente.
+     * @param values Os valores, na mesma posição das chaves.
+     * @return A árvore construída.
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreVermelhoPreto<Key, Value> fromSorted( 
+            Key[] keys, Value[] values ) throws IllegalArgumentException {
+        return build( new EntradasOrdenadas<>( keys, values ) );
+    }
+    
+    /**
+     * Constrói uma árvore vermelho-preto balanceada em tempo O(n) a partir
+     * de n pares em ordem estritamente crescente de chaves, lidos diretamente
+     * do iterador.
+     * 
+     * @param entries Os pares chave/valor, em ordem estritamente crescente.
+     * @param n A quantidade de pares que serão lidos do iterador.
+     * @return A árvore construída.
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreVermelhoPreto<Key, Value> fromSorted( 
+            Iterator<Entry<Key, Value>> entries, int n ) throws IllegalArgumentException {
+        return build( new EntradasOrdenadas<>( entries, n ) );
+    }
+    
+    /**
+     * Constrói uma árvore vermelho-preto balanceada a partir de pares fora de
+     * ordem. Os pares são ordenados em paralelo e depois a árvore é construída
+     * em tempo linear. Para chaves repetidas prevalece o último valor, como
+     * em chamadas sucessivas a put.
+     * 
+     * @param keys As chaves.
+     * @param values Os valores, na mesma posição das chaves.
+     * @return A árvore construída.
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreVermelhoPreto<Key, Value> fromUnsorted( 
+            Key[] keys, Value[] values ) throws IllegalArgumentException {
+        return build( EntradasOrdenadas.sort( keys, values ) );
+    }
+    
+    private static <Key extends Comparable<Key>, Value> ArvoreVermelhoPreto<Key, Value> build( 
+            EntradasOrdenadas<Key, Value> entries ) {
+        
+        int n = entries.getSize();
+        
+        ArvoreVermelhoPreto<Key, Value> tree = new ArvoreVermelhoPreto<>();
+        tree.root = build( entries, n, blackHeightFor( n ) );
+        
+        return tree;
+        
+    }
+    
+    /*
+     * Altura preta de uma árvore construída com n chaves: com b níveis pretos
+     * cabem de 2^b - 1 (só 2-nós) até 3^b - 1 (só 3-nós) chaves.
+     */
+    private static int blackHeightFor( int n ) {
+        
+        int blackHeight = 0;
+        while ( ( 2L << blackHeight ) - 1 <= n ) {
+            blackHeight++;
+        }
+        
+        return blackHeight;
+        
+    }
+    
+    /*
+     * Constrói em ordem uma subárvore com os próximos n pares e altura preta
+     * blackHeight, vista como uma árvore 2-3. Sempre que as n chaves cabem
+     * em um 2-nó (duas subárvores de altura preta blackHeight - 1) a raiz é um
+     * nó preto; caso contrário é um 3-nó, representado por um nó preto com
+     * um filho vermelho à esquerda, como na árvore vermelho-preto inclinada
+     * à esquerda.
+     */
+    private static <Key extends Comparable<Key>, Value> Node<Key, Value> build( 
+            EntradasOrdenadas<Key, Value> entries, int n, int blackHeight ) {
+        
+        if ( n == 0 ) {
+            return null;
+        }
+        
+        // maior quantidade de chaves de uma subárvore de altura preta
+        // blackHeight - 1 (somente 3-nós)
+        long maxChild = 1;
+        for ( int i = 1; i < blackHeight; i++ ) {
+            maxChild *= 3;
+        }
+        maxChild--;
+        
+        if ( n - 1 <= 2 * maxChild ) {
+            
+            int leftSize = ( n - 1 ) / 2;
+            Node<Key, Value> left = build( entries, leftSize, blackHeight - 1 );
+            Node<Key, Value> node = newBuiltNode( entries, NodeColor.BLACK );
+            node.left = left;
+            node.right = build( entries, n - 1 - leftSize, blackHeight - 1 );
+            node.size = n;
+            
+            return node;
+            
+        }
+        
+        int third = ( n - 2 ) / 3;
+        int firstSize = third;
+        int secondSize = ( n - 2 - third ) / 2;
+        int thirdSize = n - 2 - firstSize - secondSize;
+        
+        Node<Key, Value> first = build( entries, firstSize, blackHeight - 1 );
+        Node<Key, Value> red = newBuiltNode( entries, NodeColor.RED );
+        red.left = first;
+        red.right = build( entries, secondSize, blackHeight - 1 );
+        red.size = firstSize + secondSize + 1;
+        
+        Node<Key, Value> node = newBuiltNode( entries, NodeColor.BLACK );
+        node.left = red;
+        node.right = build( entries, thirdSize, blackHeight - 1 );
+        node.size = n;
+        
+        return node;
+        
+    }
+    
+    private static <Key extends Comparable<Key>, Value> Node<Key, Value> newBuiltNode( 
+            EntradasOrdenadas<Key, Value> entries, NodeColor color ) {
+        entries.next();
+        Node<Key, Value> node = new Node<>();
+        node.key = entries.key;
+        node.value = entries.value;
+        node.color = color;
+        return node;
+    }
+    
     /**
      * Verifica se um nó é vermelho.
      * 
@@ -88,6 +280,90 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
         return nodeSize( root );
     }
     
+    /**
+     * Registra o ouvinte que receberá cada passo estrutural de put, delete e
+     * clear: inserções, remoções, substituições pelo sucessor, rotações,
+     * inversões de cores, movimentos de links vermelhos e a recoloração da
+     * raiz. Com null, o padrão, nenhum passo é informado.
+     * 
+     * @param ouvinte O ouvinte ou null.
+     */
+    public void setOuvinte( OuvinteEstrutural ouvinte ) {
+        this.ouvinte = ouvinte;
+    }
+    
+    public OuvinteEstrutural getOuvinte() {
+        return ouvinte;
+    }
+    
+    /**
+     * Liga a instrumentação das operações get, put e delete, que passam a
+     * ser amostradas conforme a taxa configurada nela. Com null, o padrão,
+     * nada é medido.
+     * 
+     * @param instrumentacao A instrumentação ou null.
+     */
+    public void setInstrumentacao( Instrumentacao instrumentacao ) {
+        medidor = instrumentacao == null ? null : new Medicao( instrumentacao );
+        medicao = null;
+    }
+    
+    /*
+     * Começa a medir uma operação caso a instrumentação esteja ligada e a
+     * operação seja amostrada. Retorna a medição ou null.
+     */
+    private Medicao iniciarMedicao() {
+        Medicao m = medidor;
+        if ( m != null ) {
+            m = m.iniciar() ? m : null;
+            medicao = m;
+        }
+        return m;
+    }
+    
+    private void terminarMedicao( Medicao m, Operacao operacao ) {
+        medicao = null;
+        m.terminar( operacao );
+    }
+    
+    /*
+     * Conta uma comparação que também avança no caminho de busca.
+     */
+    private void contarPasso() {
+        if ( medicao != null ) {
+            medicao.comparacoes++;
+            medicao.caminho++;
+        }
+    }
+    
+    private void contarComparacao() {
+        if ( medicao != null ) {
+            medicao.comparacoes++;
+        }
+    }
+    
+    private void contarRotacao() {
+        if ( medicao != null ) {
+            medicao.rotacoes++;
+        }
+    }
+    
+    private void contarInversao() {
+        if ( medicao != null ) {
+            medicao.inversoes++;
+        }
+    }
+    
+    /*
+     * Muda a cor da raiz, avisando o ouvinte caso ela mude.
+     */
+    private void setRootColor( NodeColor color ) {
+        if ( ouvinte != null && root.color != color ) {
+            ouvinte.evento( TipoEvento.COR, root.key, null, color.ordinal() );
+        }
+        root.color = color;
+    }
+    
     public void put( Key key, Value value ) throws IllegalArgumentException {
         
         if ( key == null ) {
@@ -99,8 +375,12 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
             return;
         }
         
+        Medicao m = iniciarMedicao();
         root = (Node<Key, Value>) put( root, key, value );
-        root.color = NodeColor.BLACK;
+        setRootColor( NodeColor.BLACK );
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.PUT );
+        }
         
     }
     
@@ -117,11 +397,17 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
             rbNode.size = 1;
             
             node = rbNode;
+            modCount++;
+            
+            if ( ouvinte != null ) {
+                ouvinte.evento( TipoEvento.INSERCAO, key, null, 0 );
+            }
             
             return node;
             
         }
 
+        contarPasso();
         int comp = key.compareTo( node.key );
         
         if ( comp < 0 ) {
@@ -153,13 +439,19 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
         if ( key == null ) {
             throw new IllegalArgumentException( "argument to get() is null" );
         }
-        return get( root, key );
+        Medicao m = iniciarMedicao();
+        Value value = get( root, key );
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.GET );
+        }
+        return value;
     }
     
     private Value get( Node<Key, Value> node, Key key ) {
         
         while ( node != null ) {
             
+            contarPasso();
             int comp = key.compareTo( node.key );
             
             if ( comp < 0 ) {
@@ -182,24 +474,32 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
             throw new IllegalArgumentException( "argument to delete() is null" );
         }
         
-        if ( !contains( key ) ) {
-            return;
-        }
+        Medicao m = iniciarMedicao();
         
-        // se ambos os filhos da raiz forem pretos, configura a raiz como vermelho
-        if ( !isRed( root.left ) && !isRed( root.right ) ) {
-            root.color = NodeColor.RED;
-        }
+        if ( get( root, key ) != null ) {
+            
+            // se ambos os filhos da raiz forem pretos, configura a raiz como vermelho
+            if ( !isRed( root.left ) && !isRed( root.right ) ) {
+                setRootColor( NodeColor.RED );
+            }
 
-        root = (Node<Key, Value>) delete( root, key );
-        if ( !isEmpty() ) {
-            root.color = NodeColor.BLACK;
+            root = (Node<Key, Value>) delete( root, key );
+            modCount++;
+            if ( !isEmpty() ) {
+                setRootColor( NodeColor.BLACK );
+            }
+            
+        }
+        
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.DELETE );
         }
         
     }
     
     private Node<Key, Value> delete( Node<Key, Value> node, Key key ) {
 
+        contarComparacao();
         if ( key.compareTo( node.key ) < 0 ) {
             
             if ( !isRed( node.left ) && !isRed( node.left.left ) ) {
@@ -214,7 +514,11 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
                 node = rotateRight( node );
             }
             
+            contarComparacao();
             if ( key.compareTo( node.key ) == 0 && ( node.right == null ) ) {
+                if ( ouvinte != null ) {
+                    ouvinte.evento( TipoEvento.REMOCAO, node.key, null, 0 );
+                }
                 return null;
             }
             
@@ -222,8 +526,12 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
                 node = moveRedRight( node );
             }
             
+            contarComparacao();
             if ( key.compareTo( node.key ) == 0 ) {
                 Node<Key, Value> x = min( node.right );
+                if ( ouvinte != null ) {
+                    ouvinte.evento( TipoEvento.SUBSTITUICAO, node.key, x.key, 0 );
+                }
                 node.key = x.key;
                 node.value = x.value;
                 node.right = deleteMin( node.right );
@@ -237,157 +545,913 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
         
     }
     
-    public boolean contains( Key key ) throws IllegalArgumentException {
-        return get( key ) != null;
-    }
-    
-    private Node<Key, Value> deleteMin( Node<Key, Value> node ) {
-        
-        if ( node.left == null ) {
-            return null;
-        }
-
-        if ( !isRed( node.left ) && !isRed( node.left.left ) ) {
-            node = moveRedLeft( node );
-        }
-
-        node.left = deleteMin( node.left );
-        
-        return balance( node );
-        
-    }
-    
     /**
-     * Faz com que o link inclinado à esquerda se incline para a direita.
+     * Insere um lote de pares em uma única passagem pela árvore. O lote é
+     * ordenado e depois intercalado recursivamente com a árvore: em cada nó
+     * visitado o lote é dividido entre as subárvores, cada uma recebe a sua
+     * parte e o nó é religado às subárvores resultantes por uma junção pela
+     * altura preta, que corrige apenas a borda entre as alturas das duas.
+     * Faixas do lote que chegam a uma posição vazia viram subárvores
+     * construídas em tempo linear. Para k pares o custo é O(k log(n/k + 1)),
+     * contra O(k log n) de k chamadas a put.
      * 
-     * @param node nó de origem
-     * @return a nova raiz da subárvore.
+     * Para chaves repetidas prevalece o último valor. Com um ouvinte
+     * registrado os pares são inseridos um a um, para que cada passo
+     * estrutural continue sendo avisado, e operações em lote não são
+     * amostradas pela instrumentação.
+     * 
+     * @param keys As chaves.
+     * @param values Os valores, na mesma posição das chaves.
      */
-    private Node<Key, Value> rotateRight( Node<Key, Value> node ) {
+    public void putAll( Key[] keys, Value[] values ) throws IllegalArgumentException {
         
-        Node<Key, Value> newRoot = (Node<Key, Value>) node.left;
-        node.left = newRoot.right;
+        LoteOrdenado<Key, Value> lote = LoteOrdenado.paraInsercao( keys, values );
         
-        newRoot.right = node;
-        newRoot.color = ( ( Node<Key, Value> ) newRoot.right ).color;
-        ( ( Node<Key, Value> ) newRoot.right ).color = NodeColor.RED;
-        newRoot.size = ( ( Node<Key, Value> ) node ).size;
+        if ( ouvinte != null ) {
+            for ( int i = 0; i < lote.size; i++ ) {
+                put( lote.keys[i], lote.values[i] );
+            }
+            return;
+        }
         
-        ( ( Node<Key, Value> ) node ).size = nodeSize( node.left ) + nodeSize( node.right ) + 1;
+        if ( lote.size == 0 ) {
+            return;
+        }
         
-        return newRoot;
+        root = putAll( root, blackHeight( root ), lote, 0, lote.size );
+        root.color = NodeColor.BLACK;
+        if ( lote.alterados > 0 ) {
+            modCount++;
+        }
         
     }
-
-    /**
-     * Faz com que o link inclinado à direita se incline para a esquerda.
-     * 
-     * @param node nó de origem
-     * @return a nova raiz da subárvore.
+    
+    /*
+     * Intercala a faixa [lo, hi) do lote com a subárvore de altura preta
+     * blackHeight, deixando em lote.alturaPreta a altura preta do resultado.
      */
-    private Node<Key, Value> rotateLeft( Node<Key, Value> node ) {
+    private Node<Key, Value> putAll( Node<Key, Value> node, int blackHeight, LoteOrdenado<Key, Value> lote, int lo, int hi ) {
         
-        Node<Key, Value> newRoot = (Node<Key, Value>) node.right;
-        node.right = newRoot.left;
+        if ( lo == hi ) {
+            lote.alturaPreta = blackHeight;
+            return node;
+        }
         
-        newRoot.left = node;
-        newRoot.color = ( ( Node<Key, Value> ) newRoot.left ).color;
-        ( ( Node<Key, Value> ) newRoot.left ).color = NodeColor.RED;
-        newRoot.size = ( ( Node<Key, Value> ) node ).size;
+        if ( node == null ) {
+            int n = hi - lo;
+            lote.alterados += n;
+            lote.alturaPreta = blackHeightFor( n );
+            return build( lote.entradas( lo, hi ), n, lote.alturaPreta );
+        }
         
-        ( ( Node<Key, Value> ) node ).size = nodeSize( node.left ) + nodeSize( node.right ) + 1;
+        int p = lote.lowerBound( lo, hi, node.key );
+        int q = p;
         
-        return newRoot;
+        if ( p < hi && lote.keys[p].compareTo( node.key ) == 0 ) {
+            node.value = lote.values[p];
+            q++;
+        }
         
-    }
-
-    /**
-     * Inverte a cor de um nó e de seus filhos.
-     * 
-     * @param rbNode nó a ser alterado.
-     */
-    private void flipColors( Node<Key, Value> node ) {
+        int childBlackHeight = isRed( node ) ? blackHeight : blackHeight - 1;
         
-        Node<Key, Value> rbNode = (Node<Key, Value>) node;
-        Node<Key, Value> rbNodeLeft = (Node<Key, Value>) node.left;
-        Node<Key, Value> rbNodeRight = (Node<Key, Value>) node.right;
+        Node<Key, Value> left = putAll( node.left, childBlackHeight, lote, lo, p );
+        int leftBlackHeight = lote.alturaPreta;
+        Node<Key, Value> right = putAll( node.right, childBlackHeight, lote, q, hi );
+        int rightBlackHeight = lote.alturaPreta;
         
-        rbNode.color           = rbNode.color == NodeColor.RED ? NodeColor.BLACK : NodeColor.RED;
-        rbNodeLeft.color   = rbNodeLeft.color == NodeColor.RED ? NodeColor.BLACK : NodeColor.RED;
-        rbNodeRight.color = rbNodeRight.color == NodeColor.RED ? NodeColor.BLACK : NodeColor.RED;
+        lote.alturaPreta = joinBlackHeight( left, leftBlackHeight, right, rightBlackHeight );
+        
+        return join( left, leftBlackHeight, node, right, rightBlackHeight );
         
     }
-
+    
     /**
-     * Assumindo que o nó é vermelho e ambos os seus filhos são pretos, faz
-     * com que a esquerda do nó ou um de seus filhos seja vermelho.
+     * Busca um lote de chaves em uma única passagem pela árvore, em
+     * O(k log(n/k + 1)) para k chaves.
      * 
-     * @param node nó a ser movido.
-     * @return o nó modificado.
+     * @param keys As chaves buscadas, em qualquer ordem e possivelmente
+     * repetidas.
+     * @param values Recebe, na posição de cada chave, o valor associado a
+     * ela ou null caso a chave não esteja na árvore.
      */
-    private Node<Key, Value> moveRedLeft( Node<Key, Value> node ) {
-
-        flipColors( node );
+    public void getAll( Key[] keys, Value[] values ) throws IllegalArgumentException {
         
-        if ( isRed( node.right.left ) ) {
-            node.right = rotateRight( node.right );
-            node = rotateLeft( node );
-            flipColors( node );
+        if ( values == null || ( keys != null && values.length < keys.length ) ) {
+            throw new IllegalArgumentException( "values must hold one value per key" );
         }
         
-        return node;
+        LoteOrdenado<Key, Value> lote = LoteOrdenado.paraConsulta( keys, "getAll", true );
+        Arrays.fill( values, 0, lote.size, null );
+        getAll( root, lote, 0, lote.size, values );
         
     }
-
-    /**
-     * Assumindo que o nó é vermelho e ambos os seus filhos são pretos, faz
-     * com que nó da direita ou um de seus filhos seja vermelho.
-     * 
-     * @param no nó a ser movido.
-     * @return o nó modificado.
-     */
-    private Node<Key, Value> moveRedRight( Node<Key, Value> no ) {
+    
+    private void getAll( Node<Key, Value> node, LoteOrdenado<Key, Value> lote, int lo, int hi, Value[] values ) {
         
-        flipColors( no );
+        if ( node == null || lo == hi ) {
+            return;
+        }
         
-        if ( isRed( no.left.left ) ) {
-            no = rotateRight( no );
-            flipColors( no );
+        int p = lote.lowerBound( lo, hi, node.key );
+        int q = lote.upperBound( p, hi, node.key );
+        
+        for ( int i = p; i < q; i++ ) {
+            values[lote.positions[i]] = node.value;
         }
         
-        return no;
+        getAll( node.left, lote, lo, p, values );
+        getAll( node.right, lote, q, hi, values );
         
     }
-
+    
     /**
-     * Recupera a condição de existência (invariante) para a árvore vermelho-preto.
+     * Remove um lote de chaves em uma única passagem pela árvore, em
+     * O(k log(n/k + 1)) para k chaves. Cada nó removido é substituído pela
+     * junção das suas subárvores. Chaves ausentes ou repetidas são
+     * ignoradas. Com um ouvinte registrado as chaves são removidas uma a uma.
      * 
-     * @param node nó de origem.
-     * @return o nó modificado.
+     * @param keys As chaves que serão removidas.
      */
-    private Node<Key, Value> balance( Node<Key, Value> node ) {
-
-        if ( isRed( node.right ) ) {
-            node = rotateLeft( node );
-        }
+    public void deleteAll( Key[] keys ) throws IllegalArgumentException {
         
-        if ( isRed( node.left ) && isRed( node.left.left ) ) {
-            node = rotateRight( node );
+        LoteOrdenado<Key, Value> lote = LoteOrdenado.paraConsulta( keys, "deleteAll", false );
+        
+        if ( ouvinte != null ) {
+            for ( int i = 0; i < lote.size; i++ ) {
+                delete( lote.keys[i] );
+            }
+            return;
         }
         
-        if ( isRed( node.left ) && isRed( node.right ) ) {
-            flipColors( node );
+        if ( isEmpty() || lote.size == 0 ) {
+            return;
         }
-
-        ( (Node<Key, Value>) node ).size = nodeSize( node.left ) + nodeSize( node.right ) + 1;
         
-        return node;
+        root = deleteAll( root, blackHeight( root ), lote, 0, lote.size );
+        if ( !isEmpty() ) {
+            root.color = NodeColor.BLACK;
+        }
+        if ( lote.alterados > 0 ) {
+            modCount++;
+        }
         
     }
     
-    private Node<Key, Value> min( Node<Key, Value> node ) {
+    private Node<Key, Value> deleteAll( Node<Key, Value> node, int blackHeight, LoteOrdenado<Key, Value> lote, int lo, int hi ) {
         
-        if ( node.left == null ) {
+        if ( node == null || lo == hi ) {
+            lote.alturaPreta = blackHeight;
+            return node;
+        }
+        
+        int p = lote.lowerBound( lo, hi, node.key );
+        int q = lote.upperBound( p, hi, node.key );
+        
+        int childBlackHeight = isRed( node ) ? blackHeight : blackHeight - 1;
+        
+        Node<Key, Value> left = deleteAll( node.left, childBlackHeight, lote, lo, p );
+        int leftBlackHeight = lote.alturaPreta;
+        Node<Key, Value> right = deleteAll( node.right, childBlackHeight, lote, q, hi );
+        int rightBlackHeight = lote.alturaPreta;
+        
+        if ( p < q ) {
+            lote.alterados++;
+            Node<Key, Value> joined = join( left, leftBlackHeight, right, rightBlackHeight );
+            lote.alturaPreta = blackHeight( joined );
+            return joined;
+        }
+        
+        lote.alturaPreta = joinBlackHeight( left, leftBlackHeight, right, rightBlackHeight );
+        
+        return join( left, leftBlackHeight, node, right, rightBlackHeight );
+        
+    }
+    
+    /*
+     * Junta duas árvores cujas chaves são, respectivamente, menores e maiores
+     * que a chave de middle. As raízes das duas ficam pretas e middle entra
+     * como um nó vermelho na borda da árvore mais alta, no primeiro nó preto
+     * com a altura preta da mais baixa, o que equivale a inserir uma chave
+     * em um nó interno da árvore 2-3. Na volta, os nós da borda são
+     * corrigidos como em put. Custa O(|blackHeight(left) -
+     * blackHeight(right)| + 1).
+     * 
+     * A raiz do resultado pode ser vermelha e a sua altura preta é dada por
+     * joinBlackHeight, que deve ser chamado antes da junção.
+     */
+    private Node<Key, Value> join( Node<Key, Value> left, int leftBlackHeight, 
+            Node<Key, Value> middle, Node<Key, Value> right, int rightBlackHeight ) {
+        
+        if ( isRed( left ) ) {
+            left.color = NodeColor.BLACK;
+            leftBlackHeight++;
+        }
+        
+        if ( isRed( right ) ) {
+            right.color = NodeColor.BLACK;
+            rightBlackHeight++;
+        }
+        
+        middle.color = NodeColor.RED;
+        
+        if ( leftBlackHeight > rightBlackHeight ) {
+            return joinRight( left, leftBlackHeight, middle, right, rightBlackHeight );
+        }
+        
+        if ( rightBlackHeight > leftBlackHeight ) {
+            return joinLeft( left, leftBlackHeight, middle, right, rightBlackHeight );
+        }
+        
+        middle.left = left;
+        middle.right = right;
+        middle.size = nodeSize( left ) + nodeSize( right ) + 1;
+        
+        return middle;
+        
+    }
+    
+    /*
+     * Desce pela borda direita de node, que é mais alta que right.
+     */
+    private Node<Key, Value> joinRight( Node<Key, Value> node, int blackHeight, 
+            Node<Key, Value> middle, Node<Key, Value> right, int rightBlackHeight ) {
+        
+        if ( !isRed( node ) && blackHeight == rightBlackHeight ) {
+            middle.left = node;
+            middle.right = right;
+            middle.size = nodeSize( node ) + nodeSize( right ) + 1;
+            return middle;
+        }
+        
+        int childBlackHeight = isRed( node ) ? blackHeight : blackHeight - 1;
+        node.right = joinRight( node.right, childBlackHeight, middle, right, rightBlackHeight );
+        
+        return fixUp( node );
+        
+    }
+    
+    /*
+     * Desce pela borda esquerda de node, que é mais alta que left. Ao
+     * contrário da borda direita, a esquerda pode passar por nós vermelhos,
+     * que não contam na altura preta.
+     */
+    private Node<Key, Value> joinLeft( Node<Key, Value> left, int leftBlackHeight, 
+            Node<Key, Value> middle, Node<Key, Value> node, int blackHeight ) {
+        
+        if ( !isRed( node ) && blackHeight == leftBlackHeight ) {
+            middle.left = left;
+            middle.right = node;
+            middle.size = nodeSize( left ) + nodeSize( node ) + 1;
+            return middle;
+        }
+        
+        int childBlackHeight = isRed( node ) ? blackHeight : blackHeight - 1;
+        node.left = joinLeft( left, leftBlackHeight, middle, node.left, childBlackHeight );
+        
+        return fixUp( node );
+        
+    }
+    
+    /*
+     * Junta duas árvores sem um nó intermediário, usando como intermediário
+     * o maior nó da árvore da esquerda, separado dela por um split.
+     */
+    private Node<Key, Value> join( Node<Key, Value> left, int leftBlackHeight, 
+            Node<Key, Value> right, int rightBlackHeight ) {
+        
+        if ( left == null ) {
+            return right;
+        }
+        
+        Node<Key, Value> max = max( left );
+        Divisao<Key, Value> d = new Divisao<>();
+        split( left, leftBlackHeight, max.key, d );
+        
+        return join( d.left, d.leftBlackHeight, max, right, rightBlackHeight );
+        
+    }
+    
+    /*
+     * Separa a subárvore de node, de altura preta blackHeight, pela chave
+     * key: as partes menores e maiores que key são refeitas por junções na
+     * volta da descida, em O(log n), e as suas alturas pretas ficam em d.
+     */
+    private void split( Node<Key, Value> node, int blackHeight, Key key, Divisao<Key, Value> d ) {
+        
+        if ( node == null ) {
+            d.left = null;
+            d.middle = null;
+            d.right = null;
+            d.leftBlackHeight = 0;
+            d.rightBlackHeight = 0;
+            return;
+        }
+        
+        int childBlackHeight = isRed( node ) ? blackHeight : blackHeight - 1;
+        int comp = key.compareTo( node.key );
+        
+        if ( comp < 0 ) {
+            Node<Key, Value> right = node.right;
+            split( node.left, childBlackHeight, key, d );
+            int joinedBlackHeight = joinBlackHeight( d.right, d.rightBlackHeight, right, childBlackHeight );
+            d.right = join( d.right, d.rightBlackHeight, node, right, childBlackHeight );
+            d.rightBlackHeight = joinedBlackHeight;
+        } else if ( comp > 0 ) {
+            Node<Key, Value> left = node.left;
+            split( node.right, childBlackHeight, key, d );
+            int joinedBlackHeight = joinBlackHeight( left, childBlackHeight, d.left, d.leftBlackHeight );
+            d.left = join( left, childBlackHeight, node, d.left, d.leftBlackHeight );
+            d.leftBlackHeight = joinedBlackHeight;
+        } else {
+            d.left = node.left;
+            d.leftBlackHeight = childBlackHeight;
+            d.middle = node;
+            d.right = node.right;
+            d.rightBlackHeight = childBlackHeight;
+        }
+        
+    }
+    
+    /*
+     * Altura preta do resultado de join( left, ..., right, ... ): a maior
+     * entre as das duas árvores depois de as suas raízes ficarem pretas,
+     * contando uma raiz vermelha como os seus filhos.
+     */
+    private int joinBlackHeight( Node<Key, Value> left, int leftBlackHeight, 
+            Node<Key, Value> right, int rightBlackHeight ) {
+        return Math.max( 
+                isRed( left ) ? leftBlackHeight + 1 : leftBlackHeight, 
+                isRed( right ) ? rightBlackHeight + 1 : rightBlackHeight );
+    }
+    
+    /*
+     * Correção dos links de put, aplicada aos nós da borda após uma junção.
+     */
+    private Node<Key, Value> fixUp( Node<Key, Value> node ) {
+        
+        if ( isRed( node.right ) && !isRed( node.left ) ) {
+            node = rotateLeft( node );
+        }
+        if ( isRed( node.left ) && isRed( node.left.left ) ) {
+            node = rotateRight( node );
+        }
+        if ( isRed( node.left ) && isRed( node.right ) ) {
+            flipColors( node );
+        }
+        
+        node.size = nodeSize( node.left ) + nodeSize( node.right ) + 1;
+        
+        return node;
+        
+    }
+    
+    /*
+     * Altura preta de uma subárvore, contando a raiz caso seja preta.
+     */
+    private int blackHeight( Node<Key, Value> node ) {
+        
+        int blackHeight = 0;
+        
+        for ( ; node != null; node = node.left ) {
+            if ( !isRed( node ) ) {
+                blackHeight++;
+            }
+        }
+        
+        return blackHeight;
+        
+    }
+    
+    /**
+     * Anexa a esta árvore todos os pares de other, cujas chaves devem ser
+     * maiores que todas as chaves desta árvore. Os nós de other passam para
+     * esta árvore por uma junção em O(log n) e other fica vazia.
+     * 
+     * @param other A árvore com as chaves maiores.
+     */
+    public void join( ArvoreVermelhoPreto<Key, Value> other ) throws IllegalArgumentException {
+        
+        checkOther( other, "join" );
+        
+        if ( root != null && other.root != null 
+                && max( root ).key.compareTo( min( other.root ).key ) >= 0 ) {
+            throw new IllegalArgumentException( "keys of the argument to join() must be greater than the keys of this tree" );
+        }
+        
+        root = join( root, blackHeight( root ), other.root, blackHeight( other.root ) );
+        if ( root != null ) {
+            root.color = NodeColor.BLACK;
+        }
+        modCount++;
+        other.esvaziar();
+        
+    }
+    
+    /**
+     * Divide a árvore em O(log n): as chaves menores que key permanecem
+     * nesta árvore e as maiores ou iguais são movidas para a árvore
+     * retornada.
+     * 
+     * @param key A primeira chave da árvore retornada.
+     * @return Uma árvore com as chaves maiores ou iguais a key.
+     */
+    public ArvoreVermelhoPreto<Key, Value> split( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to split() is null" );
+        }
+        
+        Divisao<Key, Value> d = new Divisao<>();
+        split( root, blackHeight( root ), key, d );
+        
+        ArvoreVermelhoPreto<Key, Value> tree = new ArvoreVermelhoPreto<>();
+        root = d.left;
+        tree.root = d.middle == null ? d.right : join( null, 0, d.middle, d.right, d.rightBlackHeight );
+        
+        if ( root != null ) {
+            root.color = NodeColor.BLACK;
+        }
+        if ( tree.root != null ) {
+            tree.root.color = NodeColor.BLACK;
+        }
+        modCount++;
+        
+        return tree;
+        
+    }
+    
+    /**
+     * Acrescenta a esta árvore os pares de other. Para as chaves presentes
+     * nas duas prevalece o valor de other, como em chamadas a put. Para
+     * árvores com m e n chaves, m <= n, o custo é O(m log(n/m + 1)) e as duas
+     * metades de cada passo são processadas em paralelo no pool comum de
+     * fork-join enquanto as subárvores forem grandes. Os nós de other são
+     * reaproveitados e other fica vazia.
+     * 
+     * @param other A outra árvore.
+     */
+    public void union( ArvoreVermelhoPreto<Key, Value> other ) throws IllegalArgumentException {
+        executarConjunto( other, OperacaoConjunto.UNIAO, "union" );
+    }
+    
+    /**
+     * Mantém nesta árvore apenas as chaves que também estão em other, com os
+     * valores desta árvore, com o mesmo custo e paralelismo de union. other
+     * fica vazia.
+     * 
+     * @param other A outra árvore.
+     */
+    public void intersection( ArvoreVermelhoPreto<Key, Value> other ) throws IllegalArgumentException {
+        executarConjunto( other, OperacaoConjunto.INTERSECAO, "intersection" );
+    }
+    
+    /**
+     * Remove desta árvore as chaves que estão em other, com o mesmo custo e
+     * paralelismo de union. other fica vazia.
+     * 
+     * @param other A outra árvore.
+     */
+    public void difference( ArvoreVermelhoPreto<Key, Value> other ) throws IllegalArgumentException {
+        executarConjunto( other, OperacaoConjunto.DIFERENCA, "difference" );
+    }
+    
+    /*
+     * Com um ouvinte registrado a operação é sequencial, para que os passos
+     * cheguem a ele em ordem.
+     */
+    private void executarConjunto( ArvoreVermelhoPreto<Key, Value> other, OperacaoConjunto operacao, String method ) 
+            throws IllegalArgumentException {
+        
+        checkOther( other, method );
+        
+        TarefaConjunto tarefa = new TarefaConjunto( operacao, root, other.root, ouvinte == null );
+        root = ouvinte == null ? ForkJoinPool.commonPool().invoke( tarefa ) : tarefa.invoke();
+        
+        if ( root != null ) {
+            root.color = NodeColor.BLACK;
+        }
+        modCount++;
+        other.esvaziar();
+        
+    }
+    
+    private void checkOther( ArvoreVermelhoPreto<Key, Value> other, String method ) throws IllegalArgumentException {
+        
+        if ( other == null ) {
+            throw new IllegalArgumentException( "argument to " + method + "() is null" );
+        }
+        
+        if ( other == this ) {
+            throw new IllegalArgumentException( "argument to " + method + "() is this tree" );
+        }
+        
+    }
+    
+    /*
+     * Descarta os nós de uma árvore que foram movidos para outra.
+     */
+    private void esvaziar() {
+        root = null;
+        modCount++;
+    }
+    
+    /*
+     * Operação de conjunto entre as subárvores a (desta árvore) e b (da
+     * outra): b é dividida pela chave da raiz de a, as metades menores e
+     * maiores são combinadas recursivamente e o resultado é juntado de volta
+     * usando a raiz de a como nó intermediário, caso ela permaneça. Acima de
+     * TAMANHO_MINIMO_PARALELO a metade esquerda vira uma tarefa separada.
+     * 
+     * As alturas pretas são medidas pela borda esquerda a cada passo, o que
+     * custa o mesmo que a divisão de b e mantém as tarefas independentes.
+     */
+    private class TarefaConjunto extends RecursiveTask<Node<Key, Value>> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final OperacaoConjunto operacao;
+        private final Node<Key, Value> a;
+        private final Node<Key, Value> b;
+        private final boolean paralela;
+        
+        TarefaConjunto( OperacaoConjunto operacao, Node<Key, Value> a, Node<Key, Value> b, boolean paralela ) {
+            this.operacao = operacao;
+            this.a = a;
+            this.b = b;
+            this.paralela = paralela;
+        }
+        
+        @Override
+        protected Node<Key, Value> compute() {
+            return executar( a, b );
+        }
+        
+        private Node<Key, Value> executar( Node<Key, Value> a, Node<Key, Value> b ) {
+            
+            if ( a == null ) {
+                return operacao == OperacaoConjunto.UNIAO ? b : null;
+            }
+            
+            if ( b == null ) {
+                return operacao == OperacaoConjunto.INTERSECAO ? null : a;
+            }
+            
+            boolean dividir = paralela && nodeSize( a ) + nodeSize( b ) >= TAMANHO_MINIMO_PARALELO;
+            Divisao<Key, Value> d = new Divisao<>();
+            split( b, blackHeight( b ), a.key, d );
+            
+            Node<Key, Value> left;
+            Node<Key, Value> right;
+            
+            if ( dividir ) {
+                TarefaConjunto tarefa = new TarefaConjunto( operacao, a.left, d.left, true );
+                tarefa.fork();
+                right = executar( a.right, d.right );
+                left = tarefa.join();
+            } else {
+                left = executar( a.left, d.left );
+                right = executar( a.right, d.right );
+            }
+            
+            boolean comum = d.middle != null;
+            int leftBlackHeight = blackHeight( left );
+            int rightBlackHeight = blackHeight( right );
+            
+            switch ( operacao ) {
+                case UNIAO:
+                    if ( comum ) {
+                        a.value = d.middle.value;
+                    }
+                    return ArvoreVermelhoPreto.this.join( left, leftBlackHeight, a, right, rightBlackHeight );
+                case INTERSECAO:
+                    return comum ? 
+                            ArvoreVermelhoPreto.this.join( left, leftBlackHeight, a, right, rightBlackHeight ) : 
+                            ArvoreVermelhoPreto.this.join( left, leftBlackHeight, right, rightBlackHeight );
+                default:
+                    return comum ? 
+                            ArvoreVermelhoPreto.this.join( left, leftBlackHeight, right, rightBlackHeight ) : 
+                            ArvoreVermelhoPreto.this.join( left, leftBlackHeight, a, right, rightBlackHeight );
+            }
+            
+        }
+        
+    }
+    
+    public boolean contains( Key key ) throws IllegalArgumentException {
+        return get( key ) != null;
+    }
+    
+    /**
+     * Retorna a quantidade de chaves estritamente menores que a chave
+     * informada, usando o tamanho das subárvores guardado em cada nó.
+     * 
+     * @param key A chave.
+     * @return A posição (ranque) da chave na ordem da árvore.
+     */
+    public int rank( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to rank() is null" );
+        }
+        
+        return rank( root, key );
+        
+    }
+    
+    /**
+     * Retorna a chave de posição (ranque) i, ou seja, a chave que tem
+     * exatamente i chaves menores que ela na árvore.
+     * 
+     * @param i A posição, entre 0 e getSize() - 1.
+     * @return A chave da posição i.
+     */
+    public Key select( int i ) throws IllegalArgumentException {
+        
+        if ( i < 0 || i >= getSize() ) {
+            throw new IllegalArgumentException( "argument to select() is invalid: " + i );
+        }
+        
+        Node<Key, Value> node = root;
+        
+        while ( true ) {
+            
+            int leftSize = nodeSize( node.left );
+            
+            if ( i < leftSize ) {
+                node = node.left;
+            } else if ( i > leftSize ) {
+                i -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.key;
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Retorna a maior chave menor ou igual à chave informada.
+     * 
+     * @param key A chave.
+     * @return A maior chave menor ou igual a key ou null caso não exista.
+     */
+    public Key floor( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to floor() is null" );
+        }
+        
+        Key floor = null;
+        Node<Key, Value> node = root;
+        
+        while ( node != null ) {
+            
+            int comp = key.compareTo( node.key );
+            
+            if ( comp < 0 ) {
+                node = node.left;
+            } else if ( comp > 0 ) {
+                floor = node.key;
+                node = node.right;
+            } else {
+                return node.key;
+            }
+            
+        }
+        
+        return floor;
+        
+    }
+    
+    /**
+     * Retorna a menor chave maior ou igual à chave informada.
+     * 
+     * @param key A chave.
+     * @return A menor chave maior ou igual a key ou null caso não exista.
+     */
+    public Key ceiling( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to ceiling() is null" );
+        }
+        
+        Key ceiling = null;
+        Node<Key, Value> node = root;
+        
+        while ( node != null ) {
+            
+            int comp = key.compareTo( node.key );
+            
+            if ( comp < 0 ) {
+                ceiling = node.key;
+                node = node.left;
+            } else if ( comp > 0 ) {
+                node = node.right;
+            } else {
+                return node.key;
+            }
+            
+        }
+        
+        return ceiling;
+        
+    }
+    
+    /**
+     * Retorna a quantidade de chaves no intervalo [lo, hi] em O(log n).
+     * 
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return A quantidade de chaves do intervalo.
+     */
+    public int countInRange( Key lo, Key hi ) throws IllegalArgumentException {
+        
+        checkRange( lo, hi, "countInRange()" );
+        
+        if ( lo.compareTo( hi ) > 0 ) {
+            return 0;
+        }
+        
+        int count = rank( root, hi ) - rank( root, lo );
+        
+        return get( root, hi ) != null ? count + 1 : count;
+        
+    }
+    
+    private Node<Key, Value> deleteMin( Node<Key, Value> node ) {
+        
+        if ( node.left == null ) {
+            if ( ouvinte != null ) {
+                ouvinte.evento( TipoEvento.REMOCAO, node.key, null, 0 );
+            }
+            return null;
+        }
+
+        if ( !isRed( node.left ) && !isRed( node.left.left ) ) {
+            node = moveRedLeft( node );
+        }
+
+        node.left = deleteMin( node.left );
+        
+        return balance( node );
+        
+    }
+    
+    /**
+     * Faz com que o link inclinado à esquerda se incline para a direita.
+     * 
+     * @param node nó de origem
+     * @return a nova raiz da subárvore.
+     */
+    private Node<Key, Value> rotateRight( Node<Key, Value> node ) {
+        
+        Node<Key, Value> newRoot = (Node<Key, Value>) node.left;
+        node.left = newRoot.right;
+        
+        newRoot.right = node;
+        newRoot.color = ( ( Node<Key, Value> ) newRoot.right ).color;
+        ( ( Node<Key, Value> ) newRoot.right ).color = NodeColor.RED;
+        newRoot.size = ( ( Node<Key, Value> ) node ).size;
+        
+        ( ( Node<Key, Value> ) node ).size = nodeSize( node.left ) + nodeSize( node.right ) + 1;
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.ROTACAO_DIREITA, node.key, newRoot.key, 0 );
+        }
+        contarRotacao();
+        
+        return newRoot;
+        
+    }
+
+    /**
+     * Faz com que o link inclinado à direita se incline para a esquerda.
+     * 
+     * @param node nó de origem
+     * @return a nova raiz da subárvore.
+     */
+    private Node<Key, Value> rotateLeft( Node<Key, Value> node ) {
+        
+        Node<Key, Value> newRoot = (Node<Key, Value>) node.right;
+        node.right = newRoot.left;
+        
+        newRoot.left = node;
+        newRoot.color = ( ( Node<Key, Value> ) newRoot.left ).color;
+        ( ( Node<Key, Value> ) newRoot.left ).color = NodeColor.RED;
+        newRoot.size = ( ( Node<Key, Value> ) node ).size;
+        
+        ( ( Node<Key, Value> ) node ).size = nodeSize( node.left ) + nodeSize( node.right ) + 1;
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.ROTACAO_ESQUERDA, node.key, newRoot.key, 0 );
+        }
+        contarRotacao();
+        
+        return newRoot;
+        
+    }
+
+    /**
+     * Inverte a cor de um nó e de seus filhos.
+     * 
+     * @param rbNode nó a ser alterado.
+     */
+    private void flipColors( Node<Key, Value> node ) {
+        
+        Node<Key, Value> rbNode = (Node<Key, Value>) node;
+        Node<Key, Value> rbNodeLeft = (Node<Key, Value>) node.left;
+        Node<Key, Value> rbNodeRight = (Node<Key, Value>) node.right;
+        
+        rbNode.color           = rbNode.color == NodeColor.RED ? NodeColor.BLACK : NodeColor.RED;
+        rbNodeLeft.color   = rbNodeLeft.color == NodeColor.RED ? NodeColor.BLACK : NodeColor.RED;
+        rbNodeRight.color = rbNodeRight.color == NodeColor.RED ? NodeColor.BLACK : NodeColor.RED;
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.INVERSAO_CORES, node.key, null, 0 );
+        }
+        contarInversao();
+        
+    }
+
+    /**
+     * Assumindo que o nó é vermelho e ambos os seus filhos são pretos, faz
+     * com que a esquerda do nó ou um de seus filhos seja vermelho.
+     * 
+     * @param node nó a ser movido.
+     * @return o nó modificado.
+     */
+    private Node<Key, Value> moveRedLeft( Node<Key, Value> node ) {
+
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.MOVE_VERMELHO_ESQUERDA, node.key, null, 0 );
+        }
+        
+        flipColors( node );
+        
+        if ( isRed( node.right.left ) ) {
+            node.right = rotateRight( node.right );
+            node = rotateLeft( node );
+            flipColors( node );
+        }
+        
+        return node;
+        
+    }
+
+    /**
+     * Assumindo que o nó é vermelho e ambos os seus filhos são pretos, faz
+     * com que nó da direita ou um de seus filhos seja vermelho.
+     * 
+     * @param no nó a ser movido.
+     * @return o nó modificado.
+     */
+    private Node<Key, Value> moveRedRight( Node<Key, Value> no ) {
+        
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.MOVE_VERMELHO_DIREITA, no.key, null, 0 );
+        }
+        
+        flipColors( no );
+        
+        if ( isRed( no.left.left ) ) {
+            no = rotateRight( no );
+            flipColors( no );
+        }
+        
+        return no;
+        
+    }
+
+    /**
+     * Recupera a condição de existência (invariante) para a árvore vermelho-preto.
+     * 
+     * @param node nó de origem.
+     * @return o nó modificado.
+     */
+    private Node<Key, Value> balance( Node<Key, Value> node ) {
+
+        if ( isRed( node.right ) ) {
+            node = rotateLeft( node );
+        }
+        
+        if ( isRed( node.left ) && isRed( node.left.left ) ) {
+            node = rotateRight( node );
+        }
+        
+        if ( isRed( node.left ) && isRed( node.right ) ) {
+            flipColors( node );
+        }
+
+        ( (Node<Key, Value>) node ).size = nodeSize( node.left ) + nodeSize( node.right ) + 1;
+        
+        return node;
+        
+    }
+    
+    private Node<Key, Value> min( Node<Key, Value> node ) {
+        
+        if ( node.left == null ) {
             return node;
         } else {
             return min( node.left );
@@ -395,8 +1459,22 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
         
     }
     
+    private Node<Key, Value> max( Node<Key, Value> node ) {
+        
+        if ( node.right == null ) {
+            return node;
+        } else {
+            return max( node.right );
+        }
+        
+    }
+    
     public void clear() {
         root = (Node<Key, Value>) clear( root );
+        modCount++;
+        if ( ouvinte != null ) {
+            ouvinte.evento( TipoEvento.LIMPEZA, null, null, 0 );
+        }
     }
 
     private Node<Key, Value> clear( Node<Key, Value> node ) {
@@ -414,31 +1492,493 @@ public class ArvoreVermelhoPreto<Key extends Comparable<Key>, Value> implements
         return root == null;
     }
     
+    /**
+     * Grava a árvore em um fluxo, em ordem, no formato binário versionado
+     * e com soma de verificação lido por readFrom. Os pares são gravados à
+     * medida que são percorridos e o fluxo não é fechado.
+     * 
+     * @param out O fluxo de saída.
+     * @param keyCodec A codificação das chaves.
+     * @param valueCodec A codificação dos valores.
+     */
+    public void writeTo( OutputStream out, Codec<Key> keyCodec, Codec<Value> valueCodec )
+            throws IOException, IllegalArgumentException {
+        FormatoBinario.escrever( out, getSize(), getEntries(), keyCodec, valueCodec );
+    }
+    
+    /**
+     * Grava a árvore em um canal, como writeTo( OutputStream, ... ).
+     */
+    public void writeTo( WritableByteChannel channel, Codec<Key> keyCodec, Codec<Value> valueCodec )
+            throws IOException, IllegalArgumentException {
+        if ( channel == null ) {
+            throw new IllegalArgumentException( "first argument to writeTo() is null" );
+        }
+        writeTo( Channels.newOutputStream( channel ), keyCodec, valueCodec );
+    }
+    
+    /**
+     * Lê uma árvore gravada por writeTo. Os pares são decodificados um a um
+     * diretamente para a construção em tempo linear de fromSorted e a soma
+     * de verificação é conferida ao final. Como a leitura usa buffer, bytes
+     * do fluxo além do fim da árvore podem ser consumidos.
+     * 
+     * @param in O fluxo de entrada.
+     * @param keyCodec A codificação das chaves.
+     * @param valueCodec A codificação dos valores.
+     * @return A árvore lida.
+     * @throws IOException Se a leitura falhar ou o conteúdo for inválido.
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreVermelhoPreto<Key, Value> readFrom( 
+            InputStream in, Codec<Key> keyCodec, Codec<Value> valueCodec ) throws IOException, IllegalArgumentException {
+        return FormatoBinario.ler( in, keyCodec, valueCodec, ( entries, n ) -> fromSorted( entries, n ) );
+    }
+    
+    /**
+     * Lê uma árvore de um canal, como readFrom( InputStream, ... ).
+     */
+    public static <Key extends Comparable<Key>, Value> ArvoreVermelhoPreto<Key, Value> readFrom( 
+            ReadableByteChannel channel, Codec<Key> keyCodec, Codec<Value> valueCodec ) throws IOException, IllegalArgumentException {
+        if ( channel == null ) {
+            throw new IllegalArgumentException( "first argument to readFrom() is null" );
+        }
+        return readFrom( Channels.newInputStream( channel ), keyCodec, valueCodec );
+    }
+    
     @Override
     public Iterator<Key> iterator() {
-        return traverseInOrder().iterator();
+        return new InOrderIterator<>( null, null, node -> node.key );
     }
     
     public Iterable<Key> getKeys() {
-        Queue<Key> keys = new LinkedQueue<>();
-        for ( Key k : traverseInOrder() ) {
-            keys.enqueue( k );
+        return () -> new InOrderIterator<>( null, null, node -> node.key );
+    }
+    
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, sem copiá-las.
+     * 
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Key> getKeys( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getKeys()" );
+        return () -> new InOrderIterator<>( lo, hi, node -> node.key );
+    }
+    
+    /**
+     * Retorna os pares chave/valor da árvore em ordem, sem copiá-los.
+     * 
+     * @return Os pares chave/valor.
+     */
+    public Iterable<Entry<Key, Value>> getEntries() {
+        return () -> new InOrderIterator<>( null, null, node -> new Entry<>( node.key, node.value ) );
+    }
+    
+    /**
+     * Retorna os pares chave/valor do intervalo [lo, hi] em ordem, sem
+     * copiá-los.
+     * 
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return Os pares chave/valor do intervalo.
+     */
+    public Iterable<Entry<Key, Value>> getEntries( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getEntries()" );
+        return () -> new InOrderIterator<>( lo, hi, node -> new Entry<>( node.key, node.value ) );
+    }
+    
+    /**
+     * Retorna um spliterator das chaves em ordem, que percorre a árvore sem
+     * copiá-la e se divide nas fronteiras das subárvores, permitindo o uso
+     * da árvore em streams paralelos.
+     * 
+     * @return O spliterator das chaves.
+     */
+    @Override
+    public Spliterator<Key> spliterator() {
+        return new InOrderSpliterator<>( node -> node.key, null );
+    }
+    
+    /**
+     * Retorna um stream sequencial das chaves em ordem. O stream pode ser
+     * tornado paralelo com parallel().
+     * 
+     * @return O stream das chaves.
+     */
+    public Stream<Key> stream() {
+        return StreamSupport.stream( spliterator(), false );
+    }
+    
+    /**
+     * Retorna um stream sequencial dos pares chave/valor em ordem de chaves.
+     * O stream pode ser tornado paralelo com parallel().
+     * 
+     * @return O stream dos pares chave/valor.
+     */
+    public Stream<Entry<Key, Value>> entryStream() {
+        return StreamSupport.stream( new InOrderSpliterator<Entry<Key, Value>>( 
+                node -> new Entry<>( node.key, node.value ), 
+                ( a, b ) -> a.getKey().compareTo( b.getKey() ) ), false );
+    }
+    
+    /**
+     * Retorna um cursor sobre os pares da árvore, inicialmente sem posição.
+     * 
+     * @return O cursor.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    private void checkRange( Key lo, Key hi, String method ) throws IllegalArgumentException {
+        if ( lo == null ) {
+            throw new IllegalArgumentException( "first argument to " + method + " is null" );
+        }
+        if ( hi == null ) {
+            throw new IllegalArgumentException( "second argument to " + method + " is null" );
         }
-        return keys;
     }
     
-    private List<Key> traverseInOrder() {
-        List<Key> keys = new ResizingArrayList<>();
-        inOrder( root, keys );
-        return keys;
+    /*
+     * Iterador em ordem preguiçoso, opcionalmente limitado ao intervalo
+     * [lo, hi]. Guarda apenas o caminho da raiz até o próximo nó, ou seja,
+     * usa memória extra proporcional à altura da árvore, e falha rapidamente
+     * caso a árvore seja modificada estruturalmente durante a iteração.
+     */
+    private class InOrderIterator<T> implements Iterator<T> {
+        
+        private final Stack<Node<Key, Value>> stack;
+        private final Key hi;
+        private final Function<Node<Key, Value>, T> extractor;
+        private final int expectedModCount;
+        
+        InOrderIterator( Key lo, Key hi, Function<Node<Key, Value>, T> extractor ) {
+            
+            this.stack = new ResizingArrayStack<>();
+            this.hi = hi;
+            this.extractor = extractor;
+            this.expectedModCount = modCount;
+            
+            // empilha o caminho até a menor chave maior ou igual a lo
+            Node<Key, Value> node = root;
+            while ( node != null ) {
+                if ( lo != null && lo.compareTo( node.key ) > 0 ) {
+                    node = node.right;
+                } else {
+                    stack.push( node );
+                    node = node.left;
+                }
+            }
+            
+        }
+        
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            return !stack.isEmpty() && ( hi == null || hi.compareTo( stack.peek().key ) >= 0 );
+        }
+        
+        @Override
+        public T next() {
+            
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            
+            Node<Key, Value> node = stack.pop();
+            
+            for ( Node<Key, Value> n = node.right; n != null; n = n.left ) {
+                stack.push( n );
+            }
+            
+            return extractor.apply( node );
+            
+        }
+        
+        private void checkForComodification() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        
     }
     
-    private void inOrder( Node<Key, Value> node, List<Key> keys ) {
-        if ( node != null ) {
-            inOrder( node.left, keys );
-            keys.add( node.key );
-            inOrder( node.right, keys );
+    /*
+     * Spliterator em ordem das chaves de root no intervalo [lo, hi), com
+     * limites nulos indicando intervalos abertos. Antes do primeiro elemento
+     * ser consumido, trySplit procura o primeiro nó do intervalo com chave
+     * maior que lo, descendo a partir de root, e o usa como divisa: a parte
+     * retornada fica com [lo, divisa) e esta com [divisa, hi), cuja raiz
+     * passa a ser o nó da divisa. Depois de iniciado o percurso, que usa uma
+     * pilha como o InOrderIterator, o spliterator não se divide mais.
+     * 
+     * Cada parte recebe o tamanho exato do seu intervalo, calculado em
+     * O(log n) pelos tamanhos das subárvores, então o spliterator é SIZED e
+     * SUBSIZED.
+     */
+    private class InOrderSpliterator<T> implements Spliterator<T> {
+        
+        private final Function<Node<Key, Value>, T> extractor;
+        private final Comparator<? super T> comparator;
+        private final int expectedModCount;
+        
+        private Node<Key, Value> root;
+        private Key lo;
+        private final Key hi;
+        private long estimate;
+        private final boolean sized;
+        
+        // pilha do percurso, criada ao consumir o primeiro elemento
+        private Stack<Node<Key, Value>> stack;
+        
+        InOrderSpliterator( Function<Node<Key, Value>, T> extractor, Comparator<? super T> comparator ) {
+            this( ArvoreVermelhoPreto.this.root, null, null, getSize(), true, extractor, comparator, modCount );
+        }
+        
+        private InOrderSpliterator( Node<Key, Value> root, Key lo, Key hi, long estimate, boolean sized,
+                Function<Node<Key, Value>, T> extractor, Comparator<? super T> comparator, int expectedModCount ) {
+            this.root = root;
+            this.lo = lo;
+            this.hi = hi;
+            this.estimate = estimate;
+            this.sized = sized;
+            this.extractor = extractor;
+            this.comparator = comparator;
+            this.expectedModCount = expectedModCount;
+        }
+        
+        @Override
+        public Spliterator<T> trySplit() {
+            
+            if ( stack != null ) {
+                return null;
+            }
+            
+            Node<Key, Value> r = subtreeRoot();
+            
+            // primeiro nó abaixo de r com chave em (lo, hi)
+            Node<Key, Value> s = r;
+            while ( s != null && ( ( lo != null && lo.compareTo( s.key ) >= 0 ) 
+                    || ( hi != null && hi.compareTo( s.key ) <= 0 ) ) ) {
+                s = lo != null && lo.compareTo( s.key ) >= 0 ? s.right : s.left;
+            }
+            
+            if ( s == null ) {
+                return null;
+            }
+            
+            long prefixSize = rank( r, s.key ) - rank( r, lo );
+            InOrderSpliterator<T> prefix = new InOrderSpliterator<>( 
+                    r, lo, s.key, prefixSize, true, extractor, comparator, expectedModCount );
+            
+            root = s;
+            lo = s.key;
+            estimate -= prefixSize;
+            
+            return prefix;
+            
+        }
+        
+        /*
+         * Primeiro nó, descendo a partir de root, com chave em [lo, hi): as
+         * chaves do intervalo estão todas na subárvore dele.
+         */
+        private Node<Key, Value> subtreeRoot() {
+            
+            Node<Key, Value> node = root;
+            
+            while ( node != null ) {
+                if ( lo != null && lo.compareTo( node.key ) > 0 ) {
+                    node = node.right;
+                } else if ( hi != null && hi.compareTo( node.key ) <= 0 ) {
+                    node = node.left;
+                } else {
+                    return node;
+                }
+            }
+            
+            return null;
+            
+        }
+        
+        @Override
+        public boolean tryAdvance( Consumer<? super T> action ) {
+            
+            if ( action == null ) {
+                throw new NullPointerException();
+            }
+            
+            Node<Key, Value> node = nextNode();
+            checkForComodification();
+            
+            if ( node == null ) {
+                return false;
+            }
+            
+            action.accept( extractor.apply( node ) );
+            return true;
+            
+        }
+        
+        @Override
+        public void forEachRemaining( Consumer<? super T> action ) {
+            
+            if ( action == null ) {
+                throw new NullPointerException();
+            }
+            
+            for ( Node<Key, Value> node = nextNode(); node != null; node = nextNode() ) {
+                action.accept( extractor.apply( node ) );
+            }
+            
+            checkForComodification();
+            
+        }
+        
+        /*
+         * Próximo nó do percurso ou null ao final do intervalo.
+         */
+        private Node<Key, Value> nextNode() {
+            
+            if ( stack == null ) {
+                stack = new ResizingArrayStack<>();
+                Node<Key, Value> node = root;
+                while ( node != null ) {
+                    if ( lo != null && lo.compareTo( node.key ) > 0 ) {
+                        node = node.right;
+                    } else {
+                        stack.push( node );
+                        node = node.left;
+                    }
+                }
+            }
+            
+            if ( stack.isEmpty() ) {
+                return null;
+            }
+            
+            Node<Key, Value> node = stack.pop();
+            
+            if ( hi != null && hi.compareTo( node.key ) <= 0 ) {
+                while ( !stack.isEmpty() ) {
+                    stack.pop();
+                }
+                return null;
+            }
+            
+            for ( Node<Key, Value> n = node.right; n != null; n = n.left ) {
+                stack.push( n );
+            }
+            
+            return node;
+            
+        }
+        
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+        
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL 
+                    | ( sized ? Spliterator.SIZED | Spliterator.SUBSIZED : 0 );
+        }
+        
+        @Override
+        public Comparator<? super T> getComparator() {
+            return comparator;
+        }
+        
+        private void checkForComodification() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        
+    }
+    
+    /*
+     * Quantidade de chaves menores que key na subárvore de node, usando os
+     * tamanhos das subárvores; com key nulo, nenhuma.
+     */
+    private int rank( Node<Key, Value> node, Key key ) {
+        
+        if ( key == null ) {
+            return 0;
+        }
+        
+        int count = 0;
+        
+        while ( node != null ) {
+            
+            int comp = key.compareTo( node.key );
+            
+            if ( comp < 0 ) {
+                node = node.left;
+            } else if ( comp > 0 ) {
+                count += nodeSize( node.left ) + 1;
+                node = node.right;
+            } else {
+                return count + nodeSize( node.left );
+            }
+            
+        }
+        
+        return count;
+        
+    }
+    
+    /**
+     * Cursor sobre os pares da árvore em ordem de chaves, para acessos com
+     * localidade: posicionar em uma chave, percorrer as vizinhas e saltar
+     * para uma chave próxima reaproveitando os ancestrais da posição atual.
+     * Custos e invalidação são descritos em CursorCaminho, que implementa a
+     * navegação para as duas árvores balanceadas.
+     */
+    public class Cursor extends CursorCaminho<Key, Value, Node<Key, Value>> {
+        
+        @SuppressWarnings( "unchecked" )
+        private Cursor() {
+            super( (Node<Key, Value>[]) new Node<?, ?>[32], modCount );
+        }
+        
+        @Override
+        Node<Key, Value> root() {
+            return root;
+        }
+        
+        @Override
+        int modCount() {
+            return modCount;
+        }
+        
+        @Override
+        Node<Key, Value> left( Node<Key, Value> node ) {
+            return node.left;
+        }
+        
+        @Override
+        Node<Key, Value> right( Node<Key, Value> node ) {
+            return node.right;
+        }
+        
+        @Override
+        Key key( Node<Key, Value> node ) {
+            return node.key;
         }
+        
+        @Override
+        Value value( Node<Key, Value> node ) {
+            return node.value;
+        }
+        
+        @Override
+        void setValue( Node<Key, Value> node, Value value ) {
+            node.value = value;
+        }
+        
     }
     
     @Override
@@ -0,0 +1,654 @@
+package projetoesdarvores.esd;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementação de uma árvore vermelho-preto (Red-Black Tree) em que os nós
+ * não são objetos, mas posições em arranjos paralelos (struct of arrays).
+ *
+ * Cada nó ocupa três posições consecutivas de um único arranjo de int: o
+ * filho esquerdo, o filho direito e o tamanho da subárvore, com a cor no bit
+ * de sinal do tamanho. Assim os filhos, o tamanho e a cor de um nó ficam na
+ * mesma linha de cache. As chaves e os valores ficam em arranjos de
+ * referências. A posição 0 representa o nó nulo. As posições liberadas
+ * pelas remoções formam uma lista livre, encadeada pelo filho esquerdo, e
+ * são reaproveitadas pelas inserções seguintes.
+ *
+ * O ganho é de memória e de coleta de lixo: cerca de 20 bytes por nó,
+ * contra 40 de um nó da ArvoreVermelhoPreto, e alguns arranjos grandes em
+ * vez de milhões de objetos pequenos. As chaves continuam sendo objetos e
+ * cada comparação lê a chave fora do arranjo, então as buscas custam o
+ * mesmo que na ArvoreVermelhoPreto e as remoções, que leem e gravam filhos,
+ * cores e tamanhos por índices, custam mais: a versão compacta não é mais
+ * rápida, apenas menor.
+ *
+ * Os algoritmos são os mesmos da ArvoreVermelhoPreto (inclinada à esquerda).
+ *
+ * Implementação baseada na obra: SEDGEWICK, R.; WAYNE, K. Algorithms.
+ * 4. ed. Boston: Pearson Education, 2011. 955 p.
+ *
+ * @param <Key> Tipo das chaves que serão armazenadas na árvore.
+ * @param <Value> Tipo dos valores associados às chaves armazenadas na árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ArvoreVermelhoPretoCompacta<Key extends Comparable<Key>, Value> implements Iterable<Key> {
+
+    // posição que representa o nó nulo
+    private static final int NIL = 0;
+    
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    // posições dos campos de um nó no arranjo nodes
+    private static final int STRIDE = 3;
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int SIZE = 2;
+    
+    // bit de sinal do tamanho, ligado quando o nó é vermelho
+    private static final int RED = Integer.MIN_VALUE;
+    
+    private Object[] keys;
+    private Object[] values;
+    
+    // filho esquerdo, filho direito e tamanho com cor de cada nó
+    private int[] nodes;
+    
+    // raiz da árvore
+    private int root;
+    
+    // próxima posição nunca usada e início da lista de posições livres
+    private int next;
+    private int free;
+    
+    // quantidade de modificações estruturais, usada pelos iteradores
+    private int modCount;
+    
+    /**
+     * Constrói uma Árvore vermelho-preto vazia.
+     */
+    public ArvoreVermelhoPretoCompacta() {
+        this( DEFAULT_CAPACITY );
+    }
+    
+    /**
+     * Constrói uma Árvore vermelho-preto vazia com espaço reservado para a
+     * quantidade de nós informada.
+     *
+     * @param capacity Quantidade inicial de nós.
+     */
+    public ArvoreVermelhoPretoCompacta( int capacity ) throws IllegalArgumentException {
+        
+        if ( capacity < 0 ) {
+            throw new IllegalArgumentException( "capacity must not be negative" );
+        }
+        
+        allocate( capacity + 1 );
+        root = NIL;
+        next = 1;
+        free = NIL;
+        
+    }
+    
+    private void allocate( int capacity ) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        nodes = new int[capacity * STRIDE];
+    }
+    
+    private void grow() {
+        int capacity = Math.max( 2, keys.length * 2 );
+        keys = Arrays.copyOf( keys, capacity );
+        values = Arrays.copyOf( values, capacity );
+        nodes = Arrays.copyOf( nodes, capacity * STRIDE );
+    }
+    
+    /*
+     * Obtém uma posição para um novo nó, da lista livre ou do final dos
+     * arranjos.
+     */
+    private int newNode( Key key, Value value ) {
+        
+        int node;
+        
+        if ( free != NIL ) {
+            node = free;
+            free = left( node );
+        } else {
+            if ( next == keys.length ) {
+                grow();
+            }
+            node = next++;
+        }
+        
+        keys[node] = key;
+        values[node] = value;
+        nodes[node * STRIDE + LEFT] = NIL;
+        nodes[node * STRIDE + RIGHT] = NIL;
+        nodes[node * STRIDE + SIZE] = 1 | RED;
+        
+        return node;
+        
+    }
+    
+    /*
+     * Devolve a posição de um nó removido para a lista livre.
+     */
+    private void release( int node ) {
+        keys[node] = null;
+        values[node] = null;
+        nodes[node * STRIDE + LEFT] = free;
+        nodes[node * STRIDE + RIGHT] = NIL;
+        nodes[node * STRIDE + SIZE] = 0;
+        free = node;
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    private Key key( int node ) {
+        return (Key) keys[node];
+    }
+    
+    /**
+     * Verifica se um nó é vermelho.
+     *
+     * @param node O nó a ser verificado
+     * @return true caso o nó seja vermelho, false caso seja preto ou nulo.
+     */
+    private boolean isRed( int node ) {
+        return nodes[node * STRIDE + SIZE] < 0;
+    }
+    
+    private void setRed( int node, boolean isRed ) {
+        if ( isRed ) {
+            nodes[node * STRIDE + SIZE] |= RED;
+        } else {
+            nodes[node * STRIDE + SIZE] &= ~RED;
+        }
+    }
+    
+    private int left( int node ) {
+        return nodes[node * STRIDE + LEFT];
+    }
+    
+    private int right( int node ) {
+        return nodes[node * STRIDE + RIGHT];
+    }
+    
+    private void setLeft( int node, int child ) {
+        nodes[node * STRIDE + LEFT] = child;
+    }
+    
+    private void setRight( int node, int child ) {
+        nodes[node * STRIDE + RIGHT] = child;
+    }
+    
+    private int size( int node ) {
+        return nodes[node * STRIDE + SIZE] & ~RED;
+    }
+    
+    /*
+     * Recalcula o tamanho da subárvore do nó, preservando a cor.
+     */
+    private void updateSize( int node ) {
+        nodes[node * STRIDE + SIZE] = ( nodes[node * STRIDE + SIZE] & RED ) 
+                | ( size( left( node ) ) + size( right( node ) ) + 1 );
+    }
+    
+    public int getSize() {
+        return size( root );
+    }
+    
+    public void put( Key key, Value value ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "first argument to put() is null" );
+        }
+        
+        if ( value == null ) {
+            delete( key );
+            return;
+        }
+        
+        root = put( root, key, value );
+        setRed( root, false );
+        
+    }
+    
+    private int put( int node, Key key, Value value ) {
+        
+        if ( node == NIL ) {
+            modCount++;
+            return newNode( key, value );
+        }
+        
+        int comp = key.compareTo( key( node ) );
+        
+        // o filho é gravado por setLeft e setRight, depois da chamada,
+        // porque a inserção pode trocar os arranjos em grow(), e
+        // nodes[...] = put( ... ) gravaria no arranjo antigo, avaliado antes
+        // da chamada
+        if ( comp < 0 ) {
+            setLeft( node, put( left( node ), key, value ) );
+        } else if ( comp > 0 ) {
+            setRight( node, put( right( node ), key, value ) );
+        } else {
+            values[node] = value;
+        }
+        
+        // consertando os links inclinados à direita
+        if ( isRed( right( node ) ) && !isRed( left( node ) ) ) {
+            node = rotateLeft( node );
+        }
+        if ( isRed( left( node ) ) && isRed( left( left( node ) ) ) ) {
+            node = rotateRight( node );
+        }
+        if ( isRed( left( node ) ) && isRed( right( node ) ) ) {
+            flipColors( node );
+        }
+        
+        updateSize( node );
+        
+        return node;
+        
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    public Value get( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to get() is null" );
+        }
+        
+        int node = root;
+        
+        while ( node != NIL ) {
+            
+            int comp = key.compareTo( key( node ) );
+            
+            if ( comp < 0 ) {
+                node = left( node );
+            } else if ( comp > 0 ) {
+                node = right( node );
+            } else {
+                return (Value) values[node];
+            }
+            
+        }
+        
+        return null;
+        
+    }
+    
+    public void delete( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to delete() is null" );
+        }
+        
+        if ( !contains( key ) ) {
+            return;
+        }
+        
+        // se ambos os filhos da raiz forem pretos, configura a raiz como vermelho
+        if ( !isRed( left( root ) ) && !isRed( right( root ) ) ) {
+            setRed( root, true );
+        }
+        
+        root = delete( root, key );
+        modCount++;
+        if ( !isEmpty() ) {
+            setRed( root, false );
+        }
+        
+    }
+    
+    /*
+     * A comparação com o nó só é refeita quando uma rotação troca o nó do
+     * topo da subárvore.
+     */
+    private int delete( int node, Key key ) {
+        
+        int comp = key.compareTo( key( node ) );
+        
+        if ( comp < 0 ) {
+            
+            if ( !isRed( left( node ) ) && !isRed( left( left( node ) ) ) ) {
+                node = moveRedLeft( node );
+            }
+            
+            setLeft( node, delete( left( node ), key ) );
+            
+        } else {
+            
+            if ( isRed( left( node ) ) ) {
+                node = rotateRight( node );
+                comp = key.compareTo( key( node ) );
+            }
+            
+            if ( comp == 0 && right( node ) == NIL ) {
+                release( node );
+                return NIL;
+            }
+            
+            if ( !isRed( right( node ) ) && !isRed( left( right( node ) ) ) ) {
+                int top = node;
+                node = moveRedRight( node );
+                if ( node != top ) {
+                    comp = key.compareTo( key( node ) );
+                }
+            }
+            
+            if ( comp == 0 ) {
+                int x = min( right( node ) );
+                keys[node] = keys[x];
+                values[node] = values[x];
+                setRight( node, deleteMin( right( node ) ) );
+            } else {
+                setRight( node, delete( right( node ), key ) );
+            }
+            
+        }
+        
+        return balance( node );
+        
+    }
+    
+    public boolean contains( Key key ) throws IllegalArgumentException {
+        return get( key ) != null;
+    }
+    
+    private int deleteMin( int node ) {
+        
+        if ( left( node ) == NIL ) {
+            release( node );
+            return NIL;
+        }
+        
+        if ( !isRed( left( node ) ) && !isRed( left( left( node ) ) ) ) {
+            node = moveRedLeft( node );
+        }
+        
+        setLeft( node, deleteMin( left( node ) ) );
+        
+        return balance( node );
+        
+    }
+    
+    /**
+     * Faz com que o link inclinado à esquerda se incline para a direita.
+     *
+     * @param node nó de origem
+     * @return a nova raiz da subárvore.
+     */
+    private int rotateRight( int node ) {
+        
+        int newRoot = left( node );
+        setLeft( node, right( newRoot ) );
+        
+        setRight( newRoot, node );
+        nodes[newRoot * STRIDE + SIZE] = nodes[node * STRIDE + SIZE];
+        setRed( node, true );
+        
+        updateSize( node );
+        
+        return newRoot;
+        
+    }
+    
+    /**
+     * Faz com que o link inclinado à direita se incline para a esquerda.
+     *
+     * @param node nó de origem
+     * @return a nova raiz da subárvore.
+     */
+    private int rotateLeft( int node ) {
+        
+        int newRoot = right( node );
+        setRight( node, left( newRoot ) );
+        
+        setLeft( newRoot, node );
+        nodes[newRoot * STRIDE + SIZE] = nodes[node * STRIDE + SIZE];
+        setRed( node, true );
+        
+        updateSize( node );
+        
+        return newRoot;
+        
+    }
+    
+    /**
+     * Inverte a cor de um nó e de seus filhos.
+     *
+     * @param node nó a ser alterado.
+     */
+    private void flipColors( int node ) {
+        nodes[node * STRIDE + SIZE] ^= RED;
+        nodes[left( node ) * STRIDE + SIZE] ^= RED;
+        nodes[right( node ) * STRIDE + SIZE] ^= RED;
+    }
+    
+    /**
+     * Assumindo que o nó é vermelho e ambos os seus filhos são pretos, faz
+     * com que a esquerda do nó ou um de seus filhos seja vermelho.
+     *
+     * @param node nó a ser movido.
+     * @return o nó modificado.
+     */
+    private int moveRedLeft( int node ) {
+        
+        flipColors( node );
+        
+        if ( isRed( left( right( node ) ) ) ) {
+            setRight( node, rotateRight( right( node ) ) );
+            node = rotateLeft( node );
+            flipColors( node );
+        }
+        
+        return node;
+        
+    }
+    
+    /**
+     * Assumindo que o nó é vermelho e ambos os seus filhos são pretos, faz
+     * com que nó da direita ou um de seus filhos seja vermelho.
+     *
+     * @param node nó a ser movido.
+     * @return o nó modificado.
+     */
+    private int moveRedRight( int node ) {
+        
+        flipColors( node );
+        
+        if ( isRed( left( left( node ) ) ) ) {
+            node = rotateRight( node );
+            flipColors( node );
+        }
+        
+        return node;
+        
+    }
+    
+    /**
+     * Recupera a condição de existência (invariante) para a árvore vermelho-preto.
+     *
+     * @param node nó de origem.
+     * @return o nó modificado.
+     */
+    private int balance( int node ) {
+        
+        if ( isRed( right( node ) ) ) {
+            node = rotateLeft( node );
+        }
+        
+        if ( isRed( left( node ) ) && isRed( left( left( node ) ) ) ) {
+            node = rotateRight( node );
+        }
+        
+        if ( isRed( left( node ) ) && isRed( right( node ) ) ) {
+            flipColors( node );
+        }
+        
+        updateSize( node );
+        
+        return node;
+        
+    }
+    
+    private int min( int node ) {
+        while ( left( node ) != NIL ) {
+            node = left( node );
+        }
+        return node;
+    }
+    
+    /**
+     * Esvazia a árvore, mantendo a capacidade já alocada.
+     */
+    public void clear() {
+        Arrays.fill( keys, null );
+        Arrays.fill( values, null );
+        Arrays.fill( nodes, 0 );
+        root = NIL;
+        next = 1;
+        free = NIL;
+        modCount++;
+    }
+    
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+    
+    @Override
+    public Iterator<Key> iterator() {
+        return new InOrderIterator( null, null );
+    }
+    
+    public Iterable<Key> getKeys() {
+        return this;
+    }
+    
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, sem copiá-las.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Key> getKeys( Key lo, Key hi ) throws IllegalArgumentException {
+        if ( lo == null ) {
+            throw new IllegalArgumentException( "first argument to getKeys() is null" );
+        }
+        if ( hi == null ) {
+            throw new IllegalArgumentException( "second argument to getKeys() is null" );
+        }
+        return () -> new InOrderIterator( lo, hi );
+    }
+    
+    /*
+     * Iterador em ordem preguiçoso, opcionalmente limitado ao intervalo
+     * [lo, hi], que guarda as posições do caminho até o próximo nó em um
+     * arranjo de int. A altura de uma árvore vermelho-preto é no máximo
+     * 2 lg(n + 1), o que limita o tamanho da pilha.
+     */
+    private class InOrderIterator implements Iterator<Key> {
+        
+        private final int[] stack;
+        private int top;
+        private final Key hi;
+        private final int expectedModCount;
+        
+        InOrderIterator( Key lo, Key hi ) {
+            
+            this.stack = new int[2 * ( 32 - Integer.numberOfLeadingZeros( getSize() + 1 ) ) + 1];
+            this.hi = hi;
+            this.expectedModCount = modCount;
+            
+            // empilha o caminho até a menor chave maior ou igual a lo
+            int node = root;
+            while ( node != NIL ) {
+                if ( lo != null && lo.compareTo( key( node ) ) > 0 ) {
+                    node = right( node );
+                } else {
+                    stack[top++] = node;
+                    node = left( node );
+                }
+            }
+            
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+            return top > 0 && ( hi == null || hi.compareTo( key( stack[top-1] ) ) >= 0 );
+        }
+        
+        @Override
+        public Key next() {
+            
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            
+            int node = stack[--top];
+            
+            for ( int n = right( node ); n != NIL; n = left( n ) ) {
+                stack[top++] = n;
+            }
+            
+            return key( node );
+            
+        }
+        
+    }
+    
+    @Override
+    public String toString() {
+        
+        StringBuilder sb = new StringBuilder();
+        
+        if ( !isEmpty()) {
+            preOrderForPrint( root, "", null, sb );
+        } else {
+            sb.append( "empty red-black tree!\n" );
+        }
+        
+        return sb.toString();
+        
+    }
+    
+    private void preOrderForPrint( int node, String ident, String leftRight, StringBuilder sb ) {
+        
+        if ( node != NIL ) {
+            
+            String rootIdent = "";
+            String leafIdent = "";
+            
+            if ( node != root ) {
+                rootIdent = ident + "|--";
+                leafIdent = ident + "|  ";
+            }
+            
+            sb.append( rootIdent );
+            if ( leftRight != null ) {
+                sb.append( "(" ).append( leftRight ).append( ") " );
+            }
+            sb.append( keys[node] ).append( " -> " ).append( values[node] )
+              .append( " (" ).append( isRed( node ) ? "R" : "B" ).append( ")" );
+            if ( node == root ) {
+                sb.append(  " <- root" );
+            }
+            sb.append( "\n" );
+            
+            preOrderForPrint( left( node ), leafIdent, "L", sb );
+            preOrderForPrint( right( node ), leafIdent, "R", sb );
+            
+        }
+        
+    }
+
+}
@@ -0,0 +1,561 @@
+package projetoesdarvores.esd;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Mapa durável sobre uma ArvoreVermelhoPreto: cada put e delete é anexado a
+ * um log de escrita antecipada (write-ahead log) antes de ser aplicado à
+ * árvore, e periodicamente a árvore inteira é gravada em um ponto de
+ * verificação (checkpoint), após o qual o log é esvaziado.
+ *
+ * Os registros são gravados no disco em grupo (group commit): o log só é
+ * sincronizado com FileChannel.force a cada operacoesPorCommit operações,
+ * na própria thread que as executa, ou a cada intervaloCommit milissegundos,
+ * por uma thread de fundo. Uma operação confirmada por put ou delete é
+ * durável após o próximo commit do seu grupo, ou imediatamente após sync().
+ * Em uma queda, perdem-se no máximo as operações do grupo em andamento.
+ *
+ * Na abertura, o último ponto de verificação é carregado com readFrom e o
+ * restante do log é reaplicado, parando no primeiro registro incompleto ou
+ * corrompido, que é descartado junto com tudo o que vier depois. Reaplicar
+ * um registro já contido no ponto de verificação não altera o resultado,
+ * pois o valor final de cada chave é o do último registro que a altera.
+ *
+ * Formato de cada registro do log:
+ *     comprimento   4 bytes, do conteúdo
+ *     crc           4 bytes, CRC32 do conteúdo
+ *     conteúdo      1 byte de tipo (put ou delete), chave e, no put, valor
+ *
+ * Todas as operações são sincronizadas. O ponto de verificação bloqueia as
+ * demais operações enquanto a árvore é gravada.
+ *
+ * @param <Key> Tipo das chaves que serão armazenadas na árvore.
+ * @param <Value> Tipo dos valores associados às chaves armazenadas na árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ArvoreVermelhoPretoDuravel<Key extends Comparable<Key>, Value> implements Closeable {
+
+    private static final String ARQUIVO_LOG = "log.wal";
+    private static final String ARQUIVO_CHECKPOINT = "checkpoint.avp";
+    private static final String ARQUIVO_CHECKPOINT_TEMPORARIO = "checkpoint.avp.tmp";
+    
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    
+    // maior conteúdo de registro aceito na recuperação
+    private static final int MAIOR_REGISTRO = 1 << 26;
+    
+    public static final int OPERACOES_POR_COMMIT_PADRAO = 4096;
+    public static final long INTERVALO_COMMIT_PADRAO = 10;
+    public static final int OPERACOES_POR_CHECKPOINT_PADRAO = 1_000_000;
+    
+    /*
+     * Buffer de bytes que expõe o arranjo interno, para que os registros
+     * sejam copiados e verificados sem cópias extras.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        
+        Buffer( int capacidade ) {
+            super( capacidade );
+        }
+        
+        byte[] array() {
+            return buf;
+        }
+        
+    }
+    
+    private final Path diretorio;
+    private final Codec<Key> keyCodec;
+    private final Codec<Value> valueCodec;
+    private final int operacoesPorCommit;
+    private final int operacoesPorCheckpoint;
+    
+    private ArvoreVermelhoPreto<Key, Value> arvore;
+    private final FileChannel log;
+    
+    // conteúdo do registro sendo montado
+    private final Buffer registro = new Buffer( 64 );
+    private final DataOutputStream saidaRegistro = new DataOutputStream( registro );
+    private final CRC32 crc = new CRC32();
+    
+    // registros ainda não gravados no log e o buffer livre para a troca
+    private Buffer pendentes = new Buffer( 1 << 16 );
+    private Buffer reserva = new Buffer( 1 << 16 );
+    private int operacoesPendentes;
+    private int operacoesDesdeCheckpoint;
+    private final int registrosRecuperados;
+    
+    // serializa commits e pontos de verificação; sempre adquirido antes do
+    // monitor do próprio objeto
+    private final Object travaCommit = new Object();
+    
+    private final ScheduledExecutorService agendador;
+    private boolean fechada;
+    
+    // um grupo que não pôde ser gravado foi perdido, então o mapa deixa de
+    // aceitar operações até ser reaberto; guarda a causa da falha
+    private volatile Exception falha;
+    
+    /**
+     * Abre (ou cria) um mapa durável no diretório informado com commit em
+     * grupo a cada OPERACOES_POR_COMMIT_PADRAO operações ou
+     * INTERVALO_COMMIT_PADRAO milissegundos e pontos de verificação a cada
+     * OPERACOES_POR_CHECKPOINT_PADRAO operações.
+     *
+     * @param diretorio O diretório dos arquivos de log e de ponto de verificação.
+     * @param keyCodec A codificação das chaves.
+     * @param valueCodec A codificação dos valores.
+     */
+    public ArvoreVermelhoPretoDuravel( Path diretorio, Codec<Key> keyCodec, Codec<Value> valueCodec )
+            throws IOException, IllegalArgumentException {
+        this( diretorio, keyCodec, valueCodec, OPERACOES_POR_COMMIT_PADRAO,
+                INTERVALO_COMMIT_PADRAO, OPERACOES_POR_CHECKPOINT_PADRAO );
+    }
+    
+    /**
+     * Abre (ou cria) um mapa durável no diretório informado, recuperando o
+     * estado gravado.
+     *
+     * @param diretorio O diretório dos arquivos de log e de ponto de verificação.
+     * @param keyCodec A codificação das chaves.
+     * @param valueCodec A codificação dos valores.
+     * @param operacoesPorCommit Operações por commit em grupo (1 sincroniza
+     * cada operação).
+     * @param intervaloCommit Intervalo máximo, em milissegundos, entre uma
+     * operação e seu commit; 0 desliga o commit por tempo.
+     * @param operacoesPorCheckpoint Operações entre pontos de verificação
+     * automáticos; 0 os desliga.
+     */
+    public ArvoreVermelhoPretoDuravel( Path diretorio, Codec<Key> keyCodec, Codec<Value> valueCodec,
+            int operacoesPorCommit, long intervaloCommit, int operacoesPorCheckpoint )
+            throws IOException, IllegalArgumentException {
+            
+        if ( diretorio == null || keyCodec == null || valueCodec == null ) {
+            throw new IllegalArgumentException( "directory and codecs must not be null" );
+        }
+        
+        if ( operacoesPorCommit < 1 || intervaloCommit < 0 || operacoesPorCheckpoint < 0 ) {
+            throw new IllegalArgumentException( "invalid group commit or checkpoint configuration" );
+        }
+        
+        this.diretorio = diretorio;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.operacoesPorCommit = operacoesPorCommit;
+        this.operacoesPorCheckpoint = operacoesPorCheckpoint;
+        
+        Files.createDirectories( diretorio );
+        
+        // resto de um ponto de verificação interrompido
+        Files.deleteIfExists( diretorio.resolve( ARQUIVO_CHECKPOINT_TEMPORARIO ) );
+        
+        Path checkpoint = diretorio.resolve( ARQUIVO_CHECKPOINT );
+        if ( Files.exists( checkpoint ) ) {
+            try ( FileChannel c = FileChannel.open( checkpoint, StandardOpenOption.READ ) ) {
+                arvore = ArvoreVermelhoPreto.readFrom( c, keyCodec, valueCodec );
+            }
+        } else {
+            arvore = new ArvoreVermelhoPreto<>();
+        }
+        
+        log = FileChannel.open( diretorio.resolve( ARQUIVO_LOG ),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+                
+        try {
+            registrosRecuperados = recuperar();
+        } catch ( IOException | RuntimeException exc ) {
+            log.close();
+            throw exc;
+        }
+        
+        operacoesDesdeCheckpoint = registrosRecuperados;
+        
+        if ( intervaloCommit > 0 ) {
+            agendador = Executors.newSingleThreadScheduledExecutor( r -> {
+                Thread t = new Thread( r, "commit-avp-duravel" );
+                t.setDaemon( true );
+                return t;
+            });
+            agendador.scheduleWithFixedDelay( () -> {
+                try {
+                    sync();
+                } catch ( IOException | RuntimeException exc ) {
+                    // uma exceção que escapasse da tarefa cancelaria em
+                    // silêncio os commits seguintes; a falha é registrada e
+                    // a próxima operação ou sync() a reporta
+                    registrarFalha( exc );
+                }
+            }, intervaloCommit, intervaloCommit, TimeUnit.MILLISECONDS );
+        } else {
+            agendador = null;
+        }
+        
+    }
+    
+    /*
+     * Reaplica os registros válidos do log sobre a árvore carregada e
+     * descarta o que houver depois do último registro válido. Retorna a
+     * quantidade de registros reaplicados.
+     */
+    private int recuperar() throws IOException {
+        
+        long tamanho = log.size();
+        long valido = 0;
+        int aplicados = 0;
+        
+        log.position( 0 );
+        DataInputStream in = new DataInputStream( new BufferedInputStream( Channels.newInputStream( log ), 1 << 16 ) );
+        
+        while ( valido + 8 <= tamanho ) {
+            
+            int comprimento = in.readInt();
+            int esperado = in.readInt();
+            
+            if ( comprimento <= 0 || comprimento > MAIOR_REGISTRO || valido + 8 + comprimento > tamanho ) {
+                break;
+            }
+            
+            byte[] conteudo = new byte[comprimento];
+            in.readFully( conteudo );
+            
+            crc.reset();
+            crc.update( conteudo, 0, comprimento );
+            if ( (int) crc.getValue() != esperado ) {
+                break;
+            }
+            
+            try {
+                aplicar( new DataInputStream( new ByteArrayInputStream( conteudo ) ) );
+            } catch ( EOFException | IllegalArgumentException exc ) {
+                // conteúdo que não corresponde aos codecs
+                break;
+            }
+            
+            valido += 8 + comprimento;
+            aplicados++;
+            
+        }
+        
+        log.truncate( valido );
+        log.position( valido );
+        log.force( false );
+        
+        return aplicados;
+        
+    }
+    
+    private void aplicar( DataInputStream in ) throws IOException, IllegalArgumentException {
+        
+        byte tipo = in.readByte();
+        Key key = keyCodec.read( in );
+        
+        if ( tipo == PUT ) {
+            arvore.put( key, valueCodec.read( in ) );
+        } else if ( tipo == DELETE ) {
+            arvore.delete( key );
+        } else {
+            throw new IllegalArgumentException( "invalid record type: " + tipo );
+        }
+        
+    }
+    
+    public void put( Key key, Value value ) throws IOException, IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "first argument to put() is null" );
+        }
+        
+        if ( value == null ) {
+            delete( key );
+            return;
+        }
+        
+        boolean commit;
+        
+        synchronized ( this ) {
+            verificarAberta();
+            registro.reset();
+            saidaRegistro.writeByte( PUT );
+            keyCodec.write( key, saidaRegistro );
+            valueCodec.write( value, saidaRegistro );
+            commit = anexar();
+            arvore.put( key, value );
+        }
+        
+        depoisDaOperacao( commit );
+        
+    }
+    
+    public synchronized Value get( Key key ) throws IllegalArgumentException {
+        return arvore.get( key );
+    }
+    
+    public void delete( Key key ) throws IOException, IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to delete() is null" );
+        }
+        
+        boolean commit;
+        
+        synchronized ( this ) {
+            verificarAberta();
+            if ( !arvore.contains( key ) ) {
+                return;
+            }
+            registro.reset();
+            saidaRegistro.writeByte( DELETE );
+            keyCodec.write( key, saidaRegistro );
+            commit = anexar();
+            arvore.delete( key );
+        }
+        
+        depoisDaOperacao( commit );
+        
+    }
+    
+    public synchronized boolean contains( Key key ) throws IllegalArgumentException {
+        return arvore.contains( key );
+    }
+    
+    public synchronized int getSize() {
+        return arvore.getSize();
+    }
+    
+    public synchronized boolean isEmpty() {
+        return arvore.isEmpty();
+    }
+    
+    /**
+     * Retorna a quantidade de registros do log reaplicados na abertura.
+     */
+    public int getRegistrosRecuperados() {
+        return registrosRecuperados;
+    }
+    
+    /*
+     * Anexa o registro montado aos pendentes, com comprimento e crc, e diz
+     * se o grupo atingiu o tamanho do commit.
+     */
+    private boolean anexar() {
+        
+        int comprimento = registro.size();
+        crc.reset();
+        crc.update( registro.array(), 0, comprimento );
+        int valor = (int) crc.getValue();
+        
+        Buffer p = pendentes;
+        p.write( comprimento >>> 24 );
+        p.write( comprimento >>> 16 );
+        p.write( comprimento >>> 8 );
+        p.write( comprimento );
+        p.write( valor >>> 24 );
+        p.write( valor >>> 16 );
+        p.write( valor >>> 8 );
+        p.write( valor );
+        p.write( registro.array(), 0, comprimento );
+        
+        operacoesDesdeCheckpoint++;
+        return ++operacoesPendentes >= operacoesPorCommit;
+        
+    }
+    
+    private void depoisDaOperacao( boolean commit ) throws IOException {
+        
+        boolean checkpoint;
+        synchronized ( this ) {
+            checkpoint = operacoesPorCheckpoint > 0 && operacoesDesdeCheckpoint >= operacoesPorCheckpoint;
+        }
+        
+        if ( checkpoint ) {
+            checkpoint();
+        } else if ( commit ) {
+            sync();
+        }
+        
+    }
+    
+    /**
+     * Grava no log e sincroniza com o disco todas as operações pendentes.
+     * Enquanto o disco é sincronizado, as demais operações continuam,
+     * acumulando-se para o próximo grupo.
+     */
+    public void sync() throws IOException {
+        
+        synchronized ( travaCommit ) {
+            
+            Buffer grupo;
+            
+            synchronized ( this ) {
+                verificarAberta();
+                if ( pendentes.size() == 0 ) {
+                    return;
+                }
+                grupo = pendentes;
+                pendentes = reserva;
+                reserva = grupo;
+                operacoesPendentes = 0;
+            }
+            
+            gravar( grupo );
+            
+        }
+        
+    }
+    
+    private void gravar( Buffer grupo ) throws IOException {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap( grupo.array(), 0, grupo.size() );
+            while ( bb.hasRemaining() ) {
+                log.write( bb );
+            }
+            log.force( false );
+        } catch ( IOException | RuntimeException exc ) {
+            registrarFalha( exc );
+            throw exc;
+        } finally {
+            grupo.reset();
+        }
+    }
+    
+    /**
+     * Grava a árvore inteira em um novo ponto de verificação e esvazia o
+     * log. O arquivo é gravado em um temporário, sincronizado e então
+     * renomeado atomicamente, então uma queda durante o processo mantém o
+     * ponto de verificação anterior e o log.
+     */
+    public void checkpoint() throws IOException {
+        
+        synchronized ( travaCommit ) {
+            
+            synchronized ( this ) {
+                
+                verificarAberta();
+                
+                if ( pendentes.size() > 0 ) {
+                    gravar( pendentes );
+                    operacoesPendentes = 0;
+                }
+                
+                Path temporario = diretorio.resolve( ARQUIVO_CHECKPOINT_TEMPORARIO );
+                try ( FileChannel c = FileChannel.open( temporario,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE ) ) {
+                    arvore.writeTo( c, keyCodec, valueCodec );
+                    c.force( true );
+                }
+                
+                Files.move( temporario, diretorio.resolve( ARQUIVO_CHECKPOINT ),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+                sincronizarDiretorio();
+                
+                log.truncate( 0 );
+                log.position( 0 );
+                log.force( false );
+                operacoesDesdeCheckpoint = 0;
+                
+            }
+            
+        }
+        
+    }
+    
+    /*
+     * Torna a renomeação durável. Nem todas as plataformas permitem abrir
+     * um diretório, e nelas a renomeação já é durável ou não há como
+     * garanti-la.
+     */
+    private void sincronizarDiretorio() {
+        try ( FileChannel d = FileChannel.open( diretorio, StandardOpenOption.READ ) ) {
+            d.force( true );
+        } catch ( IOException | UncheckedIOException exc ) {
+            // sem suporte na plataforma
+        }
+    }
+    
+    private void verificarAberta() throws IllegalStateException {
+        if ( fechada ) {
+            throw new IllegalStateException( "durable tree is closed" );
+        }
+        if ( falha != null ) {
+            throw new IllegalStateException( "write-ahead log write failed; reopen to recover", falha );
+        }
+    }
+    
+    /*
+     * Guarda a primeira falha, que é a causa das seguintes.
+     */
+    private synchronized void registrarFalha( Exception exc ) {
+        if ( falha == null && !fechada ) {
+            falha = exc;
+        }
+    }
+    
+    /**
+     * Sincroniza as operações pendentes e fecha o log. Um ponto de
+     * verificação não é gravado; a próxima abertura reaplica o log.
+     *
+     * Depois de uma falha de gravação as operações pendentes já estão
+     * perdidas, então não há sincronização: o log é apenas fechado, para
+     * que o diretório possa ser reaberto. O log é fechado mesmo que a
+     * sincronização falhe.
+     */
+    @Override
+    public void close() throws IOException {
+        
+        synchronized ( travaCommit ) {
+            
+            boolean falhou;
+            
+            synchronized ( this ) {
+                if ( fechada ) {
+                    return;
+                }
+                falhou = falha != null;
+            }
+            
+            if ( agendador != null ) {
+                agendador.shutdown();
+            }
+            
+            try {
+                if ( !falhou ) {
+                    sync();
+                }
+            } finally {
+                synchronized ( this ) {
+                    fechada = true;
+                    log.close();
+                }
+            }
+            
+        }
+        
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return arvore.toString();
+    }
+
+}
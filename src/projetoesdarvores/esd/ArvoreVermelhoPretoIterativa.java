@@ -0,0 +1,742 @@
+package projetoesdarvores.esd;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import projetoesdarvores.esd.Instrumentacao.Operacao;
+
+/**
+ * Implementação de uma árvore vermelho-preto clássica (não inclinada), com
+ * ponteiros para os pais e operações sem recursão.
+ *
+ * Ao contrário da ArvoreVermelhoPreto, que reconstrói todo o caminho até a
+ * raiz e rebalanceia cada nível em put e delete, aqui a busca desce pela
+ * árvore uma única vez e o conserto sobe a partir do nó alterado apenas
+ * enquanto houver violação. Cada inserção faz no máximo duas rotações e cada
+ * remoção no máximo três; o restante do conserto são recolorações, em
+ * quantidade amortizada constante.
+ *
+ * Os nós não guardam o tamanho das subárvores, então rank, select e as
+ * operações em lote e de conjunto da ArvoreVermelhoPreto não são oferecidas.
+ *
+ * Implementação baseada na obra: CORMEN, T. H. et al. Introduction to
+ * Algorithms. 3. ed. Cambridge: MIT Press, 2009. 1292 p.
+ *
+ * @param <Key> Tipo das chaves que serão armazenadas na árvore.
+ * @param <Value> Tipo dos valores associados às chaves armazenadas na árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ArvoreVermelhoPretoIterativa<Key extends Comparable<Key>, Value> implements Iterable<Key> {
+
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+    
+    /*
+     * Classe interna estática que define os nós da árvore, com o link para o
+     * pai usado pelos consertos e pelo iterador.
+     */
+    private static class Node<Key extends Comparable<Key>, Value> {
+        
+        Key key;
+        Value value;
+        Node<Key, Value> left;
+        Node<Key, Value> right;
+        Node<Key, Value> parent;
+        boolean color;
+        
+        Node( Key key, Value value, Node<Key, Value> parent ) {
+            this.key = key;
+            this.value = value;
+            this.parent = parent;
+            this.color = RED;
+        }
+        
+        @Override
+        public String toString() {
+            return key + " -> " + value + " (" + ( color == RED ? "R" : "B" ) + ")";
+        }
+        
+    }
+    
+    // raiz da árvore
+    private Node<Key, Value> root;
+    
+    private int size;
+    
+    // quantidade de modificações estruturais, usada pelos iteradores
+    private int modCount;
+    
+    // instrumentação opcional; null quando desligada
+    private Medicao medidor;
+    
+    // medição da operação em andamento; null quando ela não é amostrada
+    private Medicao medicao;
+    
+    /**
+     * Constrói uma Árvore vermelho-preto vazia.
+     */
+    public ArvoreVermelhoPretoIterativa() {
+        root = null;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Liga a instrumentação das operações get, put e delete, que passam a
+     * ser amostradas conforme a taxa configurada nela. Com null, o padrão,
+     * nada é medido.
+     *
+     * @param instrumentacao A instrumentação ou null.
+     */
+    public void setInstrumentacao( Instrumentacao instrumentacao ) {
+        medidor = instrumentacao == null ? null : new Medicao( instrumentacao );
+        medicao = null;
+    }
+    
+    /*
+     * Começa a medir uma operação caso a instrumentação esteja ligada e a
+     * operação seja amostrada. Retorna a medição ou null.
+     */
+    private Medicao iniciarMedicao() {
+        Medicao m = medidor;
+        if ( m != null ) {
+            m = m.iniciar() ? m : null;
+            medicao = m;
+        }
+        return m;
+    }
+    
+    private void terminarMedicao( Medicao m, Operacao operacao ) {
+        medicao = null;
+        m.terminar( operacao );
+    }
+    
+    /*
+     * Conta uma comparação que também avança no caminho de busca.
+     */
+    private void contarPasso() {
+        if ( medicao != null ) {
+            medicao.comparacoes++;
+            medicao.caminho++;
+        }
+    }
+    
+    private void contarRotacao() {
+        if ( medicao != null ) {
+            medicao.rotacoes++;
+        }
+    }
+    
+    private void contarInversao() {
+        if ( medicao != null ) {
+            medicao.inversoes++;
+        }
+    }
+    
+    /**
+     * Verifica se um nó é vermelho.
+     *
+     * @param node O nó a ser verificado
+     * @return true caso o nó seja vermelho, false caso seja preto ou nulo.
+     */
+    private static boolean isRed( Node<?, ?> node ) {
+        return node != null && node.color == RED;
+    }
+    
+    public void put( Key key, Value value ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "first argument to put() is null" );
+        }
+        
+        if ( value == null ) {
+            delete( key );
+            return;
+        }
+        
+        Medicao m = iniciarMedicao();
+        
+        Node<Key, Value> parent = null;
+        Node<Key, Value> node = root;
+        int comp = 0;
+        
+        while ( node != null ) {
+            
+            contarPasso();
+            comp = key.compareTo( node.key );
+            parent = node;
+            
+            if ( comp < 0 ) {
+                node = node.left;
+            } else if ( comp > 0 ) {
+                node = node.right;
+            } else {
+                break;
+            }
+            
+        }
+        
+        if ( node != null ) {
+            node.value = value;
+        } else {
+            
+            node = new Node<>( key, value, parent );
+            
+            if ( parent == null ) {
+                root = node;
+            } else if ( comp < 0 ) {
+                parent.left = node;
+            } else {
+                parent.right = node;
+            }
+            
+            size++;
+            modCount++;
+            fixAfterPut( node );
+            
+        }
+        
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.PUT );
+        }
+        
+    }
+    
+    /*
+     * Desfaz a violação vermelho-vermelho entre o nó inserido e o seu pai.
+     * Enquanto o tio for vermelho, a violação é empurrada dois níveis para
+     * cima com uma recoloração; quando o tio é preto, uma ou duas rotações
+     * terminam o conserto.
+     */
+    private void fixAfterPut( Node<Key, Value> node ) {
+        
+        while ( isRed( node.parent ) ) {
+            
+            Node<Key, Value> parent = node.parent;
+            Node<Key, Value> grandparent = parent.parent;
+            
+            if ( parent == grandparent.left ) {
+                
+                Node<Key, Value> uncle = grandparent.right;
+                
+                if ( isRed( uncle ) ) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grandparent.color = RED;
+                    contarInversao();
+                    node = grandparent;
+                } else {
+                    if ( node == parent.right ) {
+                        rotateLeft( parent );
+                        node = parent;
+                        parent = node.parent;
+                    }
+                    parent.color = BLACK;
+                    grandparent.color = RED;
+                    rotateRight( grandparent );
+                }
+                
+            } else {
+                
+                Node<Key, Value> uncle = grandparent.left;
+                
+                if ( isRed( uncle ) ) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grandparent.color = RED;
+                    contarInversao();
+                    node = grandparent;
+                } else {
+                    if ( node == parent.left ) {
+                        rotateRight( parent );
+                        node = parent;
+                        parent = node.parent;
+                    }
+                    parent.color = BLACK;
+                    grandparent.color = RED;
+                    rotateLeft( grandparent );
+                }
+                
+            }
+            
+        }
+        
+        root.color = BLACK;
+        
+    }
+    
+    public Value get( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to get() is null" );
+        }
+        
+        Medicao m = iniciarMedicao();
+        Node<Key, Value> node = find( key );
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.GET );
+        }
+        
+        return node == null ? null : node.value;
+        
+    }
+    
+    private Node<Key, Value> find( Key key ) {
+        
+        Node<Key, Value> node = root;
+        
+        while ( node != null ) {
+            
+            contarPasso();
+            int comp = key.compareTo( node.key );
+            
+            if ( comp < 0 ) {
+                node = node.left;
+            } else if ( comp > 0 ) {
+                node = node.right;
+            } else {
+                return node;
+            }
+            
+        }
+        
+        return null;
+        
+    }
+    
+    public void delete( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to delete() is null" );
+        }
+        
+        Medicao m = iniciarMedicao();
+        
+        Node<Key, Value> node = find( key );
+        
+        if ( node != null ) {
+            
+            size--;
+            modCount++;
+            
+            // com dois filhos, o sucessor toma o lugar do nó e é ele que sai
+            // da árvore, pois tem no máximo um filho
+            if ( node.left != null && node.right != null ) {
+                Node<Key, Value> successor = min( node.right );
+                node.key = successor.key;
+                node.value = successor.value;
+                node = successor;
+            }
+            
+            Node<Key, Value> child = node.left != null ? node.left : node.right;
+            
+            if ( child != null ) {
+                
+                child.parent = node.parent;
+                replaceChild( node, child );
+                node.left = node.right = node.parent = null;
+                
+                // o único filho de um nó preto é necessariamente vermelho
+                if ( node.color == BLACK ) {
+                    child.color = BLACK;
+                }
+                
+            } else if ( node.parent == null ) {
+                root = null;
+            } else {
+                
+                // uma folha preta é consertada antes de sair, enquanto ainda
+                // ocupa a posição que ficará com um preto a menos
+                if ( node.color == BLACK ) {
+                    fixAfterDelete( node );
+                }
+                
+                replaceChild( node, null );
+                node.parent = null;
+                
+            }
+            
+        }
+        
+        if ( m != null ) {
+            terminarMedicao( m, Operacao.DELETE );
+        }
+        
+    }
+    
+    /*
+     * Repõe o preto que falta nos caminhos que passam pelo nó. Enquanto o
+     * irmão e os filhos dele forem pretos, o irmão fica vermelho e a falta
+     * sobe um nível; nos demais casos, até três rotações terminam o
+     * conserto.
+     */
+    private void fixAfterDelete( Node<Key, Value> node ) {
+        
+        while ( node != root && node.color == BLACK ) {
+            
+            Node<Key, Value> parent = node.parent;
+            
+            if ( node == parent.left ) {
+                
+                Node<Key, Value> sibling = parent.right;
+                
+                if ( isRed( sibling ) ) {
+                    sibling.color = BLACK;
+                    parent.color = RED;
+                    rotateLeft( parent );
+                    sibling = parent.right;
+                }
+                
+                if ( !isRed( sibling.left ) && !isRed( sibling.right ) ) {
+                    sibling.color = RED;
+                    contarInversao();
+                    node = parent;
+                } else {
+                    if ( !isRed( sibling.right ) ) {
+                        sibling.left.color = BLACK;
+                        sibling.color = RED;
+                        rotateRight( sibling );
+                        sibling = parent.right;
+                    }
+                    sibling.color = parent.color;
+                    parent.color = BLACK;
+                    sibling.right.color = BLACK;
+                    rotateLeft( parent );
+                    node = root;
+                }
+                
+            } else {
+                
+                Node<Key, Value> sibling = parent.left;
+                
+                if ( isRed( sibling ) ) {
+                    sibling.color = BLACK;
+                    parent.color = RED;
+                    rotateRight( parent );
+                    sibling = parent.left;
+                }
+                
+                if ( !isRed( sibling.left ) && !isRed( sibling.right ) ) {
+                    sibling.color = RED;
+                    contarInversao();
+                    node = parent;
+                } else {
+                    if ( !isRed( sibling.left ) ) {
+                        sibling.right.color = BLACK;
+                        sibling.color = RED;
+                        rotateLeft( sibling );
+                        sibling = parent.left;
+                    }
+                    sibling.color = parent.color;
+                    parent.color = BLACK;
+                    sibling.left.color = BLACK;
+                    rotateRight( parent );
+                    node = root;
+                }
+                
+            }
+            
+        }
+        
+        node.color = BLACK;
+        
+    }
+    
+    public boolean contains( Key key ) throws IllegalArgumentException {
+        return get( key ) != null;
+    }
+    
+    /**
+     * Retorna a maior chave menor ou igual à chave informada.
+     *
+     * @param key A chave.
+     * @return A maior chave menor ou igual a key ou null caso não exista.
+     */
+    public Key floor( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to floor() is null" );
+        }
+        
+        Node<Key, Value> node = floorNode( key );
+        
+        return node == null ? null : node.key;
+        
+    }
+    
+    /**
+     * Retorna a menor chave maior ou igual à chave informada.
+     *
+     * @param key A chave.
+     * @return A menor chave maior ou igual a key ou null caso não exista.
+     */
+    public Key ceiling( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to ceiling() is null" );
+        }
+        
+        Node<Key, Value> node = ceilingNode( key );
+        
+        return node == null ? null : node.key;
+        
+    }
+    
+    private Node<Key, Value> floorNode( Key key ) {
+        
+        Node<Key, Value> floor = null;
+        Node<Key, Value> node = root;
+        
+        while ( node != null ) {
+            
+            int comp = key.compareTo( node.key );
+            
+            if ( comp < 0 ) {
+                node = node.left;
+            } else if ( comp > 0 ) {
+                floor = node;
+                node = node.right;
+            } else {
+                return node;
+            }
+            
+        }
+        
+        return floor;
+        
+    }
+    
+    private Node<Key, Value> ceilingNode( Key key ) {
+        
+        Node<Key, Value> ceiling = null;
+        Node<Key, Value> node = root;
+        
+        while ( node != null ) {
+            
+            int comp = key.compareTo( node.key );
+            
+            if ( comp < 0 ) {
+                ceiling = node;
+                node = node.left;
+            } else if ( comp > 0 ) {
+                node = node.right;
+            } else {
+                return node;
+            }
+            
+        }
+        
+        return ceiling;
+        
+    }
+    
+    /*
+     * Coloca replacement na posição que o nó ocupa no pai.
+     */
+    private void replaceChild( Node<Key, Value> node, Node<Key, Value> replacement ) {
+        if ( node.parent == null ) {
+            root = replacement;
+        } else if ( node == node.parent.left ) {
+            node.parent.left = replacement;
+        } else {
+            node.parent.right = replacement;
+        }
+    }
+    
+    /**
+     * Faz com que o filho à direita do nó tome o seu lugar.
+     *
+     * @param node nó de origem
+     */
+    private void rotateLeft( Node<Key, Value> node ) {
+        
+        contarRotacao();
+        Node<Key, Value> newRoot = node.right;
+        
+        node.right = newRoot.left;
+        if ( newRoot.left != null ) {
+            newRoot.left.parent = node;
+        }
+        
+        newRoot.parent = node.parent;
+        replaceChild( node, newRoot );
+        
+        newRoot.left = node;
+        node.parent = newRoot;
+        
+    }
+    
+    /**
+     * Faz com que o filho à esquerda do nó tome o seu lugar.
+     *
+     * @param node nó de origem
+     */
+    private void rotateRight( Node<Key, Value> node ) {
+        
+        contarRotacao();
+        Node<Key, Value> newRoot = node.left;
+        
+        node.left = newRoot.right;
+        if ( newRoot.right != null ) {
+            newRoot.right.parent = node;
+        }
+        
+        newRoot.parent = node.parent;
+        replaceChild( node, newRoot );
+        
+        newRoot.right = node;
+        node.parent = newRoot;
+        
+    }
+    
+    private static <Key extends Comparable<Key>, Value> Node<Key, Value> min( Node<Key, Value> node ) {
+        while ( node.left != null ) {
+            node = node.left;
+        }
+        return node;
+    }
+    
+    /*
+     * Próximo nó em ordem, subindo pelos pais quando não há subárvore
+     * direita.
+     */
+    private static <Key extends Comparable<Key>, Value> Node<Key, Value> successor( Node<Key, Value> node ) {
+        
+        if ( node.right != null ) {
+            return min( node.right );
+        }
+        
+        Node<Key, Value> parent = node.parent;
+        while ( parent != null && node == parent.right ) {
+            node = parent;
+            parent = parent.parent;
+        }
+        
+        return parent;
+        
+    }
+    
+    public void clear() {
+        root = null;
+        size = 0;
+        modCount++;
+    }
+    
+    public boolean isEmpty() {
+        return root == null;
+    }
+    
+    @Override
+    public Iterator<Key> iterator() {
+        return new InOrderIterator( root == null ? null : min( root ), null );
+    }
+    
+    public Iterable<Key> getKeys() {
+        return this;
+    }
+    
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, sem copiá-las.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Key> getKeys( Key lo, Key hi ) throws IllegalArgumentException {
+        if ( lo == null ) {
+            throw new IllegalArgumentException( "first argument to getKeys() is null" );
+        }
+        if ( hi == null ) {
+            throw new IllegalArgumentException( "second argument to getKeys() is null" );
+        }
+        return () -> new InOrderIterator( ceilingNode( lo ), hi );
+    }
+    
+    /*
+     * Iterador em ordem, opcionalmente limitado a hi (inclusivo), que avança
+     * pelos links para os pais e por isso não precisa de pilha.
+     */
+    private class InOrderIterator implements Iterator<Key> {
+        
+        private Node<Key, Value> next;
+        private final Key hi;
+        private final int expectedModCount;
+        
+        InOrderIterator( Node<Key, Value> first, Key hi ) {
+            this.next = first;
+            this.hi = hi;
+            this.expectedModCount = modCount;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if ( modCount != expectedModCount ) {
+                throw new ConcurrentModificationException();
+            }
+            return next != null && ( hi == null || hi.compareTo( next.key ) >= 0 );
+        }
+        
+        @Override
+        public Key next() {
+            
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            
+            Key key = next.key;
+            next = successor( next );
+            
+            return key;
+            
+        }
+        
+    }
+    
+    @Override
+    public String toString() {
+        
+        StringBuilder sb = new StringBuilder();
+        
+        if ( !isEmpty()) {
+            preOrderForPrint( root, "", null, sb );
+        } else {
+            sb.append( "empty red-black tree!\n" );
+        }
+        
+        return sb.toString();
+        
+    }
+    
+    private void preOrderForPrint( Node<Key, Value> node, String ident, String leftRight, StringBuilder sb ) {
+        
+        if ( node != null ) {
+            
+            String rootIdent = "";
+            String leafIdent = "";
+            
+            if ( node != root ) {
+                rootIdent = ident + "|--";
+                leafIdent = ident + "|  ";
+            }
+            
+            sb.append( rootIdent );
+            if ( leftRight != null ) {
+                sb.append( "(" ).append( leftRight ).append( ") " );
+            }
+            sb.append( node );
+            if ( node == root ) {
+                sb.append(  " <- root" );
+            }
+            sb.append( "\n" );
+            
+            preOrderForPrint( node.left, leafIdent, "L", sb );
+            preOrderForPrint( node.right, leafIdent, "R", sb );
+            
+        }
+        
+    }
+
+}
@@ -0,0 +1,563 @@
+package projetoesdarvores.esd;
+
+import aesd.ds.implementations.linear.ResizingArrayStack;
+import aesd.ds.interfaces.Stack;
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import projetoesdarvores.esd.ArvoreVermelhoPreto.NodeColor;
+
+/**
+ * Implementação de uma árvore vermelho-preto persistente (imutável).
+ *
+ * Tem o mesmo balanceamento da ArvoreVermelhoPreto, mas os nós nunca são
+ * alterados: put e delete copiam apenas os O(lg n) nós do caminho da raiz
+ * até a posição alterada (incluindo os nós tocados por rotações e inversões
+ * de cor) e retornam uma nova versão da árvore, que compartilha todo o resto
+ * com a versão anterior. A versão original continua válida e inalterada.
+ *
+ * Como todos os campos são finais, qualquer versão pode ser lida por
+ * qualquer thread sem travas depois de publicada, e um instantâneo de uma
+ * versão (snapshot) custa O(1).
+ *
+ * Implementação baseada nas obras:
+ *     SEDGEWICK, R.; WAYNE, K. Algorithms. 4. ed. Boston: Pearson
+ *     Education, 2011. 955 p.
+ *     OKASAKI, C. Purely Functional Data Structures. Cambridge University
+ *     Press, 1998. 220 p.
+ *
+ * @param <Key> Tipo das chaves que serão armazenadas na árvore.
+ * @param <Value> Tipo dos valores associados às chaves armazenadas na árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ArvoreVermelhoPretoPersistente<Key extends Comparable<Key>, Value> implements Iterable<Key> {
+
+    /*
+     * Classe interna estática que define os nós imutáveis da árvore.
+     */
+    public static class Node<Key extends Comparable<Key>, Value> {
+        
+        public final Key key;
+        public final Value value;
+        public final Node<Key, Value> left;
+        public final Node<Key, Value> right;
+        
+        public final NodeColor color;
+        public final int size;
+        
+        Node( Key key, Value value, Node<Key, Value> left, Node<Key, Value> right, NodeColor color ) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.color = color;
+            this.size = nodeSize( left ) + nodeSize( right ) + 1;
+        }
+        
+        Node<Key, Value> withLeft( Node<Key, Value> left ) {
+            return left == this.left ? this : new Node<>( key, value, left, right, color );
+        }
+        
+        Node<Key, Value> withRight( Node<Key, Value> right ) {
+            return right == this.right ? this : new Node<>( key, value, left, right, color );
+        }
+        
+        Node<Key, Value> withColor( NodeColor color ) {
+            return color == this.color ? this : new Node<>( key, value, left, right, color );
+        }
+        
+        @Override
+        public String toString() {
+            return key + " -> " + value + " (" + ( color == NodeColor.RED ? "R" : "B" ) + ")";
+        }
+        
+    }
+    
+    // raiz desta versão da árvore
+    private final Node<Key, Value> root;
+    
+    /**
+     * Constrói uma Árvore vermelho-preto persistente vazia.
+     */
+    public ArvoreVermelhoPretoPersistente() {
+        root = null;
+    }
+    
+    private ArvoreVermelhoPretoPersistente( Node<Key, Value> root ) {
+        this.root = root;
+    }
+    
+    /**
+     * Retorna um instantâneo desta versão em O(1). Como a árvore é imutável,
+     * o instantâneo é a própria versão.
+     *
+     * @return Esta versão da árvore.
+     */
+    public ArvoreVermelhoPretoPersistente<Key, Value> snapshot() {
+        return this;
+    }
+    
+    private static boolean isRed( Node<?, ?> node ) {
+        return node != null && node.color == NodeColor.RED;
+    }
+    
+    private static int nodeSize( Node<?, ?> node ) {
+        return node == null ? 0 : node.size;
+    }
+    
+    public int getSize() {
+        return nodeSize( root );
+    }
+    
+    public boolean isEmpty() {
+        return root == null;
+    }
+    
+    /**
+     * Retorna uma nova versão com o par inserido ou atualizado. Esta versão
+     * não é alterada.
+     *
+     * @param key A chave.
+     * @param value O valor; null remove a chave, como em delete.
+     * @return A nova versão.
+     */
+    public ArvoreVermelhoPretoPersistente<Key, Value> put( Key key, Value value ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "first argument to put() is null" );
+        }
+        
+        if ( value == null ) {
+            return delete( key );
+        }
+        
+        Node<Key, Value> newRoot = put( root, key, value );
+        
+        if ( newRoot == root ) {
+            return this;
+        }
+        
+        return new ArvoreVermelhoPretoPersistente<>( newRoot.withColor( NodeColor.BLACK ) );
+        
+    }
+    
+    private Node<Key, Value> put( Node<Key, Value> node, Key key, Value value ) {
+        
+        if ( node == null ) {
+            return new Node<>( key, value, null, null, NodeColor.RED );
+        }
+        
+        int comp = key.compareTo( node.key );
+        
+        if ( comp < 0 ) {
+            node = node.withLeft( put( node.left, key, value ) );
+        } else if ( comp > 0 ) {
+            node = node.withRight( put( node.right, key, value ) );
+        } else if ( value != node.value ) {
+            node = new Node<>( key, value, node.left, node.right, node.color );
+        }
+        
+        // consertando os links inclinados à direita
+        if ( isRed( node.right ) && !isRed( node.left ) ) {
+            node = rotateLeft( node );
+        }
+        if ( isRed( node.left ) && isRed( node.left.left ) ) {
+            node = rotateRight( node );
+        }
+        if ( isRed( node.left ) && isRed( node.right ) ) {
+            node = flipColors( node );
+        }
+        
+        return node;
+        
+    }
+    
+    public Value get( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to get() is null" );
+        }
+        
+        Node<Key, Value> node = root;
+        
+        while ( node != null ) {
+            
+            int comp = key.compareTo( node.key );
+            
+            if ( comp < 0 ) {
+                node = node.left;
+            } else if ( comp > 0 ) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+            
+        }
+        
+        return null;
+        
+    }
+    
+    public boolean contains( Key key ) throws IllegalArgumentException {
+        return get( key ) != null;
+    }
+    
+    /**
+     * Retorna uma nova versão sem a chave informada. Esta versão não é
+     * alterada e, caso a chave não exista, é retornada.
+     *
+     * @param key A chave.
+     * @return A nova versão.
+     */
+    public ArvoreVermelhoPretoPersistente<Key, Value> delete( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to delete() is null" );
+        }
+        
+        if ( !contains( key ) ) {
+            return this;
+        }
+        
+        Node<Key, Value> newRoot = root;
+        
+        // se ambos os filhos da raiz forem pretos, configura a raiz como vermelho
+        if ( !isRed( newRoot.left ) && !isRed( newRoot.right ) ) {
+            newRoot = newRoot.withColor( NodeColor.RED );
+        }
+        
+        newRoot = delete( newRoot, key );
+        
+        if ( newRoot != null ) {
+            newRoot = newRoot.withColor( NodeColor.BLACK );
+        }
+        
+        return new ArvoreVermelhoPretoPersistente<>( newRoot );
+        
+    }
+    
+    private Node<Key, Value> delete( Node<Key, Value> node, Key key ) {
+        
+        if ( key.compareTo( node.key ) < 0 ) {
+            
+            if ( !isRed( node.left ) && !isRed( node.left.left ) ) {
+                node = moveRedLeft( node );
+            }
+            
+            node = node.withLeft( delete( node.left, key ) );
+            
+        } else {
+            
+            if ( isRed( node.left ) ) {
+                node = rotateRight( node );
+            }
+            
+            if ( key.compareTo( node.key ) == 0 && ( node.right == null ) ) {
+                return null;
+            }
+            
+            if ( !isRed( node.right ) && !isRed( node.right.left ) ) {
+                node = moveRedRight( node );
+            }
+            
+            if ( key.compareTo( node.key ) == 0 ) {
+                Node<Key, Value> x = min( node.right );
+                node = new Node<>( x.key, x.value, node.left, deleteMin( node.right ), node.color );
+            } else {
+                node = node.withRight( delete( node.right, key ) );
+            }
+            
+        }
+        
+        return balance( node );
+        
+    }
+    
+    private Node<Key, Value> deleteMin( Node<Key, Value> node ) {
+        
+        if ( node.left == null ) {
+            return null;
+        }
+        
+        if ( !isRed( node.left ) && !isRed( node.left.left ) ) {
+            node = moveRedLeft( node );
+        }
+        
+        node = node.withLeft( deleteMin( node.left ) );
+        
+        return balance( node );
+        
+    }
+    
+    /**
+     * Faz com que o link inclinado à esquerda se incline para a direita,
+     * criando cópias dos dois nós envolvidos.
+     *
+     * @param node nó de origem
+     * @return a nova raiz da subárvore.
+     */
+    private Node<Key, Value> rotateRight( Node<Key, Value> node ) {
+        Node<Key, Value> x = node.left;
+        Node<Key, Value> newRight = new Node<>( node.key, node.value, x.right, node.right, NodeColor.RED );
+        return new Node<>( x.key, x.value, x.left, newRight, node.color );
+    }
+    
+    /**
+     * Faz com que o link inclinado à direita se incline para a esquerda,
+     * criando cópias dos dois nós envolvidos.
+     *
+     * @param node nó de origem
+     * @return a nova raiz da subárvore.
+     */
+    private Node<Key, Value> rotateLeft( Node<Key, Value> node ) {
+        Node<Key, Value> x = node.right;
+        Node<Key, Value> newLeft = new Node<>( node.key, node.value, node.left, x.left, NodeColor.RED );
+        return new Node<>( x.key, x.value, newLeft, x.right, node.color );
+    }
+    
+    /**
+     * Retorna uma cópia do nó e de seus filhos com as cores invertidas.
+     *
+     * @param node nó de origem.
+     * @return a cópia.
+     */
+    private Node<Key, Value> flipColors( Node<Key, Value> node ) {
+        return new Node<>( node.key, node.value,
+                node.left.withColor( flip( node.left.color ) ),
+                node.right.withColor( flip( node.right.color ) ),
+                flip( node.color ) );
+    }
+    
+    private static NodeColor flip( NodeColor color ) {
+        return color == NodeColor.RED ? NodeColor.BLACK : NodeColor.RED;
+    }
+    
+    /**
+     * Assumindo que o nó é vermelho e ambos os seus filhos são pretos, faz
+     * com que a esquerda do nó ou um de seus filhos seja vermelho.
+     *
+     * @param node nó a ser movido.
+     * @return a cópia modificada do nó.
+     */
+    private Node<Key, Value> moveRedLeft( Node<Key, Value> node ) {
+        
+        node = flipColors( node );
+        
+        if ( isRed( node.right.left ) ) {
+            node = node.withRight( rotateRight( node.right ) );
+            node = rotateLeft( node );
+            node = flipColors( node );
+        }
+        
+        return node;
+        
+    }
+    
+    /**
+     * Assumindo que o nó é vermelho e ambos os seus filhos são pretos, faz
+     * com que nó da direita ou um de seus filhos seja vermelho.
+     *
+     * @param node nó a ser movido.
+     * @return a cópia modificada do nó.
+     */
+    private Node<Key, Value> moveRedRight( Node<Key, Value> node ) {
+        
+        node = flipColors( node );
+        
+        if ( isRed( node.left.left ) ) {
+            node = rotateRight( node );
+            node = flipColors( node );
+        }
+        
+        return node;
+        
+    }
+    
+    /**
+     * Recupera a condição de existência (invariante) para a árvore vermelho-preto.
+     *
+     * @param node nó de origem.
+     * @return o nó, possivelmente substituído por uma cópia.
+     */
+    private Node<Key, Value> balance( Node<Key, Value> node ) {
+        
+        if ( isRed( node.right ) ) {
+            node = rotateLeft( node );
+        }
+        
+        if ( isRed( node.left ) && isRed( node.left.left ) ) {
+            node = rotateRight( node );
+        }
+        
+        if ( isRed( node.left ) && isRed( node.right ) ) {
+            node = flipColors( node );
+        }
+        
+        return node;
+        
+    }
+    
+    private Node<Key, Value> min( Node<Key, Value> node ) {
+        
+        while ( node.left != null ) {
+            node = node.left;
+        }
+        
+        return node;
+        
+    }
+    
+    @Override
+    public Iterator<Key> iterator() {
+        return new InOrderIterator<>( null, null, node -> node.key );
+    }
+    
+    public Iterable<Key> getKeys() {
+        return this;
+    }
+    
+    /**
+     * Retorna as chaves do intervalo [lo, hi] em ordem, sem copiá-las.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return As chaves do intervalo.
+     */
+    public Iterable<Key> getKeys( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getKeys()" );
+        return () -> new InOrderIterator<>( lo, hi, node -> node.key );
+    }
+    
+    /**
+     * Retorna os pares chave/valor desta versão em ordem, sem copiá-los.
+     *
+     * @return Os pares chave/valor.
+     */
+    public Iterable<Entry<Key, Value>> getEntries() {
+        return () -> new InOrderIterator<>( null, null, node -> new Entry<>( node.key, node.value ) );
+    }
+    
+    /**
+     * Retorna os pares chave/valor do intervalo [lo, hi] em ordem, sem
+     * copiá-los.
+     *
+     * @param lo Limite inferior (inclusivo).
+     * @param hi Limite superior (inclusivo).
+     * @return Os pares chave/valor do intervalo.
+     */
+    public Iterable<Entry<Key, Value>> getEntries( Key lo, Key hi ) throws IllegalArgumentException {
+        checkRange( lo, hi, "getEntries()" );
+        return () -> new InOrderIterator<>( lo, hi, node -> new Entry<>( node.key, node.value ) );
+    }
+    
+    private void checkRange( Key lo, Key hi, String method ) throws IllegalArgumentException {
+        if ( lo == null ) {
+            throw new IllegalArgumentException( "first argument to " + method + " is null" );
+        }
+        if ( hi == null ) {
+            throw new IllegalArgumentException( "second argument to " + method + " is null" );
+        }
+    }
+    
+    /*
+     * Iterador em ordem preguiçoso, opcionalmente limitado ao intervalo
+     * [lo, hi], com memória extra proporcional à altura da árvore. Como a
+     * versão iterada nunca muda, não há verificação de modificação
+     * concorrente: novas versões criadas durante a iteração não a afetam.
+     */
+    private class InOrderIterator<T> implements Iterator<T> {
+        
+        private final Stack<Node<Key, Value>> stack;
+        private final Key hi;
+        private final Function<Node<Key, Value>, T> extractor;
+        
+        InOrderIterator( Key lo, Key hi, Function<Node<Key, Value>, T> extractor ) {
+            
+            this.stack = new ResizingArrayStack<>();
+            this.hi = hi;
+            this.extractor = extractor;
+            
+            // empilha o caminho até a menor chave maior ou igual a lo
+            Node<Key, Value> node = root;
+            while ( node != null ) {
+                if ( lo != null && lo.compareTo( node.key ) > 0 ) {
+                    node = node.right;
+                } else {
+                    stack.push( node );
+                    node = node.left;
+                }
+            }
+            
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && ( hi == null || hi.compareTo( stack.peek().key ) >= 0 );
+        }
+        
+        @Override
+        public T next() {
+            
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            
+            Node<Key, Value> node = stack.pop();
+            
+            for ( Node<Key, Value> n = node.right; n != null; n = n.left ) {
+                stack.push( n );
+            }
+            
+            return extractor.apply( node );
+            
+        }
+        
+    }
+    
+    @Override
+    public String toString() {
+        
+        StringBuilder sb = new StringBuilder();
+        
+        if ( !isEmpty()) {
+            preOrderForPrint( root, "", null, sb );
+        } else {
+            sb.append( "empty red-black tree!\n" );
+        }
+        
+        return sb.toString();
+        
+    }
+    
+    private void preOrderForPrint( Node<Key, Value> node, String ident, String leftRight, StringBuilder sb ) {
+        
+        if ( node != null ) {
+            
+            String rootIdent = "";
+            String leafIdent = "";
+            
+            if ( node != root ) {
+                rootIdent = ident + "|--";
+                leafIdent = ident + "|  ";
+            }
+            
+            sb.append( rootIdent );
+            if ( leftRight != null ) {
+                sb.append( "(" ).append( leftRight ).append( ") " );
+            }
+            sb.append( node );
+            if ( node == root ) {
+                sb.append(  " <- root" );
+            }
+            sb.append( "\n" );
+            
+            preOrderForPrint( node.left, leafIdent, "L", sb );
+            preOrderForPrint( node.right, leafIdent, "R", sb );
+            
+        }
+        
+    }
+
+}
@@ -0,0 +1,112 @@
+package projetoesdarvores.esd;
+
+import java.util.Arrays;
+
+/**
+ * Ouvinte estrutural que guarda os últimos passos em um buffer circular de
+ * capacidade fixa, com um arranjo por campo, para que os simuladores os
+ * consumam no seu próprio ritmo.
+ *
+ * Cada passo recebe um número de sequência crescente. Quando o buffer está
+ * cheio os passos mais antigos são sobrescritos, então um leitor atrasado
+ * deve recomeçar de getPrimeiraSequencia(). Registrar um passo não aloca
+ * memória. A classe não é sincronizada: a árvore e o leitor devem estar na
+ * mesma thread ou sincronizar-se externamente.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class BufferEventosEstruturais implements OuvinteEstrutural {
+
+    private static final TipoEvento[] TIPOS = TipoEvento.values();
+    
+    private final byte[] tipos;
+    private final Object[] chaves;
+    private final Object[] outras;
+    private final int[] valores;
+    private final int mascara;
+    
+    // sequência do próximo passo a ser gravado
+    private long proxima;
+    
+    /**
+     * Cria um buffer com capacidade para pelo menos a quantidade de passos
+     * informada, arredondada para a próxima potência de dois.
+     *
+     * @param capacidade A capacidade mínima.
+     */
+    public BufferEventosEstruturais( int capacidade ) throws IllegalArgumentException {
+        
+        if ( capacidade <= 0 || capacidade > ( 1 << 30 ) ) {
+            throw new IllegalArgumentException( "capacity must be between 1 and 2^30" );
+        }
+        
+        int c = Integer.highestOneBit( capacidade );
+        if ( c < capacidade ) {
+            c <<= 1;
+        }
+        
+        tipos = new byte[c];
+        chaves = new Object[c];
+        outras = new Object[c];
+        valores = new int[c];
+        mascara = c - 1;
+        
+    }
+    
+    @Override
+    public void evento( TipoEvento tipo, Object chave, Object outra, int valor ) {
+        int i = (int) ( proxima & mascara );
+        tipos[i] = (byte) tipo.ordinal();
+        chaves[i] = chave;
+        outras[i] = outra;
+        valores[i] = valor;
+        proxima++;
+    }
+    
+    /**
+     * Retorna a sequência do passo mais antigo ainda guardado.
+     */
+    public long getPrimeiraSequencia() {
+        return Math.max( 0, proxima - tipos.length );
+    }
+    
+    /**
+     * Retorna a sequência que o próximo passo receberá.
+     */
+    public long getProximaSequencia() {
+        return proxima;
+    }
+    
+    public TipoEvento getTipo( long sequencia ) throws IllegalArgumentException {
+        return TIPOS[tipos[indice( sequencia )]];
+    }
+    
+    public Object getChave( long sequencia ) throws IllegalArgumentException {
+        return chaves[indice( sequencia )];
+    }
+    
+    public Object getOutraChave( long sequencia ) throws IllegalArgumentException {
+        return outras[indice( sequencia )];
+    }
+    
+    public int getValor( long sequencia ) throws IllegalArgumentException {
+        return valores[indice( sequencia )];
+    }
+    
+    /**
+     * Descarta todos os passos guardados, soltando as referências às chaves.
+     */
+    public void clear() {
+        Arrays.fill( chaves, null );
+        Arrays.fill( outras, null );
+        proxima = 0;
+    }
+    
+    private int indice( long sequencia ) throws IllegalArgumentException {
+        if ( sequencia < getPrimeiraSequencia() || sequencia >= proxima ) {
+            throw new IllegalArgumentException( "sequence " + sequencia + " is not in the buffer" );
+        }
+        return (int) ( sequencia & mascara );
+    }
+
+}
@@ -0,0 +1,122 @@
+package projetoesdarvores.esd;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codificação binária de chaves ou valores usada por writeTo e readFrom das
+ * árvores balanceadas.
+ *
+ * Como as chaves são gravadas em ordem crescente, cada chave após a primeira
+ * é gravada com writeDelta, que recebe a chave anterior e pode gravar apenas
+ * a diferença entre elas. Por padrão writeDelta e readDelta delegam para
+ * write e read.
+ *
+ * @param <T> Tipo codificado.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public interface Codec<T> {
+
+    /**
+     * Inteiros em varint zigzag; como chaves, diferenças em varint.
+     */
+    public static final Codec<Integer> INTEGER = new Codec<>() {
+        
+        @Override
+        public void write( Integer value, DataOutput out ) throws IOException {
+            FormatoBinario.writeVarLong( out, ( ( value << 1 ) ^ ( value >> 31 ) ) & 0xFFFFFFFFL );
+        }
+        
+        @Override
+        public Integer read( DataInput in ) throws IOException {
+            int z = (int) FormatoBinario.readVarLong( in );
+            return ( z >>> 1 ) ^ -( z & 1 );
+        }
+        
+        // a subtração pode transbordar, mas a soma na leitura desfaz o
+        // transbordamento, então a diferença é gravada sem sinal
+        @Override
+        public void writeDelta( Integer previous, Integer current, DataOutput out ) throws IOException {
+            FormatoBinario.writeVarLong( out, ( current - previous ) & 0xFFFFFFFFL );
+        }
+        
+        @Override
+        public Integer readDelta( Integer previous, DataInput in ) throws IOException {
+            return previous + (int) FormatoBinario.readVarLong( in );
+        }
+        
+    };
+    
+    /**
+     * Inteiros longos em varint zigzag; como chaves, diferenças em varint.
+     */
+    public static final Codec<Long> LONG = new Codec<>() {
+        
+        @Override
+        public void write( Long value, DataOutput out ) throws IOException {
+            FormatoBinario.writeVarLong( out, ( value << 1 ) ^ ( value >> 63 ) );
+        }
+        
+        @Override
+        public Long read( DataInput in ) throws IOException {
+            long z = FormatoBinario.readVarLong( in );
+            return ( z >>> 1 ) ^ -( z & 1 );
+        }
+        
+        @Override
+        public void writeDelta( Long previous, Long current, DataOutput out ) throws IOException {
+            FormatoBinario.writeVarLong( out, current - previous );
+        }
+        
+        @Override
+        public Long readDelta( Long previous, DataInput in ) throws IOException {
+            return previous + FormatoBinario.readVarLong( in );
+        }
+        
+    };
+    
+    /**
+     * Textos em UTF-8 precedidos do comprimento em varint. Na leitura, um
+     * comprimento corrompido resulta em IOException, sem alocar o tamanho
+     * informado de uma vez.
+     */
+    public static final Codec<String> STRING = new Codec<>() {
+        
+        @Override
+        public void write( String value, DataOutput out ) throws IOException {
+            byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+            FormatoBinario.writeVarLong( out, bytes.length );
+            out.write( bytes );
+        }
+        
+        @Override
+        public String read( DataInput in ) throws IOException {
+            byte[] bytes = FormatoBinario.readBytes( in, FormatoBinario.readVarLong( in ) );
+            return new String( bytes, StandardCharsets.UTF_8 );
+        }
+        
+    };
+    
+    void write( T value, DataOutput out ) throws IOException;
+    
+    T read( DataInput in ) throws IOException;
+    
+    /**
+     * Grava current, sabendo que a última chave gravada foi previous.
+     */
+    default void writeDelta( T previous, T current, DataOutput out ) throws IOException {
+        write( current, out );
+    }
+    
+    /**
+     * Lê a chave gravada por writeDelta, sabendo que a última chave lida
+     * foi previous.
+     */
+    default T readDelta( T previous, DataInput in ) throws IOException {
+        return read( in );
+    }
+
+}
@@ -0,0 +1,314 @@
+package projetoesdarvores.esd;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementação comum dos cursores da ArvoreAVL e da ArvoreVermelhoPreto,
+ * cujos nós não têm um tipo em comum: cada árvore informa, nos métodos
+ * abstratos, como ler a raiz, os filhos, a chave e o valor dos seus nós.
+ *
+ * O cursor guarda o caminho da raiz até o nó atual. next e previous custam
+ * O(1) amortizado ao longo de um percurso. seek é uma busca com
+ * reaproveitamento de ancestrais: sobe pelo caminho guardado apenas até o
+ * primeiro ancestral cuja subárvore contém a chave procurada e desce a
+ * partir dele. Quando a chave atual e a procurada estão sob um ancestral
+ * comum baixo, a subida e a descida são curtas; quando estão separadas por
+ * um ancestral alto, mesmo sendo vizinhas, a subida chega até ele e o custo
+ * é o de uma busca desde a raiz. Não há, portanto, a garantia de O(log d)
+ * para uma chave a d posições de distância das buscas por dedo, que exigem
+ * ligações entre os nós de cada nível.
+ *
+ * Uma modificação estrutural da árvore invalida o caminho guardado: isValid,
+ * getKey, getValue, setValue, next e previous passam a lançar
+ * ConcurrentModificationException, enquanto seek, seekFirst e seekLast
+ * reposicionam o cursor a partir da raiz e voltam a acompanhar a árvore.
+ *
+ * @param <Key> Tipo das chaves.
+ * @param <Value> Tipo dos valores.
+ * @param <N> Tipo dos nós da árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+abstract class CursorCaminho<Key extends Comparable<Key>, Value, N> {
+
+    // caminho da raiz até o nó atual, nas posições [0, depth); vazio
+    // quando o cursor está fora da árvore
+    private N[] path;
+    private int depth;
+    private int expectedModCount;
+    
+    /**
+     * @param path Arranjo inicial do caminho, criado pela árvore com o tipo
+     * dos seus nós.
+     * @param modCount Contador de modificações atual da árvore.
+     */
+    CursorCaminho( N[] path, int modCount ) {
+        this.path = path;
+        this.expectedModCount = modCount;
+    }
+    
+    abstract N root();
+    
+    abstract int modCount();
+    
+    abstract N left( N node );
+    
+    abstract N right( N node );
+    
+    abstract Key key( N node );
+    
+    abstract Value value( N node );
+    
+    abstract void setValue( N node, Value value );
+    
+    /**
+     * Chamado depois de setValue trocar o valor do nó atual, com o caminho
+     * ainda posicionado nele. Nada faz por padrão.
+     */
+    void valueChanged() {
+    }
+    
+    /**
+     * Quantidade de nós do caminho guardado, da raiz até o nó atual.
+     */
+    final int depth() {
+        return depth;
+    }
+    
+    /**
+     * Nó do caminho guardado na profundidade informada, sendo 0 a raiz.
+     */
+    final N node( int i ) {
+        return path[i];
+    }
+    
+    /**
+     * Verifica se o cursor está posicionado em um par da árvore.
+     *
+     * @return true caso esteja, false caso esteja fora da árvore.
+     */
+    public boolean isValid() {
+        checkForComodification();
+        return depth > 0;
+    }
+    
+    public Key getKey() throws NoSuchElementException {
+        return key( current() );
+    }
+    
+    public Value getValue() throws NoSuchElementException {
+        return value( current() );
+    }
+    
+    /**
+     * Substitui o valor do par atual sem buscá-lo novamente. A troca não é
+     * uma modificação estrutural, então não invalida outros cursores nem
+     * iteradores.
+     *
+     * @param value O novo valor.
+     */
+    public void setValue( Value value ) throws IllegalArgumentException, NoSuchElementException {
+        
+        if ( value == null ) {
+            throw new IllegalArgumentException( "argument to setValue() is null" );
+        }
+        
+        setValue( current(), value );
+        valueChanged();
+        
+    }
+    
+    /**
+     * Posiciona o cursor na menor chave da árvore.
+     *
+     * @return true caso a árvore não esteja vazia.
+     */
+    public boolean seekFirst() {
+        restart();
+        for ( N node = root(); node != null; node = left( node ) ) {
+            push( node );
+        }
+        return depth > 0;
+    }
+    
+    /**
+     * Posiciona o cursor na maior chave da árvore.
+     *
+     * @return true caso a árvore não esteja vazia.
+     */
+    public boolean seekLast() {
+        restart();
+        for ( N node = root(); node != null; node = right( node ) ) {
+            push( node );
+        }
+        return depth > 0;
+    }
+    
+    /**
+     * Posiciona o cursor na menor chave maior ou igual à chave informada,
+     * reaproveitando os ancestrais da posição atual, ou fora da árvore caso
+     * ela não exista.
+     *
+     * @param key A chave.
+     * @return true caso a chave esteja na árvore.
+     */
+    public boolean seek( Key key ) throws IllegalArgumentException {
+        
+        if ( key == null ) {
+            throw new IllegalArgumentException( "argument to seek() is null" );
+        }
+        
+        if ( modCount() != expectedModCount || depth == 0 ) {
+            restart();
+            return descend( root(), key );
+        }
+        
+        int comp = key.compareTo( key( path[depth-1] ) );
+        
+        if ( comp == 0 ) {
+            return true;
+        }
+        
+        // sobe enquanto a subárvore de path[i] não puder conter a chave:
+        // indo para a direita, a subárvore de um filho esquerdo tem como
+        // limite superior a chave do pai; indo para a esquerda, a de um
+        // filho direito tem como limite inferior a chave do pai
+        int i = depth - 1;
+        
+        while ( i > 0 ) {
+            
+            N parent = path[i-1];
+            
+            if ( comp > 0 ? path[i] == left( parent ) : path[i] == right( parent ) ) {
+                
+                int c = key.compareTo( key( parent ) );
+                
+                if ( c == 0 ) {
+                    depth = i;
+                    return true;
+                }
+                
+                if ( comp > 0 ? c < 0 : c > 0 ) {
+                    break;
+                }
+                
+            }
+            
+            i--;
+            
+        }
+        
+        N node = path[i];
+        depth = i;
+        
+        return descend( node, key );
+        
+    }
+    
+    /**
+     * Avança para a próxima chave em ordem.
+     *
+     * @return true caso o cursor continue na árvore.
+     */
+    public boolean next() throws NoSuchElementException {
+        
+        N node = current();
+        
+        if ( right( node ) != null ) {
+            for ( node = right( node ); node != null; node = left( node ) ) {
+                push( node );
+            }
+        } else {
+            // sobe enquanto vier de um filho direito
+            do {
+                node = path[--depth];
+            } while ( depth > 0 && right( path[depth-1] ) == node );
+        }
+        
+        return depth > 0;
+        
+    }
+    
+    /**
+     * Volta para a chave anterior em ordem.
+     *
+     * @return true caso o cursor continue na árvore.
+     */
+    public boolean previous() throws NoSuchElementException {
+        
+        N node = current();
+        
+        if ( left( node ) != null ) {
+            for ( node = left( node ); node != null; node = right( node ) ) {
+                push( node );
+            }
+        } else {
+            // sobe enquanto vier de um filho esquerdo
+            do {
+                node = path[--depth];
+            } while ( depth > 0 && left( path[depth-1] ) == node );
+        }
+        
+        return depth > 0;
+        
+    }
+    
+    /*
+     * Desce a partir de node, que deve ser o próximo nó do caminho,
+     * procurando a chave. Caso ela não exista, o caminho é recuado até o
+     * último nó em que a descida foi para a esquerda, o sucessor da chave.
+     */
+    private boolean descend( N node, Key key ) {
+        
+        while ( node != null ) {
+            
+            push( node );
+            int comp = key.compareTo( key( node ) );
+            
+            if ( comp < 0 ) {
+                node = left( node );
+            } else if ( comp > 0 ) {
+                node = right( node );
+            } else {
+                return true;
+            }
+            
+        }
+        
+        while ( depth > 0 && key.compareTo( key( path[depth-1] ) ) > 0 ) {
+            depth--;
+        }
+        
+        return false;
+        
+    }
+    
+    private void push( N node ) {
+        if ( depth == path.length ) {
+            path = Arrays.copyOf( path, 2 * depth );
+        }
+        path[depth++] = node;
+    }
+    
+    private void restart() {
+        depth = 0;
+        expectedModCount = modCount();
+    }
+    
+    private N current() throws NoSuchElementException {
+        checkForComodification();
+        if ( depth == 0 ) {
+            throw new NoSuchElementException( "cursor is not positioned" );
+        }
+        return path[depth-1];
+    }
+    
+    private void checkForComodification() {
+        if ( modCount() != expectedModCount ) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+}
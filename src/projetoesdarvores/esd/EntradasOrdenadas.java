@@ -0,0 +1,200 @@
+package projetoesdarvores.esd;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Fonte de pares chave/valor em ordem estritamente crescente de chaves,
+ * consumida pelas construções em lote das árvores balanceadas.
+ *
+ * Os pares podem vir de arranjos ou de um iterador e são validados à medida
+ * que são lidos, então nenhuma cópia intermediária é feita.
+ *
+ * @param <Key> Tipo das chaves.
+ * @param <Value> Tipo dos valores.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+class EntradasOrdenadas<Key extends Comparable<Key>, Value> {
+
+    private final Key[] keys;
+    private final Value[] values;
+    private final Iterator<Entry<Key, Value>> iterator;
+    private final int size;
+    private final int from;
+    private int position;
+    
+    // par lido pela última chamada a next()
+    Key key;
+    Value value;
+    
+    EntradasOrdenadas( Key[] keys, Value[] values ) throws IllegalArgumentException {
+        
+        if ( keys == null || values == null ) {
+            throw new IllegalArgumentException( "keys and values must not be null" );
+        }
+        
+        if ( keys.length != values.length ) {
+            throw new IllegalArgumentException( "keys and values must have the same length" );
+        }
+        
+        this.keys = keys;
+        this.values = values;
+        this.iterator = null;
+        this.size = keys.length;
+        this.from = 0;
+        
+    }
+    
+    /*
+     * Pares das posições [from, to) de arranjos já validados e ordenados,
+     * usada pelas operações em lote para construir uma subárvore com parte
+     * do lote.
+     */
+    EntradasOrdenadas( Key[] keys, Value[] values, int from, int to ) {
+        this.keys = keys;
+        this.values = values;
+        this.iterator = null;
+        this.size = to - from;
+        this.from = from;
+        this.position = from;
+    }
+    
+    EntradasOrdenadas( Iterator<Entry<Key, Value>> iterator, int size ) throws IllegalArgumentException {
+        
+        if ( iterator == null ) {
+            throw new IllegalArgumentException( "iterator must not be null" );
+        }
+        
+        if ( size < 0 ) {
+            throw new IllegalArgumentException( "size must not be negative" );
+        }
+        
+        this.keys = null;
+        this.values = null;
+        this.iterator = iterator;
+        this.size = size;
+        this.from = 0;
+        
+    }
+    
+    int getSize() {
+        return size;
+    }
+    
+    /*
+     * Avança para o próximo par, disponível em key e value, verificando que
+     * a chave é maior que a anterior.
+     */
+    void next() throws IllegalArgumentException {
+        
+        Key previous = key;
+        
+        if ( iterator == null ) {
+            key = keys[position];
+            value = values[position];
+        } else {
+            if ( !iterator.hasNext() ) {
+                throw new IllegalArgumentException( "iterator has fewer than " + size + " entries" );
+            }
+            Entry<Key, Value> e = iterator.next();
+            key = e.getKey();
+            value = e.getValue();
+        }
+        
+        position++;
+        
+        if ( key == null || value == null ) {
+            throw new IllegalArgumentException( "null key or value at position " + ( position - from - 1 ) );
+        }
+        
+        if ( previous != null && previous.compareTo( key ) >= 0 ) {
+            throw new IllegalArgumentException( "keys are not in strictly increasing order at position " + ( position - from - 1 ) );
+        }
+        
+    }
+    
+    /**
+     * Ordena pares fora de ordem usando ordenação paralela e descarta as
+     * chaves repetidas, mantendo o último valor de cada chave, como
+     * aconteceria com chamadas sucessivas a put.
+     *
+     * @param keys As chaves.
+     * @param values Os valores, na mesma posição das chaves.
+     * @return Os pares em ordem estritamente crescente de chaves.
+     */
+    static <Key extends Comparable<Key>, Value> EntradasOrdenadas<Key, Value> sort( Key[] keys, Value[] values )
+            throws IllegalArgumentException {
+            
+        Entry<Key, Value>[] entries = sortEntries( keys, values );
+        
+        return new EntradasOrdenadas<>( new Iterator<Entry<Key, Value>>() {
+            
+            private int i;
+            
+            @Override
+            public boolean hasNext() {
+                return i < entries.length;
+            }
+            
+            @Override
+            public Entry<Key, Value> next() {
+                if ( i >= entries.length ) {
+                    throw new NoSuchElementException();
+                }
+                return entries[i++];
+            }
+            
+        }, entries.length );
+        
+    }
+    
+    /**
+     * Ordena pares fora de ordem como sort, retornando-os em um arranjo sem
+     * posições vazias.
+     *
+     * @param keys As chaves.
+     * @param values Os valores, na mesma posição das chaves.
+     * @return Os pares em ordem estritamente crescente de chaves.
+     */
+    static <Key extends Comparable<Key>, Value> Entry<Key, Value>[] sortEntries( Key[] keys, Value[] values )
+            throws IllegalArgumentException {
+            
+        if ( keys == null || values == null ) {
+            throw new IllegalArgumentException( "keys and values must not be null" );
+        }
+        
+        if ( keys.length != values.length ) {
+            throw new IllegalArgumentException( "keys and values must have the same length" );
+        }
+        
+        @SuppressWarnings( "unchecked" )
+        Entry<Key, Value>[] entries = (Entry<Key, Value>[]) new Entry<?, ?>[keys.length];
+        
+        for ( int i = 0; i < keys.length; i++ ) {
+            if ( keys[i] == null || values[i] == null ) {
+                throw new IllegalArgumentException( "null key or value at position " + i );
+            }
+            entries[i] = new Entry<>( keys[i], values[i] );
+        }
+        
+        // a ordenação paralela de objetos é estável, então entre chaves
+        // iguais a última da entrada continua sendo a última
+        Arrays.parallelSort( entries, ( a, b ) -> a.getKey().compareTo( b.getKey() ) );
+        
+        int n = 0;
+        for ( int i = 0; i < entries.length; i++ ) {
+            if ( n > 0 && entries[n-1].getKey().compareTo( entries[i].getKey() ) == 0 ) {
+                entries[n-1] = entries[i];
+            } else {
+                entries[n++] = entries[i];
+            }
+        }
+        
+        return n == entries.length ? entries : Arrays.copyOf( entries, n );
+        
+    }
+
+}
@@ -0,0 +1,44 @@
+package projetoesdarvores.esd;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento do JDK Flight Recorder emitido pela Instrumentacao para cada
+ * operação amostrada que ultrapassa o limite de operação lenta.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+@Name( "projetoesdarvores.OperacaoLenta" )
+@Label( "Operação Lenta" )
+@Category( { "Projeto ESD Árvores" } )
+@Description( "Operação amostrada de uma árvore do pacote esd que ultrapassou o limite configurado" )
+class EventoOperacaoLenta extends Event {
+
+    @Label( "Árvore" )
+    String arvore;
+    
+    @Label( "Operação" )
+    String operacao;
+    
+    @Label( "Duração" )
+    @Timespan( Timespan.NANOSECONDS )
+    long duracao;
+    
+    @Label( "Comparações" )
+    int comparacoes;
+    
+    @Label( "Caminho" )
+    int caminho;
+    
+    @Label( "Rotações" )
+    int rotacoes;
+    
+    @Label( "Inversões de Cores" )
+    int inversoesCores;
+
+}
@@ -0,0 +1,223 @@
+package projetoesdarvores.esd;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Formato binário dos instantâneos gravados por writeTo e lidos por readFrom
+ * das árvores balanceadas:
+ *
+ *     mágico     4 bytes, "ESDA"
+ *     versão     1 byte
+ *     n          varint, quantidade de pares
+ *     pares      n vezes: chave (a primeira com write, as demais com
+ *                writeDelta do codec de chaves) e valor
+ *     crc        4 bytes, CRC32 de todos os bytes anteriores
+ *
+ * Os pares são gravados e lidos um a um, diretamente do iterador em ordem
+ * da árvore e para a construção linear a partir de pares ordenados, sem
+ * lista intermediária.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+final class FormatoBinario {
+
+    private static final int MAGICO = 0x45534441;
+    private static final int VERSAO = 1;
+    private static final int TAMANHO_BUFFER = 1 << 16;
+    
+    // maior bloco alocado de uma vez por readBytes antes de os dados
+    // confirmarem o comprimento lido
+    private static final int BLOCO_LEITURA = 1 << 13;
+    
+    private FormatoBinario() {
+    }
+    
+    static <Key, Value> void escrever( OutputStream saida, int n, Iterable<Entry<Key, Value>> entradas,
+            Codec<Key> codecChave, Codec<Value> codecValor ) throws IOException, IllegalArgumentException {
+            
+        verificar( saida, codecChave, codecValor );
+        
+        BufferedOutputStream buffer = new BufferedOutputStream( saida, TAMANHO_BUFFER );
+        CheckedOutputStream verificada = new CheckedOutputStream( buffer, new CRC32() );
+        DataOutputStream out = new DataOutputStream( verificada );
+        
+        out.writeInt( MAGICO );
+        out.writeByte( VERSAO );
+        writeVarLong( out, n );
+        
+        Key anterior = null;
+        for ( Entry<Key, Value> e : entradas ) {
+            if ( anterior == null ) {
+                codecChave.write( e.getKey(), out );
+            } else {
+                codecChave.writeDelta( anterior, e.getKey(), out );
+            }
+            codecValor.write( e.getValue(), out );
+            anterior = e.getKey();
+        }
+        
+        out.flush();
+        
+        // o crc não entra no próprio cálculo, então é gravado por fora
+        new DataOutputStream( buffer ).writeInt( (int) verificada.getChecksum().getValue() );
+        buffer.flush();
+        
+    }
+    
+    /*
+     * Lê um instantâneo e entrega seus pares, à medida que são decodificados,
+     * ao construtor da árvore. Como a entrada é lida com buffer, bytes além
+     * do fim do instantâneo podem ser consumidos.
+     */
+    static <Key, Value, T> T ler( InputStream entrada, Codec<Key> codecChave, Codec<Value> codecValor,
+            BiFunction<Iterator<Entry<Key, Value>>, Integer, T> construtor ) throws IOException, IllegalArgumentException {
+            
+        verificar( entrada, codecChave, codecValor );
+        
+        CheckedInputStream verificada = new CheckedInputStream( new BufferedInputStream( entrada, TAMANHO_BUFFER ), new CRC32() );
+        DataInputStream in = new DataInputStream( verificada );
+        
+        if ( in.readInt() != MAGICO ) {
+            throw new IOException( "not a tree snapshot" );
+        }
+        
+        int versao = in.readUnsignedByte();
+        if ( versao != VERSAO ) {
+            throw new IOException( "unsupported snapshot version: " + versao );
+        }
+        
+        long n = readVarLong( in );
+        if ( n < 0 || n > Integer.MAX_VALUE ) {
+            throw new IOException( "invalid entry count: " + n );
+        }
+        
+        Iterator<Entry<Key, Value>> pares = new Iterator<>() {
+            
+            private int lidos;
+            private Key anterior;
+            
+            @Override
+            public boolean hasNext() {
+                return lidos < n;
+            }
+            
+            @Override
+            public Entry<Key, Value> next() {
+                
+                if ( !hasNext() ) {
+                    throw new NoSuchElementException();
+                }
+                
+                try {
+                    Key chave = lidos == 0 ? codecChave.read( in ) : codecChave.readDelta( anterior, in );
+                    Value valor = codecValor.read( in );
+                    anterior = chave;
+                    lidos++;
+                    return new Entry<>( chave, valor );
+                } catch ( IOException exc ) {
+                    throw new UncheckedIOException( exc );
+                }
+                
+            }
+            
+        };
+        
+        T arvore;
+        
+        try {
+            arvore = construtor.apply( pares, (int) n );
+        } catch ( UncheckedIOException exc ) {
+            throw exc.getCause();
+        } catch ( IllegalArgumentException exc ) {
+            // pares nulos ou fora de ordem
+            throw new IOException( "invalid snapshot: " + exc.getMessage(), exc );
+        }
+        
+        int esperado = (int) verificada.getChecksum().getValue();
+        if ( in.readInt() != esperado ) {
+            throw new IOException( "snapshot checksum mismatch" );
+        }
+        
+        return arvore;
+        
+    }
+    
+    private static void verificar( Object fluxo, Codec<?> codecChave, Codec<?> codecValor ) throws IllegalArgumentException {
+        if ( fluxo == null ) {
+            throw new IllegalArgumentException( "stream or channel is null" );
+        }
+        if ( codecChave == null || codecValor == null ) {
+            throw new IllegalArgumentException( "codec is null" );
+        }
+    }
+    
+    /*
+     * Inteiros sem sinal em grupos de 7 bits, do menos significativo ao mais
+     * significativo, com o bit mais alto de cada byte indicando continuação.
+     */
+    static void writeVarLong( DataOutput out, long value ) throws IOException {
+        while ( ( value & ~0x7FL ) != 0 ) {
+            out.writeByte( (int) ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        out.writeByte( (int) value );
+    }
+    
+    /*
+     * Lê length bytes. O comprimento vem do próprio instantâneo e só é
+     * validado pela soma de verificação no final, então um comprimento
+     * corrompido não pode decidir sozinho o tamanho da alocação: os bytes são
+     * lidos em blocos que dobram de tamanho, a memória cresce apenas com os
+     * dados que de fato existem e uma entrada curta termina em EOFException.
+     */
+    static byte[] readBytes( DataInput in, long length ) throws IOException {
+        
+        if ( length < 0 || length > Integer.MAX_VALUE - 8 ) {
+            throw new IOException( "invalid length: " + length );
+        }
+        
+        int n = (int) length;
+        byte[] bytes = new byte[Math.min( n, BLOCO_LEITURA )];
+        int lidos = 0;
+        
+        while ( true ) {
+            in.readFully( bytes, lidos, bytes.length - lidos );
+            lidos = bytes.length;
+            if ( lidos == n ) {
+                return bytes;
+            }
+            bytes = Arrays.copyOf( bytes, (int) Math.min( n, 2L * lidos ) );
+        }
+        
+    }
+    
+    static long readVarLong( DataInput in ) throws IOException {
+        long value = 0;
+        for ( int shift = 0; shift < 64; shift += 7 ) {
+            int b = in.readUnsignedByte();
+            value |= (long) ( b & 0x7F ) << shift;
+            if ( ( b & 0x80 ) == 0 ) {
+                return value;
+            }
+        }
+        throw new IOException( "malformed varint" );
+    }
+
+}
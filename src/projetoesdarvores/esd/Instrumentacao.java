@@ -0,0 +1,273 @@
+package projetoesdarvores.esd;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Instrumentação opcional das operações get, put e delete das árvores
+ * ArvoreBinariaBusca, ArvoreAVL, ArvoreVermelhoPreto e
+ * ArvoreVermelhoPretoIterativa.
+ *
+ * Para cada operação amostrada são contadas as comparações de chaves, o
+ * comprimento do caminho de busca, as rotações e as inversões de cores, que
+ * são acumuladas em contadores seguros para várias threads e expostos por
+ * um MBean. Operações amostradas mais lentas que o limite configurado
+ * geram um EventoOperacaoLenta no JDK Flight Recorder.
+ *
+ * Uma árvore sem instrumentação apenas testa um campo nulo em cada passo.
+ * Com instrumentação, somente uma a cada getTaxaAmostragem() operações
+ * mede o tempo e acumula os contadores.
+ *
+ * Uso:
+ *     Instrumentacao i = new Instrumentacao( "avl" );
+ *     i.registrarMBean();
+ *     arvore.setInstrumentacao( i );
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class Instrumentacao implements InstrumentacaoMBean {
+
+    /*
+     * Operações instrumentadas.
+     */
+    public static enum Operacao {
+        GET,
+        PUT,
+        DELETE
+    }
+    
+    // comprimentos de caminho distintos no histograma
+    private static final int CAMINHOS = 64;
+    
+    private final String nome;
+    
+    private volatile int taxaAmostragem = 1;
+    private volatile long limiteOperacaoLentaNanos = 1_000_000;
+    
+    private final LongAdder[] operacoes = criarContadores();
+    private final LongAdder[] comparacoes = criarContadores();
+    private final LongAdder[] rotacoes = criarContadores();
+    private final LongAdder[] inversoes = criarContadores();
+    private final LongAdder caminhos = new LongAdder();
+    private final LongAdder lentas = new LongAdder();
+    private final AtomicLongArray histograma = new AtomicLongArray( CAMINHOS );
+    
+    private ObjectName objectName;
+    
+    /**
+     * @param nome O nome da instrumentação, usado no MBean e nos eventos.
+     */
+    public Instrumentacao( String nome ) throws IllegalArgumentException {
+        if ( nome == null ) {
+            throw new IllegalArgumentException( "argument to Instrumentacao() is null" );
+        }
+        this.nome = nome;
+    }
+    
+    private static LongAdder[] criarContadores() {
+        LongAdder[] c = new LongAdder[Operacao.values().length];
+        for ( int i = 0; i < c.length; i++ ) {
+            c[i] = new LongAdder();
+        }
+        return c;
+    }
+    
+    /**
+     * Registra esta instrumentação no servidor de MBeans da plataforma, com
+     * o nome projetoesdarvores:type=Instrumentacao,name=<nome>.
+     *
+     * @return O nome do MBean registrado.
+     */
+    public synchronized ObjectName registrarMBean() throws IllegalStateException {
+        
+        if ( objectName != null ) {
+            return objectName;
+        }
+        
+        try {
+            ObjectName on = new ObjectName( "projetoesdarvores:type=Instrumentacao,name=" + ObjectName.quote( nome ) );
+            ManagementFactory.getPlatformMBeanServer().registerMBean( this, on );
+            objectName = on;
+            return on;
+        } catch ( JMException exc ) {
+            throw new IllegalStateException( "could not register the MBean", exc );
+        }
+        
+    }
+    
+    /**
+     * Remove o registro feito por registrarMBean(), se houver.
+     */
+    public synchronized void desregistrarMBean() throws IllegalStateException {
+        
+        if ( objectName == null ) {
+            return;
+        }
+        
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            if ( servidor.isRegistered( objectName ) ) {
+                servidor.unregisterMBean( objectName );
+            }
+            objectName = null;
+        } catch ( JMException exc ) {
+            throw new IllegalStateException( "could not unregister the MBean", exc );
+        }
+        
+    }
+    
+    public String getNome() {
+        return nome;
+    }
+    
+    /*
+     * Acumula os contadores de uma operação amostrada.
+     */
+    void acumular( Operacao operacao, long duracao, int comparacoes, int caminho, int rotacoes, int inversoes ) {
+        
+        int o = operacao.ordinal();
+        this.operacoes[o].increment();
+        this.comparacoes[o].add( comparacoes );
+        this.rotacoes[o].add( rotacoes );
+        this.inversoes[o].add( inversoes );
+        caminhos.add( caminho );
+        histograma.incrementAndGet( Math.min( caminho, CAMINHOS - 1 ) );
+        
+        if ( duracao > limiteOperacaoLentaNanos ) {
+            
+            lentas.increment();
+            
+            EventoOperacaoLenta evento = new EventoOperacaoLenta();
+            if ( evento.isEnabled() ) {
+                evento.arvore = nome;
+                evento.operacao = operacao.name();
+                evento.duracao = duracao;
+                evento.comparacoes = comparacoes;
+                evento.caminho = caminho;
+                evento.rotacoes = rotacoes;
+                evento.inversoesCores = inversoes;
+                evento.commit();
+            }
+            
+        }
+        
+    }
+    
+    @Override
+    public long getOperacoesAmostradas() {
+        long total = 0;
+        for ( LongAdder c : operacoes ) {
+            total += c.sum();
+        }
+        return total;
+    }
+    
+    @Override
+    public double getComparacoesMediasGet() {
+        return media( comparacoes, Operacao.GET );
+    }
+    
+    @Override
+    public double getComparacoesMediasPut() {
+        return media( comparacoes, Operacao.PUT );
+    }
+    
+    @Override
+    public double getComparacoesMediasDelete() {
+        return media( comparacoes, Operacao.DELETE );
+    }
+    
+    @Override
+    public double getRotacoesMediasPut() {
+        return media( rotacoes, Operacao.PUT );
+    }
+    
+    @Override
+    public double getRotacoesMediasDelete() {
+        return media( rotacoes, Operacao.DELETE );
+    }
+    
+    @Override
+    public double getInversoesCoresMediasPut() {
+        return media( inversoes, Operacao.PUT );
+    }
+    
+    @Override
+    public double getInversoesCoresMediasDelete() {
+        return media( inversoes, Operacao.DELETE );
+    }
+    
+    @Override
+    public double getCaminhoMedio() {
+        long n = getOperacoesAmostradas();
+        return n == 0 ? 0 : (double) caminhos.sum() / n;
+    }
+    
+    @Override
+    public long[] getHistogramaCaminho() {
+        long[] h = new long[CAMINHOS];
+        for ( int i = 0; i < CAMINHOS; i++ ) {
+            h[i] = histograma.get( i );
+        }
+        return h;
+    }
+    
+    @Override
+    public long getOperacoesLentas() {
+        return lentas.sum();
+    }
+    
+    @Override
+    public int getTaxaAmostragem() {
+        return taxaAmostragem;
+    }
+    
+    /**
+     * Configura a amostragem: uma a cada taxa operações é medida.
+     */
+    @Override
+    public void setTaxaAmostragem( int taxa ) throws IllegalArgumentException {
+        if ( taxa < 1 ) {
+            throw new IllegalArgumentException( "sampling rate must be at least 1" );
+        }
+        taxaAmostragem = taxa;
+    }
+    
+    @Override
+    public long getLimiteOperacaoLentaMicros() {
+        return limiteOperacaoLentaNanos / 1_000;
+    }
+    
+    @Override
+    public void setLimiteOperacaoLentaMicros( long limite ) throws IllegalArgumentException {
+        if ( limite < 0 ) {
+            throw new IllegalArgumentException( "slow operation threshold is negative" );
+        }
+        limiteOperacaoLentaNanos = limite * 1_000;
+    }
+    
+    @Override
+    public void zerar() {
+        for ( int i = 0; i < operacoes.length; i++ ) {
+            operacoes[i].reset();
+            comparacoes[i].reset();
+            rotacoes[i].reset();
+            inversoes[i].reset();
+        }
+        caminhos.reset();
+        lentas.reset();
+        for ( int i = 0; i < CAMINHOS; i++ ) {
+            histograma.set( i, 0 );
+        }
+    }
+    
+    private double media( LongAdder[] contadores, Operacao operacao ) {
+        long n = operacoes[operacao.ordinal()].sum();
+        return n == 0 ? 0 : (double) contadores[operacao.ordinal()].sum() / n;
+    }
+
+}
@@ -0,0 +1,51 @@
+package projetoesdarvores.esd;
+
+/**
+ * Interface de gerenciamento (JMX) da Instrumentacao das árvores.
+ *
+ * Todas as médias consideram apenas as operações amostradas.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public interface InstrumentacaoMBean {
+
+    long getOperacoesAmostradas();
+    
+    double getComparacoesMediasGet();
+    
+    double getComparacoesMediasPut();
+    
+    double getComparacoesMediasDelete();
+    
+    double getRotacoesMediasPut();
+    
+    double getRotacoesMediasDelete();
+    
+    double getInversoesCoresMediasPut();
+    
+    double getInversoesCoresMediasDelete();
+    
+    double getCaminhoMedio();
+    
+    /**
+     * Retorna a quantidade de operações por comprimento do caminho de busca;
+     * a última posição acumula os caminhos maiores ou iguais a ela.
+     */
+    long[] getHistogramaCaminho();
+    
+    long getOperacoesLentas();
+    
+    int getTaxaAmostragem();
+    
+    void setTaxaAmostragem( int taxa );
+    
+    long getLimiteOperacaoLentaMicros();
+    
+    void setLimiteOperacaoLentaMicros( long limite );
+    
+    /**
+     * Zera todos os contadores.
+     */
+    void zerar();
+
+}
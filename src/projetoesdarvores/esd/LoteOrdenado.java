@@ -0,0 +1,159 @@
+package projetoesdarvores.esd;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.Arrays;
+
+/**
+ * Lote de chaves ordenado, consumido pelas operações em lote (putAll, getAll
+ * e deleteAll) das árvores balanceadas.
+ *
+ * O lote é percorrido junto com a árvore: em cada nó, uma busca binária
+ * separa a faixa [lo, hi) do lote nas partes que descem para a esquerda e
+ * para a direita, então cada nó visitado custa O(log k) e subárvores sem
+ * chaves do lote não são visitadas.
+ *
+ * @param <Key> Tipo das chaves.
+ * @param <Value> Tipo dos valores.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+class LoteOrdenado<Key extends Comparable<Key>, Value> {
+
+    // chaves em ordem crescente; sem repetições nos lotes de inserção
+    final Key[] keys;
+    
+    // valores de cada chave, apenas nos lotes de inserção
+    final Value[] values;
+    
+    // posição original de cada chave, apenas nos lotes de consulta
+    final int[] positions;
+    
+    final int size;
+    
+    // chaves inseridas ou removidas pela operação
+    int alterados;
+    
+    // altura preta da última subárvore retornada, usada pela
+    // ArvoreVermelhoPreto como segundo valor de retorno das recursões
+    int alturaPreta;
+    
+    private LoteOrdenado( Key[] keys, Value[] values, int[] positions ) {
+        this.keys = keys;
+        this.values = values;
+        this.positions = positions;
+        this.size = keys.length;
+    }
+    
+    /**
+     * Ordena um lote de inserção, mantendo o último valor de cada chave
+     * repetida, como aconteceria com chamadas sucessivas a put.
+     *
+     * @param keys As chaves.
+     * @param values Os valores, na mesma posição das chaves.
+     * @return O lote ordenado.
+     */
+    static <Key extends Comparable<Key>, Value> LoteOrdenado<Key, Value> paraInsercao( Key[] keys, Value[] values )
+            throws IllegalArgumentException {
+            
+        Entry<Key, Value>[] entries = EntradasOrdenadas.sortEntries( keys, values );
+        @SuppressWarnings( "unchecked" )
+        Key[] k = (Key[]) new Comparable<?>[entries.length];
+        @SuppressWarnings( "unchecked" )
+        Value[] v = (Value[]) new Object[entries.length];
+        
+        for ( int i = 0; i < entries.length; i++ ) {
+            k[i] = entries[i].getKey();
+            v[i] = entries[i].getValue();
+        }
+        
+        return new LoteOrdenado<>( k, v, null );
+        
+    }
+    
+    /**
+     * Ordena um lote de consulta ou de remoção. Chaves repetidas são
+     * mantidas e, se pedido, a posição original de cada chave é guardada para
+     * que os resultados voltem na ordem em que as chaves foram informadas.
+     *
+     * @param keys As chaves.
+     * @param method Nome do método, usado nas mensagens de erro.
+     * @param withPositions Se as posições originais devem ser guardadas.
+     * @return O lote ordenado.
+     */
+    static <Key extends Comparable<Key>, Value> LoteOrdenado<Key, Value> paraConsulta( Key[] keys, String method, boolean withPositions )
+            throws IllegalArgumentException {
+            
+        if ( keys == null ) {
+            throw new IllegalArgumentException( "argument to " + method + "() is null" );
+        }
+        
+        for ( int i = 0; i < keys.length; i++ ) {
+            if ( keys[i] == null ) {
+                throw new IllegalArgumentException( "null key at position " + i );
+            }
+        }
+        
+        if ( !withPositions ) {
+            @SuppressWarnings( "unchecked" )
+            Key[] k = (Key[]) Arrays.copyOf( keys, keys.length, Comparable[].class );
+            Arrays.parallelSort( k );
+            return new LoteOrdenado<>( k, null, null );
+        }
+        
+        Integer[] order = new Integer[keys.length];
+        for ( int i = 0; i < order.length; i++ ) {
+            order[i] = i;
+        }
+        Arrays.parallelSort( order, ( a, b ) -> keys[a].compareTo( keys[b] ) );
+        
+        @SuppressWarnings( "unchecked" )
+        Key[] k = (Key[]) new Comparable<?>[keys.length];
+        int[] p = new int[keys.length];
+        for ( int i = 0; i < order.length; i++ ) {
+            p[i] = order[i];
+            k[i] = keys[p[i]];
+        }
+        
+        return new LoteOrdenado<>( k, null, p );
+        
+    }
+    
+    /*
+     * Primeira posição de [lo, hi) cuja chave não é menor que key.
+     */
+    int lowerBound( int lo, int hi, Key key ) {
+        while ( lo < hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            if ( keys[mid].compareTo( key ) < 0 ) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+    
+    /*
+     * Primeira posição de [lo, hi) cuja chave é maior que key.
+     */
+    int upperBound( int lo, int hi, Key key ) {
+        while ( lo < hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            if ( keys[mid].compareTo( key ) <= 0 ) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+    
+    /*
+     * Pares das posições [lo, hi) de um lote de inserção, para construir uma
+     * subárvore nova quando a faixa chega a uma posição vazia da árvore.
+     */
+    EntradasOrdenadas<Key, Value> entradas( int lo, int hi ) {
+        return new EntradasOrdenadas<>( keys, values, lo, hi );
+    }
+
+}
@@ -0,0 +1,55 @@
+package projetoesdarvores.esd;
+
+import projetoesdarvores.esd.Instrumentacao.Operacao;
+
+/**
+ * Contadores da operação em andamento de uma árvore instrumentada. Cada
+ * árvore tem a sua, então os contadores são campos simples, incrementados
+ * diretamente pela árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+final class Medicao {
+
+    private final Instrumentacao instrumentacao;
+    
+    // operações que faltam até a próxima amostra
+    private int ateProximaAmostra;
+    private long inicio;
+    
+    int comparacoes;
+    int caminho;
+    int rotacoes;
+    int inversoes;
+    
+    Medicao( Instrumentacao instrumentacao ) {
+        this.instrumentacao = instrumentacao;
+    }
+    
+    /**
+     * Decide se a operação que começa será amostrada e, se for, zera os
+     * contadores e marca o início.
+     */
+    boolean iniciar() {
+        
+        if ( --ateProximaAmostra > 0 ) {
+            return false;
+        }
+        
+        ateProximaAmostra = instrumentacao.getTaxaAmostragem();
+        comparacoes = 0;
+        caminho = 0;
+        rotacoes = 0;
+        inversoes = 0;
+        inicio = System.nanoTime();
+        
+        return true;
+        
+    }
+    
+    void terminar( Operacao operacao ) {
+        instrumentacao.acumular( operacao, System.nanoTime() - inicio,
+                comparacoes, caminho, rotacoes, inversoes );
+    }
+
+}
@@ -0,0 +1,100 @@
+package projetoesdarvores.esd;
+
+import java.util.Comparator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Agregado associativo dos valores de uma subárvore, mantido opcionalmente
+ * pela ArvoreAVL em cada nó para responder aggregate( lo, hi ) em O(log n).
+ *
+ * combine deve ser associativa e identity deve ser o seu elemento neutro; a
+ * comutatividade não é exigida, pois os agregados são sempre combinados na
+ * ordem das chaves. Os agregados são guardados nos nós, então devem ser
+ * imutáveis.
+ *
+ * Árvores só podem ser combinadas (join, union etc.) se os seus monoides
+ * forem iguais segundo equals, pois os nós levam os agregados consigo. Os
+ * monoides das fábricas desta interface são iguais quando criados pela
+ * mesma fábrica com os mesmos argumentos; uma implementação própria é,
+ * como padrão, igual apenas a si mesma.
+ *
+ * @param <Value> Tipo dos valores agregados.
+ * @param <A> Tipo do agregado.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public interface Monoide<Value, A> {
+
+    /**
+     * Retorna o elemento neutro, agregado de um intervalo vazio.
+     *
+     * @return O elemento neutro.
+     */
+    public A identity();
+    
+    /**
+     * Retorna o agregado de um único valor.
+     *
+     * @param value O valor.
+     * @return O agregado do valor.
+     */
+    public A lift( Value value );
+    
+    /**
+     * Combina os agregados de dois intervalos consecutivos, o primeiro com
+     * as chaves menores.
+     *
+     * @param a O agregado das chaves menores.
+     * @param b O agregado das chaves maiores.
+     * @return O agregado dos dois intervalos.
+     */
+    public A combine( A a, A b );
+    
+    /**
+     * Quantidade de pares.
+     */
+    public static <Value> Monoide<Value, Long> count() {
+        return new MonoideFuncional<>( 0L, value -> 1L, Long::sum, "count" );
+    }
+    
+    /**
+     * Soma dos valores convertidos para long. Monoides criados com a mesma
+     * função são iguais.
+     */
+    public static <Value> Monoide<Value, Long> sum( ToLongFunction<? super Value> toLong ) 
+            throws IllegalArgumentException {
+        checkArgument( toLong, "sum" );
+        return new MonoideFuncional<>( 0L, value -> toLong.applyAsLong( value ), Long::sum, "sum", toLong );
+    }
+    
+    /**
+     * Menor valor segundo o comparador, ou null para intervalos vazios.
+     * Monoides criados com o mesmo comparador são iguais.
+     */
+    public static <Value> Monoide<Value, Value> min( Comparator<? super Value> comparator ) 
+            throws IllegalArgumentException {
+        checkArgument( comparator, "min" );
+        return new MonoideFuncional<>( null, value -> value,
+                ( a, b ) -> a == null ? b : b == null ? a : comparator.compare( b, a ) < 0 ? b : a, 
+                "min", comparator );
+    }
+    
+    /**
+     * Maior valor segundo o comparador, ou null para intervalos vazios.
+     * Monoides criados com o mesmo comparador são iguais.
+     */
+    public static <Value> Monoide<Value, Value> max( Comparator<? super Value> comparator ) 
+            throws IllegalArgumentException {
+        checkArgument( comparator, "max" );
+        return new MonoideFuncional<>( null, value -> value,
+                ( a, b ) -> a == null ? b : b == null ? a : comparator.compare( b, a ) > 0 ? b : a, 
+                "max", comparator );
+    }
+    
+    private static void checkArgument( Object argument, String method ) throws IllegalArgumentException {
+        if ( argument == null ) {
+            throw new IllegalArgumentException( "argument to " + method + "() is null" );
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package projetoesdarvores.esd;
+
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Monoide formado por um elemento neutro e duas funções, usado pelas
+ * fábricas de Monoide.
+ *
+ * Cada instância guarda uma chave com o nome da fábrica e os seus
+ * argumentos, e duas instâncias com chaves iguais são iguais. Assim
+ * Monoide.count() é igual a outro Monoide.count(), e Monoide.sum( f ) é
+ * igual a outro Monoide.sum( f ) com a mesma função f, o que permite
+ * combinar árvores criadas com chamadas diferentes à mesma fábrica.
+ *
+ * @param <Value> Tipo dos valores agregados.
+ * @param <A> Tipo do agregado.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+final class MonoideFuncional<Value, A> implements Monoide<Value, A> {
+
+    private final A identity;
+    private final Function<? super Value, ? extends A> lift;
+    private final BinaryOperator<A> combine;
+    private final List<Object> chave;
+    
+    MonoideFuncional( A identity, Function<? super Value, ? extends A> lift, BinaryOperator<A> combine,
+            Object... chave ) {
+        this.identity = identity;
+        this.lift = lift;
+        this.combine = combine;
+        this.chave = List.of( chave );
+    }
+    
+    @Override
+    public A identity() {
+        return identity;
+    }
+    
+    @Override
+    public A lift( Value value ) {
+        return lift.apply( value );
+    }
+    
+    @Override
+    public A combine( A a, A b ) {
+        return combine.apply( a, b );
+    }
+    
+    @Override
+    public boolean equals( Object o ) {
+        return o instanceof MonoideFuncional && chave.equals( ( (MonoideFuncional<?, ?>) o ).chave );
+    }
+    
+    @Override
+    public int hashCode() {
+        return chave.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return "Monoide" + chave;
+    }
+
+}
@@ -0,0 +1,81 @@
+package projetoesdarvores.esd;
+
+/**
+ * Ouvinte opcional dos passos estruturais das árvores balanceadas (ArvoreAVL,
+ * ArvoreVermelhoPreto e ArvoreB), usado pelos simuladores para reproduzir put
+ * e delete como animações.
+ *
+ * Cada passo é informado com um tipo, até duas chaves e um valor inteiro,
+ * sem criar objetos. Quando nenhum ouvinte está registrado as árvores apenas
+ * testam um campo nulo em cada passo.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public interface OuvinteEstrutural {
+
+    /*
+     * Tipos de passos estruturais. A chave, a outra chave e o valor de cada
+     * tipo estão descritos junto a ele.
+     */
+    public static enum TipoEvento {
+        
+        // chave inserida em um novo nó
+        INSERCAO,
+        
+        // chave do nó desligado da árvore
+        REMOCAO,
+        
+        // chave do nó removido com dois filhos e, em outra, a chave do
+        // sucessor que passa a ocupar o nó; o nó original do sucessor é
+        // desligado em seguida, com uma REMOCAO da mesma chave (na ArvoreB,
+        // a outra chave pode ser a do predecessor)
+        SUBSTITUICAO,
+        
+        // chave do nó que desce e, em outra, a do filho direito que sobe
+        // (na ArvoreB, empréstimo do irmão direito: a separadora desce do
+        // pai e a primeira chave do irmão sobe para o seu lugar)
+        ROTACAO_ESQUERDA,
+        
+        // chave do nó que desce e, em outra, a do filho esquerdo que sobe
+        // (na ArvoreB, empréstimo do irmão esquerdo, com a última chave)
+        ROTACAO_DIREITA,
+        
+        // chave do nó cuja cor e as dos filhos foram invertidas
+        INVERSAO_CORES,
+        
+        // chave do nó em que moveRedLeft começou
+        MOVE_VERMELHO_ESQUERDA,
+        
+        // chave do nó em que moveRedRight começou
+        MOVE_VERMELHO_DIREITA,
+        
+        // chave do nó e, no valor, sua nova cor (0 vermelho, 1 preto)
+        COR,
+        
+        // chave do nó e, no valor, sua nova altura
+        ALTURA,
+        
+        // ArvoreB: chave do meio do nó cheio que foi dividido, que sobe
+        // para o pai
+        DIVISAO,
+        
+        // ArvoreB: chave separadora que desce do pai para o nó em que dois
+        // irmãos foram fundidos
+        FUSAO,
+        
+        // a árvore foi esvaziada
+        LIMPEZA
+        
+    }
+    
+    /**
+     * Recebe um passo estrutural.
+     *
+     * @param tipo O tipo do passo.
+     * @param chave A chave principal, ou null.
+     * @param outra A chave secundária, ou null.
+     * @param valor O valor inteiro associado, ou 0.
+     */
+    void evento( TipoEvento tipo, Object chave, Object outra, int valor );
+
+}
@@ -0,0 +1,42 @@
+package projetoesdarvores.testes;
+
+/**
+ * Executa os testes de todas as árvores, parando no primeiro que falhar.
+ *
+ * Uso (ver alvo "testes" do build.xml):
+ *     ant testes
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ExecutarTestes {
+
+    public static void main( String[] args ) {
+        
+        TestesArvoreBinariaBusca.executar();
+        TestesIteradores.executar();
+        TestesArvoreVermelhoPretoCompacta.executar();
+        TestesArvoreAVLConcorrente.executar();
+        TestesArvoreVermelhoPretoPersistente.executar();
+        TestesArvoreVermelhoPretoIterativa.executar();
+        TestesEstatisticasDeOrdem.executar();
+        TestesArvoreVermelhoPretoDuravel.executar();
+        TestesArvoreB.executar();
+        TestesArvoreBMaisDisco.executar();
+        TestesArvoreAVLInt.executar();
+        TestesOperacoesEmLote.executar();
+        TestesConstrucaoEmLote.executar();
+        TestesJuncaoEDivisao.executar();
+        TestesSpliterator.executar();
+        TestesMonoide.executar();
+        TestesCursor.executar();
+        TestesFormatoBinario.executar();
+        TestesArvoreAnimada.executar();
+        TestesInstantaneoDesenho.executar();
+        TestesGeometriaDesenho.executar();
+        TestesInstrumentacao.executar();
+        
+        System.out.println( "todos os testes passaram" );
+        
+    }
+
+}
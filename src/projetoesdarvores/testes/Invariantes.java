@@ -0,0 +1,366 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+
+import java.lang.reflect.Field;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreAVLConcorrente;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+import projetoesdarvores.esd.ArvoreVermelhoPretoCompacta;
+import projetoesdarvores.esd.ArvoreVermelhoPretoIterativa;
+import projetoesdarvores.esd.ArvoreVermelhoPretoPersistente;
+
+/**
+ * Verificação das invariantes estruturais das árvores AVL e vermelho-preto.
+ * As árvores não expõem a raiz, então ela é lida por reflexão; os nós
+ * públicos são percorridos diretamente e os privados, também por reflexão.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+final class Invariantes {
+
+    private Invariantes() {
+    }
+    
+    /**
+     * Verifica a ordem das chaves, as alturas e os tamanhos guardados e o
+     * fator de balanceamento de cada nó de uma árvore AVL.
+     *
+     * @param arvore A árvore.
+     * @param contexto Descrição usada na mensagem de erro.
+     * @return A quantidade de nós.
+     */
+    static <Key extends Comparable<Key>, Value> int verificarAVL( ArvoreAVL<Key, Value> arvore, String contexto ) {
+        
+        ArvoreAVL.Node<Key, Value> root = raiz( arvore );
+        int[] nos = new int[1];
+        verificarAVL( root, null, null, nos, contexto );
+        verificarIguais( nos[0], arvore.getSize(), contexto + ", getSize()" );
+        
+        return nos[0];
+        
+    }
+    
+    private static <Key extends Comparable<Key>, Value> int verificarAVL( ArvoreAVL.Node<Key, Value> node,
+            Key lo, Key hi, int[] nos, String contexto ) {
+        
+        if ( node == null ) {
+            return 0;
+        }
+        
+        nos[0]++;
+        verificarOrdem( node.key, lo, hi, contexto );
+        
+        int hl = verificarAVL( node.left, lo, node.key, nos, contexto );
+        int hr = verificarAVL( node.right, node.key, hi, nos, contexto );
+        
+        verificar( Math.abs( hl - hr ) <= 1, contexto + ": unbalanced node " + node.key );
+        verificarIguais( Math.max( hl, hr ) + 1, node.height, contexto + ": height of " + node.key );
+        verificarIguais( 1 + tamanho( node.left ) + tamanho( node.right ), node.size,
+                contexto + ": size of " + node.key );
+        
+        return node.height;
+        
+    }
+    
+    /**
+     * Verifica a ordem das chaves, as cores (raiz preta, sem dois vermelhos
+     * seguidos e sem ligação vermelha à direita), a altura preta e o tamanho
+     * guardado em cada nó de uma árvore vermelho-preto.
+     *
+     * @param arvore A árvore.
+     * @param contexto Descrição usada na mensagem de erro.
+     * @return A quantidade de nós.
+     */
+    static <Key extends Comparable<Key>, Value> int verificarVermelhoPreto(
+            ArvoreVermelhoPreto<Key, Value> arvore, String contexto ) {
+        
+        ArvoreVermelhoPreto.Node<Key, Value> root = raiz( arvore );
+        
+        verificar( root == null || !vermelho( root ), contexto + ": red root" );
+        verificarVermelhoPreto( root, null, null, contexto );
+        
+        int n = root == null ? 0 : root.size;
+        verificarIguais( n, arvore.getSize(), contexto + ", getSize()" );
+        
+        return n;
+        
+    }
+    
+    private static <Key extends Comparable<Key>, Value> int verificarVermelhoPreto(
+            ArvoreVermelhoPreto.Node<Key, Value> node, Key lo, Key hi, String contexto ) {
+        
+        if ( node == null ) {
+            return 0;
+        }
+        
+        verificarOrdem( node.key, lo, hi, contexto );
+        verificar( !vermelho( node.right ), contexto + ": red right link at " + node.key );
+        verificar( !vermelho( node ) || !vermelho( node.left ), contexto + ": two reds in a row at " + node.key );
+        
+        int bl = verificarVermelhoPreto( node.left, lo, node.key, contexto );
+        int br = verificarVermelhoPreto( node.right, node.key, hi, contexto );
+        
+        verificarIguais( bl, br, contexto + ": black height at " + node.key );
+        verificarIguais( 1 + tamanho( node.left ) + tamanho( node.right ), node.size,
+                contexto + ": size of " + node.key );
+        
+        return bl + ( vermelho( node ) ? 0 : 1 );
+        
+    }
+    
+    /**
+     * Verifica as mesmas invariantes de verificarVermelhoPreto em uma versão
+     * da árvore vermelho-preto persistente.
+     *
+     * @param arvore A versão da árvore.
+     * @param contexto Descrição usada na mensagem de erro.
+     * @return A quantidade de nós.
+     */
+    static <Key extends Comparable<Key>, Value> int verificarVermelhoPretoPersistente(
+            ArvoreVermelhoPretoPersistente<Key, Value> arvore, String contexto ) {
+        
+        ArvoreVermelhoPretoPersistente.Node<Key, Value> root = raiz( arvore );
+        
+        verificar( root == null || !vermelho( root ), contexto + ": red root" );
+        verificarVermelhoPretoPersistente( root, null, null, contexto );
+        
+        int n = root == null ? 0 : root.size;
+        verificarIguais( n, arvore.getSize(), contexto + ", getSize()" );
+        
+        return n;
+        
+    }
+    
+    private static <Key extends Comparable<Key>, Value> int verificarVermelhoPretoPersistente(
+            ArvoreVermelhoPretoPersistente.Node<Key, Value> node, Key lo, Key hi, String contexto ) {
+        
+        if ( node == null ) {
+            return 0;
+        }
+        
+        verificarOrdem( node.key, lo, hi, contexto );
+        verificar( !vermelho( node.right ), contexto + ": red right link at " + node.key );
+        verificar( !vermelho( node ) || !vermelho( node.left ), contexto + ": two reds in a row at " + node.key );
+        
+        int bl = verificarVermelhoPretoPersistente( node.left, lo, node.key, contexto );
+        int br = verificarVermelhoPretoPersistente( node.right, node.key, hi, contexto );
+        
+        verificarIguais( bl, br, contexto + ": black height at " + node.key );
+        verificarIguais( 1 + tamanho( node.left ) + tamanho( node.right ), node.size,
+                contexto + ": size of " + node.key );
+        
+        return bl + ( vermelho( node ) ? 0 : 1 );
+        
+    }
+    
+    /**
+     * Verifica a ordem das chaves, os links para os pais e as cores (raiz
+     * preta, sem dois vermelhos seguidos e mesma altura preta em todos os
+     * caminhos) da árvore vermelho-preto clássica, cujos nós são privados.
+     *
+     * @param arvore A árvore.
+     * @param contexto Descrição usada na mensagem de erro.
+     * @return A quantidade de nós.
+     */
+    static int verificarVermelhoPretoIterativa( ArvoreVermelhoPretoIterativa<?, ?> arvore, String contexto ) {
+        
+        Object root = raiz( arvore );
+        int[] nos = new int[1];
+        
+        verificar( root == null || !campo( root, "color", Boolean.class ), contexto + ": red root" );
+        verificar( root == null || campo( root, "parent", Object.class ) == null, contexto + ": root with parent" );
+        verificarVermelhoPretoIterativa( root, null, null, nos, contexto );
+        verificarIguais( nos[0], arvore.getSize(), contexto + ", getSize()" );
+        
+        return nos[0];
+        
+    }
+    
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    private static int verificarVermelhoPretoIterativa( Object node, Comparable lo, Comparable hi, int[] nos,
+            String contexto ) {
+        
+        if ( node == null ) {
+            return 0;
+        }
+        
+        nos[0]++;
+        
+        Comparable key = campo( node, "key", Comparable.class );
+        Object left = campo( node, "left", Object.class );
+        Object right = campo( node, "right", Object.class );
+        boolean red = campo( node, "color", Boolean.class );
+        
+        verificarOrdem( key, lo, hi, contexto );
+        
+        for ( Object filho : new Object[]{ left, right } ) {
+            if ( filho != null ) {
+                verificar( campo( filho, "parent", Object.class ) == node, contexto + ": parent link below " + key );
+                verificar( !red || !campo( filho, "color", Boolean.class ),
+                        contexto + ": two reds in a row at " + key );
+            }
+        }
+        
+        int bl = verificarVermelhoPretoIterativa( left, lo, key, nos, contexto );
+        int br = verificarVermelhoPretoIterativa( right, key, hi, nos, contexto );
+        
+        verificarIguais( bl, br, contexto + ": black height at " + key );
+        
+        return bl + ( red ? 0 : 1 );
+        
+    }
+    
+    /**
+     * Verifica, com a árvore sem escritas em andamento, a ordem das chaves,
+     * os links para os pais, as alturas guardadas, o balanceamento, que
+     * nenhum nó ficou marcado como encolhendo ou desligado e que os nós de
+     * roteamento (sem valor) têm dois filhos. Os nós são privados e lidos
+     * por reflexão.
+     *
+     * @param arvore A árvore.
+     * @param contexto Descrição usada na mensagem de erro.
+     * @return A quantidade de chaves (nós com valor).
+     */
+    static int verificarAVLConcorrente( ArvoreAVLConcorrente<?, ?> arvore, String contexto ) {
+        
+        Object holder = campo( arvore, "holder", Object.class );
+        Object root = campo( holder, "right", Object.class );
+        int[] chaves = new int[1];
+        
+        verificarAVLConcorrente( root, holder, null, null, chaves, contexto );
+        verificarIguais( chaves[0], arvore.getSize(), contexto + ", getSize()" );
+        
+        return chaves[0];
+        
+    }
+    
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    private static int verificarAVLConcorrente( Object node, Object parent, Comparable lo, Comparable hi,
+            int[] chaves, String contexto ) {
+        
+        if ( node == null ) {
+            return 0;
+        }
+        
+        Comparable key = campo( node, "key", Comparable.class );
+        Object left = campo( node, "left", Object.class );
+        Object right = campo( node, "right", Object.class );
+        
+        verificarOrdem( key, lo, hi, contexto );
+        verificar( campo( node, "parent", Object.class ) == parent, contexto + ": parent link of " + key );
+        verificarIguais( 0L, campo( node, "version", Long.class ) & 3L, contexto + ": shrinking or unlinked " + key );
+        
+        if ( campo( node, "value", Object.class ) != null ) {
+            chaves[0]++;
+        } else {
+            verificar( left != null && right != null, contexto + ": routing node " + key + " with one child" );
+        }
+        
+        int hl = verificarAVLConcorrente( left, node, lo, key, chaves, contexto );
+        int hr = verificarAVLConcorrente( right, node, key, hi, chaves, contexto );
+        
+        verificar( Math.abs( hl - hr ) <= 1, contexto + ": unbalanced node " + key );
+        verificarIguais( Math.max( hl, hr ) + 1, campo( node, "height", Integer.class ), contexto + ": height of " + key );
+        
+        return Math.max( hl, hr ) + 1;
+        
+    }
+    
+    private static <Key extends Comparable<Key>> void verificarOrdem( Key key, Key lo, Key hi, String contexto ) {
+        verificar( ( lo == null || lo.compareTo( key ) < 0 ) && ( hi == null || hi.compareTo( key ) > 0 ),
+                contexto + ": key " + key + " out of order" );
+    }
+    
+    private static int tamanho( ArvoreAVL.Node<?, ?> node ) {
+        return node == null ? 0 : node.size;
+    }
+    
+    private static boolean vermelho( ArvoreVermelhoPreto.Node<?, ?> node ) {
+        return node != null && node.color == ArvoreVermelhoPreto.NodeColor.RED;
+    }
+    
+    private static int tamanho( ArvoreVermelhoPreto.Node<?, ?> node ) {
+        return node == null ? 0 : node.size;
+    }
+    
+    private static boolean vermelho( ArvoreVermelhoPretoPersistente.Node<?, ?> node ) {
+        return node != null && node.color == ArvoreVermelhoPreto.NodeColor.RED;
+    }
+    
+    private static int tamanho( ArvoreVermelhoPretoPersistente.Node<?, ?> node ) {
+        return node == null ? 0 : node.size;
+    }
+    
+    /**
+     * Verifica as mesmas invariantes de verificarVermelhoPreto em uma
+     * ArvoreVermelhoPretoCompacta, lendo por reflexão o arranjo de nós: três
+     * int por nó (filho esquerdo, filho direito e tamanho com a cor no bit de
+     * sinal), com a posição 0 como nó nulo.
+     *
+     * @param arvore A árvore.
+     * @param contexto Descrição usada na mensagem de erro.
+     * @return A quantidade de nós.
+     */
+    static int verificarVermelhoPretoCompacta( ArvoreVermelhoPretoCompacta<?, ?> arvore, String contexto ) {
+        
+        int[] nodes = campo( arvore, "nodes", int[].class );
+        Object[] keys = campo( arvore, "keys", Object[].class );
+        int root = campo( arvore, "root", Integer.class );
+        
+        verificar( nodes[3 * root + 2] >= 0, contexto + ": red root" );
+        verificarIguais( 0, nodes[2], contexto + ": null node size or color" );
+        verificarVermelhoPretoCompacta( nodes, keys, root, null, null, contexto );
+        
+        int n = nodes[3 * root + 2] & Integer.MAX_VALUE;
+        verificarIguais( n, arvore.getSize(), contexto + ", getSize()" );
+        
+        return n;
+        
+    }
+    
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    private static int verificarVermelhoPretoCompacta( int[] nodes, Object[] keys, int node,
+            Comparable lo, Comparable hi, String contexto ) {
+        
+        if ( node == 0 ) {
+            return 0;
+        }
+        
+        Comparable key = (Comparable) keys[node];
+        int left = nodes[3 * node];
+        int right = nodes[3 * node + 1];
+        boolean red = nodes[3 * node + 2] < 0;
+        
+        verificarOrdem( key, lo, hi, contexto );
+        verificar( nodes[3 * right + 2] >= 0, contexto + ": red right link at " + key );
+        verificar( !red || nodes[3 * left + 2] >= 0, contexto + ": two reds in a row at " + key );
+        
+        int bl = verificarVermelhoPretoCompacta( nodes, keys, left, lo, key, contexto );
+        int br = verificarVermelhoPretoCompacta( nodes, keys, right, key, hi, contexto );
+        
+        verificarIguais( bl, br, contexto + ": black height at " + key );
+        verificarIguais( 1 + ( nodes[3 * left + 2] & Integer.MAX_VALUE ) + ( nodes[3 * right + 2] & Integer.MAX_VALUE ),
+                nodes[3 * node + 2] & Integer.MAX_VALUE, contexto + ": size of " + key );
+        
+        return bl + ( red ? 0 : 1 );
+        
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    static <T> T raiz( Object arvore ) {
+        return (T) campo( arvore, "root", Object.class );
+    }
+    
+    static <T> T campo( Object objeto, String nome, Class<T> tipo ) {
+        try {
+            Field f = objeto.getClass().getDeclaredField( nome );
+            f.setAccessible( true );
+            return tipo.cast( f.get( objeto ) );
+        } catch ( ReflectiveOperationException exc ) {
+            throw new AssertionError( nome + " field not accessible", exc );
+        }
+    }
+
+}
@@ -0,0 +1,366 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+import projetoesdarvores.esd.ArvoreAVLConcorrente;
+
+/**
+ * Testes da ArvoreAVLConcorrente: uso sequencial comparado com a TreeMap,
+ * escritas concorrentes em chaves disjuntas, cada thread com o seu próprio
+ * modelo, e escritas concorrentes disputando as mesmas chaves, enquanto
+ * outras threads percorrem e consultam a árvore. Ao fim de cada etapa as
+ * invariantes estruturais (pais, alturas, balanceamento e versões) são
+ * verificadas.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreAVLConcorrente {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int THREADS = 8;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        sequencial();
+        concorrente();
+        chavesCompartilhadas();
+        argumentos();
+        
+        System.out.println( "ArvoreAVLConcorrente: ok" );
+        
+    }
+    
+    private static void sequencial() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreAVLConcorrente<Integer, Integer> a = new ArvoreAVLConcorrente<>();
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int i = 0; i < 100000; i++ ) {
+            
+            int k = r.nextInt( 3000 );
+            
+            if ( r.nextInt( 3 ) < 2 ) {
+                a.put( k, i );
+                m.put( k, i );
+            } else {
+                a.delete( k );
+                m.remove( k );
+            }
+            
+            if ( i % 5000 == 0 ) {
+                comparar( a, m, "sequential, operation " + i, r );
+            }
+            
+        }
+        
+        comparar( a, m, "sequential", r );
+        
+        a.clear();
+        m.clear();
+        comparar( a, m, "clear", r );
+        
+    }
+    
+    /*
+     * Cada escritora usa as chaves congruentes ao seu índice, então o estado
+     * final esperado é a união dos modelos. As leitoras verificam que as
+     * chaves percorridas estão sempre em ordem.
+     */
+    private static void concorrente() {
+        
+        ArvoreAVLConcorrente<Integer, Integer> a = new ArvoreAVLConcorrente<>();
+        List<TreeMap<Integer, Integer>> modelos = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS + 2 );
+        AtomicBoolean escrevendo = new AtomicBoolean( true );
+        
+        try {
+            
+            List<Future<?>> escritoras = new ArrayList<>();
+            List<Future<?>> leitoras = new ArrayList<>();
+            
+            for ( int t = 0; t < THREADS; t++ ) {
+                
+                int id = t;
+                TreeMap<Integer, Integer> m = new TreeMap<>();
+                modelos.add( m );
+                
+                escritoras.add( executor.submit( () -> {
+                    Random r = new Random( SEMENTE + id );
+                    for ( int i = 0; i < 50000; i++ ) {
+                        int k = r.nextInt( 2000 ) * THREADS + id;
+                        if ( r.nextBoolean() ) {
+                            a.put( k, i );
+                            m.put( k, i );
+                        } else {
+                            a.delete( k );
+                            m.remove( k );
+                        }
+                        verificarIguais( m.get( k ), a.get( k ), "concurrent, own key " + k );
+                    }
+                } ) );
+                
+            }
+            
+            for ( int t = 0; t < 2; t++ ) {
+                leitoras.add( executor.submit( () -> {
+                    while ( escrevendo.get() ) {
+                        Integer anterior = null;
+                        for ( Integer k : a.getKeys() ) {
+                            verificar( anterior == null || anterior < k, "concurrent, keys out of order" );
+                            anterior = k;
+                        }
+                    }
+                } ) );
+            }
+            
+            aguardar( escritoras );
+            escrevendo.set( false );
+            aguardar( leitoras );
+            
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        TreeMap<Integer, Integer> esperado = new TreeMap<>();
+        for ( TreeMap<Integer, Integer> m : modelos ) {
+            esperado.putAll( m );
+        }
+        
+        comparar( a, esperado, "concurrent, final state", new Random( SEMENTE ) );
+        
+    }
+    
+    /*
+     * Todas as escritoras disputam o mesmo intervalo pequeno de chaves, o que
+     * força rotações concorrentes sobre os mesmos nós. As duas primeiras
+     * etapas têm resultado determinado (todas inserem; todas removem as
+     * pares); na terceira, aleatória, cada valor guarda a sua chave, para que
+     * um valor associado à chave errada seja detectado.
+     */
+    private static void chavesCompartilhadas() {
+        
+        int chaves = 512;
+        ArvoreAVLConcorrente<Integer, Integer> a = new ArvoreAVLConcorrente<>();
+        
+        for ( int rodada = 0; rodada < 3; rodada++ ) {
+            
+            String contexto = "shared keys, round " + rodada;
+            
+            executarEmParalelo( a, id -> {
+                Random r = new Random( SEMENTE + id );
+                for ( int i = 0; i < 4 * chaves; i++ ) {
+                    int k = r.nextInt( chaves );
+                    a.put( k, k * THREADS + id );
+                }
+                for ( int k = 0; k < chaves; k++ ) {
+                    a.put( k, k * THREADS + id );
+                }
+            } );
+            
+            List<Integer> esperadas = new ArrayList<>();
+            for ( int k = 0; k < chaves; k++ ) {
+                esperadas.add( k );
+            }
+            verificarIguais( esperadas, listar( a ), contexto + ", after concurrent inserts" );
+            verificarValores( a, contexto + ", after concurrent inserts" );
+            Invariantes.verificarAVLConcorrente( a, contexto + ", after concurrent inserts" );
+            
+            executarEmParalelo( a, id -> {
+                for ( int k = id % 2 * 2; k < chaves; k += 2 ) {
+                    a.delete( k );
+                }
+                for ( int k = 0; k < chaves; k += 2 ) {
+                    a.delete( k );
+                }
+            } );
+            
+            esperadas.removeIf( k -> k % 2 == 0 );
+            verificarIguais( esperadas, listar( a ), contexto + ", after concurrent deletes" );
+            Invariantes.verificarAVLConcorrente( a, contexto + ", after concurrent deletes" );
+            
+            executarEmParalelo( a, id -> {
+                Random r = new Random( SEMENTE * 31 + id );
+                for ( int i = 0; i < 40000; i++ ) {
+                    int k = r.nextInt( chaves );
+                    if ( r.nextBoolean() ) {
+                        a.put( k, k * THREADS + id );
+                    } else {
+                        a.delete( k );
+                    }
+                    Integer v = a.get( k );
+                    verificar( v == null || v / THREADS == k, "shared keys, value of another key under " + k );
+                }
+            } );
+            
+            verificarValores( a, contexto + ", after concurrent churn" );
+            Invariantes.verificarAVLConcorrente( a, contexto + ", after concurrent churn" );
+            
+        }
+        
+        a.clear();
+        Invariantes.verificarAVLConcorrente( a, "shared keys, clear" );
+        
+    }
+    
+    /*
+     * Executa a tarefa em THREADS escritoras enquanto duas leitoras
+     * percorrem a árvore e consultam floor e ceiling, verificando a ordem
+     * das respostas.
+     */
+    private static void executarEmParalelo( ArvoreAVLConcorrente<Integer, Integer> a, IntConsumer tarefa ) {
+        
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS + 2 );
+        AtomicBoolean escrevendo = new AtomicBoolean( true );
+        CountDownLatch largada = new CountDownLatch( 1 );
+        
+        try {
+            
+            List<Future<?>> escritoras = new ArrayList<>();
+            List<Future<?>> leitoras = new ArrayList<>();
+            
+            for ( int t = 0; t < THREADS; t++ ) {
+                int id = t;
+                escritoras.add( executor.submit( () -> {
+                    largada.await();
+                    tarefa.accept( id );
+                    return null;
+                } ) );
+            }
+            
+            for ( int t = 0; t < 2; t++ ) {
+                int id = t;
+                leitoras.add( executor.submit( () -> {
+                    Random r = new Random( SEMENTE - id );
+                    largada.await();
+                    while ( escrevendo.get() ) {
+                        Integer anterior = null;
+                        for ( Integer k : a.getKeys() ) {
+                            verificar( anterior == null || anterior < k, "concurrent, keys out of order" );
+                            anterior = k;
+                        }
+                        int k = r.nextInt( 600 ) - 50;
+                        Entry<Integer, Integer> f = a.floor( k );
+                        Entry<Integer, Integer> c = a.ceiling( k );
+                        verificar( f == null || f.getKey() <= k, "concurrent, floor(" + k + ") = " + f );
+                        verificar( c == null || c.getKey() >= k, "concurrent, ceiling(" + k + ") = " + c );
+                    }
+                    return null;
+                } ) );
+            }
+            
+            largada.countDown();
+            aguardar( escritoras );
+            escrevendo.set( false );
+            aguardar( leitoras );
+            
+        } finally {
+            executor.shutdownNow();
+        }
+        
+    }
+    
+    private static void verificarValores( ArvoreAVLConcorrente<Integer, Integer> a, String contexto ) {
+        for ( Entry<Integer, Integer> e : a.getEntries() ) {
+            verificarIguais( e.getKey(), e.getValue() / THREADS, contexto + ", value of " + e.getKey() );
+        }
+    }
+    
+    private static void argumentos() {
+        
+        ArvoreAVLConcorrente<Integer, Integer> a = new ArvoreAVLConcorrente<>();
+        verificar( a.min() == null && a.max() == null, "empty tree min/max" );
+        
+        a.put( 1, 1 );
+        a.put( 1, null );
+        verificarIguais( 0, a.getSize(), "put with null value deletes" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> a.put( null, 1 ), "put(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.get( null ), "get(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.delete( null ), "delete(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.floor( null ), "floor(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.ceiling( null ), "ceiling(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.getKeys( null, 1 ), "getKeys(null, 1)" );
+        
+    }
+    
+    private static void aguardar( List<Future<?>> tarefas ) {
+        for ( Future<?> f : tarefas ) {
+            try {
+                f.get();
+            } catch ( InterruptedException exc ) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError( "interrupted", exc );
+            } catch ( ExecutionException exc ) {
+                throw new AssertionError( exc.getCause().getMessage(), exc.getCause() );
+            }
+        }
+    }
+    
+    private static void comparar( ArvoreAVLConcorrente<Integer, Integer> a, TreeMap<Integer, Integer> m,
+            String contexto, Random r ) {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        verificarIguais( m.isEmpty(), a.isEmpty(), contexto + ", isEmpty()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a ), contexto + ", keys" );
+        
+        for ( Integer k : m.keySet() ) {
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+        }
+        
+        Invariantes.verificarAVLConcorrente( a, contexto );
+        
+        verificarEntrada( m.firstEntry(), a.min(), contexto + ", min()" );
+        verificarEntrada( m.lastEntry(), a.max(), contexto + ", max()" );
+        
+        int limite = m.isEmpty() ? 100 : m.lastKey() + 100;
+        
+        for ( int i = 0; i < 100; i++ ) {
+            
+            int k = r.nextInt( limite ) - 50;
+            verificarEntrada( m.floorEntry( k ), a.floor( k ), contexto + ", floor(" + k + ")" );
+            verificarEntrada( m.ceilingEntry( k ), a.ceiling( k ), contexto + ", ceiling(" + k + ")" );
+            
+            int hi = k + r.nextInt( 200 );
+            verificarIguais( new ArrayList<>( m.subMap( k, true, hi, true ).keySet() ),
+                    listar( a.getKeys( k, hi ) ), contexto + ", getKeys(" + k + ", " + hi + ")" );
+            
+        }
+        
+    }
+    
+    private static void verificarEntrada( Map.Entry<Integer, Integer> esperado, Entry<Integer, Integer> obtido,
+            String contexto ) {
+        
+        if ( esperado == null ) {
+            verificar( obtido == null, contexto + ": expected null but was " + obtido );
+        } else {
+            verificar( obtido != null, contexto + ": expected " + esperado + " but was null" );
+            verificarIguais( esperado.getKey(), obtido.getKey(), contexto + ", key" );
+            verificarIguais( esperado.getValue(), obtido.getValue(), contexto + ", value" );
+        }
+        
+    }
+
+}
@@ -0,0 +1,164 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeMap;
+import projetoesdarvores.esd.ArvoreAVLInt;
+
+/**
+ * Testes da ArvoreAVLInt, comparada com a TreeMap, inclusive com chaves nos
+ * extremos do intervalo de int.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreAVLInt {
+
+    private static final long SEMENTE = 20111101L;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        operacoesAleatorias();
+        construcaoOrdenada();
+        argumentos();
+        
+        System.out.println( "ArvoreAVLInt: ok" );
+        
+    }
+    
+    private static void operacoesAleatorias() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreAVLInt<Integer> a = new ArvoreAVLInt<>();
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int i = 0; i < 60000; i++ ) {
+            
+            int k = chave( r );
+            
+            if ( r.nextInt( 3 ) < 2 ) {
+                a.put( k, i );
+                m.put( k, i );
+            } else {
+                a.delete( k );
+                m.remove( k );
+            }
+            
+            if ( i % 3000 == 0 ) {
+                comparar( a, m, "random operations", r );
+            }
+            
+        }
+        
+        comparar( a, m, "random operations", r );
+        
+        PrimitiveIterator.OfInt it = a.iterator();
+        it.nextInt();
+        // chave fora do intervalo sorteado, então a inserção é estrutural
+        a.put( 10000, 0 );
+        verificarLanca( ConcurrentModificationException.class, it::nextInt, "modification during iteration" );
+        a.delete( 10000 );
+        
+        a.clear();
+        m.clear();
+        comparar( a, m, "clear", r );
+        
+    }
+    
+    private static void construcaoOrdenada() {
+        
+        for ( int n : new int[]{ 0, 1, 2, 3, 100, 1023, 1024 } ) {
+            
+            int[] chaves = new int[n];
+            Integer[] valores = new Integer[n];
+            TreeMap<Integer, Integer> m = new TreeMap<>();
+            
+            for ( int i = 0; i < n; i++ ) {
+                chaves[i] = 3 * i - n;
+                valores[i] = i;
+                m.put( chaves[i], i );
+            }
+            
+            ArvoreAVLInt<Integer> a = ArvoreAVLInt.fromSorted( chaves, valores );
+            comparar( a, m, "fromSorted, n = " + n, new Random( SEMENTE ) );
+            
+        }
+        
+    }
+    
+    private static void argumentos() {
+        
+        ArvoreAVLInt<Integer> a = new ArvoreAVLInt<>();
+        a.put( 1, 1 );
+        a.put( 1, null );
+        verificarIguais( 0, a.getSize(), "put with null value deletes" );
+        verificar( a.min() == null && a.max() == null, "empty tree min/max" );
+        
+        verificarLanca( IllegalArgumentException.class,
+                () -> ArvoreAVLInt.fromSorted( new int[]{ 2, 1 }, new Integer[]{ 1, 2 } ), "fromSorted, unsorted keys" );
+        verificarLanca( IllegalArgumentException.class,
+                () -> ArvoreAVLInt.fromSorted( new int[]{ 1 }, new Integer[]{ null } ), "fromSorted, null value" );
+        
+    }
+    
+    /*
+     * Chaves em um intervalo pequeno, para que haja repetições, e algumas
+     * nos extremos de int.
+     */
+    private static int chave( Random r ) {
+        switch ( r.nextInt( 20 ) ) {
+            case 0:
+                return Integer.MIN_VALUE + r.nextInt( 3 );
+            case 1:
+                return Integer.MAX_VALUE - r.nextInt( 3 );
+            default:
+                return r.nextInt( 6000 ) - 3000;
+        }
+    }
+    
+    private static void comparar( ArvoreAVLInt<Integer> a, TreeMap<Integer, Integer> m, String contexto, Random r ) {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        verificarIguais( m.isEmpty(), a.isEmpty(), contexto + ", isEmpty()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a.getKeys() ), contexto + ", keys" );
+        
+        for ( Integer k : m.keySet() ) {
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+        }
+        
+        if ( !m.isEmpty() ) {
+            verificarIguais( m.firstKey(), a.min().key, contexto + ", min()" );
+            verificarIguais( m.lastKey(), a.max().key, contexto + ", max()" );
+        }
+        
+        // o iterador primitivo percorre as mesmas chaves sem encaixotá-las
+        List<Integer> primitivas = new ArrayList<>();
+        for ( PrimitiveIterator.OfInt it = a.iterator(); it.hasNext(); ) {
+            primitivas.add( it.nextInt() );
+        }
+        verificarIguais( new ArrayList<>( m.keySet() ), primitivas, contexto + ", nextInt()" );
+        
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a.getKeys( Integer.MIN_VALUE, Integer.MAX_VALUE ) ),
+                contexto + ", getKeys(MIN_VALUE, MAX_VALUE)" );
+        
+        for ( int i = 0; i < 50; i++ ) {
+            int lo = r.nextInt( 6000 ) - 3000;
+            int hi = lo + r.nextInt( 300 );
+            verificarIguais( new ArrayList<>( m.subMap( lo, true, hi, true ).keySet() ),
+                    listar( a.getKeys( lo, hi ) ), contexto + ", getKeys(" + lo + ", " + hi + ")" );
+        }
+        
+    }
+
+}
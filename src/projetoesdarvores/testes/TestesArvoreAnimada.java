@@ -0,0 +1,158 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+import projetoesdarvores.esd.BufferEventosEstruturais;
+import projetoesdarvores.utils.ArvoreAnimada;
+import projetoesdarvores.utils.ReprodutorEventos;
+
+/**
+ * Testes da ArvoreAnimada dos simuladores: reproduzindo os passos
+ * estruturais gravados pela ArvoreAVL e pela ArvoreVermelhoPreto, a réplica
+ * precisa ter a mesma forma da árvore real (chaves em pré-ordem), as mesmas
+ * alturas ou cores e as mesmas chaves da TreeMap.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreAnimada {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 300;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        avl();
+        vermelhoPreto();
+        
+        System.out.println( "ArvoreAnimada: ok" );
+        
+    }
+    
+    private static void avl() {
+        
+        Random r = new Random( SEMENTE );
+        BufferEventosEstruturais buffer = new BufferEventosEstruturais( 1 << 16 );
+        ArvoreAnimada animada = new ArvoreAnimada( false, 0, 0, 10, 4 );
+        ReprodutorEventos reprodutor = new ReprodutorEventos( buffer, 1, animada );
+        ArvoreAVL<Integer, Integer> a = new ArvoreAVL<>();
+        a.setOuvinte( buffer );
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int i = 0; i < 20000; i++ ) {
+            
+            int k = r.nextInt( CHAVES );
+            
+            if ( r.nextInt( 3 ) < 2 ) {
+                a.put( k, i );
+                m.put( k, i );
+            } else {
+                a.delete( k );
+                m.remove( k );
+            }
+            
+            // em parte das operações a reprodução fica para depois, com
+            // vários passos pendentes
+            if ( r.nextInt( 4 ) == 0 ) {
+                reprodutor.concluir();
+                List<Object> preOrdem = new ArrayList<>();
+                List<Object> alturas = new ArrayList<>();
+                ArvoreAVL.Node<Integer, Integer> raiz = Invariantes.raiz( a );
+                percorrerAVL( raiz, preOrdem, alturas );
+                comparar( animada, m, preOrdem, alturas, "AVL, step " + i );
+            }
+            
+            if ( i % 5000 == 4999 ) {
+                a.clear();
+                m.clear();
+            }
+            
+        }
+        
+    }
+    
+    private static void vermelhoPreto() {
+        
+        Random r = new Random( SEMENTE );
+        BufferEventosEstruturais buffer = new BufferEventosEstruturais( 1 << 16 );
+        ArvoreAnimada animada = new ArvoreAnimada( true, 0, 0, 10, 4 );
+        ReprodutorEventos reprodutor = new ReprodutorEventos( buffer, 1, animada );
+        ArvoreVermelhoPreto<Integer, Integer> a = new ArvoreVermelhoPreto<>();
+        a.setOuvinte( buffer );
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int i = 0; i < 20000; i++ ) {
+            
+            int k = r.nextInt( CHAVES );
+            
+            if ( r.nextInt( 3 ) < 2 ) {
+                a.put( k, i );
+                m.put( k, i );
+            } else {
+                a.delete( k );
+                m.remove( k );
+            }
+            
+            if ( r.nextInt( 4 ) == 0 ) {
+                reprodutor.concluir();
+                List<Object> preOrdem = new ArrayList<>();
+                List<Object> cores = new ArrayList<>();
+                ArvoreVermelhoPreto.Node<Integer, Integer> raiz = Invariantes.raiz( a );
+                percorrerVermelhoPreto( raiz, preOrdem, cores );
+                comparar( animada, m, preOrdem, cores, "red-black, step " + i );
+            }
+            
+            if ( i % 5000 == 4999 ) {
+                a.clear();
+                m.clear();
+            }
+            
+        }
+        
+    }
+    
+    private static void comparar( ArvoreAnimada animada, TreeMap<Integer, Integer> m,
+            List<Object> preOrdem, List<Object> atributos, String contexto ) {
+        verificarIguais( m.size(), animada.getTamanho(), contexto + ", size" );
+        verificarIguais( preOrdem, animada.getChavesPreOrdem(), contexto + ", shape (pre-order keys)" );
+        verificarIguais( atributos, animada.getAtributosEmOrdem(), contexto + ", heights or colors" );
+    }
+    
+    /*
+     * Chaves em pré-ordem e alturas em ordem da árvore real: a subárvore
+     * direita é percorrida em uma lista à parte, anexada depois da esquerda.
+     */
+    private static void percorrerAVL( ArvoreAVL.Node<Integer, Integer> n, List<Object> preOrdem, List<Object> alturas ) {
+        if ( n != null ) {
+            preOrdem.add( n.key );
+            List<Object> direita = new ArrayList<>();
+            percorrerAVL( n.left, preOrdem, alturas );
+            alturas.add( n.height );
+            percorrerAVL( n.right, direita, alturas );
+            preOrdem.addAll( direita );
+        }
+    }
+    
+    private static void percorrerVermelhoPreto( ArvoreVermelhoPreto.Node<Integer, Integer> n,
+            List<Object> preOrdem, List<Object> cores ) {
+        if ( n != null ) {
+            preOrdem.add( n.key );
+            List<Object> direita = new ArrayList<>();
+            percorrerVermelhoPreto( n.left, preOrdem, cores );
+            cores.add( n.color == ArvoreVermelhoPreto.NodeColor.RED );
+            percorrerVermelhoPreto( n.right, direita, cores );
+            preOrdem.addAll( direita );
+        }
+    }
+
+}
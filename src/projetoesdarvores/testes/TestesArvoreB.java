@@ -0,0 +1,171 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import aesd.ds.interfaces.List;
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import projetoesdarvores.esd.ArvoreB;
+
+/**
+ * Testes da ArvoreB, comparada com a TreeMap, verificando também as
+ * invariantes da árvore B (quantidade de chaves por nó, chaves em ordem e
+ * todas as folhas no mesmo nível) através dos nós coletados para desenho.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreB {
+
+    private static final long SEMENTE = 20111101L;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        for ( int ordem : new int[]{ 4, 6, ArvoreB.ORDEM_PADRAO, 64 } ) {
+            operacoesAleatorias( ordem );
+        }
+        
+        argumentos();
+        
+        System.out.println( "ArvoreB: ok" );
+        
+    }
+    
+    private static void operacoesAleatorias( int ordem ) {
+        
+        Random r = new Random( SEMENTE + ordem );
+        ArvoreB<Integer, Integer> a = new ArvoreB<>( ordem );
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        String contexto = "order " + ordem;
+        
+        for ( int rodada = 0; rodada < 2; rodada++ ) {
+            
+            for ( int i = 0; i < 30000; i++ ) {
+                
+                int k = r.nextInt( 5000 );
+                
+                if ( r.nextInt( 3 ) < 2 ) {
+                    a.put( k, i );
+                    m.put( k, i );
+                } else {
+                    a.delete( k );
+                    m.remove( k );
+                }
+                
+                if ( i % 2000 == 0 ) {
+                    comparar( a, m, contexto );
+                }
+                
+            }
+            
+            comparar( a, m, contexto );
+            
+            for ( int i = 0; i < 100; i++ ) {
+                int lo = r.nextInt( 5000 );
+                int hi = lo + r.nextInt( 300 );
+                verificarIguais( new ArrayList<>( m.subMap( lo, true, hi, true ).keySet() ),
+                        listar( a.getKeys( lo, hi ) ), contexto + ", getKeys(" + lo + ", " + hi + ")" );
+            }
+            
+            for ( Entry<Integer, Integer> e : a.getEntries() ) {
+                verificarIguais( m.get( e.getKey() ), e.getValue(), contexto + ", entry " + e.getKey() );
+            }
+            
+            Iterator<Integer> it = a.iterator();
+            it.next();
+            a.put( -1, -1 );
+            verificarLanca( ConcurrentModificationException.class, it::next, contexto + ", modification during iteration" );
+            a.delete( -1 );
+            
+            a.clear();
+            m.clear();
+            comparar( a, m, contexto + ", clear" );
+            
+        }
+        
+    }
+    
+    private static void argumentos() {
+        
+        ArvoreB<Integer, Integer> a = new ArvoreB<>();
+        a.put( 1, 1 );
+        a.put( 1, null );
+        verificarIguais( 0, a.getSize(), "put with null value deletes" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> new ArvoreB<Integer, Integer>( 5 ), "odd order" );
+        verificarLanca( IllegalArgumentException.class, () -> new ArvoreB<Integer, Integer>( 2 ), "order 2" );
+        verificarLanca( IllegalArgumentException.class, () -> a.put( null, 1 ), "put(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.get( null ), "get(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.delete( null ), "delete(null)" );
+        
+    }
+    
+    private static void comparar( ArvoreB<Integer, Integer> a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        verificarIguais( m.isEmpty(), a.isEmpty(), contexto + ", isEmpty()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a ), contexto + ", keys" );
+        
+        for ( Integer k : m.keySet() ) {
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+        }
+        
+        verificarEstrutura( a, contexto );
+        
+    }
+    
+    /*
+     * Percorre os níveis coletados verificando a quantidade de chaves de
+     * cada nó e, em cada nível, que as chaves estão em ordem e que cada nó
+     * interno tem um filho a mais do que chaves.
+     */
+    private static void verificarEstrutura( ArvoreB<Integer, Integer> a, String contexto ) {
+        
+        List<List<ArvoreB.Node<Integer, Integer>>> niveis = a.coletarParaDesenho();
+        int minimo = a.getOrdem() / 2 - 1;
+        int maximo = a.getOrdem() - 1;
+        
+        verificarIguais( a.getHeight(), niveis.getSize(), contexto + ", height" );
+        
+        for ( int i = 0; i < niveis.getSize(); i++ ) {
+            
+            boolean folhas = i == niveis.getSize() - 1;
+            Integer anterior = null;
+            int filhos = 0;
+            
+            for ( ArvoreB.Node<Integer, Integer> node : niveis.get( i ) ) {
+                
+                int n = node.getKeyCount();
+                verificar( n <= maximo && ( i == 0 ? n >= 1 : n >= minimo ),
+                        contexto + ", level " + i + ": node with " + n + " keys" );
+                verificarIguais( folhas, node.isLeaf(), contexto + ", level " + i + ": leaf depth" );
+                
+                for ( int j = 0; j < n; j++ ) {
+                    Integer k = node.getKey( j );
+                    verificar( anterior == null || anterior < k, contexto + ", level " + i + ": keys out of order" );
+                    anterior = k;
+                }
+                
+                filhos += folhas ? 0 : n + 1;
+                
+            }
+            
+            if ( !folhas ) {
+                verificarIguais( filhos, niveis.get( i + 1 ).getSize(), contexto + ", level " + i + ": children" );
+            }
+            
+        }
+        
+    }
+
+}
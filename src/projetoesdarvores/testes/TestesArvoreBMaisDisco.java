@@ -0,0 +1,272 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import projetoesdarvores.esd.ArvoreBMaisDisco;
+import projetoesdarvores.esd.Codec;
+
+/**
+ * Testes da ArvoreBMaisDisco, comparada com a TreeMap. As páginas são do
+ * menor tamanho permitido e a cache tem poucas páginas, para que haja
+ * muitas divisões e muitas páginas sujas saindo da cache, e os valores têm
+ * tamanhos variados. O conteúdo é verificado também depois de fechar e
+ * reabrir o arquivo.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreBMaisDisco {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 4000;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        Path diretorio = null;
+        
+        try {
+            diretorio = Files.createTempDirectory( "bmais-disco" );
+            operacoesAleatorias( diretorio.resolve( "arvore.bpt" ) );
+            arquivoInvalido( diretorio.resolve( "invalido.bpt" ) );
+            argumentos( diretorio.resolve( "argumentos.bpt" ) );
+        } catch ( IOException exc ) {
+            throw new UncheckedIOException( exc );
+        } finally {
+            apagar( diretorio );
+        }
+        
+        System.out.println( "ArvoreBMaisDisco: ok" );
+        
+    }
+    
+    private static void operacoesAleatorias( Path arquivo ) throws IOException {
+        
+        Random r = new Random( SEMENTE );
+        TreeMap<Integer, String> m = new TreeMap<>();
+        ArvoreBMaisDisco<Integer, String> a = abrir( arquivo );
+        
+        for ( int rodada = 0; rodada < 3; rodada++ ) {
+            
+            String contexto = "round " + rodada;
+            
+            for ( int i = 0; i < 20000; i++ ) {
+                
+                int k = r.nextInt( CHAVES );
+                
+                if ( r.nextInt( 3 ) < 2 ) {
+                    String v = valor( r );
+                    a.put( k, v );
+                    m.put( k, v );
+                } else {
+                    a.delete( k );
+                    m.remove( k );
+                }
+                
+                if ( i % 2500 == 0 ) {
+                    comparar( a, m, contexto, r );
+                }
+                
+            }
+            
+            comparar( a, m, contexto, r );
+            verificar( a.getHeight() > 1, contexto + ", tree grew past one level" );
+            verificar( a.getFaltasCache() > 0 && a.getPaginasEscritas() > 0,
+                    contexto + ", pages evicted from the cache" );
+            
+            // o conteúdo sobrevive ao fechamento, com e sem flush explícito
+            if ( rodada == 0 ) {
+                a.flush();
+            }
+            a.close();
+            a = abrir( arquivo );
+            comparar( a, m, contexto + ", reopened", r );
+            
+        }
+        
+        Iterator<Integer> it = a.iterator();
+        it.next();
+        a.put( -1, "x" );
+        verificarLanca( ConcurrentModificationException.class, it::next, "modification during iteration" );
+        a.delete( -1 );
+        
+        a.clear();
+        m.clear();
+        comparar( a, m, "clear", r );
+        a.close();
+        
+        a = abrir( arquivo );
+        comparar( a, m, "reopened after clear", r );
+        a.close();
+        
+    }
+    
+    private static void arquivoInvalido( Path arquivo ) throws IOException {
+        
+        ArvoreBMaisDisco<Integer, String> a = abrir( arquivo );
+        a.put( 1, "um" );
+        a.close();
+        
+        // um byte trocado no cabeçalho é detectado pelo CRC
+        try ( RandomAccessFile f = new RandomAccessFile( arquivo.toFile(), "rw" ) ) {
+            f.seek( 20 );
+            int b = f.read();
+            f.seek( 20 );
+            f.write( b ^ 0xFF );
+        }
+        
+        verificarLanca( UncheckedIOException.class, () -> {
+            try {
+                abrir( arquivo );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "corrupted header" );
+        
+        Files.write( arquivo, new byte[ArvoreBMaisDisco.TAMANHO_PAGINA_MINIMO] );
+        
+        verificarLanca( UncheckedIOException.class, () -> {
+            try {
+                abrir( arquivo );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "not a B+ tree file" );
+        
+    }
+    
+    private static void argumentos( Path arquivo ) throws IOException {
+        
+        ArvoreBMaisDisco<Integer, String> a = abrir( arquivo );
+        
+        a.put( 1, "um" );
+        a.put( 1, null );
+        verificarIguais( 0, a.getSize(), "put with null value deletes" );
+        
+        StringBuilder grande = new StringBuilder();
+        for ( int i = 0; i < a.getTamanhoPagina(); i++ ) {
+            grande.append( 'x' );
+        }
+        
+        verificarLanca( IllegalArgumentException.class, () -> {
+            try {
+                a.put( 1, grande.toString() );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "entry larger than a page" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> {
+            try {
+                a.put( null, "x" );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "put(null)" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> a.getKeys( 1, null ), "getKeys(lo, null)" );
+        
+        a.close();
+        
+        verificarLanca( IllegalStateException.class, () -> {
+            try {
+                a.put( 1, "um" );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "put after close" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> {
+            try {
+                new ArvoreBMaisDisco<>( arquivo, Codec.INTEGER, Codec.STRING,
+                        ArvoreBMaisDisco.TAMANHO_PAGINA_MINIMO / 2, ArvoreBMaisDisco.PAGINAS_EM_CACHE_MINIMO );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "page size below the minimum" );
+        
+    }
+    
+    private static ArvoreBMaisDisco<Integer, String> abrir( Path arquivo ) throws IOException {
+        return new ArvoreBMaisDisco<>( arquivo, Codec.INTEGER, Codec.STRING,
+                ArvoreBMaisDisco.TAMANHO_PAGINA_MINIMO, ArvoreBMaisDisco.PAGINAS_EM_CACHE_MINIMO );
+    }
+    
+    /*
+     * Valores de 0 a 24 caracteres, para que a quantidade de entradas por
+     * página varie.
+     */
+    private static String valor( Random r ) {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = r.nextInt( 25 ); i > 0; i-- ) {
+            sb.append( (char) ( 'a' + r.nextInt( 26 ) ) );
+        }
+        return sb.toString();
+    }
+    
+    private static void comparar( ArvoreBMaisDisco<Integer, String> a, TreeMap<Integer, String> m,
+            String contexto, Random r ) throws IOException {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        verificarIguais( m.isEmpty(), a.isEmpty(), contexto + ", isEmpty()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a.getKeys() ), contexto + ", keys" );
+        
+        for ( Entry<Integer, String> e : a.getEntries() ) {
+            verificarIguais( m.get( e.getKey() ), e.getValue(), contexto + ", entry " + e.getKey() );
+        }
+        
+        for ( int i = 0; i < 50; i++ ) {
+            
+            int k = r.nextInt( CHAVES + 20 ) - 10;
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+            verificarIguais( m.containsKey( k ), a.contains( k ), contexto + ", contains(" + k + ")" );
+            
+            int hi = k + r.nextInt( 300 );
+            verificarIguais( new ArrayList<>( m.subMap( k, true, hi, true ).keySet() ),
+                    listar( a.getKeys( k, hi ) ), contexto + ", getKeys(" + k + ", " + hi + ")" );
+            
+            ArrayList<String> valores = new ArrayList<>();
+            for ( Entry<Integer, String> e : a.getEntries( k, hi ) ) {
+                valores.add( e.getValue() );
+            }
+            verificarIguais( new ArrayList<>( m.subMap( k, true, hi, true ).values() ), valores,
+                    contexto + ", getEntries(" + k + ", " + hi + ")" );
+            
+        }
+        
+    }
+    
+    private static void apagar( Path diretorio ) {
+        
+        if ( diretorio == null ) {
+            return;
+        }
+        
+        try ( Stream<Path> caminhos = Files.walk( diretorio ) ) {
+            caminhos.sorted( Comparator.reverseOrder() ).forEach( p -> p.toFile().delete() );
+        } catch ( IOException exc ) {
+            // diretório temporário
+        }
+        
+    }
+
+}
@@ -0,0 +1,272 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+
+import aesd.ds.interfaces.List;
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+import projetoesdarvores.esd.ArvoreBinariaBusca;
+import projetoesdarvores.esd.ArvoreBinariaBusca.Node;
+
+/**
+ * Testes da ArvoreBinariaBusca, comparada com a TreeMap. A lista de
+ * desenho mantida incrementalmente por put e delete é comparada com a
+ * própria árvore: ordem das chaves, ranques, níveis e tamanhos das
+ * subárvores. Árvores degeneradas, com profundidade igual ao tamanho,
+ * verificam que put, delete, clear e os percursos não usam recursão.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreBinariaBusca {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 3000;
+    
+    // profundidade das árvores degeneradas e pilha da thread que as
+    // percorre: uma implementação recursiva a estouraria
+    private static final int PROFUNDIDADE = 20000;
+    private static final long PILHA = 128 * 1024;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        desenhoIncremental();
+        emPilhaPequena( TestesArvoreBinariaBusca::profundidadeDegenerada );
+        
+        System.out.println( "ArvoreBinariaBusca: ok" );
+        
+    }
+    
+    /*
+     * Operações aleatórias com coletas intercaladas, incluindo inserções de
+     * chaves existentes e remoções de chaves ausentes, que não podem mudar
+     * os tamanhos nem a lista de desenho.
+     */
+    private static void desenhoIncremental() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreBinariaBusca<Integer, Integer> a = new ArvoreBinariaBusca<>();
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        a.coletarParaDesenho();
+        
+        for ( int i = 0; i < 40000; i++ ) {
+            
+            int k = r.nextInt( CHAVES );
+            
+            if ( r.nextInt( 3 ) < 2 ) {
+                a.put( k, i );
+                m.put( k, i );
+            } else {
+                a.delete( k );
+                m.remove( k );
+            }
+            
+            // coletas frequentes mantêm a lista incremental; as espaçadas
+            // acumulam trabalho e forçam a reconstrução
+            if ( i < 2000 || i % 97 == 0 ) {
+                comparar( a, m, "random operations, step " + i );
+            }
+            
+        }
+        
+        comparar( a, m, "random operations" );
+        
+        Integer presente = m.firstKey();
+        a.put( presente, -1 );
+        m.put( presente, -1 );
+        a.delete( -1 );
+        verificar( !a.isDesenhoAlterado(), "layout changed by value update or missing delete" );
+        comparar( a, m, "value update and missing delete" );
+        
+        // lote maior que a árvore, que descarta a lista mantida
+        for ( int k = CHAVES; k < 3 * CHAVES; k++ ) {
+            a.put( k, k );
+            m.put( k, k );
+        }
+        comparar( a, m, "bulk insert" );
+        
+        a.clear();
+        m.clear();
+        comparar( a, m, "clear" );
+        
+    }
+    
+    /*
+     * Árvores degeneradas em listas pela direita (inserção crescente) e pela
+     * esquerda (inserção decrescente): put, get, contains, os percursos,
+     * delete e clear precisam funcionar sem recursão em qualquer
+     * profundidade, inclusive em uma pilha pequena. Não coleta para desenho
+     * nem usa toString.
+     */
+    private static void profundidadeDegenerada() {
+        
+        Random r = new Random( SEMENTE );
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        ArvoreBinariaBusca<Integer, Integer> crescente = new ArvoreBinariaBusca<>();
+        ArvoreBinariaBusca<Integer, Integer> decrescente = new ArvoreBinariaBusca<>();
+        
+        for ( int k = 0; k < PROFUNDIDADE; k++ ) {
+            crescente.put( k, -k );
+            decrescente.put( PROFUNDIDADE - 1 - k, k - PROFUNDIDADE + 1 );
+            m.put( k, -k );
+        }
+        
+        compararDegenerada( crescente, m, "ascending chain" );
+        compararDegenerada( decrescente, m, "descending chain" );
+        
+        // atualizações de valores no fundo das listas
+        crescente.put( PROFUNDIDADE - 1, 1 );
+        decrescente.put( 0, 1 );
+        verificarIguais( 1, crescente.get( PROFUNDIDADE - 1 ), "value update at the bottom of ascending chain" );
+        verificarIguais( 1, decrescente.get( 0 ), "value update at the bottom of descending chain" );
+        verificarIguais( PROFUNDIDADE, crescente.getSize(), "size after value update" );
+        crescente.put( PROFUNDIDADE - 1, 1 - PROFUNDIDADE );
+        decrescente.put( 0, 0 );
+        
+        // remoções aleatórias, ausentes e das pontas
+        for ( int i = 0; i < 2000; i++ ) {
+            int k = r.nextInt( PROFUNDIDADE + 100 ) - 50;
+            crescente.delete( k );
+            decrescente.delete( k );
+            m.remove( k );
+        }
+        
+        for ( int i = 0; i < 1000; i++ ) {
+            Integer menor = m.firstKey();
+            Integer maior = m.lastKey();
+            crescente.delete( menor );
+            decrescente.delete( maior );
+            crescente.delete( maior );
+            decrescente.delete( menor );
+            m.remove( menor );
+            m.remove( maior );
+        }
+        
+        compararDegenerada( crescente, m, "ascending chain after deletes" );
+        compararDegenerada( decrescente, m, "descending chain after deletes" );
+        
+        crescente.clear();
+        decrescente.clear();
+        m.clear();
+        compararDegenerada( crescente, m, "ascending chain after clear" );
+        compararDegenerada( decrescente, m, "descending chain after clear" );
+        
+        crescente.put( 1, -1 );
+        verificarIguais( -1, crescente.get( 1 ), "put after clear" );
+        
+    }
+    
+    /*
+     * Executa a ação em uma thread com pilha pequena e repassa as falhas.
+     */
+    private static void emPilhaPequena( Runnable acao ) {
+        
+        Throwable[] falha = new Throwable[1];
+        Thread t = new Thread( null, () -> {
+            try {
+                acao.run();
+            } catch ( Throwable e ) {
+                falha[0] = e;
+            }
+        }, "pilha-pequena", PILHA );
+        
+        t.start();
+        try {
+            t.join();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError( "interrupted", e );
+        }
+        
+        if ( falha[0] instanceof Error ) {
+            throw (Error) falha[0];
+        }
+        if ( falha[0] != null ) {
+            throw new AssertionError( "small stack run failed", falha[0] );
+        }
+        
+    }
+    
+    private static void compararDegenerada( ArvoreBinariaBusca<Integer, Integer> a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        verificarIguais( m.isEmpty(), a.isEmpty(), contexto + ", isEmpty()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a.getKeys() ), contexto + ", getKeys()" );
+        
+        int i = 0;
+        for ( Entry<Integer, Integer> e : a.getEntries() ) {
+            verificarIguais( -e.getKey(), e.getValue(), contexto + ", entry at " + i );
+            i++;
+        }
+        verificarIguais( m.size(), i, contexto + ", getEntries() size" );
+        
+        int lo = PROFUNDIDADE / 3;
+        int hi = PROFUNDIDADE / 3 + 5000;
+        verificarIguais( new ArrayList<>( m.subMap( lo, true, hi, true ).keySet() ),
+                listar( a.getKeys( lo, hi ) ), contexto + ", getKeys(lo, hi)" );
+        
+        for ( int k : new int[]{ -1, 0, 1, lo, hi, PROFUNDIDADE - 2, PROFUNDIDADE - 1, PROFUNDIDADE } ) {
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+            verificarIguais( m.containsKey( k ), a.contains( k ), contexto + ", contains(" + k + ")" );
+        }
+        
+    }
+    
+    private static void comparar( ArvoreBinariaBusca<Integer, Integer> a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a.getKeys() ), contexto + ", getKeys()" );
+        
+        List<Node<Integer, Integer>> desenho = a.coletarParaDesenho();
+        verificar( !a.isDesenhoAlterado(), contexto + ", layout still marked as changed" );
+        verificarIguais( m.size(), desenho.getSize(), contexto + ", layout size" );
+        
+        Node<Integer, Integer> raiz = null;
+        int i = 0;
+        
+        for ( Integer k : m.keySet() ) {
+            Node<Integer, Integer> n = desenho.get( i );
+            verificarIguais( k, n.key, contexto + ", layout key at " + i );
+            verificarIguais( m.get( k ), n.value, contexto + ", layout value at " + i );
+            verificarIguais( i, n.ranque, contexto + ", rank of " + k );
+            if ( n.nivel == 0 ) {
+                raiz = n;
+            }
+            i++;
+        }
+        
+        verificarIguais( m.size(), verificarSubarvore( raiz, 0, contexto ), contexto + ", subtree sizes" );
+        
+    }
+    
+    /*
+     * Verifica os níveis e os tamanhos das subárvores a partir da raiz e
+     * retorna o tamanho da subárvore.
+     */
+    private static int verificarSubarvore( Node<Integer, Integer> n, int nivel, String contexto ) {
+        
+        if ( n == null ) {
+            return 0;
+        }
+        
+        verificarIguais( nivel, n.nivel, contexto + ", level of " + n.key );
+        
+        int tamanho = 1 + verificarSubarvore( n.left, nivel + 1, contexto )
+                + verificarSubarvore( n.right, nivel + 1, contexto );
+        verificarIguais( tamanho, n.size, contexto + ", size of " + n.key );
+        
+        return tamanho;
+        
+    }
+
+}
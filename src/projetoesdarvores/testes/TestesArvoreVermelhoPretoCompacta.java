@@ -0,0 +1,125 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+import projetoesdarvores.esd.ArvoreVermelhoPretoCompacta;
+
+/**
+ * Testes da ArvoreVermelhoPretoCompacta, comparada com a TreeMap.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreVermelhoPretoCompacta {
+
+    private static final long SEMENTE = 20111101L;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        insercaoAlemDaCapacidade();
+        operacoesAleatorias();
+        argumentos();
+        
+        System.out.println( "ArvoreVermelhoPretoCompacta: ok" );
+        
+    }
+    
+    /*
+     * As inserções que fazem os arranjos crescerem não podem perder as
+     * subárvores ligadas durante o crescimento.
+     */
+    private static void insercaoAlemDaCapacidade() {
+        
+        for ( int capacidade : new int[]{ 0, 1, 16 } ) {
+            
+            ArvoreVermelhoPretoCompacta<Integer, Integer> a = new ArvoreVermelhoPretoCompacta<>( capacidade );
+            TreeMap<Integer, Integer> m = new TreeMap<>();
+            
+            for ( int i = 0; i < 1000; i++ ) {
+                a.put( i, -i );
+                m.put( i, -i );
+            }
+            
+            comparar( a, m, "sequential puts, capacity " + capacidade );
+            
+        }
+        
+    }
+    
+    private static void operacoesAleatorias() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreVermelhoPretoCompacta<Integer, Integer> a = new ArvoreVermelhoPretoCompacta<>();
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int rodada = 0; rodada < 3; rodada++ ) {
+            
+            for ( int i = 0; i < 20000; i++ ) {
+                int k = r.nextInt( 4000 );
+                if ( r.nextInt( 3 ) < 2 ) {
+                    a.put( k, i );
+                    m.put( k, i );
+                } else {
+                    a.delete( k );
+                    m.remove( k );
+                }
+                if ( i % 1000 == 0 ) {
+                    comparar( a, m, "random operations, round " + rodada );
+                }
+            }
+            
+            comparar( a, m, "random operations, round " + rodada );
+            
+            for ( int i = 0; i < 100; i++ ) {
+                int lo = r.nextInt( 4000 );
+                int hi = lo + r.nextInt( 200 );
+                verificarIguais( new ArrayList<>( m.subMap( lo, true, hi, true ).keySet() ),
+                        listar( a.getKeys( lo, hi ) ), "getKeys(" + lo + ", " + hi + ")" );
+            }
+            
+            // as posições liberadas e a capacidade são reaproveitadas
+            a.clear();
+            m.clear();
+            comparar( a, m, "clear" );
+            
+        }
+        
+    }
+    
+    private static void argumentos() {
+        
+        ArvoreVermelhoPretoCompacta<Integer, Integer> a = new ArvoreVermelhoPretoCompacta<>();
+        a.put( 1, 1 );
+        a.put( 1, null );
+        verificarIguais( 0, a.getSize(), "put with null value deletes" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> a.put( null, 1 ), "put(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.get( null ), "get(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.delete( null ), "delete(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> new ArvoreVermelhoPretoCompacta<Integer, Integer>( -1 ),
+                "negative capacity" );
+        
+    }
+    
+    private static void comparar( ArvoreVermelhoPretoCompacta<Integer, Integer> a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        Invariantes.verificarVermelhoPretoCompacta( a, contexto );
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        verificarIguais( m.isEmpty(), a.isEmpty(), contexto + ", isEmpty()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a ), contexto + ", keys" );
+        
+        for ( Integer k : m.keySet() ) {
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+        }
+        
+    }
+
+}
@@ -0,0 +1,395 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import projetoesdarvores.esd.ArvoreVermelhoPretoDuravel;
+import projetoesdarvores.esd.Codec;
+
+/**
+ * Testes da ArvoreVermelhoPretoDuravel: o estado reaberto (ponto de
+ * verificação mais log) é comparado com a TreeMap, inclusive com um
+ * registro incompleto no fim do log e com falhas de gravação injetadas
+ * no canal do log.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreVermelhoPretoDuravel {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 2000;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        Path diretorio = null;
+        
+        try {
+            diretorio = Files.createTempDirectory( "avp-duravel" );
+            recuperacao( diretorio );
+            argumentos( diretorio.resolve( "argumentos" ) );
+            falhaNoCommit( diretorio.resolve( "falha" ) );
+            falhaNoCommitPorTempo( diretorio.resolve( "falha-tempo" ) );
+        } catch ( IOException exc ) {
+            throw new UncheckedIOException( exc );
+        } finally {
+            apagar( diretorio );
+        }
+        
+        System.out.println( "ArvoreVermelhoPretoDuravel: ok" );
+        
+    }
+    
+    private static void recuperacao( Path diretorio ) throws IOException {
+        
+        Random r = new Random( SEMENTE );
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        // commit a cada 64 operações, sem commit por tempo nem pontos de
+        // verificação automáticos
+        ArvoreVermelhoPretoDuravel<Integer, Integer> a = abrir( diretorio );
+        int gravadas = operar( a, m, r, 5000 );
+        a.close();
+        
+        a = abrir( diretorio );
+        comparar( a, m, "reopen after close" );
+        verificarIguais( gravadas, a.getRegistrosRecuperados(), "records replayed without checkpoint" );
+        
+        // o log é esvaziado pelo ponto de verificação e só as operações
+        // seguintes são reaplicadas
+        a.checkpoint();
+        int depois = operar( a, m, r, 3000 );
+        a.sync();
+        a.close();
+        
+        a = abrir( diretorio );
+        comparar( a, m, "reopen after checkpoint" );
+        verificarIguais( depois, a.getRegistrosRecuperados(), "records replayed after checkpoint" );
+        a.close();
+        
+        // um registro incompleto no fim do log, como o de uma queda durante
+        // a gravação, é descartado
+        Files.write( diretorio.resolve( "log.wal" ), new byte[]{ 0, 0, 0, 40, 1, 2, 3 }, StandardOpenOption.APPEND );
+        
+        a = abrir( diretorio );
+        comparar( a, m, "reopen with torn tail" );
+        operar( a, m, r, 1000 );
+        a.close();
+        
+        a = abrir( diretorio );
+        comparar( a, m, "reopen after writing past the torn tail" );
+        a.close();
+        
+    }
+    
+    private static void argumentos( Path diretorio ) throws IOException {
+        
+        ArvoreVermelhoPretoDuravel<Integer, Integer> a = abrir( diretorio );
+        
+        verificarLanca( IllegalArgumentException.class, () -> {
+            try {
+                a.put( null, 1 );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "put(null)" );
+        
+        a.close();
+        
+        verificarLanca( IllegalStateException.class, () -> {
+            try {
+                a.put( 1, 1 );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "put after close" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> {
+            try {
+                new ArvoreVermelhoPretoDuravel<>( diretorio, Codec.INTEGER, Codec.INTEGER, 0, 0, 0 );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "zero operations per commit" );
+        
+    }
+    
+    /*
+     * Depois de uma falha no commit em grupo as operações são recusadas,
+     * close() conclui e fecha o canal e a reabertura recupera o que já havia
+     * sido sincronizado.
+     */
+    private static void falhaNoCommit( Path diretorio ) throws IOException {
+        
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        ArvoreVermelhoPretoDuravel<Integer, Integer> a = abrir( diretorio );
+        
+        for ( int k = 0; k < 64; k++ ) {
+            a.put( k, k );
+            m.put( k, k );
+        }
+        
+        CanalComFalha canal = injetarFalha( a );
+        
+        verificarLanca( UncheckedIOException.class, () -> {
+            try {
+                for ( int k = 64; k < 128; k++ ) {
+                    a.put( k, k );
+                }
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "put during failed commit" );
+        
+        verificarLanca( IllegalStateException.class, () -> {
+            try {
+                a.put( 0, 1 );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, "put after failed commit" );
+        
+        a.close();
+        verificarIguais( false, canal.isOpen(), "log channel open after close" );
+        verificarIguais( false, canal.original.isOpen(), "underlying channel open after close" );
+        
+        ArvoreVermelhoPretoDuravel<Integer, Integer> b = abrir( diretorio );
+        comparar( b, m, "reopen after failed commit" );
+        b.close();
+        
+    }
+    
+    /*
+     * A mesma falha, mas no commit feito pela tarefa agendada: ela é
+     * reportada pela operação seguinte e close() continua fechando o canal.
+     */
+    private static void falhaNoCommitPorTempo( Path diretorio ) throws IOException {
+        
+        ArvoreVermelhoPretoDuravel<Integer, Integer> a =
+                new ArvoreVermelhoPretoDuravel<>( diretorio, Codec.INTEGER, Codec.INTEGER, 1000, 5, 0 );
+        CanalComFalha canal = injetarFalha( a );
+        
+        a.put( 1, 1 );
+        
+        boolean reportada = false;
+        
+        for ( int i = 0; i < 400 && !reportada; i++ ) {
+            try {
+                Thread.sleep( 5 );
+                a.put( 2, 2 );
+            } catch ( IllegalStateException exc ) {
+                reportada = true;
+            } catch ( InterruptedException exc ) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        
+        verificarIguais( true, reportada, "scheduled commit failure reported" );
+        
+        a.close();
+        verificarIguais( false, canal.original.isOpen(), "underlying channel open after close" );
+        
+        ArvoreVermelhoPretoDuravel<Integer, Integer> b = abrir( diretorio );
+        comparar( b, new TreeMap<>(), "reopen after failed scheduled commit" );
+        b.close();
+        
+    }
+    
+    /*
+     * Troca o canal do log da árvore por um que falha em toda gravação.
+     */
+    private static CanalComFalha injetarFalha( ArvoreVermelhoPretoDuravel<?, ?> a ) {
+        
+        try {
+            Field f = ArvoreVermelhoPretoDuravel.class.getDeclaredField( "log" );
+            f.setAccessible( true );
+            CanalComFalha canal = new CanalComFalha( (FileChannel) f.get( a ) );
+            f.set( a, canal );
+            return canal;
+        } catch ( ReflectiveOperationException exc ) {
+            throw new AssertionError( "cannot replace the log channel", exc );
+        }
+        
+    }
+    
+    /*
+     * Canal que delega as leituras ao canal original e falha nas gravações.
+     */
+    private static class CanalComFalha extends FileChannel {
+        
+        private final FileChannel original;
+        
+        CanalComFalha( FileChannel original ) {
+            this.original = original;
+        }
+        
+        private static IOException falha() {
+            return new IOException( "injected write failure" );
+        }
+        
+        @Override
+        public int read( ByteBuffer dst ) throws IOException {
+            return original.read( dst );
+        }
+        
+        @Override
+        public long read( ByteBuffer[] dsts, int offset, int length ) throws IOException {
+            return original.read( dsts, offset, length );
+        }
+        
+        @Override
+        public int read( ByteBuffer dst, long position ) throws IOException {
+            return original.read( dst, position );
+        }
+        
+        @Override
+        public int write( ByteBuffer src ) throws IOException {
+            throw falha();
+        }
+        
+        @Override
+        public long write( ByteBuffer[] srcs, int offset, int length ) throws IOException {
+            throw falha();
+        }
+        
+        @Override
+        public int write( ByteBuffer src, long position ) throws IOException {
+            throw falha();
+        }
+        
+        @Override
+        public long position() throws IOException {
+            return original.position();
+        }
+        
+        @Override
+        public FileChannel position( long newPosition ) throws IOException {
+            original.position( newPosition );
+            return this;
+        }
+        
+        @Override
+        public long size() throws IOException {
+            return original.size();
+        }
+        
+        @Override
+        public FileChannel truncate( long size ) throws IOException {
+            throw falha();
+        }
+        
+        @Override
+        public void force( boolean metaData ) throws IOException {
+            throw falha();
+        }
+        
+        @Override
+        public long transferTo( long position, long count, WritableByteChannel target ) throws IOException {
+            return original.transferTo( position, count, target );
+        }
+        
+        @Override
+        public long transferFrom( ReadableByteChannel src, long position, long count ) throws IOException {
+            throw falha();
+        }
+        
+        @Override
+        public MappedByteBuffer map( MapMode mode, long position, long size ) throws IOException {
+            return original.map( mode, position, size );
+        }
+        
+        @Override
+        public FileLock lock( long position, long size, boolean shared ) throws IOException {
+            return original.lock( position, size, shared );
+        }
+        
+        @Override
+        public FileLock tryLock( long position, long size, boolean shared ) throws IOException {
+            return original.tryLock( position, size, shared );
+        }
+        
+        @Override
+        protected void implCloseChannel() throws IOException {
+            original.close();
+        }
+        
+    }
+    
+    private static ArvoreVermelhoPretoDuravel<Integer, Integer> abrir( Path diretorio ) throws IOException {
+        return new ArvoreVermelhoPretoDuravel<>( diretorio, Codec.INTEGER, Codec.INTEGER, 64, 0, 0 );
+    }
+    
+    /*
+     * Executa operações aleatórias na árvore e no modelo e retorna quantas
+     * foram gravadas no log (um delete de chave ausente não é gravado).
+     */
+    private static int operar( ArvoreVermelhoPretoDuravel<Integer, Integer> a, TreeMap<Integer, Integer> m,
+            Random r, int quantidade ) throws IOException {
+        
+        int gravadas = 0;
+        
+        for ( int i = 0; i < quantidade; i++ ) {
+            int k = r.nextInt( CHAVES );
+            if ( r.nextInt( 3 ) < 2 ) {
+                a.put( k, i );
+                m.put( k, i );
+                gravadas++;
+            } else {
+                if ( m.remove( k ) != null ) {
+                    gravadas++;
+                }
+                a.delete( k );
+            }
+        }
+        
+        return gravadas;
+        
+    }
+    
+    private static void comparar( ArvoreVermelhoPretoDuravel<Integer, Integer> a, TreeMap<Integer, Integer> m,
+            String contexto ) {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        
+        for ( int k = 0; k < CHAVES; k++ ) {
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+        }
+        
+    }
+    
+    private static void apagar( Path diretorio ) {
+        
+        if ( diretorio == null ) {
+            return;
+        }
+        
+        try ( Stream<Path> caminhos = Files.walk( diretorio ) ) {
+            caminhos.sorted( Comparator.reverseOrder() ).forEach( p -> p.toFile().delete() );
+        } catch ( IOException exc ) {
+            // diretório temporário
+        }
+        
+    }
+
+}
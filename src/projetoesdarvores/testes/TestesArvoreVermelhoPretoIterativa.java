@@ -0,0 +1,161 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import projetoesdarvores.esd.ArvoreVermelhoPretoIterativa;
+
+/**
+ * Testes da ArvoreVermelhoPretoIterativa, comparada com a TreeMap, com as
+ * invariantes da árvore vermelho-preto clássica e os links para os pais
+ * verificados ao longo das operações.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreVermelhoPretoIterativa {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 5000;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        operacoesAleatorias();
+        sequencias();
+        argumentos();
+        
+        System.out.println( "ArvoreVermelhoPretoIterativa: ok" );
+        
+    }
+    
+    private static void operacoesAleatorias() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreVermelhoPretoIterativa<Integer, Integer> a = new ArvoreVermelhoPretoIterativa<>();
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int rodada = 0; rodada < 2; rodada++ ) {
+            
+            for ( int i = 0; i < 60000; i++ ) {
+                
+                int k = r.nextInt( CHAVES );
+                
+                if ( r.nextInt( 3 ) < 2 ) {
+                    a.put( k, i );
+                    m.put( k, i );
+                } else {
+                    a.delete( k );
+                    m.remove( k );
+                }
+                
+                // no início, com a árvore pequena, verifica a cada operação
+                if ( i < 500 || i % 3000 == 0 ) {
+                    comparar( a, m, "random operations, step " + i, r );
+                }
+                
+            }
+            
+            comparar( a, m, "random operations", r );
+            
+            Iterator<Integer> it = a.iterator();
+            it.next();
+            a.put( -1, -1 );
+            verificarLanca( ConcurrentModificationException.class, it::next, "modification during iteration" );
+            a.delete( -1 );
+            
+            a.clear();
+            m.clear();
+            comparar( a, m, "clear", r );
+            
+        }
+        
+    }
+    
+    /*
+     * Inserções e remoções em ordem crescente e decrescente, que exercitam
+     * sempre os mesmos casos do conserto.
+     */
+    private static void sequencias() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreVermelhoPretoIterativa<Integer, Integer> a = new ArvoreVermelhoPretoIterativa<>();
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int k = 0; k < CHAVES; k++ ) {
+            a.put( k, k );
+            m.put( k, k );
+        }
+        for ( int k = -1; k >= -CHAVES; k-- ) {
+            a.put( k, k );
+            m.put( k, k );
+        }
+        comparar( a, m, "ascending and descending insertion", r );
+        
+        for ( int k = -CHAVES; k < 0; k++ ) {
+            a.delete( k );
+            m.remove( k );
+        }
+        comparar( a, m, "ascending deletion", r );
+        
+        for ( int k = CHAVES - 1; k >= CHAVES / 2; k-- ) {
+            a.delete( k );
+            m.remove( k );
+        }
+        comparar( a, m, "descending deletion", r );
+        
+    }
+    
+    private static void argumentos() {
+        
+        ArvoreVermelhoPretoIterativa<Integer, Integer> a = new ArvoreVermelhoPretoIterativa<>();
+        a.put( 1, 1 );
+        a.put( 1, null );
+        verificarIguais( 0, a.getSize(), "put with null value deletes" );
+        verificarIguais( null, a.floor( 1 ), "floor() on empty tree" );
+        verificarIguais( null, a.ceiling( 1 ), "ceiling() on empty tree" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> a.put( null, 1 ), "put(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.get( null ), "get(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.delete( null ), "delete(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.floor( null ), "floor(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.ceiling( null ), "ceiling(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.getKeys( null, 1 ), "getKeys(null, hi)" );
+        
+    }
+    
+    private static void comparar( ArvoreVermelhoPretoIterativa<Integer, Integer> a, TreeMap<Integer, Integer> m,
+            String contexto, Random r ) {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        verificarIguais( m.isEmpty(), a.isEmpty(), contexto + ", isEmpty()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a.getKeys() ), contexto + ", keys" );
+        
+        for ( int i = 0; i < 20; i++ ) {
+            
+            int k = r.nextInt( CHAVES + 20 ) - 10;
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+            verificarIguais( m.containsKey( k ), a.contains( k ), contexto + ", contains(" + k + ")" );
+            verificarIguais( m.floorKey( k ), a.floor( k ), contexto + ", floor(" + k + ")" );
+            verificarIguais( m.ceilingKey( k ), a.ceiling( k ), contexto + ", ceiling(" + k + ")" );
+            
+            int hi = k + r.nextInt( 200 );
+            verificarIguais( new ArrayList<>( m.subMap( k, true, hi, true ).keySet() ),
+                    listar( a.getKeys( k, hi ) ), contexto + ", getKeys(" + k + ", " + hi + ")" );
+            
+        }
+        
+        Invariantes.verificarVermelhoPretoIterativa( a, contexto );
+        
+    }
+
+}
@@ -0,0 +1,224 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import projetoesdarvores.esd.ArvoreVermelhoPretoPersistente;
+
+/**
+ * Testes da ArvoreVermelhoPretoPersistente: cada versão criada é comparada
+ * com uma cópia da TreeMap tirada no mesmo momento, inclusive depois que
+ * muitas outras versões foram derivadas dela, e as invariantes da árvore
+ * vermelho-preto são verificadas em todas as versões guardadas.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesArvoreVermelhoPretoPersistente {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 3000;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        versoes();
+        ramificacoes();
+        leituraConcorrente();
+        argumentos();
+        
+        System.out.println( "ArvoreVermelhoPretoPersistente: ok" );
+        
+    }
+    
+    /*
+     * Guarda uma versão a cada 500 operações e, no fim, verifica que todas
+     * continuam iguais ao modelo da época em que foram criadas.
+     */
+    private static void versoes() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreVermelhoPretoPersistente<Integer, Integer> a = new ArvoreVermelhoPretoPersistente<>();
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        List<ArvoreVermelhoPretoPersistente<Integer, Integer>> guardadas = new ArrayList<>();
+        List<TreeMap<Integer, Integer>> modelos = new ArrayList<>();
+        
+        for ( int i = 0; i < 40000; i++ ) {
+            
+            int k = r.nextInt( CHAVES );
+            
+            if ( r.nextInt( 3 ) < 2 ) {
+                a = a.put( k, i );
+                m.put( k, i );
+            } else {
+                a = a.delete( k );
+                m.remove( k );
+            }
+            
+            if ( i % 500 == 0 ) {
+                guardadas.add( a.snapshot() );
+                modelos.add( new TreeMap<>( m ) );
+            }
+            
+        }
+        
+        guardadas.add( a );
+        modelos.add( m );
+        
+        for ( int i = 0; i < guardadas.size(); i++ ) {
+            comparar( guardadas.get( i ), modelos.get( i ), "version " + i, r );
+        }
+        
+        // esvaziar a última versão não altera as anteriores
+        for ( Integer k : new ArrayList<>( m.keySet() ) ) {
+            a = a.delete( k );
+        }
+        comparar( a, new TreeMap<>(), "every key deleted", r );
+        comparar( guardadas.get( guardadas.size() - 1 ), m, "last version after deleting every key", r );
+        
+    }
+    
+    /*
+     * Várias versões derivadas da mesma base, como os ramos de uma busca com
+     * retrocesso.
+     */
+    private static void ramificacoes() {
+        
+        Random r = new Random( SEMENTE + 1 );
+        ArvoreVermelhoPretoPersistente<Integer, Integer> base = new ArvoreVermelhoPretoPersistente<>();
+        TreeMap<Integer, Integer> mb = new TreeMap<>();
+        
+        for ( int i = 0; i < 1000; i++ ) {
+            int k = r.nextInt( CHAVES );
+            base = base.put( k, k );
+            mb.put( k, k );
+        }
+        
+        for ( int ramo = 0; ramo < 20; ramo++ ) {
+            
+            ArvoreVermelhoPretoPersistente<Integer, Integer> a = base;
+            TreeMap<Integer, Integer> m = new TreeMap<>( mb );
+            
+            for ( int i = 0; i < 300; i++ ) {
+                int k = r.nextInt( CHAVES );
+                if ( r.nextBoolean() ) {
+                    a = a.put( k, -ramo );
+                    m.put( k, -ramo );
+                } else {
+                    a = a.delete( k );
+                    m.remove( k );
+                }
+            }
+            
+            comparar( a, m, "branch " + ramo, r );
+            comparar( base, mb, "base after branch " + ramo, r );
+            
+        }
+        
+    }
+    
+    /*
+     * Uma versão publicada é percorrida por outra thread enquanto novas
+     * versões são criadas a partir dela.
+     */
+    private static void leituraConcorrente() {
+        
+        ArvoreVermelhoPretoPersistente<Integer, Integer> a = new ArvoreVermelhoPretoPersistente<>();
+        for ( int k = 0; k < CHAVES; k++ ) {
+            a = a.put( k, k );
+        }
+        
+        ArvoreVermelhoPretoPersistente<Integer, Integer> publicada = a;
+        AtomicReference<Throwable> falha = new AtomicReference<>();
+        
+        Thread leitor = new Thread( () -> {
+            try {
+                for ( int rodada = 0; rodada < 50; rodada++ ) {
+                    int esperada = 0;
+                    for ( Integer k : publicada ) {
+                        verificarIguais( esperada++, k, "concurrent reader, round " + rodada );
+                    }
+                    verificarIguais( CHAVES, esperada, "concurrent reader, key count" );
+                }
+            } catch ( Throwable t ) {
+                falha.set( t );
+            }
+        } );
+        
+        leitor.start();
+        
+        for ( int k = 0; k < CHAVES; k += 2 ) {
+            a = a.delete( k ).put( k + CHAVES, k );
+        }
+        
+        try {
+            leitor.join();
+        } catch ( InterruptedException exc ) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError( "interrupted", exc );
+        }
+        
+        if ( falha.get() != null ) {
+            throw new AssertionError( "concurrent reader failed", falha.get() );
+        }
+        
+        verificarIguais( CHAVES, publicada.getSize(), "published version size" );
+        
+    }
+    
+    private static void argumentos() {
+        
+        ArvoreVermelhoPretoPersistente<Integer, Integer> vazia = new ArvoreVermelhoPretoPersistente<>();
+        ArvoreVermelhoPretoPersistente<Integer, Integer> a = vazia.put( 1, 1 );
+        
+        verificar( vazia.isEmpty(), "empty version unchanged by put" );
+        verificar( a.delete( 2 ) == a, "delete of an absent key returns the same version" );
+        verificar( a.put( 1, a.get( 1 ) ) == a, "put of the same value returns the same version" );
+        verificar( a.put( 1, null ).isEmpty(), "put with null value deletes" );
+        verificarIguais( 1, a.getSize(), "version unchanged by put with null value" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> a.put( null, 1 ), "put(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.get( null ), "get(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.delete( null ), "delete(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.getKeys( null, 1 ), "getKeys(null, hi)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.getEntries( 1, null ), "getEntries(lo, null)" );
+        
+    }
+    
+    private static void comparar( ArvoreVermelhoPretoPersistente<Integer, Integer> a, TreeMap<Integer, Integer> m,
+            String contexto, Random r ) {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        verificarIguais( m.isEmpty(), a.isEmpty(), contexto + ", isEmpty()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a.getKeys() ), contexto + ", keys" );
+        
+        for ( Entry<Integer, Integer> e : a.getEntries() ) {
+            verificarIguais( m.get( e.getKey() ), e.getValue(), contexto + ", entry " + e.getKey() );
+        }
+        
+        for ( int i = 0; i < 20; i++ ) {
+            int k = r.nextInt( CHAVES );
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+            verificarIguais( m.containsKey( k ), a.contains( k ), contexto + ", contains(" + k + ")" );
+            int hi = k + r.nextInt( 200 );
+            verificarIguais( new ArrayList<>( m.subMap( k, true, hi, true ).keySet() ),
+                    listar( a.getKeys( k, hi ) ), contexto + ", getKeys(" + k + ", " + hi + ")" );
+        }
+        
+        Invariantes.verificarVermelhoPretoPersistente( a, contexto );
+        
+    }
+
+}
@@ -0,0 +1,218 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Testes de fromSorted e fromUnsorted da ArvoreAVL e da ArvoreVermelhoPreto,
+ * comparadas com a TreeMap: conteúdo, invariantes, altura, uso da
+ * árvore construída com put e delete e rejeição de entradas inválidas.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesConstrucaoEmLote {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int[] TAMANHOS = { 0, 1, 2, 3, 7, 8, 1000, 65535, 65536, 100000 };
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        for ( int n : TAMANHOS ) {
+            ordenadas( n );
+            desordenadas( n );
+        }
+        
+        invalidas();
+        
+        System.out.println( "construcao em lote: ok" );
+        
+    }
+    
+    /*
+     * Chaves pares, para que put possa inserir as ímpares entre elas.
+     */
+    private static void ordenadas( int n ) {
+        
+        Integer[] chaves = new Integer[n];
+        Integer[] valores = new Integer[n];
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int i = 0; i < n; i++ ) {
+            chaves[i] = 2 * i;
+            valores[i] = -i;
+            m.put( chaves[i], valores[i] );
+        }
+        
+        String contexto = "fromSorted, n = " + n;
+        List<Entry<Integer, Integer>> pares = new ArrayList<>();
+        for ( Map.Entry<Integer, Integer> e : m.entrySet() ) {
+            pares.add( new Entry<>( e.getKey(), e.getValue() ) );
+        }
+        
+        compararAVL( ArvoreAVL.fromSorted( chaves, valores ), m, contexto + ", arrays" );
+        compararAVL( ArvoreAVL.fromSorted( pares.iterator(), n ), m, contexto + ", iterator" );
+        compararVermelhoPreto( ArvoreVermelhoPreto.fromSorted( chaves, valores ), m, contexto + ", arrays" );
+        compararVermelhoPreto( ArvoreVermelhoPreto.fromSorted( pares.iterator(), n ), m, contexto + ", iterator" );
+        
+    }
+    
+    /*
+     * Chaves embaralhadas com repetições: prevalece o último valor de cada
+     * chave.
+     */
+    private static void desordenadas( int n ) {
+        
+        Random r = new Random( SEMENTE + n );
+        Integer[] chaves = new Integer[n];
+        Integer[] valores = new Integer[n];
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int i = 0; i < n; i++ ) {
+            chaves[i] = 2 * r.nextInt( Math.max( 1, n ) );
+            valores[i] = i;
+            m.put( chaves[i], valores[i] );
+        }
+        
+        String contexto = "fromUnsorted, n = " + n;
+        compararAVL( ArvoreAVL.fromUnsorted( chaves, valores ), m, contexto );
+        compararVermelhoPreto( ArvoreVermelhoPreto.fromUnsorted( chaves, valores ), m, contexto );
+        
+    }
+    
+    private static void invalidas() {
+        
+        Integer[] desordenadas = { 1, 3, 2 };
+        Integer[] repetidas = { 1, 2, 2 };
+        Integer[] comNula = { 1, null, 3 };
+        Integer[] valores = { 1, 2, 3 };
+        Integer[] curtos = { 1, 2 };
+        
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreAVL.fromSorted( desordenadas, valores ), "AVL, unsorted keys" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreAVL.fromSorted( repetidas, valores ), "AVL, repeated keys" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreAVL.fromSorted( comNula, valores ), "AVL, null key" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreAVL.fromSorted( valores, comNula ), "AVL, null value" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreAVL.fromSorted( valores, curtos ), "AVL, length mismatch" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreAVL.fromSorted( null, valores ), "AVL, null keys" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreAVL.fromUnsorted( comNula, valores ), "AVL, unsorted null key" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreAVL.fromSorted( entradas( 2 ), 3 ), "AVL, short iterator" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreAVL.fromSorted( entradas( 2 ), -1 ), "AVL, negative size" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreVermelhoPreto.fromSorted( desordenadas, valores ), "red-black, unsorted keys" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreVermelhoPreto.fromSorted( repetidas, valores ), "red-black, repeated keys" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreVermelhoPreto.fromSorted( comNula, valores ), "red-black, null key" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreVermelhoPreto.fromSorted( valores, comNula ), "red-black, null value" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreVermelhoPreto.fromSorted( valores, curtos ), "red-black, length mismatch" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreVermelhoPreto.fromSorted( null, valores ), "red-black, null keys" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreVermelhoPreto.fromUnsorted( comNula, valores ), "red-black, unsorted null key" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreVermelhoPreto.fromSorted( entradas( 2 ), 3 ), "red-black, short iterator" );
+        verificarLanca( IllegalArgumentException.class, () -> ArvoreVermelhoPreto.fromSorted( entradas( 2 ), -1 ), "red-black, negative size" );
+        
+    }
+    
+    private static Iterator<Entry<Integer, Integer>> entradas( int n ) {
+        List<Entry<Integer, Integer>> pares = new ArrayList<>();
+        for ( int i = 0; i < n; i++ ) {
+            pares.add( new Entry<>( i, i ) );
+        }
+        return pares.iterator();
+    }
+    
+    private static void compararAVL( ArvoreAVL<Integer, Integer> a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        compararConteudo( a.getKeys(), a::get, m, contexto );
+        Invariantes.verificarAVL( a, contexto );
+        
+        ArvoreAVL.Node<Integer, Integer> raiz = Invariantes.raiz( a );
+        verificarIguais( alturaMinima( m.size() ), raiz == null ? 0 : raiz.height, contexto + ", height" );
+        
+        // a árvore construída continua funcionando com put e delete
+        TreeMap<Integer, Integer> copia = new TreeMap<>( m );
+        modificar( a::put, a::delete, copia );
+        compararConteudo( a.getKeys(), a::get, copia, contexto + ", after put and delete" );
+        Invariantes.verificarAVL( a, contexto + ", after put and delete" );
+        
+    }
+    
+    private static void compararVermelhoPreto( ArvoreVermelhoPreto<Integer, Integer> a, TreeMap<Integer, Integer> m,
+            String contexto ) {
+        
+        compararConteudo( a.getKeys(), a::get, m, contexto );
+        Invariantes.verificarVermelhoPreto( a, contexto );
+        
+        // construída como uma árvore 2-3, a altura respeita o limite das
+        // árvores vermelho-preto, 2 lg(n + 1)
+        int altura = altura( Invariantes.raiz( a ) );
+        verificar( altura <= 2 * ( 31 - Integer.numberOfLeadingZeros( m.size() + 1 ) ),
+                contexto + ", height " + altura + " above 2 lg(n + 1)" );
+        
+        TreeMap<Integer, Integer> copia = new TreeMap<>( m );
+        modificar( a::put, a::delete, copia );
+        compararConteudo( a.getKeys(), a::get, copia, contexto + ", after put and delete" );
+        Invariantes.verificarVermelhoPreto( a, contexto + ", after put and delete" );
+        
+    }
+    
+    private static void compararConteudo( Iterable<Integer> chaves, Function<Integer, Integer> get,
+            TreeMap<Integer, Integer> m, String contexto ) {
+        
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( chaves ), contexto + ", keys" );
+        
+        for ( Map.Entry<Integer, Integer> e : m.entrySet() ) {
+            verificarIguais( e.getValue(), get.apply( e.getKey() ), contexto + ", get(" + e.getKey() + ")" );
+        }
+        
+    }
+    
+    /*
+     * Insere chaves ímpares e remove parte das pares existentes.
+     */
+    private static void modificar( BiConsumer<Integer, Integer> put,
+            Consumer<Integer> delete, TreeMap<Integer, Integer> m ) {
+        
+        Random r = new Random( SEMENTE );
+        int limite = 2 * Math.max( 1, m.size() );
+        
+        for ( int i = 0; i < 200; i++ ) {
+            int k = 2 * r.nextInt( limite / 2 ) + 1;
+            put.accept( k, k );
+            m.put( k, k );
+            int p = 2 * r.nextInt( limite / 2 );
+            delete.accept( p );
+            m.remove( p );
+        }
+        
+    }
+    
+    /*
+     * Altura, contada em nós, de uma árvore binária com n nós e todos os
+     * níveis completos exceto o último.
+     */
+    private static int alturaMinima( int n ) {
+        return 32 - Integer.numberOfLeadingZeros( n );
+    }
+    
+    private static int altura( ArvoreVermelhoPreto.Node<Integer, Integer> node ) {
+        return node == null ? 0 : 1 + Math.max( altura( node.left ), altura( node.right ) );
+    }
+
+}
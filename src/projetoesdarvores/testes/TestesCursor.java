@@ -0,0 +1,444 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+import projetoesdarvores.esd.Monoide;
+
+/**
+ * Testes dos cursores da ArvoreAVL e da ArvoreVermelhoPreto, comparados com
+ * a TreeMap: percursos nos dois sentidos, buscas relativas à posição atual,
+ * troca de valores e invalidação por modificações estruturais.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesCursor {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 20000;
+    
+    /*
+     * Operações comuns aos cursores das duas árvores.
+     */
+    private interface Cursor {
+        boolean isValid();
+        Integer getKey();
+        Integer getValue();
+        void setValue( Integer value );
+        boolean seekFirst();
+        boolean seekLast();
+        boolean seek( Integer key );
+        boolean next();
+        boolean previous();
+    }
+    
+    /*
+     * Operações comuns às duas árvores.
+     */
+    private interface Arvore {
+        void put( Integer key, Integer value );
+        void delete( Integer key );
+        Iterator<Integer> iterator();
+        Cursor cursor();
+    }
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        executar( "ArvoreAVL", () -> avl( new ArvoreAVL<>() ) );
+        executar( "ArvoreVermelhoPreto", () -> vermelhoPreto( new ArvoreVermelhoPreto<>() ) );
+        
+        agregados();
+        
+        System.out.println( "cursores: ok" );
+        
+    }
+    
+    private static void executar( String nome, Supplier<Arvore> fabrica ) {
+        
+        vazia( nome, fabrica.get() );
+        
+        for ( int n : new int[]{ 1, 2, 10, 5000 } ) {
+            
+            Random r = new Random( SEMENTE + n );
+            TreeMap<Integer, Integer> m = new TreeMap<>();
+            Arvore a = fabrica.get();
+            
+            while ( m.size() < n ) {
+                int k = r.nextInt( CHAVES );
+                a.put( k, k );
+                m.put( k, k );
+            }
+            
+            String contexto = nome + ", n = " + n;
+            percursos( a, m, contexto );
+            buscas( a, m, r, contexto );
+            trocaDeValores( a, m, r, contexto );
+            modificacoes( a, m, contexto );
+            
+        }
+        
+    }
+    
+    private static void vazia( String nome, Arvore a ) {
+        
+        Cursor c = a.cursor();
+        
+        verificar( !c.isValid(), nome + ", new cursor is not positioned" );
+        verificar( !c.seekFirst(), nome + ", seekFirst() on empty tree" );
+        verificar( !c.seekLast(), nome + ", seekLast() on empty tree" );
+        verificar( !c.seek( 1 ), nome + ", seek() on empty tree" );
+        verificarLanca( NoSuchElementException.class, c::getKey, nome + ", getKey() outside the tree" );
+        verificarLanca( NoSuchElementException.class, c::next, nome + ", next() outside the tree" );
+        verificarLanca( NoSuchElementException.class, c::previous, nome + ", previous() outside the tree" );
+        verificarLanca( IllegalArgumentException.class, () -> c.seek( null ), nome + ", seek(null)" );
+        
+    }
+    
+    private static void percursos( Arvore a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        Cursor c = a.cursor();
+        
+        List<Integer> crescente = new ArrayList<>();
+        for ( boolean ok = c.seekFirst(); ok; ok = c.next() ) {
+            crescente.add( c.getKey() );
+        }
+        verificarIguais( new ArrayList<>( m.keySet() ), crescente, contexto + ", seekFirst()/next()" );
+        verificar( !c.isValid(), contexto + ", cursor leaves the tree after the last key" );
+        
+        List<Integer> decrescente = new ArrayList<>();
+        for ( boolean ok = c.seekLast(); ok; ok = c.previous() ) {
+            decrescente.add( c.getKey() );
+        }
+        verificarIguais( new ArrayList<>( m.descendingKeySet() ), decrescente, contexto + ", seekLast()/previous()" );
+        verificarLanca( NoSuchElementException.class, c::previous, contexto + ", previous() after leaving the tree" );
+        
+    }
+    
+    /*
+     * Buscas em ordem crescente, decrescente e aleatória, para que a subida
+     * a partir da posição atual seja exercitada nos dois sentidos, cada uma
+     * seguida de alguns passos para frente ou para trás.
+     */
+    private static void buscas( Arvore a, TreeMap<Integer, Integer> m, Random r, String contexto ) {
+        
+        Cursor c = a.cursor();
+        
+        for ( int i = 0; i < 3000; i++ ) {
+            
+            int k;
+            switch ( i / 1000 ) {
+                case 0:
+                    k = i * ( CHAVES / 1000 ) - 5;
+                    break;
+                case 1:
+                    k = CHAVES - ( i - 1000 ) * ( CHAVES / 1000 ) + 5;
+                    break;
+                default:
+                    k = r.nextInt( CHAVES + 20 ) - 10;
+                    break;
+            }
+            
+            String ctx = contexto + ", seek(" + k + ")";
+            Integer esperada = m.ceilingKey( k );
+            
+            verificarIguais( m.containsKey( k ), c.seek( k ), ctx );
+            verificarIguais( esperada != null, c.isValid(), ctx + ", isValid()" );
+            
+            if ( esperada == null ) {
+                continue;
+            }
+            
+            verificarIguais( esperada, c.getKey(), ctx + ", getKey()" );
+            verificarIguais( m.get( esperada ), c.getValue(), ctx + ", getValue()" );
+            
+            Integer chave = esperada;
+            boolean avancar = r.nextBoolean();
+            
+            for ( int j = r.nextInt( 4 ); j > 0 && chave != null; j-- ) {
+                chave = avancar ? m.higherKey( chave ) : m.lowerKey( chave );
+                verificarIguais( chave != null, avancar ? c.next() : c.previous(), ctx + ", step" );
+                if ( chave != null ) {
+                    verificarIguais( chave, c.getKey(), ctx + ", key after step" );
+                }
+            }
+            
+        }
+        
+    }
+    
+    private static void trocaDeValores( Arvore a, TreeMap<Integer, Integer> m, Random r, String contexto ) {
+        
+        Cursor c = a.cursor();
+        Iterator<Integer> it = a.iterator();
+        
+        for ( boolean ok = c.seekFirst(); ok; ok = c.next() ) {
+            int v = r.nextInt();
+            c.setValue( v );
+            m.put( c.getKey(), v );
+        }
+        
+        // setValue não é estrutural, então o iterador continua válido
+        it.next();
+        
+        for ( Integer k : m.keySet() ) {
+            verificar( c.seek( k ), contexto + ", seek(" + k + ") after setValue()" );
+            verificarIguais( m.get( k ), c.getValue(), contexto + ", value of " + k + " after setValue()" );
+        }
+        
+        verificarLanca( IllegalArgumentException.class, () -> c.setValue( null ), contexto + ", setValue(null)" );
+        
+    }
+    
+    private static void modificacoes( Arvore a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        Cursor c = a.cursor();
+        c.seekFirst();
+        
+        // trocar o valor de uma chave existente não invalida o cursor
+        Integer primeira = m.firstKey();
+        a.put( primeira, -1 );
+        m.put( primeira, -1 );
+        verificarIguais( -1, c.getValue(), contexto + ", put of an existing key" );
+        
+        a.put( -1, -1 );
+        verificarLanca( ConcurrentModificationException.class, c::isValid, contexto + ", isValid() after insertion" );
+        verificarLanca( ConcurrentModificationException.class, c::next, contexto + ", next() after insertion" );
+        verificarLanca( ConcurrentModificationException.class, () -> c.setValue( 1 ),
+                contexto + ", setValue() after insertion" );
+        
+        // seek reposiciona o cursor a partir da raiz
+        verificar( c.seek( -1 ), contexto + ", seek() after insertion" );
+        verificar( c.next(), contexto + ", next() after repositioning" );
+        verificarIguais( primeira, c.getKey(), contexto + ", key after repositioning" );
+        
+        a.delete( -1 );
+        verificarLanca( ConcurrentModificationException.class, c::getKey, contexto + ", getKey() after deletion" );
+        verificar( c.seekLast(), contexto + ", seekLast() after deletion" );
+        verificarIguais( m.lastKey(), c.getKey(), contexto + ", last key after deletion" );
+        
+    }
+    
+    /*
+     * Com um monoide, setValue atualiza os agregados de todo o caminho do
+     * cursor.
+     */
+    private static void agregados() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreAVL<Integer, Integer> a = new ArvoreAVL<>( Monoide.sum( Integer::longValue ) );
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int i = 0; i < 2000; i++ ) {
+            int k = r.nextInt( CHAVES );
+            a.put( k, k );
+            m.put( k, k );
+        }
+        
+        ArvoreAVL<Integer, Integer>.Cursor c = a.cursor();
+        
+        for ( int i = 0; i < 500; i++ ) {
+            
+            int k = r.nextInt( CHAVES );
+            if ( !c.seek( k ) && !c.isValid() ) {
+                continue;
+            }
+            
+            int v = r.nextInt( 1000 );
+            c.setValue( v );
+            m.put( c.getKey(), v );
+            
+            int lo = r.nextInt( CHAVES );
+            int hi = lo + r.nextInt( 2000 );
+            long esperado = 0;
+            for ( int valor : m.subMap( lo, true, hi, true ).values() ) {
+                esperado += valor;
+            }
+            
+            verificarIguais( esperado, a.<Long>aggregate( lo, hi ),
+                    "ArvoreAVL, aggregate(" + lo + ", " + hi + ") after setValue()" );
+            
+        }
+        
+        long total = 0;
+        for ( int valor : m.values() ) {
+            total += valor;
+        }
+        verificarIguais( total, a.<Long>aggregate(), "ArvoreAVL, aggregate() after setValue()" );
+        
+    }
+    
+    private static Arvore avl( ArvoreAVL<Integer, Integer> a ) {
+        
+        return new Arvore() {
+            
+            @Override
+            public void put( Integer key, Integer value ) {
+                a.put( key, value );
+            }
+            
+            @Override
+            public void delete( Integer key ) {
+                a.delete( key );
+            }
+            
+            @Override
+            public Iterator<Integer> iterator() {
+                return a.iterator();
+            }
+            
+            @Override
+            public Cursor cursor() {
+                
+                ArvoreAVL<Integer, Integer>.Cursor c = a.cursor();
+                
+                return new Cursor() {
+                    
+                    @Override
+                    public boolean isValid() {
+                        return c.isValid();
+                    }
+                    
+                    @Override
+                    public Integer getKey() {
+                        return c.getKey();
+                    }
+                    
+                    @Override
+                    public Integer getValue() {
+                        return c.getValue();
+                    }
+                    
+                    @Override
+                    public void setValue( Integer value ) {
+                        c.setValue( value );
+                    }
+                    
+                    @Override
+                    public boolean seekFirst() {
+                        return c.seekFirst();
+                    }
+                    
+                    @Override
+                    public boolean seekLast() {
+                        return c.seekLast();
+                    }
+                    
+                    @Override
+                    public boolean seek( Integer key ) {
+                        return c.seek( key );
+                    }
+                    
+                    @Override
+                    public boolean next() {
+                        return c.next();
+                    }
+                    
+                    @Override
+                    public boolean previous() {
+                        return c.previous();
+                    }
+                    
+                };
+                
+            }
+            
+        };
+        
+    }
+    
+    private static Arvore vermelhoPreto( ArvoreVermelhoPreto<Integer, Integer> a ) {
+        
+        return new Arvore() {
+            
+            @Override
+            public void put( Integer key, Integer value ) {
+                a.put( key, value );
+            }
+            
+            @Override
+            public void delete( Integer key ) {
+                a.delete( key );
+            }
+            
+            @Override
+            public Iterator<Integer> iterator() {
+                return a.iterator();
+            }
+            
+            @Override
+            public Cursor cursor() {
+                
+                ArvoreVermelhoPreto<Integer, Integer>.Cursor c = a.cursor();
+                
+                return new Cursor() {
+                    
+                    @Override
+                    public boolean isValid() {
+                        return c.isValid();
+                    }
+                    
+                    @Override
+                    public Integer getKey() {
+                        return c.getKey();
+                    }
+                    
+                    @Override
+                    public Integer getValue() {
+                        return c.getValue();
+                    }
+                    
+                    @Override
+                    public void setValue( Integer value ) {
+                        c.setValue( value );
+                    }
+                    
+                    @Override
+                    public boolean seekFirst() {
+                        return c.seekFirst();
+                    }
+                    
+                    @Override
+                    public boolean seekLast() {
+                        return c.seekLast();
+                    }
+                    
+                    @Override
+                    public boolean seek( Integer key ) {
+                        return c.seek( key );
+                    }
+                    
+                    @Override
+                    public boolean next() {
+                        return c.next();
+                    }
+                    
+                    @Override
+                    public boolean previous() {
+                        return c.previous();
+                    }
+                    
+                };
+                
+            }
+            
+        };
+        
+    }
+
+}
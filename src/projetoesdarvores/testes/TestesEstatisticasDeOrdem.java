@@ -0,0 +1,138 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.util.Random;
+import java.util.TreeMap;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Testes das consultas de estatística de ordem da ArvoreVermelhoPreto
+ * (rank, select, floor, ceiling e countInRange), comparadas com a TreeMap
+ * ao longo de inserções e remoções aleatórias, que exercitam a manutenção
+ * dos tamanhos das subárvores nas rotações.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesEstatisticasDeOrdem {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 4000;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        vazia();
+        operacoesAleatorias();
+        
+        System.out.println( "estatisticas de ordem: ok" );
+        
+    }
+    
+    private static void vazia() {
+        
+        ArvoreVermelhoPreto<Integer, Integer> a = new ArvoreVermelhoPreto<>();
+        
+        verificarIguais( 0, a.rank( 1 ), "empty tree, rank()" );
+        verificarIguais( null, a.floor( 1 ), "empty tree, floor()" );
+        verificarIguais( null, a.ceiling( 1 ), "empty tree, ceiling()" );
+        verificarIguais( 0, a.countInRange( 0, 10 ), "empty tree, countInRange()" );
+        verificarLanca( IllegalArgumentException.class, () -> a.select( 0 ), "empty tree, select(0)" );
+        
+        verificarLanca( IllegalArgumentException.class, () -> a.rank( null ), "rank(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.floor( null ), "floor(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.ceiling( null ), "ceiling(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.countInRange( null, 1 ), "countInRange(null, hi)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.countInRange( 1, null ), "countInRange(lo, null)" );
+        
+    }
+    
+    private static void operacoesAleatorias() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreVermelhoPreto<Integer, Integer> a = new ArvoreVermelhoPreto<>();
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        for ( int i = 0; i < 30000; i++ ) {
+            
+            int k = r.nextInt( CHAVES );
+            
+            if ( r.nextInt( 3 ) < 2 ) {
+                a.put( k, i );
+                m.put( k, i );
+            } else {
+                a.delete( k );
+                m.remove( k );
+            }
+            
+            if ( i % 1000 == 999 ) {
+                comparar( a, m, r, "step " + i );
+            }
+            
+        }
+        
+        // remoções das pontas e do meio até esvaziar
+        while ( !m.isEmpty() ) {
+            Integer k;
+            switch ( m.size() % 3 ) {
+                case 0:
+                    k = m.firstKey();
+                    break;
+                case 1:
+                    k = m.lastKey();
+                    break;
+                default:
+                    k = a.select( m.size() / 2 );
+                    break;
+            }
+            a.delete( k );
+            m.remove( k );
+            if ( m.size() % 200 == 0 ) {
+                comparar( a, m, r, "draining, size " + m.size() );
+            }
+        }
+        
+    }
+    
+    private static void comparar( ArvoreVermelhoPreto<Integer, Integer> a, TreeMap<Integer, Integer> m,
+            Random r, String contexto ) {
+        
+        verificarIguais( m.size(), a.getSize(), contexto + ", getSize()" );
+        
+        // todas as posições e todas as chaves possíveis, presentes ou não
+        int i = 0;
+        for ( Integer k : m.keySet() ) {
+            verificarIguais( k, a.select( i ), contexto + ", select(" + i + ")" );
+            i++;
+        }
+        
+        for ( int k = -1; k <= CHAVES; k++ ) {
+            verificarIguais( m.headMap( k ).size(), a.rank( k ), contexto + ", rank(" + k + ")" );
+            verificarIguais( m.floorKey( k ), a.floor( k ), contexto + ", floor(" + k + ")" );
+            verificarIguais( m.ceilingKey( k ), a.ceiling( k ), contexto + ", ceiling(" + k + ")" );
+        }
+        
+        int n = m.size();
+        verificarLanca( IllegalArgumentException.class, () -> a.select( -1 ), contexto + ", select(-1)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.select( n ), contexto + ", select(size)" );
+        
+        for ( int j = 0; j < 200; j++ ) {
+            int lo = r.nextInt( CHAVES + 20 ) - 10;
+            int hi = lo + r.nextInt( CHAVES / 4 ) - 10;
+            int esperado = lo <= hi ? m.subMap( lo, true, hi, true ).size() : 0;
+            verificarIguais( esperado, a.countInRange( lo, hi ), contexto + ", countInRange(" + lo + ", " + hi + ")" );
+        }
+        
+        if ( !m.isEmpty() ) {
+            verificarIguais( n, a.countInRange( m.firstKey(), m.lastKey() ), contexto + ", countInRange(min, max)" );
+            verificarIguais( 1, a.countInRange( m.lastKey(), m.lastKey() ), contexto + ", countInRange(max, max)" );
+        }
+        
+    }
+
+}
@@ -0,0 +1,349 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+import projetoesdarvores.esd.Codec;
+
+/**
+ * Testes de writeTo e readFrom da ArvoreAVL e da ArvoreVermelhoPreto e dos
+ * codecs: as árvores lidas são comparadas com a TreeMap e instantâneos
+ * truncados ou corrompidos precisam resultar em IOException.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesFormatoBinario {
+
+    private static final long SEMENTE = 20111101L;
+    
+    // cabeçalho do formato, repetido aqui para montar instantâneos à mão
+    private static final int MAGICO = 0x45534441;
+    private static final int VERSAO = 1;
+    
+    /*
+     * Adapta as duas árvores que gravam instantâneos.
+     */
+    private interface Formato {
+        
+        <K extends Comparable<K>, V> byte[] gravar( TreeMap<K, V> m, Codec<K> ck, Codec<V> cv ) throws IOException;
+        
+        <K extends Comparable<K>, V> List<String> ler( byte[] bytes, Codec<K> ck, Codec<V> cv ) throws IOException;
+        
+    }
+    
+    private static final Formato AVL = new Formato() {
+        
+        @Override
+        public <K extends Comparable<K>, V> byte[] gravar( TreeMap<K, V> m, Codec<K> ck, Codec<V> cv ) throws IOException {
+            ArvoreAVL<K, V> a = new ArvoreAVL<>();
+            m.forEach( a::put );
+            ByteArrayOutputStream saida = new ByteArrayOutputStream();
+            a.writeTo( saida, ck, cv );
+            return saida.toByteArray();
+        }
+        
+        @Override
+        public <K extends Comparable<K>, V> List<String> ler( byte[] bytes, Codec<K> ck, Codec<V> cv ) throws IOException {
+            ArvoreAVL<K, V> a = ArvoreAVL.readFrom( new ByteArrayInputStream( bytes ), ck, cv );
+            Invariantes.verificarAVL( a, "read" );
+            return entradas( a.getEntries(), a.getSize() );
+        }
+        
+        @Override
+        public String toString() {
+            return "ArvoreAVL";
+        }
+        
+    };
+    
+    private static final Formato AVP = new Formato() {
+        
+        @Override
+        public <K extends Comparable<K>, V> byte[] gravar( TreeMap<K, V> m, Codec<K> ck, Codec<V> cv ) throws IOException {
+            ArvoreVermelhoPreto<K, V> a = new ArvoreVermelhoPreto<>();
+            m.forEach( a::put );
+            ByteArrayOutputStream saida = new ByteArrayOutputStream();
+            a.writeTo( Channels.newChannel( saida ), ck, cv );
+            return saida.toByteArray();
+        }
+        
+        @Override
+        public <K extends Comparable<K>, V> List<String> ler( byte[] bytes, Codec<K> ck, Codec<V> cv ) throws IOException {
+            ArvoreVermelhoPreto<K, V> a = ArvoreVermelhoPreto.readFrom( Channels.newChannel( new ByteArrayInputStream( bytes ) ), ck, cv );
+            Invariantes.verificarVermelhoPreto( a, "read" );
+            return entradas( a.getEntries(), a.getSize() );
+        }
+        
+        @Override
+        public String toString() {
+            return "ArvoreVermelhoPreto";
+        }
+        
+    };
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        try {
+            for ( Formato f : new Formato[]{ AVL, AVP } ) {
+                idaEVolta( f );
+                extremos( f );
+                invalidos( f );
+            }
+            comprimentoCorrompido();
+        } catch ( IOException exc ) {
+            throw new UncheckedIOException( exc );
+        }
+        
+        System.out.println( "FormatoBinario: ok" );
+        
+    }
+    
+    private static void idaEVolta( Formato f ) throws IOException {
+        
+        Random r = new Random( SEMENTE );
+        
+        for ( int n : new int[]{ 0, 1, 2, 100, 20000 } ) {
+            
+            TreeMap<Integer, String> m = new TreeMap<>();
+            while ( m.size() < n ) {
+                int k = r.nextInt();
+                m.put( k, "v" + k + ( k % 3 == 0 ? "ção" : "" ) );
+            }
+            
+            byte[] bytes = f.gravar( m, Codec.INTEGER, Codec.STRING );
+            verificarIguais( esperadas( m ), f.ler( bytes, Codec.INTEGER, Codec.STRING ), f + ", round trip of " + n );
+            
+        }
+        
+    }
+    
+    /*
+     * As diferenças entre chaves consecutivas que transbordam, como de
+     * MIN_VALUE até MAX_VALUE, precisam ser desfeitas na leitura.
+     */
+    private static void extremos( Formato f ) throws IOException {
+        
+        TreeMap<Integer, Integer> inteiros = new TreeMap<>();
+        for ( int k : new int[]{ Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1, 0, 1, Integer.MAX_VALUE - 1, Integer.MAX_VALUE } ) {
+            inteiros.put( k, -k );
+        }
+        verificarIguais( esperadas( inteiros ), f.ler( f.gravar( inteiros, Codec.INTEGER, Codec.INTEGER ), Codec.INTEGER, Codec.INTEGER ),
+                f + ", INTEGER extremes" );
+        
+        TreeMap<Integer, Integer> pulo = new TreeMap<>();
+        pulo.put( Integer.MIN_VALUE, 1 );
+        pulo.put( Integer.MAX_VALUE, 2 );
+        verificarIguais( esperadas( pulo ), f.ler( f.gravar( pulo, Codec.INTEGER, Codec.INTEGER ), Codec.INTEGER, Codec.INTEGER ),
+                f + ", INTEGER delta from MIN_VALUE to MAX_VALUE" );
+        
+        TreeMap<Long, Long> longos = new TreeMap<>();
+        for ( long k : new long[]{ Long.MIN_VALUE, Long.MIN_VALUE + 1, Integer.MIN_VALUE - 1L, -1, 0, 1, Integer.MAX_VALUE + 1L, Long.MAX_VALUE } ) {
+            longos.put( k, -k );
+        }
+        verificarIguais( esperadas( longos ), f.ler( f.gravar( longos, Codec.LONG, Codec.LONG ), Codec.LONG, Codec.LONG ),
+                f + ", LONG extremes" );
+        
+    }
+    
+    /*
+     * Instantâneos truncados, com mágico errado, com pares fora de ordem ou
+     * com a soma de verificação errada.
+     */
+    private static void invalidos( Formato f ) throws IOException {
+        
+        TreeMap<Integer, String> m = new TreeMap<>();
+        for ( int k = 0; k < 50; k++ ) {
+            m.put( k * 7, "valor " + k );
+        }
+        
+        byte[] bytes = f.gravar( m, Codec.INTEGER, Codec.STRING );
+        
+        for ( int tamanho = 0; tamanho < bytes.length; tamanho++ ) {
+            byte[] truncado = Arrays.copyOf( bytes, tamanho );
+            verificarLerFalha( f, truncado, Codec.INTEGER, Codec.STRING, f + ", truncated at " + tamanho );
+        }
+        
+        byte[] magico = bytes.clone();
+        magico[0] ^= 1;
+        verificarLerFalha( f, magico, Codec.INTEGER, Codec.STRING, f + ", bad magic" );
+        
+        byte[] versao = bytes.clone();
+        versao[4] = VERSAO + 1;
+        verificarLerFalha( f, versao, Codec.INTEGER, Codec.STRING, f + ", unsupported version" );
+        
+        byte[] crc = bytes.clone();
+        crc[crc.length - 1] ^= 1;
+        verificarLerFalha( f, crc, Codec.INTEGER, Codec.STRING, f + ", checksum mismatch" );
+        
+        // um byte de valor alterado, sem mudar nenhum comprimento, só é
+        // detectado pela soma de verificação
+        byte[] valor = bytes.clone();
+        valor[indice( valor, "valor 49" )] ^= 1;
+        verificarLerFalha( f, valor, Codec.INTEGER, Codec.STRING, f + ", corrupted value" );
+        
+        // chaves em ordem decrescente, com a soma de verificação correta
+        byte[] foraDeOrdem = montar( 3, out -> {
+            Codec.INTEGER.write( 30, out );
+            Codec.INTEGER.write( 1, out );
+            Codec.INTEGER.writeDelta( 30, 20, out );
+            Codec.INTEGER.write( 2, out );
+            Codec.INTEGER.writeDelta( 20, 40, out );
+            Codec.INTEGER.write( 3, out );
+        });
+        verificarLerFalha( f, foraDeOrdem, Codec.INTEGER, Codec.INTEGER, f + ", out-of-order keys" );
+        
+        // chave repetida
+        byte[] repetida = montar( 2, out -> {
+            Codec.INTEGER.write( 30, out );
+            Codec.INTEGER.write( 1, out );
+            Codec.INTEGER.writeDelta( 30, 30, out );
+            Codec.INTEGER.write( 2, out );
+        });
+        verificarLerFalha( f, repetida, Codec.INTEGER, Codec.INTEGER, f + ", duplicate keys" );
+        
+        // a montagem à mão produz instantâneos válidos
+        byte[] valido = montar( 2, out -> {
+            Codec.INTEGER.write( 30, out );
+            Codec.INTEGER.write( 1, out );
+            Codec.INTEGER.writeDelta( 30, 40, out );
+            Codec.INTEGER.write( 2, out );
+        });
+        TreeMap<Integer, Integer> esperado = new TreeMap<>();
+        esperado.put( 30, 1 );
+        esperado.put( 40, 2 );
+        verificarIguais( esperadas( esperado ), f.ler( valido, Codec.INTEGER, Codec.INTEGER ), f + ", hand-built snapshot" );
+        
+    }
+    
+    /*
+     * Um comprimento de texto corrompido, muito maior que a entrada, precisa
+     * terminar em IOException em vez de alocar o comprimento informado.
+     */
+    private static void comprimentoCorrompido() throws IOException {
+        
+        for ( long comprimento : new long[]{ Integer.MAX_VALUE - 16L, Integer.MAX_VALUE, 1L << 40, -1L } ) {
+            
+            byte[] bytes = montar( 1, out -> {
+                Codec.INTEGER.write( 1, out );
+                escreverVarLong( out, comprimento );
+                out.write( new byte[100] );
+            });
+            
+            for ( Formato f : new Formato[]{ AVL, AVP } ) {
+                verificarLerFalha( f, bytes, Codec.INTEGER, Codec.STRING, f + ", string length " + comprimento );
+            }
+            
+        }
+        
+        // textos maiores que o bloco de leitura continuam sendo lidos
+        TreeMap<Integer, String> m = new TreeMap<>();
+        char[] c = new char[100000];
+        Arrays.fill( c, 'é' );
+        m.put( 1, new String( c ) );
+        m.put( 2, "" );
+        verificarIguais( esperadas( m ), AVL.ler( AVL.gravar( m, Codec.INTEGER, Codec.STRING ), Codec.INTEGER, Codec.STRING ),
+                "long string round trip" );
+        
+    }
+    
+    private static <K extends Comparable<K>, V> void verificarLerFalha( Formato f, byte[] bytes,
+            Codec<K> ck, Codec<V> cv, String contexto ) {
+        verificarLanca( UncheckedIOException.class, () -> {
+            try {
+                f.ler( bytes, ck, cv );
+            } catch ( IOException exc ) {
+                throw new UncheckedIOException( exc );
+            }
+        }, contexto );
+    }
+    
+    /*
+     * Interface funcional para gravar os pares de um instantâneo montado à
+     * mão.
+     */
+    private interface Pares {
+        void gravar( DataOutputStream out ) throws IOException;
+    }
+    
+    /*
+     * Monta um instantâneo com cabeçalho e soma de verificação válidos em
+     * torno dos pares gravados.
+     */
+    private static byte[] montar( int n, Pares pares ) throws IOException {
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        
+        out.writeInt( MAGICO );
+        out.writeByte( VERSAO );
+        escreverVarLong( out, n );
+        pares.gravar( out );
+        out.flush();
+        
+        CRC32 crc = new CRC32();
+        crc.update( bytes.toByteArray() );
+        out.writeInt( (int) crc.getValue() );
+        out.flush();
+        
+        return bytes.toByteArray();
+        
+    }
+    
+    private static void escreverVarLong( DataOutputStream out, long value ) throws IOException {
+        while ( ( value & ~0x7FL ) != 0 ) {
+            out.writeByte( (int) ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        out.writeByte( (int) value );
+    }
+    
+    private static int indice( byte[] bytes, String texto ) {
+        byte[] alvo = texto.getBytes( StandardCharsets.UTF_8 );
+        for ( int i = 0; i + alvo.length <= bytes.length; i++ ) {
+            if ( Arrays.equals( bytes, i, i + alvo.length, alvo, 0, alvo.length ) ) {
+                return i + alvo.length - 1;
+            }
+        }
+        throw new AssertionError( "text not found: " + texto );
+    }
+    
+    /*
+     * Os pares em texto, já que Entry não define equals.
+     */
+    private static <K, V> List<String> entradas( Iterable<Entry<K, V>> entradas, int tamanho ) {
+        List<String> r = new ArrayList<>();
+        for ( Entry<K, V> e : entradas ) {
+            r.add( e.getKey() + "=" + e.getValue() );
+        }
+        verificarIguais( r.size(), tamanho, "getSize() after read" );
+        return r;
+    }
+    
+    private static <K, V> List<String> esperadas( Map<K, V> m ) {
+        List<String> r = new ArrayList<>();
+        m.forEach( ( k, v ) -> r.add( k + "=" + v ) );
+        return r;
+    }
+
+}
@@ -0,0 +1,243 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+
+import br.com.davidbuzatto.jsge.core.Camera2D;
+import br.com.davidbuzatto.jsge.math.Vector2;
+import java.util.Random;
+import projetoesdarvores.esd.ArvoreBinariaBusca;
+import projetoesdarvores.utils.GeometriaDesenho;
+import projetoesdarvores.utils.InstantaneoDesenho;
+
+/**
+ * Testes da GeometriaDesenho usada pelo SimuladorABB, comparada com
+ * verificações diretas sobre todos os nós de um instantâneo: nós e níveis
+ * visíveis em retângulos aleatórios do mundo, contagens das barras de
+ * densidade, nó sob um ponto, conversões entre a tela e o mundo
+ * comparadas com as da Camera2D e zoom centrado em um ponto da tela.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesGeometriaDesenho {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 5000;
+    
+    private static final double TOLERANCIA = 1e-6;
+    
+    private static final GeometriaDesenho GEOMETRIA = new GeometriaDesenho( 50, 100, 50, 20 );
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        Random r = new Random( SEMENTE );
+        InstantaneoDesenho<Integer> inst = instantaneo( r );
+        
+        visiveis( inst, r );
+        densidade( inst, r );
+        localizacao( inst, r );
+        camera( r );
+        
+        System.out.println( "GeometriaDesenho: ok" );
+        
+    }
+    
+    private static InstantaneoDesenho<Integer> instantaneo( Random r ) {
+        ArvoreBinariaBusca<Integer, Integer> a = new ArvoreBinariaBusca<>();
+        for ( int i = 0; i < CHAVES; i++ ) {
+            int k = r.nextInt( 4 * CHAVES );
+            a.put( k, k );
+        }
+        return InstantaneoDesenho.criar( 1, a.coletarParaDesenho() );
+    }
+    
+    /*
+     * O intervalo [primeiro, ultimo] precisa conter exatamente os nós cujo
+     * círculo alcança a faixa horizontal visível. Os níveis podem incluir um
+     * a mais de cada lado, mas nunca deixar de fora um nível visível.
+     */
+    private static void visiveis( InstantaneoDesenho<Integer> inst, Random r ) {
+        
+        double largura = GEOMETRIA.x( inst.getTamanho() );
+        double altura = GEOMETRIA.y( inst.getAltura() );
+        double raio = GEOMETRIA.getRaio();
+        
+        for ( int j = 0; j < 500; j++ ) {
+            
+            double esquerda = r.nextDouble() * 1.2 * largura - 0.1 * largura;
+            double direita = esquerda + r.nextDouble() * ( j % 2 == 0 ? 2000 : largura );
+            double cima = r.nextDouble() * 1.2 * altura - 0.1 * altura;
+            double baixo = cima + r.nextDouble() * altura;
+            String contexto = "view x [" + esquerda + ", " + direita + "], y [" + cima + ", " + baixo + "]";
+            
+            int primeiro = GEOMETRIA.primeiroVisivel( esquerda );
+            int ultimo = GEOMETRIA.ultimoVisivel( inst, direita );
+            
+            for ( int i = 0; i < inst.getTamanho(); i++ ) {
+                double x = GEOMETRIA.x( inst.getRanque( i ) );
+                boolean visivel = x + raio >= esquerda && x - raio <= direita;
+                verificarIguais( visivel, i >= primeiro && i <= ultimo, contexto + ", node " + i + " visible" );
+            }
+            
+            int nivelMinimo = GEOMETRIA.nivelMinimoVisivel( cima );
+            int nivelMaximo = GEOMETRIA.nivelMaximoVisivel( inst, baixo );
+            int exatoMinimo = Integer.MAX_VALUE;
+            int exatoMaximo = Integer.MIN_VALUE;
+            
+            for ( int nivel = 0; nivel < inst.getAltura(); nivel++ ) {
+                double y = GEOMETRIA.y( nivel );
+                if ( y + raio >= cima && y - raio <= baixo ) {
+                    exatoMinimo = Math.min( exatoMinimo, nivel );
+                    exatoMaximo = Math.max( exatoMaximo, nivel );
+                }
+            }
+            
+            if ( exatoMinimo <= exatoMaximo ) {
+                verificar( nivelMinimo <= exatoMinimo && nivelMinimo >= exatoMinimo - 1, contexto + ", minimum level " + nivelMinimo );
+                verificar( nivelMaximo >= exatoMaximo && nivelMaximo <= exatoMaximo + 1, contexto + ", maximum level " + nivelMaximo );
+            } else {
+                verificar( nivelMinimo > nivelMaximo || nivelMaximo - nivelMinimo <= 1, contexto + ", levels without visible ones" );
+            }
+            
+        }
+        
+    }
+    
+    /*
+     * Faixas adjacentes cobrindo todo o desenho, a partir de posições e com
+     * larguras aleatórias, precisam contar cada nó de cada nível uma única
+     * vez.
+     */
+    private static void densidade( InstantaneoDesenho<Integer> inst, Random r ) {
+        
+        int n = inst.getTamanho();
+        double fim = GEOMETRIA.x( n );
+        
+        verificar( !GEOMETRIA.isDetalheReduzido( 1 ), "zoom 1 draws circles" );
+        verificar( GEOMETRIA.isDetalheReduzido( 0.01 ), "zoom 0.01 draws density bars" );
+        
+        for ( int j = 0; j < 20; j++ ) {
+            
+            double largura = 1 + r.nextDouble() * 500;
+            double inicio = -r.nextDouble() * 1000;
+            String contexto = "strips of width " + largura + " from " + inicio;
+            
+            int ranques = 0;
+            for ( double x = inicio; x < fim; x += largura ) {
+                ranques += GEOMETRIA.ranquesNaFaixa( inst, x, largura );
+            }
+            verificarIguais( n, ranques, contexto + ", ranks" );
+            
+            for ( int nivel = 0; nivel < inst.getAltura(); nivel++ ) {
+                int total = 0;
+                for ( double x = inicio; x < fim; x += largura ) {
+                    int quantidade = GEOMETRIA.contarNaFaixa( inst, nivel, x, largura );
+                    verificar( quantidade <= GEOMETRIA.ranquesNaFaixa( inst, x, largura ), contexto + ", count above ranks" );
+                    total += quantidade;
+                }
+                verificarIguais( inst.contarNoNivel( nivel, 0, n ), total, contexto + ", level " + nivel );
+            }
+            
+        }
+        
+    }
+    
+    /*
+     * localizarNo comparado com a busca em todos os nós, em pontos
+     * aleatórios do mundo, próximos dos centros, nas bordas dos círculos e
+     * fora do desenho.
+     */
+    private static void localizacao( InstantaneoDesenho<Integer> inst, Random r ) {
+        
+        double largura = GEOMETRIA.x( inst.getTamanho() );
+        double altura = GEOMETRIA.y( inst.getAltura() );
+        double raio = GEOMETRIA.getRaio();
+        
+        for ( int j = 0; j < 3000; j++ ) {
+            
+            double x;
+            double y;
+            
+            if ( j % 3 == 0 ) {
+                x = r.nextDouble() * 1.2 * largura - 0.1 * largura;
+                y = r.nextDouble() * 1.2 * altura - 0.1 * altura;
+            } else {
+                int i = r.nextInt( inst.getTamanho() );
+                double angulo = r.nextDouble() * 2 * Math.PI;
+                double distancia = j % 3 == 1 ? r.nextDouble() * 1.5 * raio : raio;
+                x = GEOMETRIA.x( inst.getRanque( i ) ) + distancia * Math.cos( angulo );
+                y = GEOMETRIA.y( inst.getNivel( i ) ) + distancia * Math.sin( angulo );
+            }
+            
+            verificarIguais( localizarDiretamente( inst, x, y ), GEOMETRIA.localizarNo( inst, x, y ),
+                    "node at (" + x + ", " + y + ")" );
+            
+        }
+        
+        verificarIguais( -1, GEOMETRIA.localizarNo( inst, -1e12, 1e12 ), "node far outside" );
+        
+    }
+    
+    /*
+     * Procura em todos os nós o que contém o ponto; como o raio é menor que
+     * metade do espaçamento, há no máximo um.
+     */
+    private static int localizarDiretamente( InstantaneoDesenho<Integer> inst, double x, double y ) {
+        
+        double raio = GEOMETRIA.getRaio();
+        int encontrado = -1;
+        
+        for ( int i = 0; i < inst.getTamanho(); i++ ) {
+            double dx = x - GEOMETRIA.x( inst.getRanque( i ) );
+            double dy = y - GEOMETRIA.y( inst.getNivel( i ) );
+            if ( dx * dx + dy * dy <= raio * raio ) {
+                verificarIguais( -1, encontrado, "point (" + x + ", " + y + ") inside two nodes" );
+                encontrado = i;
+            }
+        }
+        
+        return encontrado;
+        
+    }
+    
+    private static void camera( Random r ) {
+        
+        for ( int j = 0; j < 1000; j++ ) {
+            
+            Camera2D camera = new Camera2D(
+                    new Vector2( r.nextDouble() * 2000 - 1000, r.nextDouble() * 2000 - 1000 ),
+                    new Vector2( r.nextDouble() * 800, r.nextDouble() * 600 ),
+                    0, Math.pow( 10, r.nextDouble() * 5 - 4 ) );
+            double telaX = r.nextDouble() * 800;
+            double telaY = r.nextDouble() * 600;
+            String contexto = "camera " + camera + ", screen (" + telaX + ", " + telaY + ")";
+            
+            Vector2 esperado = camera.getScreenToWorld( telaX, telaY );
+            verificarProximos( esperado.x, GeometriaDesenho.mundoX( camera, telaX ), contexto + ", world x" );
+            verificarProximos( esperado.y, GeometriaDesenho.mundoY( camera, telaY ), contexto + ", world y" );
+            
+            double zoom = Math.pow( 10, r.nextDouble() * 5 - 4 );
+            GeometriaDesenho.aplicarZoom( camera, telaX, telaY, zoom );
+            verificarIguais( zoom, camera.zoom, contexto + ", zoom" );
+            verificarProximos( esperado.x, GeometriaDesenho.mundoX( camera, telaX ), contexto + ", world x after zoom" );
+            verificarProximos( esperado.y, GeometriaDesenho.mundoY( camera, telaY ), contexto + ", world y after zoom" );
+            
+            Vector2 tela = camera.getWorldToScreen( esperado.x, esperado.y );
+            verificarProximos( telaX, tela.x, contexto + ", screen x after zoom" );
+            verificarProximos( telaY, tela.y, contexto + ", screen y after zoom" );
+            
+        }
+        
+    }
+    
+    private static void verificarProximos( double esperado, double obtido, String contexto ) {
+        verificar( Math.abs( esperado - obtido ) <= TOLERANCIA * Math.max( 1, Math.abs( esperado ) ),
+                contexto + ": expected " + esperado + " but was " + obtido );
+    }
+
+}
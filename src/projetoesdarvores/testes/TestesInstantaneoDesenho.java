@@ -0,0 +1,186 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+
+import aesd.ds.interfaces.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import projetoesdarvores.esd.ArvoreBinariaBusca;
+import projetoesdarvores.esd.ArvoreBinariaBusca.Node;
+import projetoesdarvores.utils.InstantaneoDesenho;
+
+/**
+ * Testes do InstantaneoDesenho usado pelo SimuladorABB: chaves, níveis,
+ * ranques e cores copiados da árvore, pais calculados apenas pelos níveis
+ * comparados com os filhos reais dos nós, contagens por nível comparadas
+ * com uma contagem direta e independência do instantâneo em relação às
+ * alterações posteriores da árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesInstantaneoDesenho {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 2000;
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        vazio();
+        operacoesAleatorias();
+        
+        System.out.println( "InstantaneoDesenho: ok" );
+        
+    }
+    
+    private static void vazio() {
+        
+        ArvoreBinariaBusca<Integer, Integer> a = new ArvoreBinariaBusca<>();
+        InstantaneoDesenho<Integer> inst = InstantaneoDesenho.criar( 7, a.coletarParaDesenho() );
+        
+        verificarIguais( 7L, inst.getVersao(), "empty tree, version" );
+        verificarIguais( 0, inst.getTamanho(), "empty tree, size" );
+        verificarIguais( 0, inst.getAltura(), "empty tree, height" );
+        verificarIguais( 0, inst.contarNoNivel( 0, 0, 10 ), "empty tree, count" );
+        
+    }
+    
+    /*
+     * A cada lote de operações um instantâneo é criado e comparado com a
+     * árvore; o instantâneo anterior precisa continuar igual ao que era.
+     */
+    private static void operacoesAleatorias() {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreBinariaBusca<Integer, Integer> a = new ArvoreBinariaBusca<>();
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        InstantaneoDesenho<Integer> anterior = null;
+        ArrayList<String> resumoAnterior = null;
+        
+        for ( int versao = 1; versao <= 60; versao++ ) {
+            
+            for ( int i = r.nextInt( 200 ); i >= 0; i-- ) {
+                int k = r.nextInt( CHAVES );
+                if ( r.nextInt( 3 ) < 2 ) {
+                    a.put( k, k );
+                    m.put( k, k );
+                } else {
+                    a.delete( k );
+                    m.remove( k );
+                }
+            }
+            
+            String contexto = "version " + versao;
+            List<Node<Integer, Integer>> nos = a.coletarParaDesenho();
+            InstantaneoDesenho<Integer> inst = InstantaneoDesenho.criar( versao, nos );
+            
+            verificarIguais( (long) versao, inst.getVersao(), contexto + ", version" );
+            verificarIguais( m.size(), inst.getTamanho(), contexto + ", size" );
+            comparar( inst, nos, contexto );
+            contagens( inst, r, contexto );
+            
+            if ( anterior != null ) {
+                verificarIguais( resumoAnterior, resumo( anterior ), contexto + ", previous snapshot changed" );
+            }
+            
+            anterior = inst;
+            resumoAnterior = resumo( inst );
+            
+        }
+        
+    }
+    
+    private static void comparar( InstantaneoDesenho<Integer> inst, List<Node<Integer, Integer>> nos, String contexto ) {
+        
+        // pai real de cada nó, pelas ligações da árvore
+        Map<Node<Integer, Integer>, Integer> posicoes = new HashMap<>();
+        int i = 0;
+        for ( Node<Integer, Integer> no : nos ) {
+            posicoes.put( no, i++ );
+        }
+        
+        int[] pais = new int[nos.getSize()];
+        Arrays.fill( pais, -1 );
+        int altura = 0;
+        
+        for ( Node<Integer, Integer> no : nos ) {
+            if ( no.left != null ) {
+                pais[posicoes.get( no.left )] = posicoes.get( no );
+            }
+            if ( no.right != null ) {
+                pais[posicoes.get( no.right )] = posicoes.get( no );
+            }
+            altura = Math.max( altura, no.nivel + 1 );
+        }
+        
+        verificarIguais( altura, inst.getAltura(), contexto + ", height" );
+        
+        i = 0;
+        for ( Node<Integer, Integer> no : nos ) {
+            String ctx = contexto + ", position " + i;
+            verificarIguais( no.key, inst.getChave( i ), ctx + ", key" );
+            verificarIguais( no.nivel, inst.getNivel( i ), ctx + ", level" );
+            verificarIguais( no.ranque, inst.getRanque( i ), ctx + ", rank" );
+            verificarIguais( no.cor, inst.getCor( i ), ctx + ", color" );
+            verificarIguais( pais[i], inst.getPai( i ), ctx + ", parent" );
+            i++;
+        }
+        
+    }
+    
+    /*
+     * contarNoNivel comparado com a contagem direta, em intervalos
+     * aleatórios, vazios, invertidos e além das pontas.
+     */
+    private static void contagens( InstantaneoDesenho<Integer> inst, Random r, String contexto ) {
+        
+        int n = inst.getTamanho();
+        
+        for ( int j = 0; j < 100; j++ ) {
+            
+            int nivel = r.nextInt( inst.getAltura() + 2 ) - 1;
+            int inicial = r.nextInt( n + 20 ) - 10;
+            int fim = inicial + r.nextInt( n / 2 + 10 ) - 5;
+            
+            int esperado = 0;
+            for ( int i = Math.max( 0, inicial ); i < Math.min( n, fim ); i++ ) {
+                if ( inst.getNivel( i ) == nivel ) {
+                    esperado++;
+                }
+            }
+            
+            verificarIguais( esperado, inst.contarNoNivel( nivel, inicial, fim ),
+                    contexto + ", count at level " + nivel + " in [" + inicial + ", " + fim + ")" );
+            
+        }
+        
+        int total = 0;
+        for ( int nivel = 0; nivel < inst.getAltura(); nivel++ ) {
+            total += inst.contarNoNivel( nivel, 0, n );
+        }
+        verificarIguais( n, total, contexto + ", count over all levels" );
+        
+    }
+    
+    /*
+     * Chave, nível e ranque de cada posição, que mudam nos nós vivos da
+     * árvore mas não podem mudar em um instantâneo já criado.
+     */
+    private static ArrayList<String> resumo( InstantaneoDesenho<Integer> inst ) {
+        ArrayList<String> resumo = new ArrayList<>();
+        for ( int i = 0; i < inst.getTamanho(); i++ ) {
+            resumo.add( inst.getChave( i ) + "@" + inst.getNivel( i ) + "/" + inst.getRanque( i ) );
+        }
+        return resumo;
+    }
+
+}
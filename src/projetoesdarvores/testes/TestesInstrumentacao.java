@@ -0,0 +1,447 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.Function;
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreBinariaBusca;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+import projetoesdarvores.esd.ArvoreVermelhoPretoIterativa;
+import projetoesdarvores.esd.Instrumentacao;
+import projetoesdarvores.esd.OuvinteEstrutural;
+import projetoesdarvores.esd.OuvinteEstrutural.TipoEvento;
+
+/**
+ * Testes da Instrumentacao das árvores ArvoreBinariaBusca, ArvoreAVL,
+ * ArvoreVermelhoPreto e ArvoreVermelhoPretoIterativa: em cada operação, o
+ * caminho contado é comparado com o comprimento do caminho de busca
+ * calculado na forma da árvore antes da operação, as comparações com esse
+ * caminho e as rotações e inversões de cores com os eventos recebidos por
+ * um OuvinteEstrutural. Também verifica a amostragem, o limite de operação
+ * lenta, o desligamento e o registro do MBean.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesInstrumentacao {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 2000;
+    
+    private static final int OPERACOES = 20000;
+    
+    // última posição do histograma, que acumula os caminhos maiores
+    private static final int ULTIMO_CAMINHO = 63;
+    
+    /*
+     * Operações de uma árvore instrumentada e o comprimento do caminho de
+     * busca de uma chave na forma atual da árvore.
+     */
+    private interface Arvore {
+        void put( int k );
+        Integer get( int k );
+        void delete( int k );
+        int caminho( int k );
+    }
+    
+    /*
+     * Conta os eventos estruturais recebidos desde o último zerar().
+     */
+    private static class ContadorEventos implements OuvinteEstrutural {
+        
+        int rotacoes;
+        int inversoes;
+        
+        @Override
+        public void evento( TipoEvento tipo, Object chave, Object outra, int valor ) {
+            if ( tipo == TipoEvento.ROTACAO_ESQUERDA || tipo == TipoEvento.ROTACAO_DIREITA ) {
+                rotacoes++;
+            } else if ( tipo == TipoEvento.INVERSAO_CORES ) {
+                inversoes++;
+            }
+        }
+        
+        void zerar() {
+            rotacoes = 0;
+            inversoes = 0;
+        }
+        
+    }
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        abb();
+        avl();
+        vermelhoPreto();
+        vermelhoPretoIterativa();
+        
+        histogramaLimitado();
+        amostragem();
+        operacoesLentas();
+        desligamento();
+        mbean();
+        
+        System.out.println( "instrumentacao: ok" );
+        
+    }
+    
+    private static void abb() {
+        
+        ArvoreBinariaBusca<Integer, Integer> a = new ArvoreBinariaBusca<>();
+        Instrumentacao inst = new Instrumentacao( "abb" );
+        a.setInstrumentacao( inst );
+        
+        // sem rotações nem cores, os contadores estruturais ficam em zero
+        operacoesAleatorias( "ABB", inst, new ContadorEventos(), true, new Arvore() {
+            
+            @Override
+            public void put( int k ) {
+                a.put( k, k );
+            }
+            
+            @Override
+            public Integer get( int k ) {
+                return a.get( k );
+            }
+            
+            @Override
+            public void delete( int k ) {
+                a.delete( k );
+            }
+            
+            @Override
+            public int caminho( int k ) {
+                ArvoreBinariaBusca.Node<Integer, Integer> raiz = Invariantes.raiz( a );
+                return comprimentoCaminho( raiz, n -> n.key, n -> n.left, n -> n.right, k );
+            }
+            
+        } );
+        
+    }
+    
+    private static void avl() {
+        
+        ArvoreAVL<Integer, Integer> a = new ArvoreAVL<>();
+        Instrumentacao inst = new Instrumentacao( "avl" );
+        ContadorEventos eventos = new ContadorEventos();
+        a.setInstrumentacao( inst );
+        a.setOuvinte( eventos );
+        
+        operacoesAleatorias( "AVL", inst, eventos, true, new Arvore() {
+            
+            @Override
+            public void put( int k ) {
+                a.put( k, k );
+            }
+            
+            @Override
+            public Integer get( int k ) {
+                return a.get( k );
+            }
+            
+            @Override
+            public void delete( int k ) {
+                a.delete( k );
+            }
+            
+            @Override
+            public int caminho( int k ) {
+                ArvoreAVL.Node<Integer, Integer> raiz = Invariantes.raiz( a );
+                return comprimentoCaminho( raiz, n -> n.key, n -> n.left, n -> n.right, k );
+            }
+            
+        } );
+        
+        verificarIguais( 0, eventos.inversoes, "AVL, color flips" );
+        
+    }
+    
+    private static void vermelhoPreto() {
+        
+        ArvoreVermelhoPreto<Integer, Integer> a = new ArvoreVermelhoPreto<>();
+        Instrumentacao inst = new Instrumentacao( "avp" );
+        ContadorEventos eventos = new ContadorEventos();
+        a.setInstrumentacao( inst );
+        a.setOuvinte( eventos );
+        
+        operacoesAleatorias( "red-black", inst, eventos, true, new Arvore() {
+            
+            @Override
+            public void put( int k ) {
+                a.put( k, k );
+            }
+            
+            @Override
+            public Integer get( int k ) {
+                return a.get( k );
+            }
+            
+            @Override
+            public void delete( int k ) {
+                a.delete( k );
+            }
+            
+            @Override
+            public int caminho( int k ) {
+                ArvoreVermelhoPreto.Node<Integer, Integer> raiz = Invariantes.raiz( a );
+                return comprimentoCaminho( raiz, n -> n.key, n -> n.left, n -> n.right, k );
+            }
+            
+        } );
+        
+    }
+    
+    /*
+     * A árvore iterativa não tem ouvinte estrutural: apenas o caminho e as
+     * comparações são verificados. Seus nós são privados e lidos por
+     * reflexão.
+     */
+    private static void vermelhoPretoIterativa() {
+        
+        ArvoreVermelhoPretoIterativa<Integer, Integer> a = new ArvoreVermelhoPretoIterativa<>();
+        Instrumentacao inst = new Instrumentacao( "avp iterativa" );
+        a.setInstrumentacao( inst );
+        
+        operacoesAleatorias( "iterative red-black", inst, new ContadorEventos(), false, new Arvore() {
+            
+            @Override
+            public void put( int k ) {
+                a.put( k, k );
+            }
+            
+            @Override
+            public Integer get( int k ) {
+                return a.get( k );
+            }
+            
+            @Override
+            public void delete( int k ) {
+                a.delete( k );
+            }
+            
+            @Override
+            public int caminho( int k ) {
+                return comprimentoCaminho( Invariantes.raiz( a ), n -> Invariantes.campo( n, "key", Integer.class ),
+                        n -> Invariantes.campo( n, "left", Object.class ),
+                        n -> Invariantes.campo( n, "right", Object.class ), k );
+            }
+            
+        } );
+        
+    }
+    
+    /*
+     * Cada operação é a única amostra desde o último zerar(), então as
+     * médias são os próprios valores da operação.
+     */
+    private static void operacoesAleatorias( String nome, Instrumentacao inst, ContadorEventos eventos,
+            boolean estruturais, Arvore a ) {
+        
+        Random r = new Random( SEMENTE );
+        
+        for ( int i = 0; i < OPERACOES; i++ ) {
+            
+            int k = r.nextInt( CHAVES );
+            int tipo = r.nextInt( 3 );
+            int caminho = a.caminho( k );
+            String contexto = nome + ", step " + i + ", key " + k;
+            
+            inst.zerar();
+            eventos.zerar();
+            
+            double comparacoes;
+            double rotacoes;
+            double inversoes;
+            
+            if ( tipo == 0 ) {
+                a.put( k );
+                contexto += ", put";
+                comparacoes = inst.getComparacoesMediasPut();
+                rotacoes = inst.getRotacoesMediasPut();
+                inversoes = inst.getInversoesCoresMediasPut();
+            } else if ( tipo == 1 ) {
+                a.get( k );
+                contexto += ", get";
+                comparacoes = inst.getComparacoesMediasGet();
+                rotacoes = 0;
+                inversoes = 0;
+                verificarIguais( (double) caminho, comparacoes, contexto + ", comparisons" );
+            } else {
+                a.delete( k );
+                contexto += ", delete";
+                comparacoes = inst.getComparacoesMediasDelete();
+                rotacoes = inst.getRotacoesMediasDelete();
+                inversoes = inst.getInversoesCoresMediasDelete();
+            }
+            
+            verificarIguais( 1L, inst.getOperacoesAmostradas(), contexto + ", sampled operations" );
+            verificarIguais( (double) caminho, inst.getCaminhoMedio(), contexto + ", path" );
+            verificarIguais( 1L, inst.getHistogramaCaminho()[Math.min( caminho, ULTIMO_CAMINHO )],
+                    contexto + ", path histogram" );
+            verificar( comparacoes >= caminho, contexto + ": " + comparacoes + " comparisons below the path " + caminho );
+            
+            if ( estruturais ) {
+                verificarIguais( (double) eventos.rotacoes, rotacoes, contexto + ", rotations" );
+                verificarIguais( (double) eventos.inversoes, inversoes, contexto + ", color flips" );
+            }
+            
+        }
+        
+    }
+    
+    /*
+     * Caminhos maiores que o histograma vão para a última posição, mas a
+     * média usa o comprimento real.
+     */
+    private static void histogramaLimitado() {
+        
+        ArvoreBinariaBusca<Integer, Integer> a = new ArvoreBinariaBusca<>();
+        for ( int k = 0; k < 100; k++ ) {
+            a.put( k, k );
+        }
+        
+        Instrumentacao inst = new Instrumentacao( "degenerada" );
+        a.setInstrumentacao( inst );
+        a.get( 99 );
+        a.get( 62 );
+        
+        long[] histograma = inst.getHistogramaCaminho();
+        verificarIguais( ULTIMO_CAMINHO + 1, histograma.length, "histogram length" );
+        verificarIguais( 2L, histograma[ULTIMO_CAMINHO], "paths 100 and 63 in the last position" );
+        verificarIguais( ( 100 + 63 ) / 2.0, inst.getCaminhoMedio(), "average of long paths" );
+        
+    }
+    
+    /*
+     * Com taxa n, a primeira operação e depois uma a cada n são medidas.
+     */
+    private static void amostragem() {
+        
+        Instrumentacao inst = new Instrumentacao( "amostragem" );
+        verificarIguais( 1, inst.getTaxaAmostragem(), "default sampling rate" );
+        verificarLanca( IllegalArgumentException.class, () -> inst.setTaxaAmostragem( 0 ), "sampling rate 0" );
+        verificarLanca( IllegalArgumentException.class, () -> new Instrumentacao( null ), "null name" );
+        
+        inst.setTaxaAmostragem( 3 );
+        ArvoreAVL<Integer, Integer> a = new ArvoreAVL<>();
+        a.setInstrumentacao( inst );
+        
+        for ( int k = 0; k < 300; k++ ) {
+            a.put( k, k );
+        }
+        verificarIguais( 100L, inst.getOperacoesAmostradas(), "sampled puts with rate 3" );
+        
+        inst.zerar();
+        for ( int k = 0; k < 300; k++ ) {
+            a.get( k );
+        }
+        verificarIguais( 100L, inst.getOperacoesAmostradas(), "sampled gets with rate 3" );
+        verificarIguais( 0.0, inst.getComparacoesMediasPut(), "puts after zerar()" );
+        
+    }
+    
+    private static void operacoesLentas() {
+        
+        Instrumentacao inst = new Instrumentacao( "lentas" );
+        verificarLanca( IllegalArgumentException.class, () -> inst.setLimiteOperacaoLentaMicros( -1 ), "negative threshold" );
+        
+        inst.setLimiteOperacaoLentaMicros( 1_000_000_000L );
+        verificarIguais( 1_000_000_000L, inst.getLimiteOperacaoLentaMicros(), "threshold" );
+        
+        ArvoreVermelhoPreto<Integer, Integer> a = new ArvoreVermelhoPreto<>();
+        a.setInstrumentacao( inst );
+        for ( int k = 0; k < 1000; k++ ) {
+            a.put( k, k );
+        }
+        
+        verificarIguais( 1000L, inst.getOperacoesAmostradas(), "sampled operations" );
+        verificarIguais( 0L, inst.getOperacoesLentas(), "slow operations above a 1000 s threshold" );
+        
+    }
+    
+    private static void desligamento() {
+        
+        Instrumentacao inst = new Instrumentacao( "desligada" );
+        ArvoreBinariaBusca<Integer, Integer> a = new ArvoreBinariaBusca<>();
+        a.setInstrumentacao( inst );
+        a.put( 1, 1 );
+        a.setInstrumentacao( null );
+        a.put( 2, 2 );
+        a.get( 1 );
+        a.delete( 1 );
+        
+        verificarIguais( 1L, inst.getOperacoesAmostradas(), "operations after setInstrumentacao(null)" );
+        
+    }
+    
+    private static void mbean() {
+        
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        Instrumentacao inst = new Instrumentacao( "mbean, teste" );
+        ArvoreVermelhoPreto<Integer, Integer> a = new ArvoreVermelhoPreto<>();
+        a.setInstrumentacao( inst );
+        
+        ObjectName nome = inst.registrarMBean();
+        verificarIguais( ObjectName.quote( "mbean, teste" ), nome.getKeyProperty( "name" ), "MBean name" );
+        verificar( servidor.isRegistered( nome ), "MBean registered" );
+        verificarIguais( nome, inst.registrarMBean(), "second registrarMBean()" );
+        
+        for ( int k = 0; k < 10; k++ ) {
+            a.put( k, k );
+        }
+        
+        try {
+            verificarIguais( 10L, servidor.getAttribute( nome, "OperacoesAmostradas" ), "sampled operations through JMX" );
+            servidor.setAttribute( nome, new Attribute( "TaxaAmostragem", 5 ) );
+            verificarIguais( 5, inst.getTaxaAmostragem(), "sampling rate set through JMX" );
+            servidor.invoke( nome, "zerar", null, null );
+            verificarIguais( 0L, inst.getOperacoesAmostradas(), "zerar() through JMX" );
+        } catch ( JMException exc ) {
+            throw new AssertionError( "MBean not accessible", exc );
+        }
+        
+        inst.desregistrarMBean();
+        verificar( !servidor.isRegistered( nome ), "MBean unregistered" );
+        inst.desregistrarMBean();
+        
+    }
+    
+    /*
+     * Quantidade de nós visitados pela busca da chave a partir da raiz, até
+     * encontrá-la ou chegar a um filho vazio.
+     */
+    private static <N> int comprimentoCaminho( N raiz, Function<N, Integer> chave, Function<N, N> esquerda,
+            Function<N, N> direita, int k ) {
+        
+        int caminho = 0;
+        N node = raiz;
+        
+        while ( node != null ) {
+            caminho++;
+            int comp = Integer.compare( k, chave.apply( node ) );
+            if ( comp < 0 ) {
+                node = esquerda.apply( node );
+            } else if ( comp > 0 ) {
+                node = direita.apply( node );
+            } else {
+                break;
+            }
+        }
+        
+        return caminho;
+        
+    }
+
+}
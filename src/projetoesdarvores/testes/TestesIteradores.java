@@ -0,0 +1,362 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreBinariaBusca;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Testes dos iteradores em ordem da ArvoreBinariaBusca, da ArvoreAVL e da
+ * ArvoreVermelhoPreto, comparados com a TreeMap: chaves e pares, completos
+ * e por intervalo, percorridos sob demanda e invalidados por modificações
+ * estruturais.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesIteradores {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 20000;
+    
+    /*
+     * Operações comuns às três árvores.
+     */
+    private interface Arvore {
+        void put( Integer key, Integer value );
+        void delete( Integer key );
+        void clear();
+        Iterator<Integer> iterator();
+        Iterable<Integer> getKeys();
+        Iterable<Integer> getKeys( Integer lo, Integer hi );
+        Iterable<Entry<Integer, Integer>> getEntries();
+        Iterable<Entry<Integer, Integer>> getEntries( Integer lo, Integer hi );
+    }
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        executar( "ArvoreBinariaBusca", () -> binariaBusca( new ArvoreBinariaBusca<>() ) );
+        executar( "ArvoreAVL", () -> avl( new ArvoreAVL<>() ) );
+        executar( "ArvoreVermelhoPreto", () -> vermelhoPreto( new ArvoreVermelhoPreto<>() ) );
+        
+        System.out.println( "iteradores: ok" );
+        
+    }
+    
+    private static void executar( String nome, Supplier<Arvore> fabrica ) {
+        
+        vazia( nome, fabrica.get() );
+        
+        for ( int n : new int[]{ 1, 2, 10, 5000 } ) {
+            
+            Random r = new Random( SEMENTE + n );
+            TreeMap<Integer, Integer> m = new TreeMap<>();
+            Arvore a = fabrica.get();
+            
+            while ( m.size() < n ) {
+                int k = r.nextInt( CHAVES );
+                int v = r.nextInt();
+                a.put( k, v );
+                m.put( k, v );
+            }
+            
+            String contexto = nome + ", n = " + n;
+            percursos( a, m, contexto );
+            intervalos( a, m, r, contexto );
+            modificacoes( a, m, contexto );
+            
+        }
+        
+    }
+    
+    private static void vazia( String nome, Arvore a ) {
+        
+        verificar( !a.iterator().hasNext(), nome + ", iterator() on empty tree" );
+        verificar( !a.getKeys().iterator().hasNext(), nome + ", getKeys() on empty tree" );
+        verificar( !a.getEntries().iterator().hasNext(), nome + ", getEntries() on empty tree" );
+        verificar( !a.getKeys( 0, CHAVES ).iterator().hasNext(), nome + ", getKeys(lo, hi) on empty tree" );
+        verificarLanca( NoSuchElementException.class, a.iterator()::next, nome + ", next() on empty tree" );
+        verificarLanca( IllegalArgumentException.class, () -> a.getKeys( null, 1 ), nome + ", getKeys(null, hi)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.getKeys( 1, null ), nome + ", getKeys(lo, null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.getEntries( null, 1 ), nome + ", getEntries(null, hi)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.getEntries( 1, null ), nome + ", getEntries(lo, null)" );
+        
+    }
+    
+    private static void percursos( Arvore a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        List<Integer> chaves = new ArrayList<>( m.keySet() );
+        
+        verificarIguais( chaves, listar( a::iterator ), contexto + ", iterator()" );
+        verificarIguais( chaves, listar( a.getKeys() ), contexto + ", getKeys()" );
+        compararPares( m, a.getEntries(), contexto + ", getEntries()" );
+        
+        // cada chamada de iterator() do iterável começa um novo percurso
+        Iterable<Integer> iteravel = a.getKeys();
+        verificarIguais( chaves, listar( iteravel ), contexto + ", getKeys() first traversal" );
+        verificarIguais( chaves, listar( iteravel ), contexto + ", getKeys() second traversal" );
+        
+        Iterator<Integer> it = a.iterator();
+        while ( it.hasNext() ) {
+            it.next();
+        }
+        verificarLanca( NoSuchElementException.class, it::next, contexto + ", next() after the last key" );
+        
+    }
+    
+    /*
+     * Intervalos com limites presentes, ausentes, iguais, invertidos e fora
+     * das chaves da árvore.
+     */
+    private static void intervalos( Arvore a, TreeMap<Integer, Integer> m, Random r, String contexto ) {
+        
+        List<int[]> limites = new ArrayList<>();
+        limites.add( new int[]{ -10, CHAVES + 10 } );
+        limites.add( new int[]{ m.firstKey(), m.lastKey() } );
+        limites.add( new int[]{ m.firstKey(), m.firstKey() } );
+        limites.add( new int[]{ m.lastKey(), m.lastKey() } );
+        limites.add( new int[]{ m.lastKey() + 1, CHAVES + 10 } );
+        limites.add( new int[]{ -10, m.firstKey() - 1 } );
+        limites.add( new int[]{ CHAVES / 2, CHAVES / 2 - 1 } );
+        
+        for ( int i = 0; i < 300; i++ ) {
+            int lo = r.nextInt( CHAVES + 20 ) - 10;
+            limites.add( new int[]{ lo, lo + r.nextInt( CHAVES / 10 ) } );
+        }
+        
+        for ( int[] l : limites ) {
+            
+            int lo = l[0];
+            int hi = l[1];
+            String ctx = contexto + ", [" + lo + ", " + hi + "]";
+            Map<Integer, Integer> sub = lo <= hi ? m.subMap( lo, true, hi, true ) : new TreeMap<>();
+            
+            verificarIguais( new ArrayList<>( sub.keySet() ), listar( a.getKeys( lo, hi ) ), ctx + ", getKeys(lo, hi)" );
+            compararPares( sub, a.getEntries( lo, hi ), ctx + ", getEntries(lo, hi)" );
+            
+        }
+        
+    }
+    
+    /*
+     * Inserções, remoções e clear invalidam os iteradores já criados;
+     * atualizações de valores e remoções de chaves ausentes não. Como o
+     * percurso é feito sob demanda, um iterável obtido antes de uma
+     * modificação enxerga o conteúdo novo ao criar um iterador depois dela.
+     */
+    private static void modificacoes( Arvore a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        Integer primeira = m.firstKey();
+        Iterable<Integer> chaves = a.getKeys();
+        Iterable<Entry<Integer, Integer>> pares = a.getEntries( primeira, CHAVES );
+        
+        Iterator<Integer> it = a.iterator();
+        Iterator<Entry<Integer, Integer>> itPares = pares.iterator();
+        verificarIguais( primeira, it.next(), contexto + ", first key" );
+        
+        a.put( primeira, -1 );
+        m.put( primeira, -1 );
+        a.delete( -1 );
+        verificarIguais( m.size() > 1, it.hasNext(), contexto + ", hasNext() after value update and missing delete" );
+        verificarIguais( -1, itPares.next().getValue(), contexto + ", entry value after value update" );
+        
+        a.put( -1, 1 );
+        m.put( -1, 1 );
+        verificarLanca( ConcurrentModificationException.class, it::hasNext, contexto + ", hasNext() after insertion" );
+        verificarLanca( ConcurrentModificationException.class, it::next, contexto + ", next() after insertion" );
+        verificarLanca( ConcurrentModificationException.class, itPares::hasNext, contexto + ", range hasNext() after insertion" );
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( chaves ), contexto + ", iterable created before insertion" );
+        
+        it = chaves.iterator();
+        itPares = pares.iterator();
+        a.delete( -1 );
+        m.remove( -1 );
+        verificarLanca( ConcurrentModificationException.class, it::next, contexto + ", next() after deletion" );
+        verificarLanca( ConcurrentModificationException.class, itPares::next, contexto + ", range next() after deletion" );
+        compararPares( m.subMap( primeira, true, CHAVES, true ), pares, contexto + ", range iterable created before deletion" );
+        
+        it = chaves.iterator();
+        a.clear();
+        verificarLanca( ConcurrentModificationException.class, it::hasNext, contexto + ", hasNext() after clear()" );
+        verificar( !chaves.iterator().hasNext(), contexto + ", iterable created before clear()" );
+        
+    }
+    
+    private static void compararPares( Map<Integer, Integer> m, Iterable<Entry<Integer, Integer>> pares, String contexto ) {
+        
+        List<Integer> chaves = new ArrayList<>();
+        List<Integer> valores = new ArrayList<>();
+        
+        for ( Entry<Integer, Integer> e : pares ) {
+            chaves.add( e.getKey() );
+            valores.add( e.getValue() );
+        }
+        
+        verificarIguais( new ArrayList<>( m.keySet() ), chaves, contexto + ", keys" );
+        verificarIguais( new ArrayList<>( m.values() ), valores, contexto + ", values" );
+        
+    }
+    
+    private static Arvore binariaBusca( ArvoreBinariaBusca<Integer, Integer> a ) {
+        
+        return new Arvore() {
+            
+            @Override
+            public void put( Integer key, Integer value ) {
+                a.put( key, value );
+            }
+            
+            @Override
+            public void delete( Integer key ) {
+                a.delete( key );
+            }
+            
+            @Override
+            public void clear() {
+                a.clear();
+            }
+            
+            @Override
+            public Iterator<Integer> iterator() {
+                return a.iterator();
+            }
+            
+            @Override
+            public Iterable<Integer> getKeys() {
+                return a.getKeys();
+            }
+            
+            @Override
+            public Iterable<Integer> getKeys( Integer lo, Integer hi ) {
+                return a.getKeys( lo, hi );
+            }
+            
+            @Override
+            public Iterable<Entry<Integer, Integer>> getEntries() {
+                return a.getEntries();
+            }
+            
+            @Override
+            public Iterable<Entry<Integer, Integer>> getEntries( Integer lo, Integer hi ) {
+                return a.getEntries( lo, hi );
+            }
+            
+        };
+        
+    }
+    
+    private static Arvore avl( ArvoreAVL<Integer, Integer> a ) {
+        
+        return new Arvore() {
+            
+            @Override
+            public void put( Integer key, Integer value ) {
+                a.put( key, value );
+            }
+            
+            @Override
+            public void delete( Integer key ) {
+                a.delete( key );
+            }
+            
+            @Override
+            public void clear() {
+                a.clear();
+            }
+            
+            @Override
+            public Iterator<Integer> iterator() {
+                return a.iterator();
+            }
+            
+            @Override
+            public Iterable<Integer> getKeys() {
+                return a.getKeys();
+            }
+            
+            @Override
+            public Iterable<Integer> getKeys( Integer lo, Integer hi ) {
+                return a.getKeys( lo, hi );
+            }
+            
+            @Override
+            public Iterable<Entry<Integer, Integer>> getEntries() {
+                return a.getEntries();
+            }
+            
+            @Override
+            public Iterable<Entry<Integer, Integer>> getEntries( Integer lo, Integer hi ) {
+                return a.getEntries( lo, hi );
+            }
+            
+        };
+        
+    }
+    
+    private static Arvore vermelhoPreto( ArvoreVermelhoPreto<Integer, Integer> a ) {
+        
+        return new Arvore() {
+            
+            @Override
+            public void put( Integer key, Integer value ) {
+                a.put( key, value );
+            }
+            
+            @Override
+            public void delete( Integer key ) {
+                a.delete( key );
+            }
+            
+            @Override
+            public void clear() {
+                a.clear();
+            }
+            
+            @Override
+            public Iterator<Integer> iterator() {
+                return a.iterator();
+            }
+            
+            @Override
+            public Iterable<Integer> getKeys() {
+                return a.getKeys();
+            }
+            
+            @Override
+            public Iterable<Integer> getKeys( Integer lo, Integer hi ) {
+                return a.getKeys( lo, hi );
+            }
+            
+            @Override
+            public Iterable<Entry<Integer, Integer>> getEntries() {
+                return a.getEntries();
+            }
+            
+            @Override
+            public Iterable<Entry<Integer, Integer>> getEntries( Integer lo, Integer hi ) {
+                return a.getEntries( lo, hi );
+            }
+            
+        };
+        
+    }
+
+}
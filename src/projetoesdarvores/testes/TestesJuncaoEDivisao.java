@@ -0,0 +1,333 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Testes de join, split, union, intersection e difference da ArvoreAVL e da
+ * ArvoreVermelhoPreto, comparadas com a TreeMap. As árvores combinadas têm
+ * tamanhos muito diferentes, para exercitar junções entre alturas
+ * distantes, e tamanhos grandes o bastante para que as operações de
+ * conjunto sejam divididas em tarefas paralelas.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesJuncaoEDivisao {
+
+    private static final long SEMENTE = 20111101L;
+    
+    /*
+     * Operações comuns às duas árvores. O argumento das operações binárias
+     * é sempre um adaptador do mesmo tipo.
+     */
+    private interface Arvore {
+        void put( Integer key, Integer value );
+        Integer get( Integer key );
+        Iterable<Integer> getKeys();
+        void join( Arvore other );
+        Arvore split( Integer key );
+        void union( Arvore other );
+        void intersection( Arvore other );
+        void difference( Arvore other );
+        void verificarEstrutura( String contexto );
+    }
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        executar( "ArvoreAVL", TestesJuncaoEDivisao::avl );
+        executar( "ArvoreVermelhoPreto", TestesJuncaoEDivisao::vermelhoPreto );
+        
+        System.out.println( "juncao e divisao: ok" );
+        
+    }
+    
+    private static void executar( String nome, Supplier<Arvore> fabrica ) {
+        
+        Random r = new Random( SEMENTE );
+        int[] tamanhos = { 0, 1, 2, 5, 100, 3000, 40000 };
+        
+        for ( int n : tamanhos ) {
+            divisaoEJuncao( nome + ", n = " + n, fabrica, r, n );
+        }
+        
+        for ( int n : tamanhos ) {
+            for ( int m : tamanhos ) {
+                conjuntos( nome + ", sizes " + n + " and " + m, fabrica, r, n, m );
+            }
+        }
+        
+        argumentos( nome, fabrica );
+        
+    }
+    
+    /*
+     * Divide a árvore em chaves presentes, ausentes e fora do intervalo,
+     * compara as duas partes com o modelo e as junta de volta.
+     */
+    private static void divisaoEJuncao( String nome, Supplier<Arvore> fabrica, Random r, int n ) {
+        
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        Arvore a = preencher( fabrica, m, r, n, 4 * n + 1 );
+        
+        int[] cortes = { -1, 0, 2 * n, 4 * n + 1, 4 * n + 10, r.nextInt( 4 * n + 1 ), r.nextInt( 4 * n + 1 ) };
+        
+        for ( int corte : cortes ) {
+            
+            String contexto = nome + ", split(" + corte + ")";
+            
+            Arvore maiores = a.split( corte );
+            comparar( a, m.headMap( corte, false ), contexto + ", lower part" );
+            comparar( maiores, m.tailMap( corte, true ), contexto + ", upper part" );
+            
+            a.join( maiores );
+            comparar( a, m, contexto + ", joined back" );
+            comparar( maiores, new TreeMap<>(), contexto + ", joined tree emptied" );
+            
+        }
+        
+        // junção de uma árvore pequena com uma grande e vice-versa
+        Arvore maiores = a.split( 3 );
+        Arvore menores = a;
+        menores.join( maiores );
+        comparar( menores, m, nome + ", join small with large" );
+        
+        maiores = menores.split( 4 * n - 3 );
+        menores.join( maiores );
+        comparar( menores, m, nome + ", join large with small" );
+        
+    }
+    
+    private static void conjuntos( String nome, Supplier<Arvore> fabrica, Random r, int n, int k ) {
+        
+        // os intervalos das chaves se sobrepõem só em parte
+        int limite = 2 * Math.max( n, k ) + 1;
+        
+        for ( int operacao = 0; operacao < 3; operacao++ ) {
+            
+            TreeMap<Integer, Integer> ma = new TreeMap<>();
+            TreeMap<Integer, Integer> mb = new TreeMap<>();
+            Arvore a = preencher( fabrica, ma, r, n, limite );
+            Arvore b = preencher( fabrica, mb, r, k, limite );
+            
+            // valores distintos para saber de qual árvore cada um veio
+            for ( Map.Entry<Integer, Integer> e : mb.entrySet() ) {
+                e.setValue( -e.getValue() - 1 );
+                b.put( e.getKey(), e.getValue() );
+            }
+            
+            String contexto;
+            
+            switch ( operacao ) {
+                case 0:
+                    contexto = nome + ", union";
+                    a.union( b );
+                    ma.putAll( mb );
+                    break;
+                case 1:
+                    contexto = nome + ", intersection";
+                    a.intersection( b );
+                    ma.keySet().retainAll( mb.keySet() );
+                    break;
+                default:
+                    contexto = nome + ", difference";
+                    a.difference( b );
+                    ma.keySet().removeAll( mb.keySet() );
+                    break;
+            }
+            
+            comparar( a, ma, contexto );
+            comparar( b, new TreeMap<>(), contexto + ", argument emptied" );
+            
+        }
+        
+    }
+    
+    private static void argumentos( String nome, Supplier<Arvore> fabrica ) {
+        
+        Arvore a = fabrica.get();
+        Arvore b = fabrica.get();
+        a.put( 1, 1 );
+        a.put( 5, 5 );
+        b.put( 5, 5 );
+        b.put( 9, 9 );
+        
+        verificarLanca( IllegalArgumentException.class, () -> a.join( b ), nome + ", join with overlapping keys" );
+        verificarLanca( IllegalArgumentException.class, () -> a.join( null ), nome + ", join(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> a.join( a ), nome + ", join with itself" );
+        verificarLanca( IllegalArgumentException.class, () -> a.union( a ), nome + ", union with itself" );
+        verificarLanca( IllegalArgumentException.class, () -> a.split( null ), nome + ", split(null)" );
+        
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        m.put( 1, 1 );
+        m.put( 5, 5 );
+        comparar( a, m, nome + ", tree unchanged by rejected arguments" );
+        
+    }
+    
+    private static Arvore preencher( Supplier<Arvore> fabrica, TreeMap<Integer, Integer> m, Random r,
+            int n, int limite ) {
+        
+        Arvore a = fabrica.get();
+        
+        while ( m.size() < n ) {
+            int k = r.nextInt( limite );
+            a.put( k, k );
+            m.put( k, k );
+        }
+        
+        return a;
+        
+    }
+    
+    private static void comparar( Arvore a, Map<Integer, Integer> m, String contexto ) {
+        
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a.getKeys() ), contexto + ", keys" );
+        
+        for ( Map.Entry<Integer, Integer> e : m.entrySet() ) {
+            verificarIguais( e.getValue(), a.get( e.getKey() ), contexto + ", get(" + e.getKey() + ")" );
+        }
+        
+        a.verificarEstrutura( contexto );
+        
+    }
+    
+    private static Arvore avl() {
+        return new AdaptadorAVL( new ArvoreAVL<>() );
+    }
+    
+    private static Arvore vermelhoPreto() {
+        return new AdaptadorVermelhoPreto( new ArvoreVermelhoPreto<>() );
+    }
+    
+    private static class AdaptadorAVL implements Arvore {
+        
+        private final ArvoreAVL<Integer, Integer> a;
+        
+        AdaptadorAVL( ArvoreAVL<Integer, Integer> a ) {
+            this.a = a;
+        }
+        
+        private static ArvoreAVL<Integer, Integer> de( Arvore other ) {
+            return other == null ? null : ( (AdaptadorAVL) other ).a;
+        }
+        
+        @Override
+        public void put( Integer key, Integer value ) {
+            a.put( key, value );
+        }
+        
+        @Override
+        public Integer get( Integer key ) {
+            return a.get( key );
+        }
+        
+        @Override
+        public Iterable<Integer> getKeys() {
+            return a.getKeys();
+        }
+        
+        @Override
+        public void join( Arvore other ) {
+            a.join( de( other ) );
+        }
+        
+        @Override
+        public Arvore split( Integer key ) {
+            return new AdaptadorAVL( a.split( key ) );
+        }
+        
+        @Override
+        public void union( Arvore other ) {
+            a.union( de( other ) );
+        }
+        
+        @Override
+        public void intersection( Arvore other ) {
+            a.intersection( de( other ) );
+        }
+        
+        @Override
+        public void difference( Arvore other ) {
+            a.difference( de( other ) );
+        }
+        
+        @Override
+        public void verificarEstrutura( String contexto ) {
+            Invariantes.verificarAVL( a, contexto );
+        }
+        
+    }
+    
+    private static class AdaptadorVermelhoPreto implements Arvore {
+        
+        private final ArvoreVermelhoPreto<Integer, Integer> a;
+        
+        AdaptadorVermelhoPreto( ArvoreVermelhoPreto<Integer, Integer> a ) {
+            this.a = a;
+        }
+        
+        private static ArvoreVermelhoPreto<Integer, Integer> de( Arvore other ) {
+            return other == null ? null : ( (AdaptadorVermelhoPreto) other ).a;
+        }
+        
+        @Override
+        public void put( Integer key, Integer value ) {
+            a.put( key, value );
+        }
+        
+        @Override
+        public Integer get( Integer key ) {
+            return a.get( key );
+        }
+        
+        @Override
+        public Iterable<Integer> getKeys() {
+            return a.getKeys();
+        }
+        
+        @Override
+        public void join( Arvore other ) {
+            a.join( de( other ) );
+        }
+        
+        @Override
+        public Arvore split( Integer key ) {
+            return new AdaptadorVermelhoPreto( a.split( key ) );
+        }
+        
+        @Override
+        public void union( Arvore other ) {
+            a.union( de( other ) );
+        }
+        
+        @Override
+        public void intersection( Arvore other ) {
+            a.intersection( de( other ) );
+        }
+        
+        @Override
+        public void difference( Arvore other ) {
+            a.difference( de( other ) );
+        }
+        
+        @Override
+        public void verificarEstrutura( String contexto ) {
+            Invariantes.verificarVermelhoPreto( a, contexto );
+        }
+        
+    }
+
+}
@@ -0,0 +1,237 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.Monoide;
+
+/**
+ * Testes dos agregados da ArvoreAVL com monoide: aggregate() e
+ * aggregate( lo, hi ) são comparados com o mesmo agregado calculado sobre
+ * os valores de um intervalo da TreeMap, depois de inserções e remoções
+ * (que rotacionam os nós), operações em lote, divisões, junções e operações
+ * de conjunto. Um monoide não comutativo (concatenação) verifica que os
+ * agregados são combinados na ordem das chaves.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesMonoide {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 4000;
+    
+    // função compartilhada pelas árvores de soma, para que os monoides
+    // criados em chamadas diferentes a sum sejam iguais
+    private static final ToLongFunction<Integer> PARA_LONG = Integer::longValue;
+    
+    /*
+     * Concatenação dos valores separados por vírgula: associativa, com
+     * elemento neutro, mas não comutativa.
+     */
+    private static final Monoide<Integer, String> CONCATENACAO = new Monoide<>() {
+        
+        @Override
+        public String identity() {
+            return "";
+        }
+        
+        @Override
+        public String lift( Integer value ) {
+            return value + ",";
+        }
+        
+        @Override
+        public String combine( String a, String b ) {
+            return a + b;
+        }
+        
+    };
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        executar( "count", Monoide::count, valores -> (long) valores.size() );
+        executar( "sum", () -> Monoide.sum( PARA_LONG ), TestesMonoide::somar );
+        executar( "min", () -> Monoide.min( Comparator.naturalOrder() ),
+                valores -> valores.stream().min( Comparator.naturalOrder() ).orElse( null ) );
+        executar( "max", () -> Monoide.max( Comparator.naturalOrder() ),
+                valores -> valores.stream().max( Comparator.naturalOrder() ).orElse( null ) );
+        executar( "concatenation", () -> CONCATENACAO, TestesMonoide::concatenar );
+        
+        igualdade();
+        
+        System.out.println( "monoides: ok" );
+        
+    }
+    
+    private static void executar( String nome, Supplier<Monoide<Integer, ?>> monoide,
+            Function<Collection<Integer>, Object> esperado ) {
+        
+        Random r = new Random( SEMENTE );
+        ArvoreAVL<Integer, Integer> a = new ArvoreAVL<>( monoide.get() );
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        // inserções e remoções avulsas
+        for ( int i = 0; i < 20000; i++ ) {
+            int k = r.nextInt( CHAVES );
+            if ( r.nextInt( 3 ) < 2 ) {
+                int v = r.nextInt( 1000 ) - 500;
+                a.put( k, v );
+                m.put( k, v );
+            } else {
+                a.delete( k );
+                m.remove( k );
+            }
+            if ( i % 2000 == 0 ) {
+                comparar( a, m, esperado, r, nome + ", random operations, step " + i );
+            }
+        }
+        comparar( a, m, esperado, r, nome + ", random operations" );
+        
+        // operações em lote
+        Integer[] keys = new Integer[3000];
+        Integer[] values = new Integer[keys.length];
+        for ( int i = 0; i < keys.length; i++ ) {
+            keys[i] = r.nextInt( CHAVES );
+            values[i] = r.nextInt( 1000 );
+            m.put( keys[i], values[i] );
+        }
+        a.putAll( keys, values );
+        comparar( a, m, esperado, r, nome + ", putAll" );
+        
+        Integer[] remocoes = new Integer[1500];
+        for ( int i = 0; i < remocoes.length; i++ ) {
+            remocoes[i] = r.nextInt( CHAVES );
+            m.remove( remocoes[i] );
+        }
+        a.deleteAll( remocoes );
+        comparar( a, m, esperado, r, nome + ", deleteAll" );
+        
+        // divisão e junção
+        ArvoreAVL<Integer, Integer> maiores = a.split( CHAVES / 3 );
+        comparar( a, m.headMap( CHAVES / 3, false ), esperado, r, nome + ", split, lower part" );
+        comparar( maiores, m.tailMap( CHAVES / 3, true ), esperado, r, nome + ", split, upper part" );
+        a.join( maiores );
+        comparar( a, m, esperado, r, nome + ", join" );
+        
+        // operações de conjunto com árvores criadas por outra chamada à
+        // mesma fábrica
+        for ( int operacao = 0; operacao < 3; operacao++ ) {
+            
+            ArvoreAVL<Integer, Integer> b = new ArvoreAVL<>( monoide.get() );
+            TreeMap<Integer, Integer> mb = new TreeMap<>();
+            for ( int i = 0; i < 1500; i++ ) {
+                int k = r.nextInt( 2 * CHAVES );
+                b.put( k, -k );
+                mb.put( k, -k );
+            }
+            
+            switch ( operacao ) {
+                case 0:
+                    a.union( b );
+                    m.putAll( mb );
+                    break;
+                case 1:
+                    a.difference( b );
+                    m.keySet().removeAll( mb.keySet() );
+                    break;
+                default:
+                    a.intersection( b );
+                    m.keySet().retainAll( mb.keySet() );
+                    break;
+            }
+            
+            comparar( a, m, esperado, r, nome + ", set operation " + operacao );
+            
+        }
+        
+        // construção em lote com o monoide
+        Integer[] ordenadas = m.keySet().toArray( new Integer[0] );
+        Integer[] seus = m.values().toArray( new Integer[0] );
+        comparar( ArvoreAVL.fromSorted( ordenadas, seus, monoide.get() ), m, esperado, r, nome + ", fromSorted" );
+        
+    }
+    
+    /*
+     * Monoides de fábricas diferentes, ou da mesma fábrica com argumentos
+     * diferentes, não podem ser combinados.
+     */
+    private static void igualdade() {
+        
+        verificarIguais( Monoide.count(), Monoide.count(), "count() equals count()" );
+        verificarIguais( Monoide.sum( PARA_LONG ), Monoide.sum( PARA_LONG ), "sum(f) equals sum(f)" );
+        verificar( !Monoide.sum( PARA_LONG ).equals( Monoide.<Integer>sum( v -> 2L * v ) ), "sum(f) differs from sum(g)" );
+        verificar( !Monoide.min( Comparator.<Integer>naturalOrder() ).equals(
+                Monoide.max( Comparator.<Integer>naturalOrder() ) ), "min differs from max" );
+        
+        ArvoreAVL<Integer, Integer> a = new ArvoreAVL<>( Monoide.count() );
+        ArvoreAVL<Integer, Integer> b = new ArvoreAVL<>( Monoide.count() );
+        a.put( 1, 1 );
+        b.put( 2, 2 );
+        a.join( b );
+        verificarIguais( 2L, a.<Long>aggregate(), "join of trees with separate count() monoids" );
+        
+        ArvoreAVL<Integer, Integer> c = new ArvoreAVL<>( Monoide.sum( PARA_LONG ) );
+        ArvoreAVL<Integer, Integer> d = new ArvoreAVL<>();
+        verificarLanca( IllegalArgumentException.class, () -> a.union( c ), "union of count and sum" );
+        verificarLanca( IllegalArgumentException.class, () -> a.union( d ), "union with a tree without monoid" );
+        verificarLanca( IllegalStateException.class, () -> d.aggregate( 1, 2 ), "aggregate() without monoid" );
+        verificarLanca( IllegalArgumentException.class, () -> a.aggregate( null, 2 ), "aggregate(null, hi)" );
+        verificarLanca( IllegalArgumentException.class, () -> Monoide.sum( null ), "sum(null)" );
+        verificarLanca( IllegalArgumentException.class, () -> new ArvoreAVL<Integer, Integer>( null ), "null monoid" );
+        
+    }
+    
+    private static void comparar( ArvoreAVL<Integer, Integer> a, Map<Integer, Integer> m,
+            Function<Collection<Integer>, Object> esperado, Random r, String contexto ) {
+        
+        TreeMap<Integer, Integer> t = new TreeMap<>( m );
+        
+        verificarIguais( esperado.apply( t.values() ), a.aggregate(), contexto + ", aggregate()" );
+        
+        for ( int i = 0; i < 200; i++ ) {
+            int lo = r.nextInt( CHAVES + 20 ) - 10;
+            int hi = lo + r.nextInt( i % 2 == 0 ? 50 : CHAVES );
+            verificarIguais( esperado.apply( t.subMap( lo, true, hi, true ).values() ), a.aggregate( lo, hi ),
+                    contexto + ", aggregate(" + lo + ", " + hi + ")" );
+        }
+        
+        verificarIguais( esperado.apply( new ArrayList<>() ), a.aggregate( 10, 5 ),
+                contexto + ", aggregate() of an empty range" );
+        
+        Invariantes.verificarAVL( a, contexto );
+        
+    }
+    
+    private static Object somar( Collection<Integer> valores ) {
+        long soma = 0;
+        for ( int v : valores ) {
+            soma += v;
+        }
+        return soma;
+    }
+    
+    private static Object concatenar( Collection<Integer> valores ) {
+        StringBuilder sb = new StringBuilder();
+        for ( int v : valores ) {
+            sb.append( v ).append( ',' );
+        }
+        return sb.toString();
+    }
+
+}
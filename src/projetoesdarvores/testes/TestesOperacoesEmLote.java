@@ -0,0 +1,241 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.listar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Testes de putAll, getAll e deleteAll da ArvoreAVL e da
+ * ArvoreVermelhoPreto, comparadas com a TreeMap, com lotes vazios, lotes
+ * com chaves repetidas e lotes aplicados a árvores vazias. As invariantes
+ * estruturais são verificadas depois de cada lote.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesOperacoesEmLote {
+
+    private static final long SEMENTE = 20111101L;
+    
+    private static final int CHAVES = 20000;
+    
+    /*
+     * Operações comuns às duas árvores, para que os mesmos lotes sejam
+     * aplicados a ambas.
+     */
+    private interface Arvore {
+        void putAll( Integer[] keys, Integer[] values );
+        void getAll( Integer[] keys, Integer[] values );
+        void deleteAll( Integer[] keys );
+        Iterable<Integer> getKeys();
+        Integer get( Integer key );
+        void verificarEstrutura( String contexto );
+    }
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        lotesAleatorios( "ArvoreAVL", avl( new ArvoreAVL<>() ) );
+        lotesAleatorios( "ArvoreVermelhoPreto", vermelhoPreto( new ArvoreVermelhoPreto<>() ) );
+        
+        argumentos( "ArvoreAVL", avl( new ArvoreAVL<>() ) );
+        argumentos( "ArvoreVermelhoPreto", vermelhoPreto( new ArvoreVermelhoPreto<>() ) );
+        
+        System.out.println( "operacoes em lote: ok" );
+        
+    }
+    
+    private static void lotesAleatorios( String nome, Arvore a ) {
+        
+        Random r = new Random( SEMENTE );
+        TreeMap<Integer, Integer> m = new TreeMap<>();
+        
+        // lote vazio em árvore vazia
+        a.putAll( new Integer[0], new Integer[0] );
+        a.deleteAll( new Integer[0] );
+        comparar( a, m, nome + ", empty batch" );
+        
+        // lotes de tamanhos variados, do unitário a um maior que a árvore
+        int[] tamanhos = { 1, 2, 7, 100, 5000, 30000, 3, 1000 };
+        
+        for ( int rodada = 0; rodada < 3; rodada++ ) {
+            
+            for ( int tamanho : tamanhos ) {
+                
+                String contexto = nome + ", round " + rodada + ", batch of " + tamanho;
+                
+                // chaves em um intervalo menor que o lote grande, para que
+                // haja repetições; prevalece o último valor
+                Integer[] keys = sortear( r, tamanho );
+                Integer[] values = new Integer[tamanho];
+                for ( int i = 0; i < tamanho; i++ ) {
+                    values[i] = r.nextInt();
+                    m.put( keys[i], values[i] );
+                }
+                
+                a.putAll( keys, values );
+                comparar( a, m, contexto + ", putAll" );
+                
+                Integer[] consultas = sortear( r, tamanho );
+                Integer[] obtidos = new Integer[tamanho];
+                a.getAll( consultas, obtidos );
+                for ( int i = 0; i < tamanho; i++ ) {
+                    verificarIguais( m.get( consultas[i] ), obtidos[i],
+                            contexto + ", getAll position " + i + " (" + consultas[i] + ")" );
+                }
+                
+                Integer[] remocoes = sortear( r, tamanho / 2 );
+                for ( Integer k : remocoes ) {
+                    m.remove( k );
+                }
+                
+                a.deleteAll( remocoes );
+                comparar( a, m, contexto + ", deleteAll" );
+                
+            }
+            
+            // esvazia a árvore por um único lote com todas as chaves
+            a.deleteAll( m.keySet().toArray( new Integer[0] ) );
+            m.clear();
+            comparar( a, m, nome + ", round " + rodada + ", deleteAll of every key" );
+            
+        }
+        
+    }
+    
+    private static void argumentos( String nome, Arvore a ) {
+        
+        a.putAll( new Integer[]{ 3, 1, 3, 2, 3 }, new Integer[]{ 1, 2, 3, 4, 5 } );
+        verificarIguais( 5, a.get( 3 ), nome + ", last value of a repeated key" );
+        
+        // getAll com chaves repetidas devolve os valores na ordem pedida e
+        // limpa as posições de chaves ausentes
+        Integer[] obtidos = { -1, -1, -1, -1, -1 };
+        a.getAll( new Integer[]{ 2, 9, 2, 1, 3 }, obtidos );
+        verificarIguais( Arrays.asList( 4, null, 4, 2, 5 ), Arrays.asList( obtidos ),
+                nome + ", getAll with repeated and absent keys" );
+        
+        verificarLanca( IllegalArgumentException.class,
+                () -> a.putAll( null, new Integer[0] ), nome + ", putAll(null, ...)" );
+        verificarLanca( IllegalArgumentException.class,
+                () -> a.putAll( new Integer[]{ 1 }, new Integer[0] ), nome + ", putAll with mismatched lengths" );
+        verificarLanca( IllegalArgumentException.class,
+                () -> a.putAll( new Integer[]{ 1, null }, new Integer[]{ 1, 2 } ), nome + ", putAll with null key" );
+        verificarLanca( IllegalArgumentException.class,
+                () -> a.getAll( new Integer[]{ 1, 2 }, new Integer[1] ), nome + ", getAll with short values" );
+        verificarLanca( IllegalArgumentException.class,
+                () -> a.deleteAll( null ), nome + ", deleteAll(null)" );
+        verificarLanca( IllegalArgumentException.class,
+                () -> a.deleteAll( new Integer[]{ null } ), nome + ", deleteAll with null key" );
+        
+        verificarIguais( Arrays.asList( 1, 2, 3 ), listar( a.getKeys() ),
+                nome + ", tree unchanged by rejected batches" );
+        
+    }
+    
+    private static Integer[] sortear( Random r, int quantidade ) {
+        Integer[] keys = new Integer[quantidade];
+        for ( int i = 0; i < quantidade; i++ ) {
+            keys[i] = r.nextInt( CHAVES );
+        }
+        return keys;
+    }
+    
+    private static void comparar( Arvore a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        verificarIguais( new ArrayList<>( m.keySet() ), listar( a.getKeys() ), contexto + ", keys" );
+        
+        for ( Integer k : m.keySet() ) {
+            verificarIguais( m.get( k ), a.get( k ), contexto + ", get(" + k + ")" );
+        }
+        
+        a.verificarEstrutura( contexto );
+        
+    }
+    
+    private static Arvore avl( ArvoreAVL<Integer, Integer> a ) {
+        
+        return new Arvore() {
+            
+            @Override
+            public void putAll( Integer[] keys, Integer[] values ) {
+                a.putAll( keys, values );
+            }
+            
+            @Override
+            public void getAll( Integer[] keys, Integer[] values ) {
+                a.getAll( keys, values );
+            }
+            
+            @Override
+            public void deleteAll( Integer[] keys ) {
+                a.deleteAll( keys );
+            }
+            
+            @Override
+            public Iterable<Integer> getKeys() {
+                return a.getKeys();
+            }
+            
+            @Override
+            public Integer get( Integer key ) {
+                return a.get( key );
+            }
+            
+            @Override
+            public void verificarEstrutura( String contexto ) {
+                Invariantes.verificarAVL( a, contexto );
+            }
+            
+        };
+        
+    }
+    
+    private static Arvore vermelhoPreto( ArvoreVermelhoPreto<Integer, Integer> a ) {
+        
+        return new Arvore() {
+            
+            @Override
+            public void putAll( Integer[] keys, Integer[] values ) {
+                a.putAll( keys, values );
+            }
+            
+            @Override
+            public void getAll( Integer[] keys, Integer[] values ) {
+                a.getAll( keys, values );
+            }
+            
+            @Override
+            public void deleteAll( Integer[] keys ) {
+                a.deleteAll( keys );
+            }
+            
+            @Override
+            public Iterable<Integer> getKeys() {
+                return a.getKeys();
+            }
+            
+            @Override
+            public Integer get( Integer key ) {
+                return a.get( key );
+            }
+            
+            @Override
+            public void verificarEstrutura( String contexto ) {
+                Invariantes.verificarVermelhoPreto( a, contexto );
+            }
+            
+        };
+        
+    }
+
+}
@@ -0,0 +1,237 @@
+package projetoesdarvores.testes;
+
+import static projetoesdarvores.testes.Verificacoes.verificar;
+import static projetoesdarvores.testes.Verificacoes.verificarIguais;
+import static projetoesdarvores.testes.Verificacoes.verificarLanca;
+
+import aesd.ds.interfaces.SymbolTable.Entry;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import projetoesdarvores.esd.ArvoreAVL;
+import projetoesdarvores.esd.ArvoreVermelhoPreto;
+
+/**
+ * Testes dos spliterators e streams da ArvoreAVL e da ArvoreVermelhoPreto,
+ * comparados com a TreeMap: divisões recursivas até partes unitárias,
+ * tamanhos informados pelas partes, streams paralelos e invalidação por
+ * modificações estruturais.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class TestesSpliterator {
+
+    private static final long SEMENTE = 20111101L;
+    
+    /*
+     * Operações comuns às duas árvores.
+     */
+    private interface Arvore {
+        void put( Integer key, Integer value );
+        Spliterator<Integer> spliterator();
+        Stream<Integer> stream();
+        Stream<Entry<Integer, Integer>> entryStream();
+    }
+    
+    public static void main( String[] args ) {
+        executar();
+    }
+    
+    static void executar() {
+        
+        executar( "ArvoreAVL", () -> avl( new ArvoreAVL<>() ) );
+        executar( "ArvoreVermelhoPreto", () -> vermelhoPreto( new ArvoreVermelhoPreto<>() ) );
+        
+        System.out.println( "spliterators: ok" );
+        
+    }
+    
+    private static void executar( String nome, Supplier<Arvore> fabrica ) {
+        
+        for ( int n : new int[]{ 0, 1, 2, 3, 100, 50000 } ) {
+            
+            Random r = new Random( SEMENTE + n );
+            TreeMap<Integer, Integer> m = new TreeMap<>();
+            Arvore a = fabrica.get();
+            
+            while ( m.size() < n ) {
+                int k = r.nextInt( 4 * n );
+                a.put( k, -k );
+                m.put( k, -k );
+            }
+            
+            String contexto = nome + ", n = " + n;
+            divisoes( a, m, contexto );
+            streams( a, m, contexto );
+            
+        }
+        
+        modificacao( nome, fabrica.get() );
+        
+    }
+    
+    private static void divisoes( Arvore a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        Spliterator<Integer> s = a.spliterator();
+        
+        int esperadas = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT
+                | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED;
+        verificarIguais( esperadas, s.characteristics() & esperadas, contexto + ", characteristics()" );
+        verificarIguais( (long) m.size(), s.getExactSizeIfKnown(), contexto + ", getExactSizeIfKnown()" );
+        verificarIguais( null, s.getComparator(), contexto + ", natural order comparator" );
+        
+        // as partes, concatenadas na ordem em que foram divididas, devem
+        // conter todas as chaves uma única vez
+        List<Integer> chaves = new ArrayList<>();
+        int[] partes = new int[1];
+        dividir( s, chaves, partes, contexto );
+        
+        verificarIguais( new ArrayList<>( m.keySet() ), chaves, contexto + ", keys of every split part" );
+        verificarIguais( m.size(), partes[0], contexto + ", split down to single keys" );
+        
+        // depois de iniciado o percurso o spliterator não se divide mais
+        if ( m.size() > 1 ) {
+            Spliterator<Integer> iniciado = a.spliterator();
+            iniciado.tryAdvance( k -> { } );
+            verificarIguais( null, iniciado.trySplit(), contexto + ", trySplit() after traversal started" );
+        }
+        
+    }
+    
+    /*
+     * Divide até não ser mais possível, acrescentando as chaves da parte
+     * retornada antes das que ficam.
+     */
+    private static void dividir( Spliterator<Integer> s, List<Integer> chaves, int[] partes, String contexto ) {
+        
+        Spliterator<Integer> prefixo = s.trySplit();
+        
+        if ( prefixo != null ) {
+            dividir( prefixo, chaves, partes, contexto );
+            dividir( s, chaves, partes, contexto );
+            return;
+        }
+        
+        long tamanho = s.estimateSize();
+        int antes = chaves.size();
+        s.forEachRemaining( chaves::add );
+        
+        if ( antes < chaves.size() ) {
+            partes[0]++;
+        }
+        
+        verificar( chaves.size() - antes <= 1, contexto + ": split stopped with " + ( chaves.size() - antes ) + " keys" );
+        verificarIguais( (long) ( chaves.size() - antes ), tamanho, contexto + ", estimateSize() of a part" );
+        
+    }
+    
+    private static void streams( Arvore a, TreeMap<Integer, Integer> m, String contexto ) {
+        
+        verificarIguais( new ArrayList<>( m.keySet() ), a.stream().collect( Collectors.toList() ),
+                contexto + ", stream()" );
+        verificarIguais( new ArrayList<>( m.keySet() ), a.stream().parallel().collect( Collectors.toList() ),
+                contexto + ", parallel stream()" );
+        verificarIguais( (long) m.size(), a.stream().parallel().count(), contexto + ", parallel count()" );
+        
+        long soma = 0;
+        for ( int k : m.keySet() ) {
+            soma += k;
+        }
+        verificarIguais( soma, a.stream().parallel().mapToLong( Integer::longValue ).sum(),
+                contexto + ", parallel sum()" );
+        
+        List<Integer> valores = a.entryStream().parallel().map( Entry::getValue ).collect( Collectors.toList() );
+        verificarIguais( new ArrayList<>( m.values() ), valores, contexto + ", parallel entryStream() values" );
+        
+        verificar( a.entryStream().spliterator().getComparator() != null, contexto + ", entry comparator" );
+        
+        if ( !m.isEmpty() ) {
+            Integer meio = m.keySet().stream().skip( m.size() / 2 ).findFirst().get();
+            verificarIguais( m.ceilingKey( meio ), a.stream().parallel().filter( k -> k >= meio ).findFirst().get(),
+                    contexto + ", parallel findFirst()" );
+        }
+        
+    }
+    
+    private static void modificacao( String nome, Arvore a ) {
+        
+        for ( int k = 0; k < 10; k++ ) {
+            a.put( k, k );
+        }
+        
+        Spliterator<Integer> s = a.spliterator();
+        s.tryAdvance( k -> { } );
+        a.put( 100, 100 );
+        verificarLanca( ConcurrentModificationException.class, () -> s.tryAdvance( k -> { } ),
+                nome + ", tryAdvance() after modification" );
+        
+        Spliterator<Integer> t = a.spliterator();
+        a.put( 101, 101 );
+        verificarLanca( ConcurrentModificationException.class, () -> t.forEachRemaining( k -> { } ),
+                nome + ", forEachRemaining() after modification" );
+        
+    }
+    
+    private static Arvore avl( ArvoreAVL<Integer, Integer> a ) {
+        
+        return new Arvore() {
+            
+            @Override
+            public void put( Integer key, Integer value ) {
+                a.put( key, value );
+            }
+            
+            @Override
+            public Spliterator<Integer> spliterator() {
+                return a.spliterator();
+            }
+            
+            @Override
+            public Stream<Integer> stream() {
+                return a.stream();
+            }
+            
+            @Override
+            public Stream<Entry<Integer, Integer>> entryStream() {
+                return a.entryStream();
+            }
+            
+        };
+        
+    }
+    
+    private static Arvore vermelhoPreto( ArvoreVermelhoPreto<Integer, Integer> a ) {
+        
+        return new Arvore() {
+            
+            @Override
+            public void put( Integer key, Integer value ) {
+                a.put( key, value );
+            }
+            
+            @Override
+            public Spliterator<Integer> spliterator() {
+                return a.spliterator();
+            }
+            
+            @Override
+            public Stream<Integer> stream() {
+                return a.stream();
+            }
+            
+            @Override
+            public Stream<Entry<Integer, Integer>> entryStream() {
+                return a.entryStream();
+            }
+            
+        };
+        
+    }
+
+}
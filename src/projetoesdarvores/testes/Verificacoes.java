@@ -0,0 +1,65 @@
+package projetoesdarvores.testes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Verificações usadas pelos testes das árvores. Uma verificação que falha
+ * lança AssertionError com a mensagem informada, o que interrompe a
+ * execução dos testes.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+final class Verificacoes {
+
+    private Verificacoes() {
+    }
+    
+    static void verificar( boolean condicao, String mensagem ) {
+        if ( !condicao ) {
+            throw new AssertionError( mensagem );
+        }
+    }
+    
+    static void verificarIguais( Object esperado, Object obtido, String contexto ) {
+        if ( !Objects.equals( esperado, obtido ) ) {
+            throw new AssertionError( contexto + ": expected " + esperado + " but was " + obtido );
+        }
+    }
+    
+    /**
+     * Verifica que a ação lança uma exceção do tipo informado.
+     *
+     * @param tipo O tipo esperado.
+     * @param acao A ação.
+     * @param contexto Descrição usada na mensagem de erro.
+     */
+    static void verificarLanca( Class<? extends Throwable> tipo, Runnable acao, String contexto ) {
+        try {
+            acao.run();
+        } catch ( Throwable t ) {
+            if ( tipo.isInstance( t ) ) {
+                return;
+            }
+            throw new AssertionError( contexto + ": expected " + tipo.getSimpleName() + " but was " + t, t );
+        }
+        throw new AssertionError( contexto + ": expected " + tipo.getSimpleName() );
+    }
+    
+    /**
+     * Copia os elementos de um iterável para uma lista, na ordem em que são
+     * percorridos.
+     *
+     * @param iteravel O iterável.
+     * @return A lista com os elementos.
+     */
+    static <T> List<T> listar( Iterable<T> iteravel ) {
+        List<T> lista = new ArrayList<>();
+        for ( T t : iteravel ) {
+            lista.add( t );
+        }
+        return lista;
+    }
+
+}
@@ -0,0 +1,382 @@
+package projetoesdarvores.utils;
+
+import br.com.davidbuzatto.jsge.core.engine.EngineFrame;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import projetoesdarvores.esd.OuvinteEstrutural;
+
+/**
+ * Réplica, só para desenho, de uma árvore binária balanceada (ArvoreAVL ou
+ * ArvoreVermelhoPreto), reconstruída a partir dos passos estruturais que a
+ * árvore real gravou: inserções, remoções, substituições, rotações,
+ * inversões de cores, cores da raiz e alturas.
+ *
+ * Cada passo aplicado recalcula a posição de destino dos nós (ranque em
+ * ordem na horizontal, profundidade na vertical) e, a cada quadro, os nós
+ * se deslocam em direção ao destino. Assim uma rotação aparece como o
+ * movimento dos nós envolvidos e não como a troca instantânea de uma figura
+ * por outra. Como os nós são localizados pelas chaves dos passos, a réplica
+ * só acompanha a árvore real se receber todos os passos, na ordem.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ArvoreAnimada implements OuvinteEstrutural {
+
+    // fração da distância ao destino percorrida por segundo
+    private static final double VELOCIDADE = 8;
+    
+    private static class No {
+        
+        Comparable<Object> chave;
+        No esquerda;
+        No direita;
+        boolean vermelho;
+        int altura;
+        double x;
+        double y;
+        double destinoX;
+        double destinoY;
+        
+    }
+    
+    private final boolean vermelhoPreto;
+    private final double margemEsquerda;
+    private final double margemCima;
+    private final double espacamento;
+    private final double raio;
+    
+    private No raiz;
+    private int tamanho;
+    
+    // chave que, depois de uma SUBSTITUICAO, aparece em dois nós até a
+    // REMOCAO do nó original do sucessor
+    private Object repetida;
+    
+    // chaves envolvidas no último passo aplicado, destacadas no desenho
+    private Object destaque;
+    private Object outroDestaque;
+    
+    /**
+     * @param vermelhoPreto true para replicar as cores de uma árvore
+     * vermelho-preto; false para replicar as alturas de uma árvore AVL.
+     * @param margemEsquerda Posição horizontal do nó de ranque 0.
+     * @param margemCima Posição vertical da raiz.
+     * @param espacamento Distância entre ranques e entre níveis.
+     * @param raio Raio dos nós.
+     */
+    public ArvoreAnimada( boolean vermelhoPreto, double margemEsquerda, double margemCima,
+            double espacamento, double raio ) {
+        this.vermelhoPreto = vermelhoPreto;
+        this.margemEsquerda = margemEsquerda;
+        this.margemCima = margemCima;
+        this.espacamento = espacamento;
+        this.raio = raio;
+    }
+    
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public void evento( TipoEvento tipo, Object chave, Object outra, int valor ) {
+        
+        destaque = chave;
+        outroDestaque = outra;
+        
+        switch ( tipo ) {
+            case INSERCAO:
+                inserir( (Comparable<Object>) chave );
+                break;
+            case REMOCAO:
+                remover( chave );
+                break;
+            case SUBSTITUICAO:
+                buscar( chave ).chave = (Comparable<Object>) outra;
+                repetida = outra;
+                break;
+            case ROTACAO_ESQUERDA:
+                rotacionar( chave, true );
+                break;
+            case ROTACAO_DIREITA:
+                rotacionar( chave, false );
+                break;
+            case INVERSAO_CORES:
+                No n = buscar( chave );
+                n.vermelho = !n.vermelho;
+                n.esquerda.vermelho = !n.esquerda.vermelho;
+                n.direita.vermelho = !n.direita.vermelho;
+                break;
+            case COR:
+                buscar( chave ).vermelho = valor == 0;
+                break;
+            case ALTURA:
+                buscar( chave ).altura = valor;
+                break;
+            case LIMPEZA:
+                raiz = null;
+                tamanho = 0;
+                repetida = null;
+                break;
+            default:
+                // marcadores (MOVE_VERMELHO_*), cujos efeitos chegam como
+                // inversões e rotações, e passos exclusivos da ArvoreB
+                break;
+        }
+        
+        posicionar();
+        
+    }
+    
+    /**
+     * Aproxima cada nó da sua posição de destino.
+     *
+     * @param delta O tempo, em segundos, desde o último quadro.
+     */
+    public void atualizar( double delta ) {
+        double fracao = Math.min( 1, delta * VELOCIDADE );
+        for ( No n : emOrdem() ) {
+            n.x += ( n.destinoX - n.x ) * fracao;
+            n.y += ( n.destinoY - n.y ) * fracao;
+        }
+    }
+    
+    /**
+     * Desenha as arestas e os nós nas posições atuais. Os nós das chaves do
+     * último passo aplicado ficam contornados em laranja.
+     */
+    public void desenhar( EngineFrame engine ) {
+        
+        List<No> nos = emOrdem();
+        
+        for ( No n : nos ) {
+            if ( n.esquerda != null ) {
+                engine.drawLine( n.x, n.y, n.esquerda.x, n.esquerda.y, EngineFrame.BLACK );
+            }
+            if ( n.direita != null ) {
+                engine.drawLine( n.x, n.y, n.direita.x, n.direita.y, EngineFrame.BLACK );
+            }
+        }
+        
+        for ( No n : nos ) {
+            
+            Color fundo = vermelhoPreto ? ( n.vermelho ? EngineFrame.RED : EngineFrame.BLACK ) : EngineFrame.SKYBLUE;
+            Color texto = vermelhoPreto ? EngineFrame.WHITE : EngineFrame.BLACK;
+            boolean destacado = n.chave.equals( destaque ) || n.chave.equals( outroDestaque );
+            
+            engine.fillCircle( n.x, n.y, raio, fundo );
+            engine.drawCircle( n.x, n.y, raio, destacado ? EngineFrame.ORANGE : EngineFrame.BLACK );
+            if ( destacado ) {
+                engine.drawCircle( n.x, n.y, raio + 2, EngineFrame.ORANGE );
+            }
+            
+            String rotulo = String.valueOf( n.chave );
+            engine.drawText( rotulo, n.x - engine.measureText( rotulo, 14 ) / 2.0, n.y - 5, 14, texto );
+            
+            if ( !vermelhoPreto ) {
+                engine.drawText( "h" + n.altura, n.x + raio, n.y - raio, 10, EngineFrame.DARKGRAY );
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Retorna as chaves em pré-ordem, para comparar a réplica com a árvore
+     * real.
+     */
+    public List<Object> getChavesPreOrdem() {
+        List<Object> chaves = new ArrayList<>();
+        preOrdem( raiz, chaves );
+        return chaves;
+    }
+    
+    /**
+     * Retorna, em ordem, a cor (true para vermelho) ou a altura de cada nó,
+     * conforme o tipo de árvore replicado.
+     */
+    public List<Object> getAtributosEmOrdem() {
+        List<Object> atributos = new ArrayList<>();
+        for ( No n : emOrdem() ) {
+            atributos.add( vermelhoPreto ? (Object) n.vermelho : (Object) n.altura );
+        }
+        return atributos;
+    }
+    
+    public int getTamanho() {
+        return tamanho;
+    }
+    
+    /*
+     * O novo nó entra como folha, na posição da busca, e começa na posição
+     * do pai para que pareça descer dele.
+     */
+    private void inserir( Comparable<Object> chave ) {
+        
+        No novo = new No();
+        novo.chave = chave;
+        novo.vermelho = true;
+        novo.altura = 1;
+        tamanho++;
+        
+        if ( raiz == null ) {
+            raiz = novo;
+            novo.x = margemEsquerda;
+            novo.y = margemCima;
+            return;
+        }
+        
+        No pai = raiz;
+        while ( true ) {
+            if ( chave.compareTo( pai.chave ) < 0 ) {
+                if ( pai.esquerda == null ) {
+                    pai.esquerda = novo;
+                    break;
+                }
+                pai = pai.esquerda;
+            } else {
+                if ( pai.direita == null ) {
+                    pai.direita = novo;
+                    break;
+                }
+                pai = pai.direita;
+            }
+        }
+        
+        novo.x = pai.x;
+        novo.y = pai.y;
+        
+    }
+    
+    /*
+     * Desliga o nó da chave, que tem no máximo um filho. Depois de uma
+     * SUBSTITUICAO a chave aparece duas vezes: no nó que recebeu o sucessor,
+     * que pode ter só o filho direito, e no nó original do sucessor, o
+     * mínimo da subárvore direita, que é o removido.
+     */
+    private void remover( Object chave ) {
+        
+        No pai = null;
+        No n = raiz;
+        
+        if ( repetida != null && repetida.equals( chave ) ) {
+            pai = buscar( chave );
+            n = pai.direita;
+            while ( n.esquerda != null ) {
+                pai = n;
+                n = n.esquerda;
+            }
+            repetida = null;
+        } else {
+            int c;
+            while ( ( c = n.chave.compareTo( chave ) ) != 0 ) {
+                pai = n;
+                n = c > 0 ? n.esquerda : n.direita;
+            }
+        }
+        
+        No filho = n.esquerda != null ? n.esquerda : n.direita;
+        
+        if ( pai == null ) {
+            raiz = filho;
+        } else if ( pai.esquerda == n ) {
+            pai.esquerda = filho;
+        } else {
+            pai.direita = filho;
+        }
+        
+        tamanho--;
+        
+    }
+    
+    /*
+     * Localiza o nó da chave. Com a chave repetida depois de uma
+     * SUBSTITUICAO, encontra o nó mais alto, que é o que permanece.
+     */
+    private No buscar( Object chave ) {
+        No n = raiz;
+        int c;
+        while ( ( c = n.chave.compareTo( chave ) ) != 0 ) {
+            n = c > 0 ? n.esquerda : n.direita;
+        }
+        return n;
+    }
+    
+    /*
+     * Rotaciona o nó da chave e religa a nova raiz da subárvore no pai. A
+     * troca de cores repete a das rotações da ArvoreVermelhoPreto; na réplica
+     * da ArvoreAVL as alturas chegam depois, em passos ALTURA.
+     */
+    private void rotacionar( Object chave, boolean esquerda ) {
+        
+        No pai = null;
+        No n = raiz;
+        int c;
+        
+        while ( ( c = n.chave.compareTo( chave ) ) != 0 ) {
+            pai = n;
+            n = c > 0 ? n.esquerda : n.direita;
+        }
+        
+        No x;
+        
+        if ( esquerda ) {
+            x = n.direita;
+            n.direita = x.esquerda;
+            x.esquerda = n;
+        } else {
+            x = n.esquerda;
+            n.esquerda = x.direita;
+            x.direita = n;
+        }
+        
+        x.vermelho = n.vermelho;
+        n.vermelho = true;
+        
+        if ( pai == null ) {
+            raiz = x;
+        } else if ( pai.esquerda == n ) {
+            pai.esquerda = x;
+        } else {
+            pai.direita = x;
+        }
+        
+    }
+    
+    /*
+     * Recalcula os destinos: ranque em ordem e profundidade.
+     */
+    private void posicionar() {
+        posicionar( raiz, 0, 0 );
+    }
+    
+    private int posicionar( No n, int ranque, int nivel ) {
+        if ( n == null ) {
+            return ranque;
+        }
+        ranque = posicionar( n.esquerda, ranque, nivel + 1 );
+        n.destinoX = margemEsquerda + ranque * espacamento;
+        n.destinoY = margemCima + nivel * espacamento;
+        return posicionar( n.direita, ranque + 1, nivel + 1 );
+    }
+    
+    private List<No> emOrdem() {
+        List<No> nos = new ArrayList<>( tamanho );
+        emOrdem( raiz, nos );
+        return nos;
+    }
+    
+    private void emOrdem( No n, List<No> nos ) {
+        if ( n != null ) {
+            emOrdem( n.esquerda, nos );
+            nos.add( n );
+            emOrdem( n.direita, nos );
+        }
+    }
+    
+    private void preOrdem( No n, List<Object> chaves ) {
+        if ( n != null ) {
+            chaves.add( n.chave );
+            preOrdem( n.esquerda, chaves );
+            preOrdem( n.direita, chaves );
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package projetoesdarvores.utils;
+
+import br.com.davidbuzatto.jsge.core.Camera2D;
+
+/**
+ * Geometria do desenho de um InstantaneoDesenho no SimuladorABB: cada nó é
+ * um círculo na posição do seu ranque, na horizontal, e do seu nível, na
+ * vertical. Como o ranque é a posição do nó no instantâneo, os nós visíveis
+ * em uma faixa horizontal do mundo formam um intervalo contíguo de posições,
+ * calculado sem percorrer os nós.
+ *
+ * Também reúne as conversões entre a tela e o mundo de uma câmera sem
+ * rotação e o zoom centrado em um ponto da tela, que não alocam objetos e
+ * podem ser usadas a cada quadro.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class GeometriaDesenho {
+
+    // espaçamento mínimo entre nós na tela, em pixels, para desenhá-los
+    // como círculos
+    private static final double ESPACAMENTO_MINIMO_DETALHE = 6;
+    
+    private final double margemEsquerda;
+    private final double margemCima;
+    private final double espacamento;
+    private final double raio;
+    
+    /**
+     * @param margemEsquerda Posição horizontal do nó de ranque 0.
+     * @param margemCima Posição vertical da raiz.
+     * @param espacamento Distância entre ranques e entre níveis.
+     * @param raio Raio dos nós, menor que metade do espaçamento.
+     */
+    public GeometriaDesenho( double margemEsquerda, double margemCima, double espacamento, double raio ) {
+        this.margemEsquerda = margemEsquerda;
+        this.margemCima = margemCima;
+        this.espacamento = espacamento;
+        this.raio = raio;
+    }
+    
+    public double getEspacamento() {
+        return espacamento;
+    }
+    
+    public double getRaio() {
+        return raio;
+    }
+    
+    /**
+     * Posição horizontal, no mundo, do centro dos nós de um ranque.
+     */
+    public double x( int ranque ) {
+        return espacamento * ranque + margemEsquerda;
+    }
+    
+    /**
+     * Posição vertical, no mundo, do centro dos nós de um nível.
+     */
+    public double y( int nivel ) {
+        return espacamento * nivel + margemCima;
+    }
+    
+    /**
+     * Retorna a posição do primeiro nó cujo círculo alcança a borda esquerda
+     * visível.
+     *
+     * @param esquerda A borda esquerda visível, no mundo.
+     */
+    public int primeiroVisivel( double esquerda ) {
+        return (int) Math.max( 0, Math.ceil( ( esquerda - raio - margemEsquerda ) / espacamento ) );
+    }
+    
+    /**
+     * Retorna a posição do último nó cujo círculo alcança a borda direita
+     * visível. Fica menor que primeiroVisivel quando nenhum nó é visível.
+     *
+     * @param inst O instantâneo desenhado.
+     * @param direita A borda direita visível, no mundo.
+     */
+    public int ultimoVisivel( InstantaneoDesenho<?> inst, double direita ) {
+        return (int) Math.min( inst.getTamanho() - 1, Math.floor( ( direita + raio - margemEsquerda ) / espacamento ) );
+    }
+    
+    /**
+     * Retorna o primeiro nível cujos círculos alcançam a borda superior
+     * visível.
+     *
+     * @param cima A borda superior visível, no mundo.
+     */
+    public int nivelMinimoVisivel( double cima ) {
+        return (int) Math.max( 0, Math.floor( ( cima - raio - margemCima ) / espacamento ) );
+    }
+    
+    /**
+     * Retorna o último nível cujos círculos alcançam a borda inferior
+     * visível.
+     *
+     * @param inst O instantâneo desenhado.
+     * @param baixo A borda inferior visível, no mundo.
+     */
+    public int nivelMaximoVisivel( InstantaneoDesenho<?> inst, double baixo ) {
+        return (int) Math.min( inst.getAltura() - 1, Math.ceil( ( baixo + raio - margemCima ) / espacamento ) );
+    }
+    
+    /**
+     * Verifica se, com o zoom informado, os nós ficam próximos demais para
+     * serem desenhados como círculos e devem ser desenhados como barras de
+     * densidade.
+     */
+    public boolean isDetalheReduzido( double zoom ) {
+        return espacamento * zoom < ESPACAMENTO_MINIMO_DETALHE;
+    }
+    
+    /**
+     * Retorna a quantidade de ranques cujo centro fica na faixa horizontal
+     * [x, x + largura) do mundo. Faixas adjacentes não compartilham ranques.
+     */
+    public int ranquesNaFaixa( InstantaneoDesenho<?> inst, double x, double largura ) {
+        return ranqueAPartirDe( inst, x + largura ) - ranqueAPartirDe( inst, x );
+    }
+    
+    /**
+     * Conta os nós de um nível cujo centro fica na faixa horizontal
+     * [x, x + largura) do mundo, por busca binária no instantâneo.
+     */
+    public int contarNaFaixa( InstantaneoDesenho<?> inst, int nivel, double x, double largura ) {
+        return inst.contarNoNivel( nivel, ranqueAPartirDe( inst, x ), ranqueAPartirDe( inst, x + largura ) );
+    }
+    
+    /*
+     * Primeiro ranque com centro em x ou à sua direita, limitado a
+     * [0, tamanho].
+     */
+    private int ranqueAPartirDe( InstantaneoDesenho<?> inst, double x ) {
+        return (int) Math.max( 0, Math.min( inst.getTamanho(), Math.ceil( ( x - margemEsquerda ) / espacamento ) ) );
+    }
+    
+    /**
+     * Retorna a posição no instantâneo do nó cujo círculo contém o ponto do
+     * mundo (x, y), ou -1. Como o raio é menor que metade do espaçamento, só
+     * o nó de ranque mais próximo de x pode conter o ponto, e apenas se
+     * estiver no nível mais próximo de y: o próprio instantâneo, em que o
+     * ranque é a posição, serve de índice espacial e a consulta é O(1).
+     */
+    public int localizarNo( InstantaneoDesenho<?> inst, double x, double y ) {
+        
+        long ranque = Math.round( ( x - margemEsquerda ) / espacamento );
+        long nivel = Math.round( ( y - margemCima ) / espacamento );
+        
+        if ( ranque < 0 || ranque >= inst.getTamanho() || inst.getNivel( (int) ranque ) != nivel ) {
+            return -1;
+        }
+        
+        double dx = x - x( (int) ranque );
+        double dy = y - y( (int) nivel );
+        
+        return dx * dx + dy * dy <= raio * raio ? (int) ranque : -1;
+        
+    }
+    
+    /**
+     * Converte uma posição horizontal da tela para o mundo.
+     */
+    public static double mundoX( Camera2D camera, double telaX ) {
+        return ( telaX - camera.offset.x ) / camera.zoom + camera.target.x;
+    }
+    
+    /**
+     * Converte uma posição vertical da tela para o mundo.
+     */
+    public static double mundoY( Camera2D camera, double telaY ) {
+        return ( telaY - camera.offset.y ) / camera.zoom + camera.target.y;
+    }
+    
+    /**
+     * Troca o zoom da câmera mantendo o ponto do mundo sob o ponto da tela
+     * (telaX, telaY) no mesmo lugar.
+     *
+     * @param camera A câmera, sem rotação.
+     * @param telaX Posição horizontal do ponto fixo na tela.
+     * @param telaY Posição vertical do ponto fixo na tela.
+     * @param zoom O novo zoom.
+     */
+    public static void aplicarZoom( Camera2D camera, double telaX, double telaY, double zoom ) {
+        double x = mundoX( camera, telaX );
+        double y = mundoY( camera, telaY );
+        camera.zoom = zoom;
+        camera.offset.x = telaX;
+        camera.offset.y = telaY;
+        camera.target.x = x;
+        camera.target.y = y;
+    }
+
+}
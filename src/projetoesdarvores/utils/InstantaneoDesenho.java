@@ -0,0 +1,217 @@
+package projetoesdarvores.utils;
+
+import aesd.ds.interfaces.List;
+import java.awt.Color;
+import projetoesdarvores.esd.ArvoreBinariaBusca;
+
+/**
+ * Instantâneo imutável de tudo o que é necessário para desenhar uma árvore:
+ * a chave, o nível, o ranque, a cor e o pai de cada nó, em ordem, além dos
+ * ranques dos nós de cada nível, usados para contar nós de um intervalo sem
+ * percorrê-los.
+ *
+ * É criado pela thread que altera a árvore e publicado para a thread de
+ * desenho, que passa a lê-lo sem nunca tocar nos nós vivos da árvore. Como
+ * todos os campos são finais e os arranjos não são expostos, um instantâneo
+ * publicado pode ser lido por qualquer thread sem sincronização adicional.
+ *
+ * @param <Key> Tipo das chaves da árvore.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class InstantaneoDesenho<Key> {
+
+    private final long versao;
+    private final Object[] chaves;
+    private final int[] niveis;
+    private final int[] ranques;
+    private final Color[] cores;
+    private final int[] pais;
+    private final int[][] ranquesPorNivel;
+    private final int altura;
+    
+    private InstantaneoDesenho( long versao, Object[] chaves, int[] niveis, int[] ranques, Color[] cores, int altura ) {
+        this.versao = versao;
+        this.chaves = chaves;
+        this.niveis = niveis;
+        this.ranques = ranques;
+        this.cores = cores;
+        this.altura = altura;
+        this.pais = calcularPais( niveis );
+        this.ranquesPorNivel = agruparPorNivel( niveis, ranques, altura );
+    }
+    
+    /*
+     * Calcula a posição do pai de cada nó a partir apenas dos níveis em
+     * ordem: o pai é, dentre o vizinho mais próximo à esquerda e o mais
+     * próximo à direita com nível menor, o de maior nível. Cada sentido é
+     * resolvido com uma pilha monotônica, em O(n).
+     */
+    private static int[] calcularPais( int[] niveis ) {
+        
+        int n = niveis.length;
+        int[] esquerda = new int[n];
+        int[] pais = new int[n];
+        int[] pilha = new int[n];
+        int topo = 0;
+        
+        for ( int i = 0; i < n; i++ ) {
+            while ( topo > 0 && niveis[pilha[topo-1]] >= niveis[i] ) {
+                topo--;
+            }
+            esquerda[i] = topo > 0 ? pilha[topo-1] : -1;
+            pilha[topo++] = i;
+        }
+        
+        topo = 0;
+        
+        for ( int i = n - 1; i >= 0; i-- ) {
+            while ( topo > 0 && niveis[pilha[topo-1]] >= niveis[i] ) {
+                topo--;
+            }
+            int direita = topo > 0 ? pilha[topo-1] : -1;
+            pilha[topo++] = i;
+            if ( esquerda[i] == -1 ) {
+                pais[i] = direita;
+            } else if ( direita == -1 ) {
+                pais[i] = esquerda[i];
+            } else {
+                pais[i] = niveis[esquerda[i]] > niveis[direita] ? esquerda[i] : direita;
+            }
+        }
+        
+        return pais;
+        
+    }
+    
+    /*
+     * Separa os ranques por nível. Como os nós estão em ordem, os ranques
+     * de cada nível já ficam ordenados.
+     */
+    private static int[][] agruparPorNivel( int[] niveis, int[] ranques, int altura ) {
+        
+        int[] quantidades = new int[altura];
+        for ( int nivel : niveis ) {
+            quantidades[nivel]++;
+        }
+        
+        int[][] grupos = new int[altura][];
+        for ( int i = 0; i < altura; i++ ) {
+            grupos[i] = new int[quantidades[i]];
+            quantidades[i] = 0;
+        }
+        
+        for ( int i = 0; i < niveis.length; i++ ) {
+            grupos[niveis[i]][quantidades[niveis[i]]++] = ranques[i];
+        }
+        
+        return grupos;
+        
+    }
+    
+    /**
+     * Cria um instantâneo copiando os dados de desenho de uma lista de nós em
+     * ordem, como a retornada por ArvoreBinariaBusca.coletarParaDesenho().
+     *
+     * @param versao A versão da árvore que o instantâneo representa.
+     * @param nos Os nós, em ordem.
+     * @return O instantâneo.
+     */
+    public static <Key extends Comparable<Key>, Value> InstantaneoDesenho<Key> criar(
+            long versao, List<ArvoreBinariaBusca.Node<Key, Value>> nos ) {
+            
+        int n = nos.getSize();
+        Object[] chaves = new Object[n];
+        int[] niveis = new int[n];
+        int[] ranques = new int[n];
+        Color[] cores = new Color[n];
+        int altura = 0;
+        
+        int i = 0;
+        for ( ArvoreBinariaBusca.Node<Key, Value> no : nos ) {
+            chaves[i] = no.key;
+            niveis[i] = no.nivel;
+            ranques[i] = no.ranque;
+            cores[i] = no.cor;
+            altura = Math.max( altura, no.nivel + 1 );
+            i++;
+        }
+        
+        return new InstantaneoDesenho<>( versao, chaves, niveis, ranques, cores, altura );
+        
+    }
+    
+    public long getVersao() {
+        return versao;
+    }
+    
+    public int getTamanho() {
+        return chaves.length;
+    }
+    
+    /**
+     * Retorna a quantidade de níveis da árvore representada.
+     */
+    public int getAltura() {
+        return altura;
+    }
+    
+    @SuppressWarnings( "unchecked" )
+    public Key getChave( int i ) {
+        return (Key) chaves[i];
+    }
+    
+    public int getNivel( int i ) {
+        return niveis[i];
+    }
+    
+    public int getRanque( int i ) {
+        return ranques[i];
+    }
+    
+    public Color getCor( int i ) {
+        return cores[i];
+    }
+    
+    /**
+     * Retorna a posição do pai do nó da posição i ou -1 para a raiz.
+     */
+    public int getPai( int i ) {
+        return pais[i];
+    }
+    
+    /**
+     * Conta, por busca binária, os nós de um nível com ranque no intervalo
+     * [ranqueInicial, ranqueFinal).
+     *
+     * @param nivel O nível.
+     * @param ranqueInicial O menor ranque (inclusivo).
+     * @param ranqueFinal O maior ranque (exclusivo).
+     * @return A quantidade de nós.
+     */
+    public int contarNoNivel( int nivel, int ranqueInicial, int ranqueFinal ) {
+        if ( nivel < 0 || nivel >= altura || ranqueFinal <= ranqueInicial ) {
+            return 0;
+        }
+        int[] grupo = ranquesPorNivel[nivel];
+        return limiteInferior( grupo, ranqueFinal ) - limiteInferior( grupo, ranqueInicial );
+    }
+    
+    /*
+     * Posição do primeiro elemento maior ou igual a valor no arranjo ordenado.
+     */
+    private static int limiteInferior( int[] a, int valor ) {
+        int lo = 0;
+        int hi = a.length;
+        while ( lo < hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            if ( a[mid] < valor ) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+}
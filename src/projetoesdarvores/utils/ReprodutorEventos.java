@@ -0,0 +1,159 @@
+package projetoesdarvores.utils;
+
+import br.com.davidbuzatto.jsge.core.engine.EngineFrame;
+import projetoesdarvores.esd.BufferEventosEstruturais;
+import projetoesdarvores.esd.OuvinteEstrutural;
+
+/**
+ * Reproduz, um passo por vez e em ritmo fixo, os passos estruturais guardados
+ * em um BufferEventosEstruturais, desenhando-os como uma lista em que o passo
+ * atual fica destacado. Opcionalmente, cada passo reproduzido é repassado a
+ * um ouvinte de destino, como uma ArvoreAnimada, no momento em que é
+ * reproduzido.
+ *
+ * Deve ser usado pela mesma thread que altera a árvore observada.
+ *
+ * @author Prof. Dr. David Buzatto
+ */
+public class ReprodutorEventos {
+
+    // quantidade de passos anteriores desenhados junto ao atual
+    private static final int PASSOS_VISIVEIS = 16;
+    
+    private final BufferEventosEstruturais buffer;
+    private final double intervalo;
+    private final OuvinteEstrutural destino;
+    
+    // sequência do próximo passo a ser reproduzido
+    private long proximo;
+    private double acumulado;
+    
+    /**
+     * @param buffer O buffer registrado como ouvinte da árvore.
+     * @param intervalo O tempo, em segundos, entre dois passos.
+     */
+    public ReprodutorEventos( BufferEventosEstruturais buffer, double intervalo ) {
+        this( buffer, intervalo, null );
+    }
+    
+    /**
+     * @param buffer O buffer registrado como ouvinte da árvore.
+     * @param intervalo O tempo, em segundos, entre dois passos.
+     * @param destino O ouvinte que recebe cada passo reproduzido, ou null.
+     * Passos sobrescritos no buffer antes de serem reproduzidos não chegam
+     * a ele.
+     */
+    public ReprodutorEventos( BufferEventosEstruturais buffer, double intervalo, OuvinteEstrutural destino ) {
+        this.buffer = buffer;
+        this.intervalo = intervalo;
+        this.destino = destino;
+    }
+    
+    /**
+     * Avança a reprodução de acordo com o tempo decorrido. Caso os passos
+     * ainda não reproduzidos tenham sido sobrescritos no buffer, recomeça do
+     * mais antigo disponível.
+     */
+    public void atualizar( double delta ) {
+        
+        proximo = Math.max( proximo, buffer.getPrimeiraSequencia() );
+        
+        if ( proximo >= buffer.getProximaSequencia() ) {
+            acumulado = 0;
+            return;
+        }
+        
+        acumulado += delta;
+        while ( acumulado >= intervalo && proximo < buffer.getProximaSequencia() ) {
+            acumulado -= intervalo;
+            reproduzir();
+        }
+        
+    }
+    
+    /**
+     * Reproduz imediatamente todos os passos pendentes.
+     */
+    public void concluir() {
+        proximo = Math.max( proximo, buffer.getPrimeiraSequencia() );
+        while ( proximo < buffer.getProximaSequencia() ) {
+            reproduzir();
+        }
+        acumulado = 0;
+    }
+    
+    /*
+     * Reproduz o próximo passo, repassando-o ao destino.
+     */
+    private void reproduzir() {
+        if ( destino != null ) {
+            destino.evento( buffer.getTipo( proximo ), buffer.getChave( proximo ),
+                    buffer.getOutraChave( proximo ), buffer.getValor( proximo ) );
+        }
+        proximo++;
+    }
+    
+    /**
+     * Indica se ainda há passos a reproduzir.
+     */
+    public boolean isReproduzindo() {
+        return proximo < buffer.getProximaSequencia();
+    }
+    
+    /**
+     * Retorna a chave principal do último passo reproduzido, ou null caso
+     * nenhum passo tenha sido reproduzido.
+     */
+    public Object getChaveAtual() {
+        if ( proximo == 0 || proximo - 1 < buffer.getPrimeiraSequencia() ) {
+            return null;
+        }
+        return buffer.getChave( proximo - 1 );
+    }
+    
+    /**
+     * Desenha os últimos passos reproduzidos, do mais antigo ao atual, que
+     * fica em vermelho.
+     */
+    public void desenhar( EngineFrame engine, double x, double y ) {
+        
+        long fim = proximo;
+        long inicio = Math.max( buffer.getPrimeiraSequencia(), fim - PASSOS_VISIVEIS );
+        
+        engine.drawText( "passos: " + fim + " de " + buffer.getProximaSequencia(), x, y, 14, EngineFrame.BLACK );
+        
+        for ( long s = inicio; s < fim; s++ ) {
+            engine.drawText( descrever( s ), x, y + 20 * ( s - inicio + 1 ), 14,
+                    s == fim - 1 ? EngineFrame.RED : EngineFrame.DARKGRAY );
+        }
+        
+    }
+    
+    /**
+     * Descreve um passo em texto.
+     */
+    public String descrever( long sequencia ) {
+        
+        Object chave = buffer.getChave( sequencia );
+        Object outra = buffer.getOutraChave( sequencia );
+        int valor = buffer.getValor( sequencia );
+        
+        return switch ( buffer.getTipo( sequencia ) ) {
+            case INSERCAO -> "insere " + chave;
+            case REMOCAO -> "desliga o nó " + chave;
+            case SUBSTITUICAO -> "substitui " + chave + " por " + outra;
+            case ROTACAO_ESQUERDA -> "rotação à esquerda em " + chave + " (sobe " + outra + ")";
+            case ROTACAO_DIREITA -> "rotação à direita em " + chave + " (sobe " + outra + ")";
+            case INVERSAO_CORES -> "inverte as cores de " + chave + " e dos filhos";
+            case MOVE_VERMELHO_ESQUERDA -> "move vermelho à esquerda em " + chave;
+            case MOVE_VERMELHO_DIREITA -> "move vermelho à direita em " + chave;
+            case COR -> "raiz " + chave + " fica " + ( valor == 0 ? "vermelha" : "preta" );
+            case ALTURA -> "altura de " + chave + " passa a " + valor;
+            case DIVISAO -> "divide o nó cheio, " + chave + " sobe";
+            case FUSAO -> "funde os irmãos, " + chave + " desce";
+            case LIMPEZA -> "esvazia a árvore";
+        };
+        
+    }
+
+}